@@ -0,0 +1,636 @@
+package datavision.algorithms;
+
+import datavision.lib.data.ColumnStorage;
+import datavision.lib.data.CoordinateParser;
+import datavision.lib.data.DoubleColumn;
+import datavision.lib.data.IntColumn;
+import datavision.lib.data.LabelDictionary;
+import datavision.lib.data.MappedTSDLoader;
+import datavision.lib.data.NameTable;
+import datavision.lib.data.TSDLineParser;
+import javafx.geometry.Point2D;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A {@link DataSet} that keeps its instances in parallel primitive columns instead of two hash maps. The locations are
+ * stored in a single flat {@link DoubleColumn} in row-major order, the <i>d</i> coordinates of a row taking up
+ * <i>d</i> consecutive values, the labels as an {@link IntColumn} of ids into a {@link LabelDictionary}, and the
+ * instance names in a {@link NameTable} whose entries are the rows, so that every instance is addressable by its row
+ * number.
+ * Looking an instance up by name goes through the hash index of the name table, which also tells the parsers whether a
+ * name is used twice.
+ * <p>
+ * The coordinate and label columns are held in the {@link ColumnStorage} the dataset is created with, on the heap by
+ * default. Off the heap, they can grow far beyond the maximum heap size; since every algorithm reads them through the
+ * row-based accessors, none of them has to care where they are held.
+ * <p>
+ * Every instance of a dataset has the same number of coordinates, its dimension, which is 2 by default. The dimension
+ * can only be changed while the dataset is empty; the parsers set it from the first line they read.
+ * <p>
+ * The {@link #getLabels()} and {@link #getPoints()} maps are lazy views over the columns, which keeps the existing
+ * algorithms working unchanged. The points view projects every location on its first two coordinates. Writing a label
+ * through the view updates the label column in place. New algorithms should prefer the row-based accessors, which do
+ * not box anything and cover every coordinate.
+ *
+ * @author Patrick Chan
+ */
+public class ColumnarDataSet extends DataSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int DEFAULT_DIMENSION = 2;
+
+    private int size;
+    private int dimension;
+    /* the coordinates of every row, row after row */
+    private DoubleColumn coordinates;
+    private IntColumn labelIds;
+    /* the number of rows the columns have room for */
+    private int capacity;
+    private final ColumnStorage storage;
+    private NameTable names;
+    private final LabelDictionary labelDictionary;
+
+    private LabelsView labelsView;
+    private PointsView pointsView;
+
+    public ColumnarDataSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarDataSet(int initialCapacity) {
+        this(initialCapacity, ColumnStorage.HEAP);
+    }
+
+    public ColumnarDataSet(ColumnStorage storage) {
+        this(DEFAULT_CAPACITY, storage);
+    }
+
+    /**
+     * @param initialCapacity the number of rows to make room for
+     * @param storage         where to hold the coordinate and label columns
+     */
+    public ColumnarDataSet(int initialCapacity, ColumnStorage storage) {
+        this.storage = storage;
+        capacity = Math.max(initialCapacity, 1);
+        dimension = DEFAULT_DIMENSION;
+        coordinates = storage.newDoubleColumn((long) capacity * dimension);
+        labelIds = storage.newIntColumn(capacity);
+        names = new NameTable(capacity);
+        labelDictionary = new LabelDictionary();
+    }
+
+    private ColumnarDataSet(int size, NameTable names, int[] labelIds, int dimension, double[] coordinates) {
+        this.size = size;
+        this.dimension = dimension;
+        this.names = names;
+        this.capacity = Math.min(labelIds.length, coordinates.length / dimension);
+        this.storage = ColumnStorage.HEAP;
+        this.labelIds = ColumnStorage.wrap(labelIds);
+        this.coordinates = ColumnStorage.wrap(coordinates);
+        this.labelDictionary = new LabelDictionary();
+    }
+
+    /**
+     * Creates a dataset directly over the given columns, which are taken over rather than copied. The encoded names
+     * become the arena of the name table as they are and are only decoded once they are used, so that creating the
+     * dataset does not cost anything per row. The columns are held on the heap. The label ids refer to the given labels
+     * by their position in the list.
+     *
+     * @param size               the number of rows, which none of the columns may be shorter than
+     * @param encodedNames       the names, encoded in UTF-8 one after the other
+     * @param encodedNameOffsets the offsets of the names into <code>encodedNames</code>, followed by the end offset
+     * @param labels             the distinct labels
+     * @param labelIds           the label column
+     * @param dimension          the number of coordinates of every row
+     * @param coordinates        the coordinates of every row, row after row
+     * @return the dataset over the columns
+     */
+    public static ColumnarDataSet fromColumns(int size, byte[] encodedNames, int[] encodedNameOffsets, List<String> labels,
+                                              int[] labelIds, int dimension, double[] coordinates) {
+        checkDimension(dimension);
+        if (size < 0 || encodedNameOffsets.length < size + 1 || labelIds.length < size || coordinates.length < (long) size * dimension)
+            throw new IllegalArgumentException("The columns do not hold " + size + " rows");
+        for (int row = 0; row < size; row++) {
+            if (encodedNameOffsets[row] < 0 || encodedNameOffsets[row] > encodedNameOffsets[row + 1])
+                throw new IllegalArgumentException("The name offsets of row " + row + " are out of order");
+        }
+        if (encodedNameOffsets[size] > encodedNames.length)
+            throw new IllegalArgumentException("The name offsets are out of bounds");
+        ColumnarDataSet dataSet = new ColumnarDataSet(size, NameTable.wrap(size, encodedNames, encodedNameOffsets), labelIds,
+                dimension, coordinates);
+        for (String label : labels) {
+            if (dataSet.labelDictionary.intern(label) != dataSet.labelDictionary.size() - 1)
+                throw new IllegalArgumentException("The label " + label + " is listed twice");
+        }
+        for (int row = 0; row < size; row++) {
+            if (labelIds[row] < 0 || labelIds[row] >= labels.size())
+                throw new IllegalArgumentException("The label id of row " + row + " is out of bounds");
+        }
+        return dataSet;
+    }
+
+    public int size() { return size; }
+
+    public int getDimension() { return dimension; }
+
+    /**
+     * Sets the number of coordinates of every instance, which can only be done while the dataset is empty.
+     *
+     * @throws IllegalStateException    if the dataset is not empty
+     * @throws IllegalArgumentException if the dimension is out of the range the <code>.tsd</code> format supports
+     */
+    public void setDimension(int dimension) {
+        checkDimension(dimension);
+        if (dimension == this.dimension)
+            return;
+        if (size > 0)
+            throw new IllegalStateException("The dimension of a dataset that is not empty cannot change");
+        coordinates = storage.newDoubleColumn((long) capacity * dimension);
+        this.dimension = dimension;
+    }
+
+    /**
+     * Returns the coordinate of the given row along the given 0-based axis.
+     */
+    public double getCoordinate(int row, int axis) {
+        if (axis < 0 || axis >= dimension)
+            throw new IndexOutOfBoundsException("Axis " + axis + " is out of bounds for dimension " + dimension);
+        return coordinates.get((long) row * dimension + axis);
+    }
+
+    /**
+     * Copies the coordinates of the given row into the first {@link #getDimension()} values of the destination.
+     */
+    public void getPoint(int row, double[] destination) {
+        getPoint(row, destination, 0);
+    }
+
+    /**
+     * Copies the coordinates of the given row into the destination, starting at the given offset.
+     */
+    public void getPoint(int row, double[] destination, int offset) {
+        checkRow(row);
+        coordinates.get((long) row * dimension, destination, offset, dimension);
+    }
+
+    public double getX(int row) { return coordinates.get((long) row * dimension); }
+
+    public double getY(int row) { return coordinates.get((long) row * dimension + 1); }
+
+    public int getLabelId(int row) { return labelIds.get(row); }
+
+    public String getLabel(int row) { return labelDictionary.labelOf(labelIds.get(row)); }
+
+    /**
+     * Returns the name of the given row, decoded from the name table; callers that need it repeatedly should keep it.
+     */
+    public String getName(int row) {
+        checkRow(row);
+        return names.get(row);
+    }
+
+    public LabelDictionary getLabelDictionary() { return labelDictionary; }
+
+    public ColumnStorage getStorage() { return storage; }
+
+    /**
+     * Returns a copy of the label column, as ids into the {@link #getLabelDictionary() label dictionary}, held in the
+     * storage of this dataset.
+     */
+    public IntColumn copyLabelIds() {
+        IntColumn copy = storage.newIntColumn(size);
+        labelIds.copyTo(0, copy, 0, size);
+        return copy;
+    }
+
+    public void setLabelId(int row, int labelId) {
+        checkRow(row);
+        labelIds.set(row, labelId);
+    }
+
+    public void setLabel(int row, String label) {
+        checkRow(row);
+        labelIds.set(row, labelDictionary.intern(label));
+    }
+
+    /**
+     * Sets the location of a row of a 2-dimensional dataset.
+     */
+    public void setPoint(int row, double x, double y) {
+        checkRow(row);
+        requireDimension(DEFAULT_DIMENSION);
+        coordinates.set((long) row * dimension, x);
+        coordinates.set((long) row * dimension + 1, y);
+    }
+
+    /**
+     * Sets the location of a row to the first {@link #getDimension()} values of the given point.
+     */
+    public void setPoint(int row, double[] point) {
+        checkRow(row);
+        coordinates.set((long) row * dimension, point, 0, dimension);
+    }
+
+    /**
+     * Returns the row of the instance with the given name.
+     *
+     * @param name the name of the instance
+     * @return the row of the instance, or -1 if there is no such instance
+     */
+    public int indexOf(String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * Builds the index that {@link #indexOf(String)} looks names up in, so that the names can then be looked up from
+     * other threads as long as no row is added.
+     */
+    void indexNames() {
+        names.buildIndex();
+    }
+
+    /**
+     * Returns the row of the instance named like the given row of another dataset, without decoding the name.
+     *
+     * @return the row of the instance, or -1 if there is no such instance
+     */
+    public int indexOf(ColumnarDataSet other, int row) {
+        other.checkRow(row);
+        return names.indexOf(other.names, row);
+    }
+
+    /**
+     * Returns whether no earlier row uses the name of the given row.
+     */
+    public boolean hasFirstUseOfName(int row) {
+        checkRow(row);
+        return names.firstIndexOf(row) == row;
+    }
+
+    /**
+     * Appends a new instance to the columns of a 2-dimensional dataset. Names are not checked for uniqueness here,
+     * since the data is expected to have been validated before it is turned into a dataset.
+     *
+     * @return the row of the new instance
+     */
+    public int addRow(String name, String label, double x, double y) {
+        requireDimension(DEFAULT_DIMENSION);
+        int row = appendRow(name, label);
+        coordinates.set((long) row * dimension, x);
+        coordinates.set((long) row * dimension + 1, y);
+        return row;
+    }
+
+    /**
+     * Appends a new instance located at the first {@link #getDimension()} values of the given point. As with
+     * {@link #addRow(String, String, double, double)}, names are not checked for uniqueness.
+     *
+     * @return the row of the new instance
+     */
+    public int addRow(String name, String label, double[] point) {
+        checkPoint(point);
+        int row = appendRow(name, label);
+        coordinates.set((long) row * dimension, point, 0, dimension);
+        return row;
+    }
+
+    /**
+     * Appends a new instance named by <code>text[nameStart, nameEnd)</code>, with a label already interned in the
+     * {@link #getLabelDictionary() label dictionary}, located at the first {@link #getDimension()} values of the given
+     * point. This is how the parsers add a line without creating a {@link String} for its name. As with
+     * {@link #addRow(String, String, double, double)}, names are not checked for uniqueness.
+     *
+     * @return the row of the new instance
+     */
+    public int addRow(CharSequence text, int nameStart, int nameEnd, int labelId, double[] point) {
+        checkPoint(point);
+        checkLabelId(labelId);
+        ensureCapacity(size + 1);
+        names.add(text, nameStart, nameEnd);
+        return appendRow(labelId, point);
+    }
+
+    /**
+     * Appends a new instance whose UTF-8 name is held in <code>buffer[nameStart, nameEnd)</code>.
+     *
+     * @see #addRow(CharSequence, int, int, int, double[])
+     */
+    public int addRow(ByteBuffer buffer, int nameStart, int nameEnd, int labelId, double[] point) {
+        checkPoint(point);
+        checkLabelId(labelId);
+        ensureCapacity(size + 1);
+        names.add(buffer, nameStart, nameEnd);
+        return appendRow(labelId, point);
+    }
+
+    private int appendRow(String name, String label) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        names.add(name);
+        labelIds.set(row, labelDictionary.intern(label));
+        return row;
+    }
+
+    private int appendRow(int labelId, double[] point) {
+        int row = size++;
+        labelIds.set(row, labelId);
+        coordinates.set((long) row * dimension, point, 0, dimension);
+        return row;
+    }
+
+    /**
+     * Appends every instance of the given dataset to this one, in order, translating the label ids of the other
+     * dataset into ids of this one. As with {@link #addRow(String, String, double, double)}, names are not checked
+     * for uniqueness. An empty dataset takes the dimension of the other one.
+     *
+     * @return the row of the first appended instance
+     * @throws IllegalArgumentException if the datasets differ in dimension
+     */
+    public int addRows(ColumnarDataSet other) {
+        if (other.size == 0)
+            return size;
+        if (size == 0)
+            setDimension(other.dimension);
+        else if (other.dimension != dimension)
+            throw new IllegalArgumentException("Cannot add rows of dimension " + other.dimension + " to a dataset of dimension " + dimension);
+        int[] labelIdMap = new int[other.labelDictionary.size()];
+        for (int id = 0; id < labelIdMap.length; id++)
+            labelIdMap[id] = labelDictionary.intern(other.labelDictionary.labelOf(id));
+
+        int firstRow = size;
+        ensureCapacity(size + other.size);
+        other.coordinates.copyTo(0, coordinates, (long) firstRow * dimension, (long) other.size * dimension);
+        for (int row = 0; row < other.size; row++)
+            names.add(other.names, row);
+        for (int row = 0; row < other.size; row++)
+            labelIds.set(firstRow + row, labelIdMap[other.labelIds.get(row)]);
+        size += other.size;
+        return firstRow;
+    }
+
+    @Override
+    public void addInstance(String tsdLine) throws InvalidDataNameException {
+        String[] arr = tsdLine.split("\t");
+        if (!arr[0].startsWith("@"))
+            throw new InvalidDataNameException(arr[0]);
+        String location = arr[2].trim();
+        CoordinateParser parser = new CoordinateParser();
+        parser.parse(location, 0, location.length());
+        if (size == 0)
+            setDimension(parser.getDimension());
+        else if (parser.getDimension() != dimension)
+            throw new IllegalArgumentException("The location of " + arr[0] + " does not have " + dimension + " coordinates");
+
+        int row = indexOf(arr[0]);
+        if (row < 0) {
+            addRow(arr[0], arr[1], parser.getCoordinates());
+        } else {
+            setLabel(row, arr[1]);
+            setPoint(row, parser.getCoordinates());
+        }
+    }
+
+    @Override
+    public void updateLabel(String instanceName, String newlabel) {
+        int row = indexOf(instanceName);
+        if (row < 0)
+            throw new NoSuchElementException();
+        setLabel(row, newlabel);
+    }
+
+    @Override
+    public Map<String, String> getLabels() {
+        if (labelsView == null)
+            labelsView = new LabelsView();
+        return labelsView;
+    }
+
+    @Override
+    public Map<String, Point2D> getPoints() {
+        if (pointsView == null)
+            pointsView = new PointsView();
+        return pointsView;
+    }
+
+    /**
+     * Returns an independent copy of this dataset. The columns are copied wholesale, so this is much cheaper than
+     * parsing the data again.
+     */
+    public ColumnarDataSet copy() {
+        ColumnarDataSet copy = new ColumnarDataSet(size, storage);
+        copy.setDimension(dimension);
+        coordinates.copyTo(0, copy.coordinates, 0, (long) size * dimension);
+        labelIds.copyTo(0, copy.labelIds, 0, size);
+        copy.names = names.copy();
+        for (String label : labelDictionary.getLabels())
+            copy.labelDictionary.intern(label);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Returns the given dataset if it is columnar already, or a columnar copy of its instances otherwise. Since a plain
+     * {@link DataSet} only holds 2-dimensional points, so does the copy.
+     */
+    public static ColumnarDataSet of(DataSet dataSet) {
+        if (dataSet instanceof ColumnarDataSet)
+            return (ColumnarDataSet) dataSet;
+        Map<String, Point2D> points = dataSet.getPoints();
+        ColumnarDataSet columns = new ColumnarDataSet(points.size());
+        for (Map.Entry<String, String> entry : dataSet.getLabels().entrySet()) {
+            Point2D point = points.get(entry.getKey());
+            if (point != null)
+                columns.addRow(entry.getKey(), entry.getValue(), point.getX(), point.getY());
+        }
+        return columns;
+    }
+
+    public static ColumnarDataSet fromTSDFile(Path tsdFilePath) throws IOException {
+        ColumnarDataSet dataset = new ColumnarDataSet();
+        try (Stream<String> lines = Files.lines(tsdFilePath)) {
+            lines.forEach(line -> {
+                try {
+                    dataset.addInstance(line);
+                } catch (InvalidDataNameException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        return dataset;
+    }
+
+    /**
+     * Loads the given file through a {@link MappedTSDLoader}, optionally parsing it in parallel. Unlike
+     * {@link #fromTSDFile(Path)}, the whole file is rejected at its first invalid line or duplicate name.
+     */
+    public static ColumnarDataSet fromTSDFile(Path tsdFilePath, boolean parallel) throws IOException, TSDLineParser.InvalidLineException {
+        return new MappedTSDLoader(parallel).load(tsdFilePath, null);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for a dataset of size " + size);
+    }
+
+    private void checkPoint(double[] point) {
+        if (point.length < dimension)
+            throw new IllegalArgumentException("The point has fewer than " + dimension + " coordinates");
+    }
+
+    private void checkLabelId(int labelId) {
+        if (labelId < 0 || labelId >= labelDictionary.size())
+            throw new IllegalArgumentException("The label id " + labelId + " is not in the label dictionary");
+    }
+
+    private void requireDimension(int expected) {
+        if (dimension != expected)
+            throw new IllegalStateException("The dataset has " + dimension + " coordinates per instance, not " + expected);
+    }
+
+    private static void checkDimension(int dimension) {
+        if (dimension < CoordinateParser.MIN_DIMENSION || dimension > CoordinateParser.MAX_DIMENSION)
+            throw new IllegalArgumentException("The dimension must be from " + CoordinateParser.MIN_DIMENSION + " to "
+                    + CoordinateParser.MAX_DIMENSION + ", not " + dimension);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.capacity)
+            return;
+        int newCapacity = Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, this.capacity + (this.capacity >> 1)));
+        coordinates = coordinates.grow((long) newCapacity * dimension);
+        labelIds = labelIds.grow(newCapacity);
+        this.capacity = newCapacity;
+    }
+
+    /**
+     * The base of both views: a map from instance names to a value computed from the row. Only existing instances can
+     * be written to, as the set of instances is owned by the columns.
+     */
+    private abstract class RowView<V> extends AbstractMap<String, V> {
+
+        private Set<Entry<String, V>> entrySet;
+
+        abstract V valueAt(int row);
+
+        abstract void setValueAt(int row, V value);
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            if (!(key instanceof String))
+                return null;
+            int row = indexOf((String) key);
+            return row < 0 ? null : valueAt(row);
+        }
+
+        @Override
+        public V put(String key, V value) {
+            int row = indexOf(key);
+            if (row < 0)
+                throw new NoSuchElementException(key);
+            V previous = valueAt(row);
+            setValueAt(row, value);
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Entry<String, V>>() {
+                    @Override
+                    public Iterator<Entry<String, V>> iterator() {
+                        return new Iterator<Entry<String, V>>() {
+                            private int row = 0;
+
+                            @Override
+                            public boolean hasNext() { return row < size; }
+
+                            @Override
+                            public Entry<String, V> next() {
+                                if (row >= size)
+                                    throw new NoSuchElementException();
+                                return new RowEntry(row++);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() { return size; }
+                };
+            }
+            return entrySet;
+        }
+
+        private class RowEntry implements Entry<String, V> {
+
+            private final int row;
+
+            RowEntry(int row) { this.row = row; }
+
+            @Override
+            public String getKey() { return getName(row); }
+
+            @Override
+            public V getValue() { return valueAt(row); }
+
+            @Override
+            public V setValue(V value) {
+                V previous = valueAt(row);
+                setValueAt(row, value);
+                return previous;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry))
+                    return false;
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+            }
+        }
+    }
+
+    private class LabelsView extends RowView<String> {
+
+        @Override
+        String valueAt(int row) { return getLabel(row); }
+
+        @Override
+        void setValueAt(int row, String value) { setLabel(row, value); }
+    }
+
+    /**
+     * Projects every location on its first two coordinates; writing a point only sets those two coordinates.
+     */
+    private class PointsView extends RowView<Point2D> {
+
+        @Override
+        Point2D valueAt(int row) { return new Point2D(getX(row), getY(row)); }
+
+        @Override
+        void setValueAt(int row, Point2D value) {
+            checkRow(row);
+            coordinates.set((long) row * dimension, value.getX());
+            coordinates.set((long) row * dimension + 1, value.getY());
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package datavision.algorithms;
 
+import datavision.lib.data.CoordinateParser;
 import javafx.geometry.Point2D;
 
 import java.io.IOException;
@@ -45,8 +46,10 @@ public class DataSet {
     }
 
     private static Point2D locationOf(String locationString) {
-        String[] coordinateStrings = locationString.trim().split(",");
-        return new Point2D(Double.parseDouble(coordinateStrings[0]), Double.parseDouble(coordinateStrings[1]));
+        String trimmed = locationString.trim();
+        CoordinateParser coordinates = new CoordinateParser();
+        coordinates.parse(trimmed, 0, trimmed.length());
+        return new Point2D(coordinates.getX(), coordinates.getY());
     }
 
     private Map<String, String>  labels;
@@ -0,0 +1,136 @@
+package datavision.algorithms;
+
+import datavision.lib.data.IntColumn;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable view of the labels of a dataset at one point in time, which an algorithm publishes for the chart to
+ * plot while it goes on changing the labels of its own dataset. Only the label column is copied, as ids held in the
+ * storage of the dataset along with the few distinct labels they stand for; the names and coordinates are read from
+ * the dataset itself, which is safe as long as the algorithm only ever changes labels, as clusterers do.
+ * <p>
+ * Each snapshot carries a generation number, which grows with every snapshot published from the same dataset, so
+ * that a reader can tell a newer snapshot from one it has already seen. A clusterer that keeps centroids publishes a
+ * copy of them along with the labels, the centroid of cluster <i>i</i> being the one of the instances labeled
+ * <code>i</code>.
+ *
+ * @author Patrick Chan
+ */
+public final class LabelSnapshot {
+
+    private final ColumnarDataSet points;
+    private final int size;
+    private final IntColumn labelIds;
+    private final String[] labels;
+    /* the coordinates of every centroid, centroid after centroid, or null */
+    private final double[] centroids;
+    private final long generation;
+
+    private LabelSnapshot(ColumnarDataSet points, IntColumn labelIds, String[] labels, double[] centroids, long generation) {
+        this.points = points;
+        this.size = points.size();
+        this.labelIds = labelIds;
+        this.labels = labels;
+        this.centroids = centroids;
+        this.generation = generation;
+    }
+
+    /**
+     * Takes a snapshot of the labels of the given dataset. This must be called on the thread that changes them.
+     *
+     * @param dataSet    the dataset, whose rows and coordinates must not change once the snapshot is taken
+     * @param generation the generation number of the snapshot
+     */
+    public static LabelSnapshot of(ColumnarDataSet dataSet, long generation) {
+        return of(dataSet, null, generation);
+    }
+
+    /**
+     * Takes a snapshot of the labels of the given dataset, along with centroids. This must be called on the thread
+     * that changes them.
+     *
+     * @param dataSet    the dataset, whose rows and coordinates must not change once the snapshot is taken
+     * @param centroids  the coordinates of every centroid, centroid after centroid, which are copied, or
+     *                   <code>null</code>
+     * @param generation the generation number of the snapshot
+     */
+    public static LabelSnapshot of(ColumnarDataSet dataSet, double[] centroids, long generation) {
+        if (centroids != null && centroids.length % dataSet.getDimension() != 0)
+            throw new IllegalArgumentException("The centroids must have " + dataSet.getDimension() + " coordinates each");
+        List<String> labels = dataSet.getLabelDictionary().getLabels();
+        // the names are indexed lazily, which must not happen on the threads that read the snapshot
+        dataSet.indexNames();
+        return new LabelSnapshot(dataSet, dataSet.copyLabelIds(), labels.toArray(new String[labels.size()]),
+                centroids == null ? null : centroids.clone(), generation);
+    }
+
+    public int size() { return size; }
+
+    public int getDimension() { return points.getDimension(); }
+
+    public long getGeneration() { return generation; }
+
+    public String getName(int row) {
+        checkRow(row);
+        return points.getName(row);
+    }
+
+    public String getLabel(int row) {
+        checkRow(row);
+        return labels[labelIds.get(row)];
+    }
+
+    /**
+     * Returns whether one of the rows of the snapshot is named so. This can be called from any thread, as the names
+     * were indexed when the snapshot was taken.
+     */
+    public boolean hasName(String name) {
+        int row = points.indexOf(name);
+        return row >= 0 && row < size;
+    }
+
+    /**
+     * Returns the id of the label of the given row, from 0 up to {@link #getLabelCount()}, so that the rows can be
+     * grouped by label without hashing the labels themselves.
+     */
+    public int getLabelId(int row) {
+        checkRow(row);
+        return labelIds.get(row);
+    }
+
+    /**
+     * Returns the number of distinct labels the label ids stand for, which may include labels no row uses any more.
+     */
+    public int getLabelCount() { return labels.length; }
+
+    public String labelOf(int labelId) { return labels[labelId]; }
+
+    public double getCoordinate(int row, int axis) {
+        checkRow(row);
+        return points.getCoordinate(row, axis);
+    }
+
+    /**
+     * Returns the number of centroids, which is 0 if none were published.
+     */
+    public int getCentroidCount() {
+        return centroids == null ? 0 : centroids.length / getDimension();
+    }
+
+    /**
+     * Returns a copy of the coordinates of the centroid of the given cluster.
+     */
+    public double[] getCentroid(int cluster) {
+        if (cluster < 0 || cluster >= getCentroidCount())
+            throw new IndexOutOfBoundsException("Cluster " + cluster + " is out of bounds for " + getCentroidCount() + " centroids");
+        return Arrays.copyOfRange(centroids, cluster * getDimension(), (cluster + 1) * getDimension());
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for " + size + " rows");
+    }
+
+}
@@ -1,19 +1,26 @@
 package datavision.algorithms.algorithmadapters;
 
 import datavision.algorithms.DataSet;
+import datavision.algorithms.LabelSnapshot;
 import datavision.algorithms.algorithmconfig.ClustererConfigurationDialog;
 import datavision.algorithms.clusterer.Clusterer;
+import datavision.algorithms.clusterer.KMeansClusterer;
+import datavision.algorithms.clusterer.MiniBatchKMeansClusterer;
 import datavision.api.AlgorithmAPI;
 import datavision.algorithms.algorithmconfig.AlgorithmConfigurationDialog;
 import datavision.api.DataAPI;
 import datavision.api.PlotAPI;
+import datavision.utils.settings.DataVisionSettings;
+import vision.utils.propertymanager.PropertyManager;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class ClustererAdapter extends AlgorithmAdapter {
 
-    private DataSet output;
+    private LabelSnapshot output;
 
     public ClustererAdapter(PlotAPI plotAPI, DataAPI dataAPI) {
         super(plotAPI, dataAPI);
@@ -30,13 +37,25 @@ public class ClustererAdapter extends AlgorithmAdapter {
             Class<?> klass = AlgorithmAPI.getAlgorithmRawClass(algorithmType, algorithmName);
             Constructor<?> constructor = klass.getConstructor(DataSet.class, int.class, int.class, int.class);
             algorithm = (Clusterer)constructor.newInstance(dataSet, maxIterations, updateInterval, numberOfClusters);
+            PropertyManager manager = PropertyManager.getManager();
+            long seed = clustererConfigurationDialog.hasSeed() ? clustererConfigurationDialog.getSeed() : new Random().nextLong();
+            if (algorithm instanceof KMeansClusterer) {
+                KMeansClusterer kMeansClusterer = (KMeansClusterer)algorithm;
+                if (manager.getPropertyValueAsBoolean(DataVisionSettings.PARALLEL_CLUSTERING.name()))
+                    kMeansClusterer.setPool(ForkJoinPool.commonPool());
+                kMeansClusterer.setSeeding(clustererConfigurationDialog.getSeeding(), seed);
+            } else if (algorithm instanceof MiniBatchKMeansClusterer) {
+                MiniBatchKMeansClusterer miniBatchClusterer = (MiniBatchKMeansClusterer)algorithm;
+                miniBatchClusterer.setBatchSize(manager.getPropertyValueAsInt(DataVisionSettings.MINI_BATCH_SIZE.name()));
+                miniBatchClusterer.setSeeding(clustererConfigurationDialog.getSeeding(), seed);
+            }
         } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
             // FIXME
         }
     }
 
     public void plot() {
-        plotAPI.plotDataSet(output);
+        plotAPI.plotSnapshot(output);
         output = null;
     }
 
@@ -52,7 +71,8 @@ public class ClustererAdapter extends AlgorithmAdapter {
 
     @Override
     protected void setData() {
-        output = ((Clusterer)algorithm).getOutput();
+        // the chart only ever reads a snapshot, while the clusterer goes on with the labels of its own dataset
+        output = ((Clusterer)algorithm).publishSnapshot();
     }
 
     @Override
@@ -65,6 +85,13 @@ public class ClustererAdapter extends AlgorithmAdapter {
         return dataAPI.getTotalPoints() > 1;
     }
 
+    /**
+     * Returns the labels the clusterer last published, or <code>null</code> if it has not published any yet.
+     */
+    public LabelSnapshot getSnapshot() {
+        return algorithm == null ? null : ((Clusterer)algorithm).getSnapshot();
+    }
+
     public boolean toContinue() {
         return algorithm.canContinue();
     }
@@ -1,9 +1,11 @@
 package datavision.algorithms.algorithmconfig;
 
 import datavision.api.DataAPI;
+import datavision.lib.kmeans.KMeansSeeding;
 import datavision.utils.settings.AlgorithmConfigurationDialogSettings;
 import datavision.utils.settings.ClustererConfigurationDialogSettings;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputControl;
@@ -14,10 +16,14 @@ import vision.utils.propertymanager.PropertyManager;
 public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
 
     private String numOfClusters;
+    private KMeansSeeding seeding;
+    private String seed;
 
     public ClustererConfigurationDialog(Stage owner, DataAPI dataAPI, String title) {
         super(owner, dataAPI, title);
         numOfClusters = "";
+        seeding = KMeansSeeding.RANDOM;
+        seed = "";
     }
 
     @Override
@@ -31,6 +37,24 @@ public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
         TextInputControl numOfLabelsInput = new TextField();
         form.add(numOfLabelsInput, 1, 3);
         form.add(new Label(), 2, 3);
+
+        String INITIALIZATION = manager.getPropertyValue(ClustererConfigurationDialogSettings.INITIALIZATION.name());
+        Label initializationLabel = new Label(INITIALIZATION);
+        form.add(initializationLabel, 0, 4);
+        // the choices are listed in the order of the strategies
+        ChoiceBox<String> initializationInput = new ChoiceBox<>();
+        initializationInput.getItems().add(manager.getPropertyValue(ClustererConfigurationDialogSettings.RANDOM_INITIALIZATION.name()));
+        initializationInput.getItems().add(manager.getPropertyValue(ClustererConfigurationDialogSettings.KMEANS_PLUS_PLUS_INITIALIZATION.name()));
+        initializationInput.getItems().add(manager.getPropertyValue(ClustererConfigurationDialogSettings.KMEANS_PARALLEL_INITIALIZATION.name()));
+        form.add(initializationInput, 1, 4);
+        form.add(new Label(), 2, 4);
+
+        String RANDOM_SEED = manager.getPropertyValue(ClustererConfigurationDialogSettings.RANDOM_SEED.name());
+        Label seedLabel = new Label(RANDOM_SEED);
+        form.add(seedLabel, 0, 5);
+        TextInputControl seedInput = new TextField();
+        form.add(seedInput, 1, 5);
+        form.add(new Label(), 2, 5);
     }
 
     @Override
@@ -44,6 +68,15 @@ public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
                 stillHasError = false;
             }
         });
+        TextField seedInput = (TextField)getChildAtColRow(1,5,3);
+        seedInput.focusedProperty().addListener((observable, previousFocusedValue, focused) -> {
+            // leaving the seed empty draws a new one for every run
+            if (!focused && !seedInput.getText().isEmpty()) {
+                validateInputIsPositiveIntegerAndHandle(seedInput, 1, 2, 5, 3);
+            } else if (focused) {
+                stillHasError = false;
+            }
+        });
     }
 
     @Override
@@ -52,13 +85,19 @@ public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
         TextField updateIntervalInput = (TextField)getChildAtColRow(1,1,3);
         CheckBox runContinuouslyInput = (CheckBox)getChildAtColRow(1,2,3);
         TextField numOfClustersInput = (TextField)getChildAtColRow(1,3,3);
+        @SuppressWarnings("unchecked")
+        ChoiceBox<String> initializationInput = (ChoiceBox<String>)getChildAtColRow(1,4,3);
+        TextField seedInput = (TextField)getChildAtColRow(1,5,3);
         maxIterationInput.setText(maxIteration);
         updateIntervalInput.setText(updateInterval);
         runContinuouslyInput.setSelected(runContinuously);
         numOfClustersInput.setText(numOfClusters);
+        initializationInput.getSelectionModel().select(seeding.ordinal());
+        seedInput.setText(seed);
         ((Label)form.getChildren().get(2)).setText("");
         ((Label)form.getChildren().get(5)).setText("");
         ((Label)form.getChildren().get(11)).setText("");
+        ((Label)form.getChildren().get(17)).setText("");
         this.showAndWait();
     }
 
@@ -75,10 +114,15 @@ public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
             TextField updateIntervalInput = (TextField)getChildAtColRow(1,1,3);
             CheckBox runContinuouslyInput = (CheckBox)getChildAtColRow(1,2,3);
             TextField numOfClustersInput = (TextField)getChildAtColRow(1,3,3);
+            @SuppressWarnings("unchecked")
+            ChoiceBox<String> initializationInput = (ChoiceBox<String>)getChildAtColRow(1,4,3);
+            TextField seedInput = (TextField)getChildAtColRow(1,5,3);
             maxIteration = maxIterationInput.getText();
             updateInterval = updateIntervalInput.getText();
             runContinuously = runContinuouslyInput.isSelected();
             numOfClusters = numOfClustersInput.getText();
+            seeding = KMeansSeeding.values()[Math.max(0, initializationInput.getSelectionModel().getSelectedIndex())];
+            seed = seedInput.getText();
 
             if (maxIteration.isEmpty()) {
                 maxIteration = "1";
@@ -107,4 +151,22 @@ public class ClustererConfigurationDialog extends AlgorithmConfigurationDialog {
         return Integer.parseInt(numOfClusters);
     }
 
+    /**
+     * Returns how the first centroids are to be chosen, by the clusterers that have centroids.
+     */
+    public KMeansSeeding getSeeding() {
+        return seeding;
+    }
+
+    /**
+     * Returns whether a random seed was given, for runs to be reproduced.
+     */
+    public boolean hasSeed() {
+        return !seed.isEmpty();
+    }
+
+    public long getSeed() {
+        return Long.parseLong(seed);
+    }
+
 }
@@ -1,12 +1,17 @@
 package datavision.algorithms.clusterer;
 
 import datavision.algorithms.Algorithm;
+import datavision.algorithms.ColumnarDataSet;
 import datavision.algorithms.DataSet;
+import datavision.algorithms.LabelSnapshot;
 
 public abstract class Clusterer extends Algorithm {
 
     protected DataSet dataSet;
     protected int numberOfClusters;
+    /* the labels last published for the chart, which is read from another thread than the one clustering */
+    private volatile LabelSnapshot snapshot;
+    private long generation;
 
     public Clusterer(int numberOfClusters) {
         setNumOfClusters(numberOfClusters);
@@ -20,8 +25,49 @@ public abstract class Clusterer extends Algorithm {
         this.numberOfClusters = numberOfClusters;
     }
 
+    /**
+     * Returns the dataset being clustered, whose labels keep changing while the clusterer runs.
+     */
     public DataSet getOutput() {
+        writeLabels();
         return dataSet;
     }
 
+    /**
+     * Publishes the current labels as a new {@link LabelSnapshot}. This must be called on the thread running the
+     * clusterer, between two updates, for the snapshot to hold the labels of a single iteration.
+     *
+     * @return the published snapshot
+     */
+    public LabelSnapshot publishSnapshot() {
+        writeLabels();
+        LabelSnapshot published = LabelSnapshot.of(ColumnarDataSet.of(dataSet), getCentroids(), ++generation);
+        snapshot = published;
+        return published;
+    }
+
+    /**
+     * Writes the clusters into the labels of the dataset, for a clusterer that keeps them on its own while it runs.
+     * This is called on the thread running the clusterer whenever the labels are about to be read.
+     */
+    protected void writeLabels() {
+    }
+
+    /**
+     * Returns the coordinates of the centroid of every cluster, centroid after centroid, for them to be published
+     * along with the labels. The array is copied into the snapshot, so it may be the one the clusterer works on.
+     *
+     * @return the centroids, or <code>null</code> if the clusterer has none
+     */
+    protected double[] getCentroids() {
+        return null;
+    }
+
+    /**
+     * Returns the labels last published, which may be read from any thread, or <code>null</code> if none were.
+     */
+    public LabelSnapshot getSnapshot() {
+        return snapshot;
+    }
+
 }
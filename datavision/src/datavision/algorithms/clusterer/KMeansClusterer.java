@@ -1,31 +1,58 @@
 package datavision.algorithms.clusterer;
 
+import datavision.algorithms.ColumnarDataSet;
 import datavision.algorithms.DataSet;
-import javafx.geometry.Point2D;
+import datavision.lib.kmeans.KMeansAlgorithm;
+import datavision.lib.kmeans.KMeansEngine;
+import datavision.lib.kmeans.KMeansSeeding;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
+ * Clusters the instances of a dataset with Lloyd's k-means algorithm, in as many dimensions as the dataset has. The
+ * algorithm works on the columns of a {@link ColumnarDataSet}; any other dataset is first copied into one, which then
+ * becomes the output. The iterations are run by a {@link KMeansEngine}, which keeps the cluster of every instance to
+ * itself; they are only written into the labels of the dataset when those are read. Given a {@link ForkJoinPool}, the
+ * engine spreads every iteration over the workers of the pool, with the same outcome as on a single thread.
+ * <p>
+ * The first centroids are chosen by a {@link KMeansSeeding}, random instances unless told otherwise, from a random
+ * seed that can be set for runs to be reproduced. The nearest centroids are found by a {@link KMeansAlgorithm},
+ * Lloyd's unless told otherwise; the bounded variants skip most distances once the centroids settle.
+ *
  * @author Ritwik Banerjee
  */
 public class KMeansClusterer extends Clusterer {
 
-    private List<Point2D> centroids;
+    private final ColumnarDataSet points;
+    private final int dimension;
+    /* the coordinates of every centroid, centroid after centroid */
+    private double[] centroids;
+    /* the label id of every cluster */
+    private int[] clusterLabelIds;
+    private KMeansEngine engine;
+    /* the pool the iterations run on, or null to run them on the clustering thread */
+    private ForkJoinPool pool;
+    private KMeansSeeding seeding;
+    private long seed;
+    private KMeansAlgorithm algorithm;
     private AtomicBoolean hasInitialized;
 
     public KMeansClusterer(DataSet dataSet, int maxIterations, int updateInterval, int numberOfClusters) {
         super(numberOfClusters);
-        this.dataSet = dataSet;
+        this.points = ColumnarDataSet.of(dataSet);
+        this.dimension = points.getDimension();
+        this.dataSet = points;
         this.maxIterations = maxIterations;
         this.updateInterval = updateInterval;
         this.toContinue = new AtomicBoolean(true);
 
         this.currentIteration = 0;
         this.hasInitialized = new AtomicBoolean(false);
+        this.seeding = KMeansSeeding.RANDOM;
+        this.seed = new Random().nextLong();
+        this.algorithm = KMeansAlgorithm.LLOYD;
     }
 
     @Override
@@ -43,8 +70,7 @@ public class KMeansClusterer extends Clusterer {
             initializeCentroids();
         }
         if (currentIteration < maxIterations && toContinue.get() && this.hasInitialized.get()) {
-            assignLabels();
-            recomputeCentroids();
+            toContinue.set(engine.iterate());
             currentIteration++;
 
             if (currentIteration >= maxIterations) {
@@ -68,62 +94,78 @@ public class KMeansClusterer extends Clusterer {
         }
     }
 
-    private void initializeCentroids() {
-        Set<String>  chosen        = new HashSet<>();
-        List<String> instanceNames = new ArrayList<>(dataSet.getLabels().keySet());
-        Random       r             = new Random();
-        while (chosen.size() < numberOfClusters) {
-            int i = r.nextInt(instanceNames.size());
-            while (chosen.contains(instanceNames.get(i)))
-                i = (++i % instanceNames.size());
-            chosen.add(instanceNames.get(i));
-        }
-        centroids = chosen.stream().map(name -> dataSet.getPoints().get(name)).collect(Collectors.toList());
-        hasInitialized.set(true);
+    /**
+     * Runs the iterations on the given pool rather than on the clustering thread. This only takes effect when called
+     * before the first iteration.
+     *
+     * @param pool the pool, or <code>null</code> to run the iterations on the clustering thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
-    private void assignLabels() {
-        dataSet.getPoints().forEach((instanceName, location) -> {
-            double minDistance      = Double.MAX_VALUE;
-            int    minDistanceIndex = -1;
-            for (int i = 0; i < centroids.size(); i++) {
-                double distance = computeDistance(centroids.get(i), location);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    minDistanceIndex = i;
-                }
-            }
-            dataSet.getLabels().put(instanceName, Integer.toString(minDistanceIndex));
-        });
+    /**
+     * Chooses the first centroids with the given strategy and seed, so that two runs with the same seed start, and
+     * therefore end, alike. This only takes effect when called before the first iteration.
+     */
+    public void setSeeding(KMeansSeeding seeding, long seed) {
+        this.seeding = seeding;
+        this.seed = seed;
     }
 
-    private void recomputeCentroids() {
-        toContinue.set(false);
-        IntStream.range(0, numberOfClusters).forEach(i -> {
-            AtomicInteger clusterSize = new AtomicInteger();
-            Point2D sum = dataSet.getLabels()
-                    .entrySet()
-                    .stream()
-                    .filter(entry -> i == Integer.parseInt(entry.getValue()))
-                    .map(entry -> dataSet.getPoints().get(entry.getKey()))
-                    .reduce(new Point2D(0, 0), (p, q) -> {
-                        clusterSize.incrementAndGet();
-                        return new Point2D(p.getX() + q.getX(), p.getY() + q.getY());
-                    });
-            Point2D newCentroid = new Point2D(sum.getX() / clusterSize.get(), sum.getY() / clusterSize.get());
-            if (!newCentroid.equals(centroids.get(i))) {
-                centroids.set(i, newCentroid);
-                toContinue.set(true);
-            }
-        });
+    /**
+     * Finds the nearest centroid of every instance with the given algorithm, Lloyd's unless told otherwise. Every
+     * algorithm ends with the same clusters; they only differ in how many distances they measure. This only takes
+     * effect when called before the first iteration.
+     */
+    public void setAlgorithm(KMeansAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Returns the number of iterations run so far, which stops growing once the centroids no longer move.
+     */
+    public long getIterationCount() {
+        return engine == null ? 0 : engine.getIterationCount();
+    }
+
+    /**
+     * Returns the centroid of the given cluster, or <code>null</code> before the centroids are initialized.
+     */
+    public double[] getCentroid(int cluster) {
+        if (centroids == null)
+            return null;
+        return Arrays.copyOfRange(centroids, cluster * dimension, (cluster + 1) * dimension);
+    }
+
+    @Override
+    protected double[] getCentroids() {
+        return centroids;
     }
 
-    private static double computeDistance(Point2D p, Point2D q) {
-        return Math.sqrt(Math.pow(p.getX() - q.getX(), 2) + Math.pow(p.getY() - q.getY(), 2));
+    private void initializeCentroids() {
+        // there cannot be more clusters than instances
+        numberOfClusters = Math.min(numberOfClusters, points.size());
+        if (numberOfClusters == 0) {
+            toContinue.set(false);
+            return;
+        }
+        centroids = seeding.chooseCentroids(points, numberOfClusters, seed, pool);
+        // the labels of the clusters are interned once, so that writing the cluster of a row only sets an id
+        clusterLabelIds = new int[numberOfClusters];
+        for (int i = 0; i < numberOfClusters; i++)
+            clusterLabelIds[i] = points.getLabelDictionary().intern(Integer.toString(i));
+        engine = new KMeansEngine(points, centroids, algorithm, pool);
+        centroids = engine.getCentroids();
+        hasInitialized.set(true);
     }
 
     @Override
-    public DataSet getOutput() {
-        return dataSet;
+    protected void writeLabels() {
+        if (engine == null || engine.getIterationCount() == 0)
+            return;
+        for (int row = 0; row < points.size(); row++)
+            points.setLabelId(row, clusterLabelIds[engine.getAssignment(row)]);
     }
-}
\ No newline at end of file
+
+}
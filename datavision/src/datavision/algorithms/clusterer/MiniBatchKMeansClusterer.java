@@ -0,0 +1,225 @@
+package datavision.algorithms.clusterer;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.algorithms.DataSet;
+import datavision.lib.kmeans.KMeansSeeding;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clusters the instances of a dataset with mini-batch k-means, which suits datasets too large for a full pass over
+ * them to fit in the time between two frames of the chart. Every iteration draws a batch of instances at random,
+ * assigns each to its nearest centroid, then moves every centroid a step towards its instances. The step shrinks as
+ * the centroid takes in more instances, for every centroid to end up near the mean of all the instances it took in.
+ * <p>
+ * An iteration thus costs the same whatever the size of the dataset. Every instance is only assigned to its nearest
+ * centroid when the labels are read, such as when a snapshot is published for the chart.
+ * <p>
+ * The first centroids are chosen by a {@link KMeansSeeding}, k-means++ unless told otherwise, among a random sample of
+ * the instances. Both the sample and the batches are drawn from a random seed that can be set for runs to be
+ * reproduced.
+ *
+ * @author Patrick Chan
+ */
+public class MiniBatchKMeansClusterer extends Clusterer {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    /* the most instances the first centroids are chosen among */
+    private static final int SEEDING_SAMPLE_SIZE = 1 << 16;
+
+    private final ColumnarDataSet points;
+    private final int dimension;
+    private int batchSize;
+    private KMeansSeeding seeding;
+    private long seed;
+    private Random random;
+    /* the coordinates of every centroid, centroid after centroid */
+    private double[] centroids;
+    /* how many instances every centroid has taken in, which sets the size of its next step */
+    private long[] clusterCounts;
+    /* the coordinates and the nearest centroid of every instance of the current batch */
+    private double[] batchPoints;
+    private int[] batchAssignments;
+    /* the label id of every cluster */
+    private int[] clusterLabelIds;
+    private boolean hasLabels;
+    private AtomicBoolean hasInitialized;
+
+    public MiniBatchKMeansClusterer(DataSet dataSet, int maxIterations, int updateInterval, int numberOfClusters) {
+        super(numberOfClusters);
+        this.points = ColumnarDataSet.of(dataSet);
+        this.dimension = points.getDimension();
+        this.dataSet = points;
+        this.maxIterations = maxIterations;
+        this.updateInterval = updateInterval;
+        this.toContinue = new AtomicBoolean(true);
+
+        this.currentIteration = 0;
+        this.hasInitialized = new AtomicBoolean(false);
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.seeding = KMeansSeeding.KMEANS_PLUS_PLUS;
+        this.seed = new Random().nextLong();
+    }
+
+    @Override
+    public int getMaxIterations() { return maxIterations; }
+
+    @Override
+    public int getUpdateInterval() { return updateInterval; }
+
+    @Override
+    public boolean tocontinue() { return toContinue.get(); }
+
+    @Override
+    public void runOnce() {
+        if (!this.hasInitialized.get()) {
+            initializeCentroids();
+        }
+        if (currentIteration < maxIterations && toContinue.get() && this.hasInitialized.get()) {
+            runBatch();
+            currentIteration++;
+
+            if (currentIteration >= maxIterations) {
+                toContinue.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void runUpdateInterval() {
+        for(int i = 0; i < updateInterval && currentIteration < maxIterations && toContinue.get(); i++) {
+            runOnce();
+        }
+    }
+
+    @Override
+    public void run() {
+        currentIteration = 0;
+        while (currentIteration < maxIterations && toContinue.get()) {
+            runOnce();
+        }
+    }
+
+    /**
+     * Sets the number of instances drawn by every iteration. This only takes effect when called before the first
+     * iteration.
+     *
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Chooses the first centroids with the given strategy, and draws the sample and the batches from the given seed,
+     * so that two runs with the same seed start, and therefore end, alike. This only takes effect when called before
+     * the first iteration.
+     */
+    public void setSeeding(KMeansSeeding seeding, long seed) {
+        this.seeding = seeding;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the centroid of the given cluster, or <code>null</code> before the centroids are initialized.
+     */
+    public double[] getCentroid(int cluster) {
+        if (centroids == null)
+            return null;
+        return Arrays.copyOfRange(centroids, cluster * dimension, (cluster + 1) * dimension);
+    }
+
+    @Override
+    protected double[] getCentroids() {
+        return centroids;
+    }
+
+    private void initializeCentroids() {
+        // there cannot be more clusters than instances
+        numberOfClusters = Math.min(numberOfClusters, points.size());
+        if (numberOfClusters == 0) {
+            toContinue.set(false);
+            return;
+        }
+        random = new Random(seed);
+        ColumnarDataSet candidates = points;
+        if (points.size() > SEEDING_SAMPLE_SIZE) {
+            candidates = new ColumnarDataSet(SEEDING_SAMPLE_SIZE);
+            candidates.setDimension(dimension);
+            double[] point = new double[dimension];
+            for (int i = 0; i < SEEDING_SAMPLE_SIZE; i++) {
+                int row = random.nextInt(points.size());
+                points.getPoint(row, point);
+                candidates.addRow("@" + i, "null", point);
+            }
+        }
+        centroids = seeding.chooseCentroids(candidates, numberOfClusters, random.nextLong(), null);
+        clusterCounts = new long[numberOfClusters];
+        batchPoints = new double[batchSize * dimension];
+        batchAssignments = new int[batchSize];
+        // the labels of the clusters are interned once, so that writing the cluster of a row only sets an id
+        clusterLabelIds = new int[numberOfClusters];
+        for (int i = 0; i < numberOfClusters; i++)
+            clusterLabelIds[i] = points.getLabelDictionary().intern(Integer.toString(i));
+        hasInitialized.set(true);
+    }
+
+    /**
+     * Draws a batch, assigns every instance of it to its nearest centroid, then moves every centroid towards its
+     * instances, one instance at a time, by a step of one over the number of instances it has taken in so far.
+     */
+    private void runBatch() {
+        for (int i = 0; i < batchSize; i++) {
+            int offset = i * dimension;
+            points.getPoint(random.nextInt(points.size()), batchPoints, offset);
+            batchAssignments[i] = nearestCentroid(batchPoints, offset);
+        }
+        for (int i = 0; i < batchSize; i++) {
+            int cluster = batchAssignments[i];
+            double rate = 1.0 / ++clusterCounts[cluster];
+            int centroid = cluster * dimension;
+            int offset = i * dimension;
+            for (int axis = 0; axis < dimension; axis++)
+                centroids[centroid + axis] += rate * (batchPoints[offset + axis] - centroids[centroid + axis]);
+        }
+        hasLabels = false;
+    }
+
+    /**
+     * Returns the centroid nearest to the point at the given offset, the first one among equally near centroids.
+     */
+    private int nearestCentroid(double[] point, int offset) {
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            int centroid = cluster * dimension;
+            double distance = 0;
+            for (int axis = 0; axis < dimension && distance < nearestDistance; axis++) {
+                double difference = centroids[centroid + axis] - point[offset + axis];
+                distance += difference * difference;
+            }
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = cluster;
+            }
+        }
+        return nearest;
+    }
+
+    @Override
+    protected void writeLabels() {
+        if (!hasInitialized.get() || currentIteration == 0 || hasLabels)
+            return;
+        double[] point = new double[dimension];
+        for (int row = 0; row < points.size(); row++) {
+            points.getPoint(row, point);
+            points.setLabelId(row, clusterLabelIds[nearestCentroid(point, 0)]);
+        }
+        hasLabels = true;
+    }
+
+}
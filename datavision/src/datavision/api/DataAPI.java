@@ -2,6 +2,7 @@ package datavision.api;
 
 import datavision.core.AppData;
 import datavision.core.AppUI;
+import datavision.lib.data.DataSetStatistics;
 import vision.core.Data;
 
 public class DataAPI {
@@ -18,4 +19,6 @@ public class DataAPI {
 
     public int getTotalPoints() { return ((AppData)data).getTotalPoints(); }
 
+    public DataSetStatistics getStatistics() { return ((AppData)data).getStatistics(); }
+
 }
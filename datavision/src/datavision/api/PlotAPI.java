@@ -1,10 +1,14 @@
 package datavision.api;
 
 import com.sun.javafx.charts.Legend;
+import datavision.algorithms.ColumnarDataSet;
 import datavision.algorithms.DataSet;
+import datavision.algorithms.LabelSnapshot;
 import datavision.core.AppData;
 import datavision.core.AppUI;
 import datavision.lib.data.DataProcessor;
+import datavision.lib.data.LabelDictionary;
+import datavision.lib.data.ReservoirSampler;
 import datavision.utils.settings.DataVisionSettings;
 import datavision.utils.settings.PlotAPISettings;
 import javafx.geometry.Point2D;
@@ -21,7 +25,6 @@ import vision.utils.propertymanager.PropertyManager;
 import vision.utils.settings.AppSettings;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class PlotAPI {
 
@@ -29,6 +32,12 @@ public class PlotAPI {
     private Data data;
     private Stage owner;
     private PropertyManager manager;
+    /* whether the chart was last plotted with the content of the text area, rather than with the output of an algorithm */
+    private boolean plottingTextAreaData;
+    /* the labels the chart was last plotted with, if any, along with the axes they are projected on */
+    private LabelSnapshot plottedSnapshot;
+    private int xAxis = 0;
+    private int yAxis = 1;
 
     public PlotAPI(UITemplate ui, Data data, Stage owner, PropertyManager manager) {
         this.ui = ui;
@@ -42,6 +51,8 @@ public class PlotAPI {
         AppUI uicomponent = (AppUI)ui;
         datacomponent.clear();
         uicomponent.clearChart();
+        plottingTextAreaData = false;
+        plottedSnapshot = null;
 
         DataProcessor.DataSet dataSet;
         try {
@@ -61,7 +72,7 @@ public class PlotAPI {
         LineChart<Number, Number> chart = uicomponent.getChart();
         PropertyManager manager = PropertyManager.getManager();
 
-        double[] ranges = ((AppData)data).getXRange();
+        double[] ranges = ((AppData)data).getRange(xAxis);
 
         double pointOneX = ranges[0];
         double pointOneY = (-c - (a * pointOneX)) / b;
@@ -91,18 +102,18 @@ public class PlotAPI {
         AppUI uicomponent = (AppUI)ui;
         datacomponent.clear();
         uicomponent.clearChart();
+        plottingTextAreaData = false;
+        plottedSnapshot = null;
 
-        DataProcessor.DataSet dataSet;
+        DataSet dataSet;
         try {
             dataSet = datacomponent.getProcessedTextAreaData();
         } catch (Exception e) {
             handleInvalidData();
             return;
         }
-
-        Map<String, String> dataLabels = dataSet.getLabels();
-        Map<String, Point2D> dataPoints = dataSet.getPoints();
-        plot(dataLabels, dataPoints);
+        plottingTextAreaData = true;
+        plot(dataSet);
     }
 
     public void plotDataSet(DataSet dataSet) {
@@ -110,10 +121,141 @@ public class PlotAPI {
         AppUI uicomponent = (AppUI)ui;
         datacomponent.clear();
         uicomponent.clearChart();
+        plottingTextAreaData = false;
+        plot(dataSet);
+    }
 
-        Map<String, String> dataLabels = dataSet.getLabels();
-        Map<String, Point2D> dataPoints = dataSet.getPoints();
-        plot(dataLabels, dataPoints);
+    /**
+     * Plots the labels an algorithm published, which it may go on changing in its own dataset while they are plotted.
+     */
+    public void plotSnapshot(LabelSnapshot snapshot) {
+        AppData datacomponent = (AppData)data;
+        AppUI uicomponent = (AppUI)ui;
+        datacomponent.clear();
+        uicomponent.clearChart();
+        plottingTextAreaData = false;
+        plot(snapshot);
+    }
+
+    /**
+     * Plots the sample of a file that is still being loaded, which the chart shows until something else is plotted.
+     */
+    public void plotPreview(ReservoirSampler.Sample sample) {
+        AppData datacomponent = (AppData)data;
+        AppUI uicomponent = (AppUI)ui;
+        datacomponent.clear();
+        uicomponent.clearChart();
+        plottingTextAreaData = false;
+        plot(sample.getDataSet());
+        datacomponent.setPreview(sample);
+    }
+
+    public boolean isPlottingTextAreaData() {
+        return plottingTextAreaData;
+    }
+
+    public int getXAxis() {
+        return xAxis;
+    }
+
+    public int getYAxis() {
+        return yAxis;
+    }
+
+    /**
+     * Sets the 0-based axes of the data that the chart shows, and plots the data on the chart again along them. Data
+     * with more than two coordinates per instance can only be shown as such a 2-D projection.
+     *
+     * @param xAxis  the axis shown horizontally
+     * @param yAxis  the axis shown vertically
+     * @param replot whether to plot the data on the chart again right away
+     */
+    public void setProjection(int xAxis, int yAxis, boolean replot) {
+        this.xAxis = xAxis;
+        this.yAxis = yAxis;
+        if (!replot || plottedSnapshot == null || ((AppUI)ui).getChart().getData().isEmpty())
+            return;
+        if (plottingTextAreaData) {
+            // the text area may have been appended to since it was plotted
+            plotTextAreaData();
+        } else {
+            ((AppUI)ui).getChart().getData().clear();
+            plot(plottedSnapshot);
+        }
+    }
+
+    /**
+     * Adds rows appended to the plotted data to the chart as they are, each to the series of its label, without
+     * plotting the earlier rows again.
+     */
+    public void plotAppendedRows(ColumnarDataSet rows) {
+        LineChart<Number, Number> chart = ((AppUI)ui).getChart();
+        String INTERNAL_SERIES_NAME = manager.getPropertyValue(PlotAPISettings.INTERNAL_SERIES_NAME.name());
+        Map<String, XYChart.Series<Number, Number>> seriesOfLabel = new HashMap<>();
+        for (XYChart.Series<Number, Number> series : chart.getData()) {
+            if (!INTERNAL_SERIES_NAME.equals(series.getName())) {
+                seriesOfLabel.put(series.getName(), series);
+            }
+        }
+
+        // the series of a label is looked up by name only once, and by the label id of the rows from then on
+        LabelDictionary labels = rows.getLabelDictionary();
+        List<XYChart.Series<Number, Number>> seriesOfLabelId = new ArrayList<>(Collections.nCopies(labels.size(), null));
+        Map<String, XYChart.Series<Number, Number>> newSeries = new LinkedHashMap<>();
+        for (int row = 0; row < rows.size(); row++) {
+            int labelId = rows.getLabelId(row);
+            XYChart.Series<Number, Number> series = seriesOfLabelId.get(labelId);
+            if (series == null) {
+                series = seriesOfLabel.computeIfAbsent(labels.labelOf(labelId), newLabel -> {
+                    XYChart.Series<Number, Number> labelSeries = new XYChart.Series<>();
+                    labelSeries.setName(newLabel);
+                    newSeries.put(newLabel, labelSeries);
+                    return labelSeries;
+                });
+                seriesOfLabelId.set(labelId, series);
+            }
+            XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(rows.getCoordinate(row, xAxis), rows.getCoordinate(row, yAxis));
+            series.getData().add(dataPoint);
+            dataPoint.setNode(new HoverNode(rows.getName(row).substring(1), manager));
+        }
+        chart.getData().addAll(newSeries.values());
+    }
+
+    private void plot(DataSet dataSet) {
+        if (!(dataSet instanceof ColumnarDataSet)) {
+            plottedSnapshot = null;
+            ((AppUI)ui).setProjectionChoices(2, 0, 1);
+            plot(dataSet.getLabels(), dataSet.getPoints());
+            return;
+        }
+        plot(LabelSnapshot.of((ColumnarDataSet)dataSet, 0));
+    }
+
+    private void plot(LabelSnapshot snapshot) {
+        plottedSnapshot = snapshot;
+        if (xAxis >= snapshot.getDimension() || yAxis >= snapshot.getDimension()) {
+            xAxis = 0;
+            yAxis = 1;
+        }
+        ((AppUI)ui).setProjectionChoices(snapshot.getDimension(), xAxis, yAxis);
+
+        // the rows are grouped by label id, and the series are added in the order their labels first show up
+        List<XYChart.Series<Number, Number>> seriesOfLabel = new ArrayList<>(Collections.nCopies(snapshot.getLabelCount(), null));
+        List<XYChart.Series<Number, Number>> plottedSeries = new ArrayList<>();
+        for (int row = 0; row < snapshot.size(); row++) {
+            int labelId = snapshot.getLabelId(row);
+            XYChart.Series<Number, Number> series = seriesOfLabel.get(labelId);
+            if (series == null) {
+                series = new XYChart.Series<>();
+                series.setName(snapshot.labelOf(labelId));
+                seriesOfLabel.set(labelId, series);
+                plottedSeries.add(series);
+            }
+            XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(snapshot.getCoordinate(row, xAxis), snapshot.getCoordinate(row, yAxis));
+            series.getData().add(dataPoint);
+            dataPoint.setNode(new HoverNode(snapshot.getName(row).substring(1), manager));
+        }
+        ((AppUI)ui).getChart().getData().addAll(plottedSeries);
     }
 
     private void plot(Map<String, String> dataLabels, Map<String, Point2D> dataPoints) {
@@ -121,20 +263,22 @@ public class PlotAPI {
             return;
         }
 
-        AtomicInteger numOfPoints = new AtomicInteger(0);
-        Set<String> labels = new HashSet<>(dataLabels.values());
-        for (String label : labels) {
-            XYChart.Series<Number, Number> series = new XYChart.Series<>();
-            series.setName(label);
-            dataLabels.entrySet().stream().filter(entry -> entry.getValue().equals(label)).forEach(entry -> {
-                Point2D point = dataPoints.get(entry.getKey());
-                XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(point.getX(), point.getY());
-                series.getData().add(dataPoint);
-                dataPoint.setNode(new HoverNode(entry.getKey().substring(1), manager));
-                numOfPoints.getAndIncrement();
-            });
-            ((AppUI)ui).getChart().getData().add(series);
+        // a single pass interns every label, a new label id starting the next series
+        LabelDictionary labels = new LabelDictionary();
+        List<XYChart.Series<Number, Number>> seriesOfLabel = new ArrayList<>();
+        for (Map.Entry<String, String> entry : dataLabels.entrySet()) {
+            int labelId = labels.intern(entry.getValue());
+            if (labelId == seriesOfLabel.size()) {
+                XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                series.setName(entry.getValue());
+                seriesOfLabel.add(series);
+            }
+            Point2D point = dataPoints.get(entry.getKey());
+            XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(point.getX(), point.getY());
+            seriesOfLabel.get(labelId).getData().add(dataPoint);
+            dataPoint.setNode(new HoverNode(entry.getKey().substring(1), manager));
         }
+        ((AppUI)ui).getChart().getData().addAll(seriesOfLabel);
     }
 
     private void handleInvalidData() {
@@ -1,10 +1,19 @@
 package datavision.core;
 
+import datavision.algorithms.ColumnarDataSet;
 import datavision.algorithms.DataSet;
+import datavision.algorithms.LabelSnapshot;
 import datavision.algorithms.algorithmadapters.AlgorithmAdapter;
+import datavision.algorithms.algorithmadapters.ClustererAdapter;
 import datavision.api.AlgorithmAPI;
 import datavision.algorithms.algorithmconfig.AlgorithmConfigurationDialog;
 import datavision.api.DataAPI;
+import datavision.lib.data.ClusterResultExporter;
+import datavision.lib.data.ColumnStorage;
+import datavision.lib.data.DataLoadPipeline;
+import datavision.lib.data.ReservoirSampler;
+import datavision.lib.data.TSDFileFollower;
+import datavision.lib.ui.dataview.DataView;
 import datavision.utils.settings.AppActionSettings;
 import vision.lib.exceptions.InvalidDataFormatException;
 import vision.lib.exceptions.LoadErrorException;
@@ -15,7 +24,7 @@ import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Button;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.WritableImage;
 import vision.core.Action;
 import vision.core.ApplicationTemplate;
@@ -23,13 +32,17 @@ import vision.core.Data;
 import vision.core.UITemplate;
 import vision.lib.exceptions.SaveErrorException;
 import vision.lib.ui.dialog.ConfirmationDialog;
+import vision.lib.utils.FileOperationSuccess;
 import vision.utils.propertymanager.PropertyManager;
 import vision.utils.settings.AppSettings;
 
 import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public final class AppAction extends Action {
 
@@ -43,6 +56,15 @@ public final class AppAction extends Action {
 
     private Path saveFilePath;
 
+    /* runs the loads one at a time, away from the JavaFX application thread */
+    private final ExecutorService loadExecutor;
+    /* runs the exports of clustering results, away from the JavaFX application thread */
+    private final ExecutorService exportExecutor;
+    /* the load in progress, if any, which is only touched on the JavaFX application thread */
+    private DataLoadPipeline loadPipeline;
+    /* the follower of the loaded file, if it is a plain .tsd file, which is only touched on the JavaFX application thread */
+    private TSDFileFollower follower;
+
     AppAction(UITemplate ui, Data data, PropertyManager manager) {
         this.ui = ui;
         this.data = data;
@@ -50,6 +72,16 @@ public final class AppAction extends Action {
         this.isUnsaved = new SimpleBooleanProperty(false);
         this.algorithmRunning = new SimpleBooleanProperty(false);
         this.chartNotHasData = new SimpleBooleanProperty(true);
+        this.loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         AppUI uicomponent = (AppUI)ui;
         uicomponent.getButtonStorage().get(AppSettings.SAVE_ICON.name()).disableProperty().bind(this.isUnsaved.not());
@@ -69,10 +101,13 @@ public final class AppAction extends Action {
             }
         }
         algorithmRunning.set(false);
+        cancelLoad();
+        stopFollowing();
 
         uicomponent.setTextAreaVisible(true);
         uicomponent.setEditDoneToggleButtonVisible(true);
         uicomponent.setMetaDataLabelVisible(false);
+        uicomponent.setFollowCheckBoxVisible(false);
         uicomponent.getAlgorithmSelectionSystem().clear();
         uicomponent.setChartVisible(false);
         uicomponent.clear();
@@ -196,6 +231,7 @@ public final class AppAction extends Action {
                     uicomponent.updateMetaDataLabel(datacomponent.getMetaData(saveFilePath.toString()));
                 }
             } else {
+                uicomponent.jumpToLine(datacomponent.getFirstErrorLineOfTextArea(false));
                 throw new InvalidDataFormatException(validity.getError());
             }
         }
@@ -211,6 +247,7 @@ public final class AppAction extends Action {
             algorithmAdapter = AlgorithmAPI.getAlgorithmAdapter(algorithmType, uicomponent.getPlotAPI(), new DataAPI(data));
             algorithmAdapter.createAlgorithm(algorithmType, algorithmName, dataSet, algorithmConfig);
             algorithmRunning.set(true);
+            uicomponent.setExportButtonVisible(algorithmAdapter instanceof ClustererAdapter);
         }
 
         Thread algorithmThread;
@@ -249,47 +286,251 @@ public final class AppAction extends Action {
         algorithmThread.start();
     }
 
-    private void proceedToLoad() throws InvalidDataFormatException, LoadErrorException {
-        Path loadFilePath = null;
+    private void proceedToLoad() throws LoadErrorException {
+        AppUI uicomponent = (AppUI)ui;
+        String description = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT_DESC.name());
+        String extension = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT.name());
+        String compressedDescription = manager.getPropertyValue(DataVisionSettings.COMPRESSED_DATA_FILE_EXT_DESC.name());
+        String compressedExtension = manager.getPropertyValue(DataVisionSettings.COMPRESSED_DATA_FILE_EXT.name());
+        String snapshotDescription = manager.getPropertyValue(DataVisionSettings.SNAPSHOT_FILE_EXT_DESC.name());
+        String snapshotExtension = manager.getPropertyValue(DataVisionSettings.SNAPSHOT_FILE_EXT.name());
+        Path loadFilePath = uicomponent.getLoadFile(new String[]{description, compressedDescription, snapshotDescription},
+                new String[]{extension, compressedExtension, snapshotExtension});
+        if (loadFilePath == null) {
+            return;
+        }
+
+        if (!loadFilePath.toFile().exists()) {
+            throw new LoadErrorException(loadFilePath, "the file does not exists!");
+        }
+        if (!loadFilePath.toFile().canRead()) {
+            throw new LoadErrorException(loadFilePath, "you don't have permission to read the file!");
+        }
+
+        cancelLoad();
+        stopFollowing();
+        uicomponent.setFollowCheckBoxVisible(false);
+        DataLoadPipeline pipeline = new DataLoadPipeline(loadFilePath, getFileFormat(loadFilePath));
+        pipeline.setErrorCapacity(((AppData)data).getErrorCapacity());
+        long offHeapThreshold = manager.getPropertyValueAsInt(DataVisionSettings.OFF_HEAP_FILE_SIZE_THRESHOLD_MB.name()) * (1L << 20);
+        if (loadFilePath.toFile().length() > offHeapThreshold) {
+            pipeline.setStorage(ColumnStorage.MAPPED);
+        }
+        long previewThreshold = manager.getPropertyValueAsInt(DataVisionSettings.PREVIEW_FILE_SIZE_THRESHOLD_MB.name()) * (1L << 20);
+        if (loadFilePath.toFile().length() > previewThreshold) {
+            int sampleSize = manager.getPropertyValueAsInt(DataVisionSettings.PREVIEW_SAMPLE_SIZE.name());
+            boolean perLabel = manager.getPropertyValueAsBoolean(DataVisionSettings.PREVIEW_PER_LABEL.name());
+            pipeline.setPreview(new ReservoirSampler(sampleSize, perLabel, System.nanoTime()),
+                    sample -> Platform.runLater(() -> showPreview(pipeline, sample, loadFilePath)));
+        }
+        loadPipeline = pipeline;
+        uicomponent.getButtonStorage().get(AppSettings.LOAD_ICON.name()).setDisable(true);
+        uicomponent.updateLoadProgress(DataLoadPipeline.Stage.READING, ProgressBar.INDETERMINATE_PROGRESS);
+        uicomponent.setLoadProgressVisible(true);
+        loadExecutor.execute(() -> runLoadPipeline(pipeline, loadFilePath));
+    }
+
+    /**
+     * Runs the stages of a load on the background executor. Only the progress and the final outcome are passed on to
+     * the JavaFX application thread.
+     */
+    private void runLoadPipeline(DataLoadPipeline pipeline, Path loadFilePath) {
+        AppUI uicomponent = (AppUI)ui;
         try {
-            AppData datacomponent = (AppData) data;
-            AppUI uicomponent = (AppUI)ui;
-            String description = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT_DESC.name());
-            String extension = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT.name());
-            loadFilePath = uicomponent.getLoadFile(description, extension);
-            if (loadFilePath == null) {
-                return;
-            }
+            DataLoadPipeline.Result result = pipeline.run((stage, fraction) -> Platform.runLater(() -> {
+                if (pipeline == loadPipeline) {
+                    uicomponent.updateLoadProgress(stage, fraction);
+                }
+            }));
+            Platform.runLater(() -> finishLoad(pipeline, result, loadFilePath));
+        } catch (CancellationException e) {
+            // the user interface was already reset when the load was cancelled
+        } catch (IOException | RuntimeException e) {
+            Platform.runLater(() -> {
+                if (pipeline == loadPipeline) {
+                    endLoad();
+                    uicomponent.handleLoadError(new LoadErrorException(loadFilePath, LoadErrorException.UNKNOWN_REASON));
+                }
+            });
+        }
+    }
 
-            if (!loadFilePath.toFile().exists()) {
-                throw new LoadErrorException(loadFilePath, "the file does not exists!");
+    private void showPreview(DataLoadPipeline pipeline, ReservoirSampler.Sample sample, Path loadFilePath) {
+        if (pipeline != loadPipeline) {
+            return;
+        }
+        AppData datacomponent = (AppData) data;
+        AppUI uicomponent = (AppUI)ui;
+        uicomponent.setChartVisible(true);
+        uicomponent.getPlotAPI().plotPreview(sample);
+        chartNotHasData.set(false);
+        uicomponent.setMetaDataLabelVisible(true);
+        uicomponent.updateMetaDataLabel(datacomponent.getPreviewMetaData(loadFilePath.toString()));
+    }
+
+    private void finishLoad(DataLoadPipeline pipeline, DataLoadPipeline.Result result, Path loadFilePath) {
+        if (pipeline != loadPipeline) {
+            return;
+        }
+        endLoad();
+
+        AppData datacomponent = (AppData) data;
+        AppUI uicomponent = (AppUI)ui;
+        Data.DataValidity validity;
+        if ((validity = datacomponent.strictCheckLoadedData(result)).valid()) {
+            datacomponent.publishLoadedData(result);
+            uicomponent.setTextAreaVisible(true);
+            uicomponent.setTextAreaDisabledState(true);
+            uicomponent.setEditDoneToggleButtonVisible(false);
+            uicomponent.getButtonStorage().get(DataVisionSettings.EDIT_DONE_TOGGLE_BUTTON.name()).setText(manager.getPropertyValue(DataVisionSettings.EDIT_BUTTON_TEXT.name()));
+            uicomponent.setMetaDataLabelVisible(true);
+            uicomponent.getAlgorithmSelectionSystem().begin();
+            isUnsaved.set(false);
+            uicomponent.updateMetaDataLabel(datacomponent.getMetaData(loadFilePath.toString()));
+            saveFilePath = loadFilePath;
+            if (result.getLoadedLength() >= 0) {
+                follower = new TSDFileFollower(loadFilePath, result.getLoadedLength());
             }
-            if (!loadFilePath.toFile().canRead()) {
-                throw new LoadErrorException(loadFilePath, "you don't have permission to read the file!");
+            uicomponent.setFollowCheckBoxVisible(follower != null);
+        } else {
+            uicomponent.clear();
+            uicomponent.handleInvalidDataFormat(new InvalidDataFormatException(validity.getError()));
+        }
+    }
+
+    public void handleCancelLoadRequest() {
+        cancelLoad();
+    }
+
+    private void cancelLoad() {
+        if (loadPipeline != null) {
+            if (((AppData)data).getPreview() != null) {
+                // the preview of the cancelled load goes along with it
+                AppUI uicomponent = (AppUI)ui;
+                uicomponent.clearChart();
+                uicomponent.setMetaDataLabelVisible(false);
             }
-            if (!datacomponent.loadFromFile(loadFilePath).success()) {
-                throw new LoadErrorException(loadFilePath, LoadErrorException.UNKNOWN_REASON);
+            loadPipeline.cancel();
+            endLoad();
+        }
+    }
+
+    /**
+     * Starts or stops following the loaded file. While it is followed, the lines appended to it are added to the data
+     * as they come, without the file being loaded again.
+     */
+    public void handleFollowRequest(boolean follow) {
+        if (follower == null) {
+            return;
+        }
+        TSDFileFollower current = follower;
+        if (!follow) {
+            stopFollowing();
+            // picks up where the previous follower stopped, should the file be followed again
+            follower = new TSDFileFollower(current.getFilePath(), current.getOffset());
+            return;
+        }
+        try {
+            current.start(new TSDFileFollower.AppendListener() {
+                @Override
+                public void onAppend(String text, ColumnarDataSet rows) {
+                    Platform.runLater(() -> appendFollowedData(current, text, rows));
+                }
+
+                @Override
+                public void onTruncated() {
+                    Platform.runLater(() -> {
+                        if (current == follower) {
+                            stopFollowing();
+                            ((AppUI)ui).setFollowCheckBoxVisible(false);
+                        }
+                    });
+                }
+            });
+        } catch (IOException e) {
+            AppUI uicomponent = (AppUI)ui;
+            uicomponent.setFollowCheckBoxSelected(false);
+            uicomponent.handleLoadError(new LoadErrorException(current.getFilePath(), LoadErrorException.UNKNOWN_REASON));
+        }
+    }
+
+    /**
+     * Exports the labels the running or last run clusterer published to a <code>.tsd</code> or <code>.csv</code>
+     * file. The export goes on in the background, so the clusterer may keep running in the meantime.
+     */
+    public void handleExportRequest() {
+        AppUI uicomponent = (AppUI)ui;
+        LabelSnapshot snapshot = algorithmAdapter instanceof ClustererAdapter ? ((ClustererAdapter)algorithmAdapter).getSnapshot() : null;
+        if (snapshot == null) {
+            return;
+        }
+        String description = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT_DESC.name());
+        String extension = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT.name());
+        String csvDescription = manager.getPropertyValue(DataVisionSettings.CSV_FILE_EXT_DESC.name());
+        String csvExtension = manager.getPropertyValue(DataVisionSettings.CSV_FILE_EXT.name());
+        Path exportFilePath = uicomponent.getSaveFile(new String[]{description, csvDescription}, new String[]{extension, csvExtension});
+        if (exportFilePath == null) {
+            return;
+        }
+
+        uicomponent.setExporting(true);
+        ClusterResultExporter exporter = new ClusterResultExporter(ClusterResultExporter.formatOf(exportFilePath));
+        exportExecutor.execute(() -> {
+            try {
+                exporter.export(snapshot, exportFilePath, null);
+                Platform.runLater(() -> uicomponent.setExporting(false));
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> {
+                    uicomponent.setExporting(false);
+                    uicomponent.handleSaveError(new SaveErrorException(exportFilePath, SaveErrorException.UNKNOWN_REASON));
+                });
             }
-            Data.DataValidity validity;
-            if ((validity = datacomponent.strictCheckDataFromTextArea()).valid()) {
-                uicomponent.setTextAreaVisible(true);
-                uicomponent.setTextAreaDisabledState(true);
-                uicomponent.setEditDoneToggleButtonVisible(false);
-                uicomponent.getButtonStorage().get(DataVisionSettings.EDIT_DONE_TOGGLE_BUTTON.name()).setText(manager.getPropertyValue(DataVisionSettings.EDIT_BUTTON_TEXT.name()));
-                uicomponent.setMetaDataLabelVisible(true);
-                uicomponent.getAlgorithmSelectionSystem().begin();
-                isUnsaved.set(false);
-                uicomponent.updateMetaDataLabel(datacomponent.getMetaData(loadFilePath.toString()));
-                saveFilePath = loadFilePath;
-            } else {
-                uicomponent.clear();
-                throw new InvalidDataFormatException(validity.getError());
+        });
+    }
+
+    /**
+     * Shows the plotted data along other axes.
+     *
+     * @param xAxis the 0-based axis to show horizontally
+     * @param yAxis the 0-based axis to show vertically
+     */
+    public void handleProjectionRequest(int xAxis, int yAxis) {
+        ((AppUI)ui).getPlotAPI().setProjection(xAxis, yAxis, true);
+    }
+
+    private void appendFollowedData(TSDFileFollower source, String text, ColumnarDataSet rows) {
+        if (source != follower) {
+            return;
+        }
+        AppData datacomponent = (AppData)data;
+        AppUI uicomponent = (AppUI)ui;
+        boolean rowsAdded = datacomponent.appendToTextArea(text, rows);
+        // the lines are already in the file
+        isUnsaved.set(false);
+        if (rowsAdded && !algorithmRunning.get() && !chartNotHasData.get() && uicomponent.getPlotAPI().isPlottingTextAreaData()) {
+            uicomponent.getPlotAPI().plotAppendedRows(rows);
+        }
+        uicomponent.updateMetaDataLabel(datacomponent.getMetaData(source.getFilePath().toString()));
+    }
+
+    private void stopFollowing() {
+        if (follower != null) {
+            try {
+                follower.close();
+            } catch (IOException e) {
+                // the watch service is let go of either way
             }
-        } catch (IOException e) {
-            throw new LoadErrorException(loadFilePath, LoadErrorException.UNKNOWN_REASON);
+            follower = null;
         }
     }
 
+    private void endLoad() {
+        AppUI uicomponent = (AppUI)ui;
+        loadPipeline = null;
+        uicomponent.setLoadProgressVisible(false);
+        uicomponent.getButtonStorage().get(AppSettings.LOAD_ICON.name()).setDisable(false);
+    }
+
     private void proceedToSave() throws InvalidDataFormatException, SaveErrorException {
         try {
             AppData datacomponent = (AppData)data;
@@ -299,12 +540,32 @@ public final class AppAction extends Action {
                 if (saveFilePath == null) {
                     String description = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT_DESC.name());
                     String extension = manager.getPropertyValue(DataVisionSettings.DATA_FILE_EXT.name());
-                    saveFilePath = uicomponent.getSaveFile(description, extension);
+                    String compressedDescription = manager.getPropertyValue(DataVisionSettings.COMPRESSED_DATA_FILE_EXT_DESC.name());
+                    String compressedExtension = manager.getPropertyValue(DataVisionSettings.COMPRESSED_DATA_FILE_EXT.name());
+                    String snapshotDescription = manager.getPropertyValue(DataVisionSettings.SNAPSHOT_FILE_EXT_DESC.name());
+                    String snapshotExtension = manager.getPropertyValue(DataVisionSettings.SNAPSHOT_FILE_EXT.name());
+                    saveFilePath = uicomponent.getSaveFile(new String[]{description, compressedDescription, snapshotDescription},
+                            new String[]{extension, compressedExtension, snapshotExtension});
                 }
-                if (saveFilePath != null && datacomponent.saveToFile(saveFilePath).success()) {
-                    isUnsaved.set(false);
+                if (saveFilePath != null) {
+                    FileOperationSuccess saved;
+                    switch (getFileFormat(saveFilePath)) {
+                        case SNAPSHOT:
+                            saved = datacomponent.saveSnapshotToFile(saveFilePath);
+                            break;
+                        case COMPRESSED_TSD:
+                            saved = datacomponent.saveCompressedToFile(saveFilePath);
+                            break;
+                        default:
+                            saved = datacomponent.saveToFile(saveFilePath);
+                            break;
+                    }
+                    if (saved.success()) {
+                        isUnsaved.set(false);
+                    }
                 }
             } else {
+                uicomponent.jumpToLine(datacomponent.getFirstErrorLineOfTextArea(false));
                 throw new InvalidDataFormatException(validity.getError());
             }
         } catch (IOException e) {
@@ -315,9 +576,38 @@ public final class AppAction extends Action {
         }
     }
 
-    /* FIXME */
-    public void setUpDataSync(TextArea textArea) {
-        ((AppData)data).textAreaText.bindBidirectional(textArea.textProperty());
+    private DataLoadPipeline.Format getFileFormat(Path filePath) {
+        String fileName = filePath.toString();
+        if (fileName.endsWith(manager.getPropertyValue(DataVisionSettings.SNAPSHOT_FILE_EXT.name()))) {
+            return DataLoadPipeline.Format.SNAPSHOT;
+        }
+        if (fileName.endsWith(manager.getPropertyValue(DataVisionSettings.COMPRESSED_DATA_FILE_EXT.name()))) {
+            return DataLoadPipeline.Format.COMPRESSED_TSD;
+        }
+        return DataLoadPipeline.Format.TSD;
+    }
+
+    public void setUpDataSync(DataView dataView) {
+        AppData datacomponent = (AppData)data;
+        dataView.setLineSource(new DataView.LineSource() {
+            @Override
+            public int getLineCount() {
+                return datacomponent.getTextAreaLineCount();
+            }
+
+            @Override
+            public String getLine(int line) {
+                return datacomponent.getTextAreaLine(line);
+            }
+
+            @Override
+            public boolean isValidLine(int line) {
+                return datacomponent.isTextAreaLineValid(line);
+            }
+        });
+        // an edited line only revalidates, and when it can, only updates, the lines and instances it touches
+        dataView.setOnLineEdit(datacomponent::replaceTextAreaLine);
+        datacomponent.textAreaVersion.addListener((observable, oldValue, newValue) -> dataView.textChanged());
     }
 }
 
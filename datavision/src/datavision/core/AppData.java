@@ -1,11 +1,22 @@
 package datavision.core;
 
+import datavision.algorithms.ColumnarDataSet;
 import datavision.algorithms.DataSet;
 import datavision.api.PlotAPI;
+import datavision.lib.data.DataErrorCollector;
+import datavision.lib.data.DataLoadPipeline;
 import datavision.lib.data.DataProcessor;
+import datavision.lib.data.DataSetSnapshot;
+import datavision.lib.data.DataSetStatistics;
+import datavision.lib.data.GzipTSDLoader;
+import datavision.lib.data.IncrementalTSDValidator;
+import datavision.lib.data.ReservoirSampler;
+import datavision.lib.data.TSDDocument;
+import datavision.lib.data.TSDLineParser;
+import datavision.lib.data.TSDValidator;
+import datavision.lib.data.ValidationResult;
 import datavision.utils.settings.DataVisionSettings;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.geometry.Point2D;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.scene.chart.XYChart;
 import javafx.stage.Stage;
 import vision.core.ApplicationTemplate;
@@ -17,27 +28,55 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public final class AppData extends Data {
 
     private DataProcessor dataProcessor;
+    /* the content of the text area, held line by line */
+    private TSDDocument textArea;
+    /* the text area parsed into a dataset, shared by every consumer for as long as the text is not changed */
+    private ColumnarDataSet parsedDataSet;
+    private long parsedVersion;
+    private DataSetStatistics statistics;
+    /* the sample of a large file that the chart shows, if any */
+    private ReservoirSampler.Sample preview;
+    /* keeps the validation of the text area up to date as it is edited */
+    private IncrementalTSDValidator textAreaValidator;
+    /* the outcome of the last validation of some other data, valid for as long as that data is not replaced */
+    private ValidationResult validationResult;
+    private String validatedText;
+    /* the number of invalid lines whose errors a validation keeps */
+    private final int errorCapacity;
+    /* the errors found by the last check of some data, or null if it passed */
+    private DataErrorCollector dataErrors;
 
     final PropertyManager manager;
-    final SimpleStringProperty textAreaText;
+    /* bumped on every change of the text area, so that anything derived from an older text can be told apart */
+    final SimpleLongProperty textAreaVersion;
 
     public AppData(PropertyManager manager) {
         this.dataProcessor = new DataProcessor();
 
         this.manager = manager;
-        this.textAreaText = new SimpleStringProperty();
+        this.textAreaVersion = new SimpleLongProperty(0);
+        this.textArea = new TSDDocument();
+        // the application properties are not loaded outside of the application, as in tests
+        this.errorCapacity = manager.hasProperty(DataVisionSettings.MAX_REPORTED_DATA_ERRORS)
+                ? manager.getPropertyValueAsInt(DataVisionSettings.MAX_REPORTED_DATA_ERRORS.name())
+                : DataErrorCollector.DEFAULT_CAPACITY;
+        this.textAreaValidator = new IncrementalTSDValidator(errorCapacity);
+        this.textAreaValidator.update(textArea);
     }
 
     @Override
     public void loadFromString(String dataString) {
-        textAreaText.set(dataString);
+        textArea = TSDDocument.of(dataString == null ? "" : dataString);
+        textAreaValidator.update(textArea);
+        textAreaChanged();
+    }
+
+    private void textAreaChanged() {
+        textAreaVersion.set(textAreaVersion.get() + 1);
     }
 
     @Override
@@ -45,20 +84,100 @@ public final class AppData extends Data {
         if (filePath == null) {
             return new FileOperationSuccess(false);
         }
-        String data = new String(Files.readAllBytes(filePath));
-        textAreaText.set(data);
+        publishLoadedData(new DataLoadPipeline(filePath, DataLoadPipeline.Format.TSD).run(null));
         return new FileOperationSuccess(true);
     }
 
+    /**
+     * Takes over the outcome of a {@link DataLoadPipeline}: the loaded document becomes the text area, and the dataset,
+     * the validation and the statistics worked out along with it are kept, so that none of them has to be worked out
+     * again. This must be called on the JavaFX application thread.
+     */
+    public void publishLoadedData(DataLoadPipeline.Result result) {
+        textArea = result.getDocument();
+        textAreaValidator = result.getValidator();
+        textAreaChanged();
+        if (result.getDataSet() != null) {
+            // the text area now holds exactly the loaded data, so it need not be parsed again
+            setParsedTextAreaData(result.getDataSet());
+            statistics = result.getStatistics();
+        }
+    }
+
+    /**
+     * Checks the outcome of a {@link DataLoadPipeline} as strictly as {@link #strictCheckDataFromTextArea()}, before
+     * it is published.
+     */
+    public DataValidity strictCheckLoadedData(DataLoadPipeline.Result result) {
+        return checkValidationResult(result.getValidator().getResult(), true);
+    }
+
     @Override
     public FileOperationSuccess saveToFile(Path filePath) throws IOException {
         try (PrintWriter writer = new PrintWriter(Files.newOutputStream(filePath))) {
-            writer.write(textAreaText.get());
+            textArea.write(writer);
             writer.close();
             return new FileOperationSuccess(true);
         }
     }
 
+    /**
+     * Loads a binary {@link DataSetSnapshot}. The dataset is taken over as it is, so it is not parsed again; the text
+     * area is then filled with it in the <code>.tsd</code> format.
+     *
+     * @param filePath the snapshot file to load
+     * @return whether the load was successful
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public FileOperationSuccess loadSnapshotFromFile(Path filePath) throws IOException {
+        if (filePath == null) {
+            return new FileOperationSuccess(false);
+        }
+        publishLoadedData(new DataLoadPipeline(filePath, DataLoadPipeline.Format.SNAPSHOT).run(null));
+        return new FileOperationSuccess(true);
+    }
+
+    /**
+     * Loads a gzip-compressed <code>.tsd</code> file, which is parsed as it is decompressed.
+     *
+     * @param filePath the compressed file to load
+     * @return whether the load was successful
+     * @throws IOException if the file cannot be read or is not in the gzip format
+     */
+    public FileOperationSuccess loadCompressedFromFile(Path filePath) throws IOException {
+        if (filePath == null) {
+            return new FileOperationSuccess(false);
+        }
+        publishLoadedData(new DataLoadPipeline(filePath, DataLoadPipeline.Format.COMPRESSED_TSD).run(null));
+        return new FileOperationSuccess(true);
+    }
+
+    /**
+     * Saves the content of the text area as a gzip-compressed <code>.tsd</code> file, compressing it as it is written.
+     *
+     * @param filePath the compressed file to save to
+     * @return whether the save was successful
+     * @throws IOException if the file cannot be written
+     */
+    public FileOperationSuccess saveCompressedToFile(Path filePath) throws IOException {
+        try (Writer writer = GzipTSDLoader.newWriter(filePath)) {
+            textArea.write(writer);
+            return new FileOperationSuccess(true);
+        }
+    }
+
+    /**
+     * Saves the parsed content of the text area as a binary {@link DataSetSnapshot}.
+     *
+     * @param filePath the snapshot file to save to
+     * @return whether the save was successful
+     * @throws IOException if the file cannot be written
+     */
+    public FileOperationSuccess saveSnapshotToFile(Path filePath) throws IOException {
+        new DataSetSnapshot(getParsedTextAreaData()).save(filePath);
+        return new FileOperationSuccess(true);
+    }
+
     public FileOperationSuccess saveToFile(Path filePath, String dataString) throws IOException {
         try (PrintWriter writer = new PrintWriter(Files.newOutputStream(filePath))) {
             writer.write(dataString);
@@ -77,9 +196,58 @@ public final class AppData extends Data {
         return dataProcessor.getProcessedData();
     }
 
-    public DataProcessor.DataSet getProcessedTextAreaData() throws Exception {
-        dataProcessor.processString(textAreaText.get());
-        return dataProcessor.getProcessedData();
+    /**
+     * Returns the content of the text area as a dataset, provided that it is valid. The dataset is the one shared
+     * through {@link #getParsedTextAreaData()} and must therefore not be modified.
+     *
+     * @throws Exception if the content of the text area does not follow the <code>.tsd</code> data format
+     */
+    public DataSet getProcessedTextAreaData() throws Exception {
+        DataValidity validity = checkDataFromTextArea();
+        if (!validity.valid()) {
+            throw new Exception(validity.getError());
+        }
+        return getParsedTextAreaData();
+    }
+
+    public long getTextAreaVersion() {
+        return textAreaVersion.get();
+    }
+
+    /**
+     * Returns whether the text area holds nothing at all.
+     */
+    public boolean isTextAreaEmpty() {
+        return textArea.isEmpty();
+    }
+
+    /**
+     * Returns the content of the text area parsed into a dataset. The text is only parsed again once it has changed,
+     * so that plotting, the algorithms and the chart ranges all share a single parse. The returned dataset must not be
+     * modified; {@link #generateDataSetFromTextArea()} hands out copies that may be.
+     */
+    public ColumnarDataSet getParsedTextAreaData() {
+        if (parsedDataSet == null || parsedVersion != textAreaVersion.get()) {
+            setParsedTextAreaData(parseDocument(textArea));
+        }
+        return parsedDataSet;
+    }
+
+    private void setParsedTextAreaData(ColumnarDataSet dataSet) {
+        parsedDataSet = dataSet;
+        parsedVersion = textAreaVersion.get();
+        statistics = null;
+    }
+
+    /**
+     * Returns the statistics of the parsed content of the text area, which are computed once per version of the text.
+     */
+    public DataSetStatistics getStatistics() {
+        ColumnarDataSet dataSet = getParsedTextAreaData();
+        if (statistics == null) {
+            statistics = new DataSetStatistics(dataSet);
+        }
+        return statistics;
     }
 
     @Override
@@ -88,48 +256,241 @@ public final class AppData extends Data {
     }
 
     public DataValidity checkData(String dataString, boolean strict) {
-        String linesNumWithInvalidData = ensureDataFormatIsValid(dataString, strict);
-        String linesWithDuplicateNames = (linesNumWithInvalidData.isEmpty()) ? ensureNoDuplicateNames(dataString) : "";
+        return checkValidationResult(getValidationResult(dataString), strict);
+    }
 
-        if (!linesNumWithInvalidData.isEmpty()) {
-            StringBuilder errMsg = new StringBuilder();
-            errMsg.append(manager.getPropertyValue(DataVisionSettings.INVALID_DATA_FORMAT_MSG.name()));
-            errMsg.append(linesNumWithInvalidData);
-            return new DataValidity(false, errMsg.toString());
+    /**
+     * Checks the outcome of a validation. If it failed, the message of the returned validity only summarizes the
+     * errors, which are kept for {@link #getDataErrors()} to list.
+     */
+    private DataValidity checkValidationResult(ValidationResult result, boolean strict) {
+        DataErrorCollector errors = result.getErrors(strict);
+        String summaryFormat = manager.getPropertyValue(DataVisionSettings.INVALID_DATA_SUMMARY_FORMAT.name());
+        if (errors.isEmpty() && result.hasDuplicateNames()) {
+            errors = new DataErrorCollector(errorCapacity);
+            String errorFormat = manager.getPropertyValue(DataVisionSettings.DUPLICATE_NAME_ERROR_FORMAT.name());
+            for (Map.Entry<String, List<Integer>> duplicate : result.getDuplicateNames().entrySet()) {
+                List<Integer> lines = duplicate.getValue();
+                for (int i = 1; i < lines.size(); i++) {
+                    errors.add(lines.get(i), 1, String.format(errorFormat, duplicate.getKey(), lines.get(0)));
+                }
+            }
+            errors.addDropped(result.getDroppedDuplicateCount());
+            summaryFormat = manager.getPropertyValue(DataVisionSettings.DUPLICATE_NAMES_SUMMARY_FORMAT.name());
         }
-        if (!linesWithDuplicateNames.isEmpty()) {
-            StringBuilder errMsg = new StringBuilder();
-            errMsg.append(manager.getPropertyValue(DataVisionSettings.DUPLICATE_NAMES_FORMAT_MSG.name()));
-            errMsg.append(linesWithDuplicateNames);
-            return new DataValidity(false, errMsg.toString());
+
+        if (errors.isEmpty()) {
+            dataErrors = null;
+            return new DataValidity(true, null);
         }
-        return new DataValidity(true, null);
+        dataErrors = errors;
+        return new DataValidity(false, String.format(summaryFormat, errors.getTotalCount(), errors.getFirst()));
+    }
+
+    /**
+     * Returns the errors found by the last check of some data, or <code>null</code> if it passed.
+     */
+    public DataErrorCollector getDataErrors() {
+        return dataErrors;
+    }
+
+    public int getErrorCapacity() {
+        return errorCapacity;
+    }
+
+    /**
+     * Replaces the lines <code>[fromLine, toLine)</code> of the text area with the lines of the given text. The
+     * document only lays a piece of new lines over the replaced ones, and only the new lines are validated.
+     */
+    private void replaceTextAreaLines(int fromLine, int toLine, String lines) {
+        textArea.replaceLines(fromLine, toLine, lines);
+        textAreaValidator.replaceLines(fromLine, toLine, lines);
+        textAreaChanged();
+    }
+
+    public int getTextAreaLineCount() {
+        return textArea.getLineCount();
+    }
+
+    /**
+     * Returns the given 0-based line of the text area, without its newline.
+     */
+    public String getTextAreaLine(int line) {
+        return textArea.getLine(line);
+    }
+
+    public boolean isTextAreaLineValid(int line) {
+        return textAreaValidator.isValidLine(line);
+    }
+
+    /**
+     * Replaces the given 0-based line of the text area, without its newline. Only the lines the replacement touches
+     * are validated again. If the replacement keeps the line a valid instance of the same name, or adds a new
+     * instance right after the last one, the parsed dataset is updated in place rather than parsed again.
+     *
+     * @param line        the line to replace
+     * @param replacement the new content of the line, which may span several lines or be empty
+     */
+    public void replaceTextAreaLine(int line, String replacement) {
+        // the rows of the dataset match the lines of the text as long as every line became a row of its own
+        boolean rowsMatchLines = parsedDataSet != null && parsedVersion == textAreaVersion.get()
+                && parsedDataSet.size() == textAreaValidator.getResult().getNumberOfLines();
+
+        replaceTextAreaLines(line, line + 1, replacement);
+        if (rowsMatchLines && updateParsedRow(line, replacement)) {
+            parsedVersion = textAreaVersion.get();
+        }
+    }
+
+    /**
+     * Appends lines to the end of the text area, such as those appended to a followed file. Only the appended lines
+     * are validated. If they come parsed, and none of them repeats a name of the parsed dataset, they are added to it
+     * as they are, and the statistics are brought up to date with them rather than worked out again.
+     *
+     * @param lines the lines to append, each followed by a newline
+     * @param rows  the lines parsed into a dataset, or <code>null</code> to leave the parsing to the next use
+     * @return whether the parsed dataset now holds the appended rows
+     */
+    public boolean appendToTextArea(String lines, ColumnarDataSet rows) {
+        boolean parsedIsCurrent = parsedDataSet != null && parsedVersion == textAreaVersion.get();
+        // the appended lines take the place of an empty last line, and otherwise follow the last line
+        int lastLine = textArea.getLineCount() - 1;
+        int fromLine = textArea.getLine(lastLine).isEmpty() ? lastLine : lastLine + 1;
+
+        replaceTextAreaLines(fromLine, lastLine + 1, lines);
+        if (!parsedIsCurrent || rows == null || (parsedDataSet.size() > 0 && rows.getDimension() != parsedDataSet.getDimension())) {
+            return false;
+        }
+        for (int row = 0; row < rows.size(); row++) {
+            if (parsedDataSet.indexOf(rows, row) >= 0) {
+                return false;
+            }
+        }
+        parsedDataSet.addRows(rows);
+        parsedVersion = textAreaVersion.get();
+        if (statistics != null) {
+            statistics.update();
+        }
+        return true;
+    }
+
+    /**
+     * Applies the replacement of a line to the matching row of the parsed dataset.
+     *
+     * @return whether the dataset could be updated in place
+     */
+    private boolean updateParsedRow(int row, String replacement) {
+        boolean appending = row == parsedDataSet.size();
+        // a new instance ends with a newline, which only adds an empty line after the last one
+        String instance = appending && replacement.endsWith("\n") ? replacement.substring(0, replacement.length() - 1) : replacement;
+        if (row > parsedDataSet.size() || instance.indexOf('\n') >= 0) {
+            return false;
+        }
+        ColumnarDataSet parsedLine = new ColumnarDataSet(1);
+        try {
+            new TSDLineParser().parseLine(instance, 0, instance.length(), row + 1, parsedLine);
+        } catch (TSDLineParser.InvalidLineException e) {
+            return false;
+        }
+        String name = parsedLine.getName(0);
+        if (parsedDataSet.size() > 0 && parsedLine.getDimension() != parsedDataSet.getDimension()) {
+            return false;
+        }
+        if (appending) {
+            if (parsedDataSet.indexOf(name) >= 0) {
+                return false;
+            }
+            parsedDataSet.addRows(parsedLine);
+            if (statistics != null) {
+                statistics.update();
+            }
+        } else {
+            if (!name.equals(parsedDataSet.getName(row))) {
+                return false;
+            }
+            parsedDataSet.setLabel(row, parsedLine.getLabel(0));
+            double[] point = new double[parsedLine.getDimension()];
+            parsedLine.getPoint(0, point);
+            parsedDataSet.setPoint(row, point);
+            statistics = null;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the 1-based number of the first line of the text area reported by {@link #checkDataFromTextArea()}, or
+     * by its strict counterpart, or 0 if there is none.
+     */
+    public int getFirstErrorLineOfTextArea(boolean strict) {
+        ValidationResult result = textAreaValidator.getResult();
+        List<Integer> linesWithInvalidData = strict ? result.getMalformedLines() : result.getInvalidLines();
+        if (!linesWithInvalidData.isEmpty()) {
+            return linesWithInvalidData.get(0);
+        }
+        for (List<Integer> duplicateLines : result.getDuplicateNames().values()) {
+            return duplicateLines.get(duplicateLines.size() - 1);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the outcome of validating the given data, reusing the previous outcome if the data is the very same
+     * {@link String} that was validated last. The content of the text area is validated incrementally as it is edited
+     * instead.
+     */
+    private ValidationResult getValidationResult(String dataString) {
+        if (dataString != validatedText) {
+            validationResult = new TSDValidator(errorCapacity).validate(dataString);
+            validatedText = dataString;
+        }
+        return validationResult;
     }
 
     public DataValidity strictCheckDataFromTextArea() {
-        return checkData(textAreaText.getValue(), true);
+        return checkValidationResult(textAreaValidator.getResult(), true);
     }
 
     public DataValidity checkDataFromTextArea() {
-        return checkData(textAreaText.getValue(), false);
+        return checkValidationResult(textAreaValidator.getResult(), false);
     }
 
 
     public DataSet generateDataSetFromDataString(String dataString) {
-        DataSet dataSet = new DataSet();
-        Arrays.asList(dataString.split("\n")).forEach(line -> {
+        return parseDataString(dataString);
+    }
+
+    /**
+     * Returns a copy of the parsed content of the text area, for an algorithm to work on.
+     */
+    public DataSet generateDataSetFromTextArea() {
+        return getParsedTextAreaData().copy();
+    }
+
+    /**
+     * Parses the lines of the given document, up to the last one that is not empty.
+     */
+    private ColumnarDataSet parseDocument(TSDDocument document) {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        int lineCount = document.getLineCount();
+        while (lineCount > 0 && document.getLine(lineCount - 1).isEmpty()) {
+            lineCount--;
+        }
+        for (int line = 0; line < lineCount; line++) {
             try {
-                dataSet.addInstance(line);
+                dataSet.addInstance(document.getLine(line));
             } catch (DataSet.InvalidDataNameException e) {
                 e.printStackTrace();
             }
-        });
+        }
         return dataSet;
     }
 
-    public DataSet generateDataSetFromTextArea() {
-        DataSet dataSet = new DataSet();
-        Arrays.asList(textAreaText.get().split("\n")).forEach(line -> {
+    private ColumnarDataSet parseDataString(String dataString) {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        if (dataString == null) {
+            return dataSet;
+        }
+        Arrays.asList(dataString.split("\n")).forEach(line -> {
             try {
                 dataSet.addInstance(line);
             } catch (DataSet.InvalidDataNameException e) {
@@ -140,12 +501,11 @@ public final class AppData extends Data {
     }
 
     public String getMetaData() {
-        StringBuilder metaData = new StringBuilder();
-        String[] labels = getLabels();
-        int numLabels = labels.length;
-        int numLines = textAreaText.get().split("\n").length;
+        ValidationResult result = textAreaValidator.getResult();
+        Set<String> labels = result.getLabels();
         String metaDataFormatString = manager.getPropertyValue(DataVisionSettings.META_DATA_NO_FILE_FORMAT_STRING.name());
-        metaData.append(String.format(metaDataFormatString, numLines, numLabels));
+        StringBuilder metaData = new StringBuilder();
+        metaData.append(String.format(metaDataFormatString, result.getNumberOfLines(), labels.size()));
         for(String label: labels) {
             metaData.append(String.format("\n - %s", label));
         }
@@ -153,86 +513,68 @@ public final class AppData extends Data {
     }
 
     public String getMetaData(String loadPath) {
-        StringBuilder metaData = new StringBuilder();
-        String[] labels = getLabels();
-        int numLabels = labels.length;
-        int numLines = textAreaText.get().split("\n").length;
+        ValidationResult result = textAreaValidator.getResult();
+        Set<String> labels = result.getLabels();
         String metaDataFormatString = manager.getPropertyValue(DataVisionSettings.META_DATA_WITH_FILE_FORMAT_STRING.name());
-        metaData.append(String.format(metaDataFormatString, numLines, numLabels, loadPath));
+        StringBuilder metaData = new StringBuilder();
+        metaData.append(String.format(metaDataFormatString, result.getNumberOfLines(), labels.size(), loadPath));
         for(String label: labels) {
             metaData.append(String.format("\n - %s", label));
         }
+        if (preview != null) {
+            String sampleFormatString = manager.getPropertyValue(DataVisionSettings.SAMPLE_META_DATA_FORMAT_STRING.name());
+            metaData.append("\n").append(String.format(sampleFormatString, preview.getSampleSize(), result.getNumberOfLines()));
+        }
         return metaData.toString();
     }
 
-    private String[] getLabels() {
-        String GET_LABEL_REGEX = "(^@.+\\t(.+)\\t(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+)),(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+))$\r*\n*)";
+    /**
+     * Returns the metadata of a file that is being loaded, as far as its preview tells.
+     */
+    public String getPreviewMetaData(String loadPath) {
+        String previewFormatString = manager.getPropertyValue(DataVisionSettings.PREVIEW_META_DATA_FORMAT_STRING.name());
+        return String.format(previewFormatString, preview.getSampleSize(), preview.getPopulationSize(), loadPath);
+    }
 
-        String data = textAreaText.get();
-        Set<String> labels = new HashSet<>();
-        Pattern pattern = Pattern.compile(GET_LABEL_REGEX, Pattern.MULTILINE);
-        Matcher matcher = pattern.matcher(data);
+    /**
+     * Sets the sample of a large file that the chart shows in place of the whole file, or <code>null</code> once it
+     * shows something else.
+     */
+    public void setPreview(ReservoirSampler.Sample preview) {
+        this.preview = preview;
+    }
 
-        String match;
-        while (matcher.find()) {
-            if (!(match = matcher.group(2)).equals("null")) {
-                labels.add(match);
-            }
-        }
-        return labels.toArray(new String[labels.size()]);
+    public ReservoirSampler.Sample getPreview() {
+        return preview;
     }
 
     public int getNumLabels() {
-        return getLabels().length;
+        return getStatistics().getNumberOfLabels();
     }
 
-    public int getTotalPoints() { return textAreaText.get().split("\n").length; }
+    public int getTotalPoints() { return getStatistics().getNumberOfPoints(); }
 
     public double[] getXRange() {
-        List<Double> xValues = new ArrayList<>();
-        DataSet dataSet = generateDataSetFromTextArea();
-        Map<String, Point2D> points = dataSet.getPoints();
-        points.values().forEach(point2D -> xValues.add(point2D.getX()));
-        return new double[]{Collections.min(xValues), Collections.max(xValues)};
-    }
-
-    private String ensureDataFormatIsValid(String dataString, boolean strict) {
-        String[] linesOfData = dataString.split("\n");
-        String VALID_DATA_REGEX;
-        if (strict) {
-            VALID_DATA_REGEX = "(^@.+\\t.+\\t.+$\r*\n*)";
-        } else {
-            VALID_DATA_REGEX = "(^@.+\\t.+\\t(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+)),(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+))$\r*\n*)+";
-        }
-        Pattern pattern = Pattern.compile(VALID_DATA_REGEX);
-        StringBuilder linesNumWithInvalidData = new StringBuilder();
-        for(int i = 1; i <= linesOfData.length; i++) {
-            Matcher matcher = pattern.matcher(linesOfData[i - 1]);
-            if (!matcher.matches()) {
-                linesNumWithInvalidData = (linesNumWithInvalidData.length() == 0) ? linesNumWithInvalidData.append(i) : linesNumWithInvalidData.append(", ").append(i);
-            }
-        }
-        return linesNumWithInvalidData.toString();
+        return getRange(0);
     }
 
-    private String ensureNoDuplicateNames(String dataString) {
-        ArrayList<String> listOfNames = new ArrayList<>();
-        String VALID_NAME_REGEX = "(^(@.+)\\t.+\\t(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+)),(0|([1-9][0-9]*)|((0|[1-9][0-9]*)?.[0-9]+))$\r*\n*)";
-        Pattern pattern = Pattern.compile(VALID_NAME_REGEX, Pattern.MULTILINE);
-        Matcher matcher = pattern.matcher(dataString);
-        while (matcher.find()) {
-            listOfNames.add(matcher.group(2).substring(1));
+    /**
+     * Returns the smallest and the largest coordinate of the parsed content of the text area along the given 0-based
+     * axis.
+     */
+    public double[] getRange(int axis) {
+        DataSetStatistics statistics = getStatistics();
+        if (statistics.getNumberOfPoints() == 0) {
+            throw new NoSuchElementException();
         }
-        Map<String, Long> counts = listOfNames.stream().collect(Collectors.groupingBy(e -> e, Collectors.counting()));
+        return new double[]{statistics.getMin(axis), statistics.getMax(axis)};
+    }
 
-        StringBuilder duplicateNames = new StringBuilder();
-        for (Map.Entry<String, Long> entry: counts.entrySet()) {
-            if (entry.getValue() > 1) {
-                String key = entry.getKey();
-                duplicateNames = (duplicateNames.length() == 0) ? duplicateNames.append(key): duplicateNames.append(", ").append(key);
-            }
-        }
-        return duplicateNames.toString();
+    /**
+     * Returns the number of coordinates of every instance of the parsed content of the text area.
+     */
+    public int getDimension() {
+        return getParsedTextAreaData().getDimension();
     }
 
 }
@@ -2,7 +2,10 @@ package datavision.core;
 
 import datavision.api.DataAPI;
 import datavision.api.PlotAPI;
+import datavision.lib.data.DataErrorCollector;
+import datavision.lib.data.DataLoadPipeline;
 import datavision.lib.ui.algorithmselection.AlgorithmSelectionSystem;
+import datavision.lib.ui.dataview.DataView;
 import datavision.utils.settings.AppUISettings;
 import datavision.utils.settings.DataVisionSettings;
 import javafx.geometry.Insets;
@@ -31,8 +34,18 @@ public final class AppUI extends UITemplate {
 
     private final Stage owner;
     private LineChart<Number, Number> chart;
-    private TextArea textArea;
+    private DataView dataView;
     private Label metaDataLabel;
+    private VBox loadProgressBox;
+    private Label loadProgressLabel;
+    private ProgressBar loadProgressBar;
+    private CheckBox followCheckBox;
+    private HBox projectionBox;
+    private ChoiceBox<Integer> xAxisChoiceBox;
+    private ChoiceBox<Integer> yAxisChoiceBox;
+    private Button exportButton;
+    /* set while the choices of axes are filled in, which is not a choice of the user */
+    private boolean updatingProjectionChoices;
     private AlgorithmSelectionSystem algorithmSelectionSystem;
     private PlotAPI plotAPI;
     private final PropertyManager manager;
@@ -117,15 +130,18 @@ public final class AppUI extends UITemplate {
 
     @Override
     public void clear() {
-        textArea.clear();
-        textArea.setDisable(false);
+        ((AppData)data).loadFromString("");
+        dataView.setEditable(true);
         String edit = manager.getPropertyValue(DataVisionSettings.EDIT_BUTTON_TEXT.name());
         buttonStorage.get(DataVisionSettings.EDIT_DONE_TOGGLE_BUTTON.name()).setText(edit);
         clearChart();
+        setExportButtonVisible(false);
     }
 
     public void clearChart() {
         chart.getData().clear();
+        projectionBox.setVisible(false);
+        ((AppData)data).setPreview(null);
         ((AppAction)action).chartNotHasData.set(true);
     }
 
@@ -155,30 +171,28 @@ public final class AppUI extends UITemplate {
         renderTextArea(leftPanel);
         renderEditDoneToggleButton(leftPanel);
         renderMetaDataLabel(leftPanel);
+        renderFollowCheckBox(leftPanel);
+        renderLoadProgress(leftPanel);
 
         setTextAreaVisible(false);
         setEditDoneToggleButtonVisible(false);
         setMetaDataLabelVisible(false);
+        setLoadProgressVisible(false);
+        setFollowCheckBoxVisible(false);
 
         workspace.getChildren().add(leftPanel);
     }
 
     private void renderTextArea(Pane pane) {
-        textArea = new TextArea();
-        textArea.managedProperty().bindBidirectional(textArea.visibleProperty());
-        textArea.setPrefRowCount(10);
-        textArea.textProperty().addListener((observable, oldValue, newValue) -> {
-            textArea.setPrefRowCount(10);
-
-            if (!oldValue.equals(newValue) && !newValue.isEmpty()) {
-                ((AppAction)action).isUnsaved.set(true);
-            } else {
-                ((AppAction)action).isUnsaved.set(false);
-            }
+        dataView = new DataView();
+        dataView.managedProperty().bindBidirectional(dataView.visibleProperty());
+        dataView.setPrefHeight(240);
+        ((AppData)data).textAreaVersion.addListener((observable, oldValue, newValue) -> {
+            ((AppAction)action).isUnsaved.set(!((AppData)data).isTextAreaEmpty());
         });
-        ((AppAction)action).setUpDataSync(textArea);
+        ((AppAction)action).setUpDataSync(dataView);
 
-        pane.getChildren().add(textArea);
+        pane.getChildren().add(dataView);
     }
 
     private void renderEditDoneToggleButton(Pane pane) {
@@ -210,6 +224,28 @@ public final class AppUI extends UITemplate {
         pane.getChildren().add(labelBox);
     }
 
+    private void renderFollowCheckBox(Pane pane) {
+        followCheckBox = new CheckBox(manager.getPropertyValue(AppUISettings.FOLLOW_FILE_TEXT.name()));
+        followCheckBox.managedProperty().bindBidirectional(followCheckBox.visibleProperty());
+        followCheckBox.setOnAction(e -> ((AppAction) action).handleFollowRequest(followCheckBox.isSelected()));
+
+        pane.getChildren().add(followCheckBox);
+    }
+
+    private void renderLoadProgress(Pane pane) {
+        loadProgressLabel = new Label();
+        loadProgressBar = new ProgressBar();
+        loadProgressBar.setMaxWidth(Double.MAX_VALUE);
+        Button cancelButton = new Button(manager.getPropertyValue(AppUISettings.LOAD_CANCEL_TEXT.name()));
+        cancelButton.setOnAction(e -> ((AppAction) action).handleCancelLoadRequest());
+
+        loadProgressBox = new VBox(8, loadProgressLabel, loadProgressBar, cancelButton);
+        loadProgressBox.setAlignment(Pos.TOP_CENTER);
+        loadProgressBox.managedProperty().bindBidirectional(loadProgressBox.visibleProperty());
+
+        pane.getChildren().add(loadProgressBox);
+    }
+
     private void renderRightPanel() {
         Label chartTitle = new Label(manager.getPropertyValue(DataVisionSettings.CHART_TITLE.name()));
         chartTitle.managedProperty().bindBidirectional(chartTitle.visibleProperty());
@@ -230,6 +266,8 @@ public final class AppUI extends UITemplate {
         VBox rightPanel = new VBox(8);
         rightPanel.setAlignment(Pos.TOP_CENTER);
         rightPanel.getChildren().addAll(chartTitle, chart);
+        renderProjectionBox(rightPanel);
+        renderExportButton(rightPanel);
 
         int windowWidth = manager.getPropertyValueAsInt(AppSettings.WINDOW_WIDTH.name());
         int windowHeight = manager.getPropertyValueAsInt(AppSettings.WINDOW_HEIGHT.name());
@@ -239,7 +277,68 @@ public final class AppUI extends UITemplate {
         workspace.getChildren().add(rightPanel);
     }
 
-    private void handleLoadError(LoadErrorException e) {
+    private void renderProjectionBox(Pane pane) {
+        xAxisChoiceBox = new ChoiceBox<>();
+        yAxisChoiceBox = new ChoiceBox<>();
+        xAxisChoiceBox.valueProperty().addListener((observable, oldValue, newValue) -> handleProjectionChoice());
+        yAxisChoiceBox.valueProperty().addListener((observable, oldValue, newValue) -> handleProjectionChoice());
+
+        projectionBox = new HBox(8,
+                new Label(manager.getPropertyValue(AppUISettings.PROJECTION_X_AXIS_TEXT.name())), xAxisChoiceBox,
+                new Label(manager.getPropertyValue(AppUISettings.PROJECTION_Y_AXIS_TEXT.name())), yAxisChoiceBox);
+        projectionBox.setAlignment(Pos.CENTER);
+        projectionBox.managedProperty().bindBidirectional(projectionBox.visibleProperty());
+        projectionBox.setVisible(false);
+
+        pane.getChildren().add(projectionBox);
+    }
+
+    private void renderExportButton(Pane pane) {
+        exportButton = new Button(manager.getPropertyValue(AppUISettings.EXPORT_RESULTS_TEXT.name()));
+        exportButton.setOnAction(e -> ((AppAction) action).handleExportRequest());
+        exportButton.managedProperty().bindBidirectional(exportButton.visibleProperty());
+        exportButton.setVisible(false);
+
+        pane.getChildren().add(exportButton);
+    }
+
+    private void handleProjectionChoice() {
+        Integer xAxis = xAxisChoiceBox.getValue();
+        Integer yAxis = yAxisChoiceBox.getValue();
+        if (!updatingProjectionChoices && xAxis != null && yAxis != null) {
+            // the choices are 1-based, like the coordinates of a location as a user counts them
+            ((AppAction) action).handleProjectionRequest(xAxis - 1, yAxis - 1);
+        }
+    }
+
+    /**
+     * Offers the axes of data with the given number of coordinates to be shown on the chart, which is only worth doing
+     * for more than two of them.
+     *
+     * @param dimension the number of coordinates of the plotted data
+     * @param xAxis     the 0-based axis the chart shows horizontally
+     * @param yAxis     the 0-based axis the chart shows vertically
+     */
+    public void setProjectionChoices(int dimension, int xAxis, int yAxis) {
+        updatingProjectionChoices = true;
+        try {
+            if (xAxisChoiceBox.getItems().size() != dimension) {
+                List<Integer> axes = new ArrayList<>(dimension);
+                for (int axis = 1; axis <= dimension; axis++) {
+                    axes.add(axis);
+                }
+                xAxisChoiceBox.getItems().setAll(axes);
+                yAxisChoiceBox.getItems().setAll(axes);
+            }
+            xAxisChoiceBox.setValue(xAxis + 1);
+            yAxisChoiceBox.setValue(yAxis + 1);
+        } finally {
+            updatingProjectionChoices = false;
+        }
+        projectionBox.setVisible(dimension > 2);
+    }
+
+    void handleLoadError(LoadErrorException e) {
         String path = e.getPath() == null ? "" : e.getPath().toString();
         String loadErrorTitle = manager.getPropertyValue(AppSettings.LOAD_ERROR_TITLE.name());
         String loadErrorMsg = manager.getPropertyValue(AppSettings.LOAD_ERROR_MSG.name()) + path;
@@ -251,7 +350,7 @@ public final class AppUI extends UITemplate {
         dialog.showAndWait();
     }
 
-    private void handleSaveError(SaveErrorException e) {
+    void handleSaveError(SaveErrorException e) {
         String path = e.getPath() == null ? "" : e.getPath().toString();
         String saveErrorTitle = manager.getPropertyValue(AppSettings.SAVE_ERROR_TITLE.name());
         String saveErrorMsg = manager.getPropertyValue(AppSettings.SAVE_ERROR_MSG.name()) + path;
@@ -263,10 +362,25 @@ public final class AppUI extends UITemplate {
         dialog.showAndWait();
     }
 
-    private void handleInvalidDataFormat(InvalidDataFormatException e) {
+    /**
+     * Shows the summary of the errors of the data, along with the list of the errors that were kept, if the data was
+     * just checked.
+     */
+    void handleInvalidDataFormat(InvalidDataFormatException e) {
         String invalidDataFormatErrorTitle = manager.getPropertyValue(DataVisionSettings.INVALID_DATA_TITLE.name());
         String invalidDataFormatErrorMsg = e.getReason();
-        ErrorDialog dialog = new ErrorDialog(owner, invalidDataFormatErrorTitle, invalidDataFormatErrorMsg);
+        DataErrorCollector errors = ((AppData)data).getDataErrors();
+        List<String> details = new ArrayList<>();
+        if (errors != null) {
+            for (DataErrorCollector.DataError error : errors.getErrors()) {
+                details.add(error.toString());
+            }
+            if (errors.isTruncated()) {
+                String moreErrorsFormat = manager.getPropertyValue(DataVisionSettings.MORE_DATA_ERRORS_FORMAT.name());
+                details.add(String.format(moreErrorsFormat, errors.getTotalCount() - errors.getErrors().size()));
+            }
+        }
+        ErrorDialog dialog = new ErrorDialog(owner, invalidDataFormatErrorTitle, invalidDataFormatErrorMsg, details);
         dialog.showAndWait();
     }
 
@@ -287,30 +401,42 @@ public final class AppUI extends UITemplate {
     }
 
     public Path getLoadFile(String description, String extension) {
-        FileChooser fileChooser = new FileChooser();
-        String dataDirectory = manager.getPropertyValue(AppSettings.SEPARATOR.name()) +
-                manager.getPropertyValue(DataVisionSettings.DATA_RESOURCE_PATH.name());
-        URL dataDirectoryURL = getClass().getResource(dataDirectory);
-        File dataDirectoryFile;
-        if (dataDirectoryURL == null) {
-            dataDirectoryFile = new File(System.getProperty("user.home"));
-        } else {
-            dataDirectoryFile = new File(dataDirectoryURL.getFile());
-        }
-
-        fileChooser.setInitialDirectory(dataDirectoryFile);
-        fileChooser.setTitle(manager.getPropertyValue(AppSettings.LOAD_WORK_TITLE.name()));
-
-        String fileExtDescFormat = manager.getPropertyValue(DataVisionSettings.FILE_EXT_AND_DESC_FORMAT.name());
-        FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter(String.format(fileExtDescFormat, description, extension),
-                String.format(manager.getPropertyValue(DataVisionSettings.FILE_EXT_FORMAT.name()), extension));
+        return getLoadFile(new String[]{description}, new String[]{extension});
+    }
 
-        fileChooser.getExtensionFilters().add(extensionFilter);
+    /**
+     * Asks for a file to load, offering one extension filter per given description and extension.
+     */
+    public Path getLoadFile(String[] descriptions, String[] extensions) {
+        FileChooser fileChooser = createFileChooser(manager.getPropertyValue(AppSettings.LOAD_WORK_TITLE.name()), descriptions, extensions);
         File selectedFile = fileChooser.showOpenDialog(owner);
         return selectedFile == null ? null : selectedFile.toPath();
     }
 
     public Path getSaveFile(String description, String extension) {
+        return getSaveFile(new String[]{description}, new String[]{extension});
+    }
+
+    /**
+     * Asks for a file to save to, offering one extension filter per given description and extension. Unless the
+     * chosen file already has one of the extensions, the extension of the selected filter is appended to it.
+     */
+    public Path getSaveFile(String[] descriptions, String[] extensions) {
+        FileChooser fileChooser = createFileChooser(manager.getPropertyValue(AppSettings.SAVE_WORK_TITLE.name()), descriptions, extensions);
+        File selectedFile = fileChooser.showSaveDialog(owner);
+        if (selectedFile == null) {
+            return null;
+        }
+        for (String extension : extensions) {
+            if (selectedFile.toString().endsWith(extension)) {
+                return selectedFile.toPath();
+            }
+        }
+        int selectedFilter = Math.max(0, fileChooser.getExtensionFilters().indexOf(fileChooser.getSelectedExtensionFilter()));
+        return new File(selectedFile.toString() + extensions[selectedFilter]).toPath();
+    }
+
+    private FileChooser createFileChooser(String title, String[] descriptions, String[] extensions) {
         FileChooser fileChooser = new FileChooser();
         String dataDirectory = manager.getPropertyValue(AppSettings.SEPARATOR.name()) +
                 manager.getPropertyValue(DataVisionSettings.DATA_RESOURCE_PATH.name());
@@ -323,21 +449,15 @@ public final class AppUI extends UITemplate {
         }
 
         fileChooser.setInitialDirectory(dataDirectoryFile);
-        fileChooser.setTitle(manager.getPropertyValue(AppSettings.SAVE_WORK_TITLE.name()));
+        fileChooser.setTitle(title);
 
         String fileExtDescFormat = manager.getPropertyValue(DataVisionSettings.FILE_EXT_AND_DESC_FORMAT.name());
-        FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter(String.format(fileExtDescFormat, description, extension),
-                String.format(manager.getPropertyValue(DataVisionSettings.FILE_EXT_FORMAT.name()), extension));
-
-        fileChooser.getExtensionFilters().add(extensionFilter);
-        File selectedFile = fileChooser.showSaveDialog(owner);
-        if (selectedFile == null) {
-            return null;
-        } else if (selectedFile.toString().endsWith(extension)) {
-            return selectedFile.toPath();
-        } else {
-            return new File(selectedFile.toString() + extension).toPath();
+        for (int i = 0; i < extensions.length; i++) {
+            FileChooser.ExtensionFilter extensionFilter = new FileChooser.ExtensionFilter(String.format(fileExtDescFormat, descriptions[i], extensions[i]),
+                    String.format(manager.getPropertyValue(DataVisionSettings.FILE_EXT_FORMAT.name()), extensions[i]));
+            fileChooser.getExtensionFilters().add(extensionFilter);
         }
+        return fileChooser;
     }
 
     public void setChartVisible(boolean isVisible) {
@@ -345,7 +465,16 @@ public final class AppUI extends UITemplate {
     }
 
     public void setTextAreaVisible(boolean isVisible) {
-        textArea.setVisible(isVisible);
+        dataView.setVisible(isVisible);
+    }
+
+    /**
+     * Scrolls the data view to the given 1-based line, such as the first line reported by a validation.
+     */
+    public void jumpToLine(int lineNumber) {
+        if (lineNumber > 0) {
+            dataView.jumpToLine(lineNumber);
+        }
     }
 
     public void setEditDoneToggleButtonVisible(boolean isVisible) {
@@ -357,8 +486,64 @@ public final class AppUI extends UITemplate {
         metaDataLabel.setVisible(isVisible);
     }
 
+    /**
+     * Shows or hides the option to follow the loaded file, which is left unchecked either way.
+     */
+    public void setFollowCheckBoxVisible(boolean isVisible) {
+        followCheckBox.setSelected(false);
+        followCheckBox.setVisible(isVisible);
+    }
+
+    public void setExportButtonVisible(boolean isVisible) {
+        exportButton.setVisible(isVisible);
+    }
+
+    /**
+     * Shows whether an export is in progress, during which the export button cannot be pressed again.
+     */
+    public void setExporting(boolean isExporting) {
+        AppUISettings text = isExporting ? AppUISettings.EXPORTING_RESULTS_TEXT : AppUISettings.EXPORT_RESULTS_TEXT;
+        exportButton.setText(manager.getPropertyValue(text.name()));
+        exportButton.setDisable(isExporting);
+    }
+
+    public void setFollowCheckBoxSelected(boolean isSelected) {
+        followCheckBox.setSelected(isSelected);
+    }
+
+    public void setLoadProgressVisible(boolean isVisible) {
+        loadProgressBox.setVisible(isVisible);
+    }
+
+    /**
+     * Shows the stage a load is in, along with the fraction of that stage done so far, or an indeterminate progress if
+     * the fraction is negative.
+     */
+    public void updateLoadProgress(DataLoadPipeline.Stage stage, double fraction) {
+        AppUISettings stageText;
+        switch (stage) {
+            case SAMPLING:
+                stageText = AppUISettings.LOAD_SAMPLING_TEXT;
+                break;
+            case READING:
+                stageText = AppUISettings.LOAD_READING_TEXT;
+                break;
+            case PARSING:
+                stageText = AppUISettings.LOAD_PARSING_TEXT;
+                break;
+            case VALIDATING:
+                stageText = AppUISettings.LOAD_VALIDATING_TEXT;
+                break;
+            default:
+                stageText = AppUISettings.LOAD_SUMMARIZING_TEXT;
+                break;
+        }
+        loadProgressLabel.setText(manager.getPropertyValue(stageText.name()));
+        loadProgressBar.setProgress(fraction < 0 ? ProgressBar.INDETERMINATE_PROGRESS : fraction);
+    }
+
     public void setTextAreaDisabledState(boolean isDisabled){
-        textArea.setDisable(isDisabled);
+        dataView.setEditable(!isDisabled);
     }
 
     public void updateMetaDataLabel(String newValue) {
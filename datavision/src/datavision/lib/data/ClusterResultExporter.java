@@ -0,0 +1,236 @@
+package datavision.lib.data;
+
+import datavision.algorithms.LabelSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exports the outcome of a clustering, that is every instance with the label of the cluster it was assigned to, to a
+ * <code>.tsd</code> or a <code>.csv</code> file. The rows are read straight from a {@link LabelSnapshot} and encoded
+ * one line at a time into a direct buffer, which is written to a {@link FileChannel} whenever it fills up, so that
+ * the export takes the same little memory however many instances there are.
+ * <p>
+ * The centroids of the snapshot, if it has any, follow the instances, each as an instance named
+ * <code>@centroid</code><i>i</i> and labeled like the instances of cluster <i>i</i>. Should an instance already go by
+ * one of those names, <code>@centroid</code> is followed by as many underscores as it takes for none of them to be
+ * taken, so that every name of the export stays unique. In the <code>.csv</code> format,
+ * a header line names the columns: <code>name,label,x1,...,x</code><i>d</i>. Coordinates are written like
+ * {@link TSDWriter} does, so that a <code>.tsd</code> export can be loaded back.
+ * <p>
+ * An exporter is meant to be used for a single export. It reports its progress, in rows, to an optional
+ * {@link MappedTSDLoader.ProgressListener} and can be cancelled from any thread through {@link #cancel()}, in which
+ * case {@link #export(LabelSnapshot, Path, MappedTSDLoader.ProgressListener)} throws a {@link CancellationException}.
+ *
+ * @author Patrick Chan
+ */
+public final class ClusterResultExporter {
+
+    public enum Format {
+        TSD, CSV
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    /* how many rows are written between two progress reports and cancellation checks */
+    private static final int PROGRESS_ROW_MASK = (1 << 16) - 1;
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String CENTROID_NAME_PREFIX = "@centroid";
+    private static final char CENTROID_NAME_PADDING = '_';
+    private static final char TAB = '\t';
+    private static final char COMMA = ',';
+    private static final char QUOTE = '"';
+    private static final char NEWLINE = '\n';
+
+    private final Format format;
+    private final int bufferSize;
+    private final AtomicBoolean cancelled;
+    private final CharsetEncoder encoder;
+    private final StringBuilder line;
+
+    public ClusterResultExporter(Format format) {
+        this(format, BUFFER_SIZE);
+    }
+
+    ClusterResultExporter(Format format, int bufferSize) {
+        this.format = format;
+        this.bufferSize = bufferSize;
+        this.cancelled = new AtomicBoolean(false);
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.line = new StringBuilder();
+    }
+
+    /**
+     * Returns the format of a file with the given path, which is <code>.csv</code> only for that extension.
+     */
+    public static Format formatOf(Path filePath) {
+        return filePath.toString().endsWith(CSV_EXTENSION) ? Format.CSV : Format.TSD;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Exports the given snapshot. The file is created, or truncated if it exists; if the export does not complete, it
+     * is deleted again.
+     *
+     * @param snapshot the clustering to export
+     * @param filePath the file to export to
+     * @param listener the listener to report the progress to, or <code>null</code>
+     * @return the number of rows written, centroids included and header excluded
+     * @throws IOException           if the file cannot be written
+     * @throws CancellationException if the export was cancelled
+     */
+    public long export(LabelSnapshot snapshot, Path filePath, MappedTSDLoader.ProgressListener listener) throws IOException {
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+            int dimension = snapshot.getDimension();
+            long totalRows = (long) snapshot.size() + snapshot.getCentroidCount();
+            long rowsWritten = 0;
+
+            if (format == Format.CSV) {
+                line.setLength(0);
+                line.append("name").append(COMMA).append("label");
+                for (int axis = 1; axis <= dimension; axis++)
+                    line.append(COMMA).append('x').append(axis);
+                writeLine(channel, buffer);
+            }
+            double[] point = new double[dimension];
+            for (int row = 0; row < snapshot.size(); row++) {
+                for (int axis = 0; axis < dimension; axis++)
+                    point[axis] = snapshot.getCoordinate(row, axis);
+                formatRow(snapshot.getName(row), snapshot.getLabel(row), point);
+                writeLine(channel, buffer);
+                if ((++rowsWritten & PROGRESS_ROW_MASK) == 0)
+                    checkpoint(listener, rowsWritten, totalRows);
+            }
+            String centroidNamePrefix = centroidNamePrefix(snapshot);
+            for (int cluster = 0; cluster < snapshot.getCentroidCount(); cluster++) {
+                formatRow(centroidNamePrefix + cluster, Integer.toString(cluster), snapshot.getCentroid(cluster));
+                writeLine(channel, buffer);
+                rowsWritten++;
+            }
+            flush(channel, buffer);
+            checkpoint(listener, totalRows, totalRows);
+            completed = true;
+            return rowsWritten;
+        } finally {
+            if (!completed)
+                Files.deleteIfExists(filePath);
+        }
+    }
+
+    /**
+     * Returns the shortest prefix of the centroid names, padded after {@link #CENTROID_NAME_PREFIX}, that leaves none
+     * of them the name of an instance.
+     */
+    private static String centroidNamePrefix(LabelSnapshot snapshot) {
+        String prefix = CENTROID_NAME_PREFIX;
+        while (isAnyCentroidNameTaken(snapshot, prefix))
+            prefix += CENTROID_NAME_PADDING;
+        return prefix;
+    }
+
+    private static boolean isAnyCentroidNameTaken(LabelSnapshot snapshot, String prefix) {
+        for (int cluster = 0; cluster < snapshot.getCentroidCount(); cluster++) {
+            if (snapshot.hasName(prefix + cluster))
+                return true;
+        }
+        return false;
+    }
+
+    private void formatRow(String name, String label, double[] point) {
+        line.setLength(0);
+        char separator = format == Format.CSV ? COMMA : TAB;
+        appendField(name);
+        line.append(separator);
+        appendField(label);
+        line.append(separator);
+        for (int axis = 0; axis < point.length; axis++) {
+            if (axis > 0)
+                line.append(COMMA);
+            line.append(TSDWriter.formatCoordinate(point[axis]));
+        }
+    }
+
+    /**
+     * Appends a name or a label to the line, quoted as RFC 4180 asks if the <code>.csv</code> format needs it to be.
+     */
+    private void appendField(String field) {
+        if (format != Format.CSV || !needsQuotes(field)) {
+            line.append(field);
+            return;
+        }
+        line.append(QUOTE);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == QUOTE)
+                line.append(QUOTE);
+            line.append(c);
+        }
+        line.append(QUOTE);
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == COMMA || c == QUOTE || c == NEWLINE || c == '\r')
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes the line, followed by a newline, into the buffer, writing the buffer out whenever it is full.
+     */
+    private void writeLine(FileChannel channel, ByteBuffer buffer) throws IOException {
+        line.append(NEWLINE);
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow())
+                flush(channel, buffer);
+            else if (result.isUnderflow())
+                break;
+            else
+                result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow())
+            flush(channel, buffer);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void checkpoint(MappedTSDLoader.ProgressListener listener, long rowsWritten, long totalRows) {
+        if (cancelled.get())
+            throw new CancellationException();
+        if (listener != null)
+            listener.onProgress(rowsWritten, totalRows);
+    }
+
+}
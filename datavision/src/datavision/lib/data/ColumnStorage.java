@@ -0,0 +1,259 @@
+package datavision.lib.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Where the columns of a dataset are held. Heap columns are plain Java arrays. Off-heap columns are made of chunks of
+ * 2<sup>20</sup> values, each in a {@link ByteBuffer} of its own, so that a column can hold more values than a single
+ * buffer and grows by adding chunks rather than by copying; a chunk is freed once its column is collected.
+ * <p>
+ * Off-heap storage keeps a very large dataset from weighing on the heap and on the garbage collector. Direct memory
+ * is still bounded by <code>-XX:MaxDirectMemorySize</code>, which defaults to the maximum heap size, whereas mapped
+ * scratch files are only bounded by the disk, the operating system paging them in and out as they are used.
+ *
+ * @author Patrick Chan
+ */
+public enum ColumnStorage {
+
+    /** Java arrays on the heap, which cannot hold more than 2<sup>31</sup> - 1 values per column. */
+    HEAP {
+        @Override
+        public DoubleColumn newDoubleColumn(long length) {
+            return new HeapDoubleColumn(new double[arrayLength(length)]);
+        }
+
+        @Override
+        public IntColumn newIntColumn(long length) {
+            return new HeapIntColumn(new int[arrayLength(length)]);
+        }
+    },
+
+    /** Direct buffers, outside of the heap. */
+    DIRECT {
+        @Override
+        public DoubleColumn newDoubleColumn(long length) {
+            return new BufferDoubleColumn(ByteBuffer::allocateDirect).grow(length);
+        }
+
+        @Override
+        public IntColumn newIntColumn(long length) {
+            return new BufferIntColumn(ByteBuffer::allocateDirect).grow(length);
+        }
+    },
+
+    /** Memory-mapped scratch files in the temporary directory, each deleted as soon as it is mapped. */
+    MAPPED {
+        @Override
+        public DoubleColumn newDoubleColumn(long length) {
+            return new BufferDoubleColumn(ColumnStorage::mapScratchChunk).grow(length);
+        }
+
+        @Override
+        public IntColumn newIntColumn(long length) {
+            return new BufferIntColumn(ColumnStorage::mapScratchChunk).grow(length);
+        }
+    };
+
+    private static final String SCRATCH_FILE_PREFIX = "datavision-column";
+    private static final String SCRATCH_FILE_SUFFIX = ".tmp";
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_LENGTH = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_LENGTH - 1;
+
+    /**
+     * Returns a new column of this storage with room for at least the given number of values, all 0.
+     */
+    public abstract DoubleColumn newDoubleColumn(long length);
+
+    /**
+     * Returns a new column of this storage with room for at least the given number of values, all 0.
+     */
+    public abstract IntColumn newIntColumn(long length);
+
+    /**
+     * Returns a heap column over the given array, which is taken over rather than copied.
+     */
+    public static DoubleColumn wrap(double[] values) {
+        return new HeapDoubleColumn(values);
+    }
+
+    /**
+     * Returns a heap column over the given array, which is taken over rather than copied.
+     */
+    public static IntColumn wrap(int[] values) {
+        return new HeapIntColumn(values);
+    }
+
+    /**
+     * Allocates the buffers that the chunks of an off-heap column are held in.
+     */
+    @FunctionalInterface
+    private interface ChunkAllocator {
+
+        ByteBuffer allocate(int bytes);
+
+    }
+
+    private static ByteBuffer mapScratchChunk(int bytes) {
+        try {
+            Path file = Files.createTempFile(SCRATCH_FILE_PREFIX, SCRATCH_FILE_SUFFIX);
+            // the mapping stays valid after the channel is closed and the file deleted, until it is collected
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map a scratch file for a column", e);
+        }
+    }
+
+    private static int arrayLength(long length) {
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("A heap column cannot hold " + length + " values");
+        return (int) length;
+    }
+
+    private static int chunkCount(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    private static final class HeapDoubleColumn implements DoubleColumn {
+
+        private final double[] values;
+
+        HeapDoubleColumn(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public long length() { return values.length; }
+
+        @Override
+        public double get(long index) { return values[(int) index]; }
+
+        @Override
+        public void set(long index, double value) { values[(int) index] = value; }
+
+        @Override
+        public void get(long index, double[] destination, int offset, int length) {
+            System.arraycopy(values, (int) index, destination, offset, length);
+        }
+
+        @Override
+        public void set(long index, double[] source, int offset, int length) {
+            System.arraycopy(source, offset, values, (int) index, length);
+        }
+
+        @Override
+        public void copyTo(long from, DoubleColumn destination, long to, long length) {
+            destination.set(to, values, (int) from, arrayLength(length));
+        }
+
+        @Override
+        public DoubleColumn grow(long length) {
+            return length <= values.length ? this : new HeapDoubleColumn(Arrays.copyOf(values, arrayLength(length)));
+        }
+
+    }
+
+    private static final class HeapIntColumn implements IntColumn {
+
+        private final int[] values;
+
+        HeapIntColumn(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public long length() { return values.length; }
+
+        @Override
+        public int get(long index) { return values[(int) index]; }
+
+        @Override
+        public void set(long index, int value) { values[(int) index] = value; }
+
+        @Override
+        public IntColumn grow(long length) {
+            return length <= values.length ? this : new HeapIntColumn(Arrays.copyOf(values, arrayLength(length)));
+        }
+
+    }
+
+    private static final class BufferDoubleColumn implements DoubleColumn {
+
+        private final ChunkAllocator allocator;
+        private DoubleBuffer[] chunks;
+
+        BufferDoubleColumn(ChunkAllocator allocator) {
+            this.allocator = allocator;
+            this.chunks = new DoubleBuffer[0];
+        }
+
+        @Override
+        public long length() { return (long) chunks.length << CHUNK_SHIFT; }
+
+        @Override
+        public double get(long index) { return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK); }
+
+        @Override
+        public void set(long index, double value) { chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value); }
+
+        @Override
+        public DoubleColumn grow(long length) {
+            int count = chunkCount(length);
+            if (count > chunks.length) {
+                DoubleBuffer[] grown = Arrays.copyOf(chunks, count);
+                for (int chunk = chunks.length; chunk < count; chunk++)
+                    grown[chunk] = allocator.allocate(CHUNK_LENGTH * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                chunks = grown;
+            }
+            return this;
+        }
+
+    }
+
+    private static final class BufferIntColumn implements IntColumn {
+
+        private final ChunkAllocator allocator;
+        private IntBuffer[] chunks;
+
+        BufferIntColumn(ChunkAllocator allocator) {
+            this.allocator = allocator;
+            this.chunks = new IntBuffer[0];
+        }
+
+        @Override
+        public long length() { return (long) chunks.length << CHUNK_SHIFT; }
+
+        @Override
+        public int get(long index) { return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) index & CHUNK_MASK); }
+
+        @Override
+        public void set(long index, int value) { chunks[(int) (index >>> CHUNK_SHIFT)].put((int) index & CHUNK_MASK, value); }
+
+        @Override
+        public IntColumn grow(long length) {
+            int count = chunkCount(length);
+            if (count > chunks.length) {
+                IntBuffer[] grown = Arrays.copyOf(chunks, count);
+                for (int chunk = chunks.length; chunk < count; chunk++)
+                    grown[chunk] = allocator.allocate(CHUNK_LENGTH * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+                chunks = grown;
+            }
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,201 @@
+package datavision.lib.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the location field of a <code>.tsd</code> line straight out of a range of chars or bytes, without creating
+ * any intermediate {@link String}. A location holds from {@link #MIN_DIMENSION} to {@link #MAX_DIMENSION} coordinates
+ * separated by commas, such as <code>x,y</code> or <code>x,y,z</code>. After a successful
+ * {@link #parse(CharSequence, int, int)}, the coordinates are available through {@link #getCoordinate(int)}, the
+ * first two of them also through {@link #getX()} and {@link #getY()}.
+ * <p>
+ * Plain decimal numbers, i.e. an optional sign, digits and an optional fraction, are converted directly. As long as
+ * their digits fit into 53 bits and the fraction has at most 22 digits, the value is computed with a single division
+ * of two exactly representable doubles, which is correctly rounded and therefore identical to the result of
+ * {@link Double#parseDouble(String)}. Any other input, such as a longer number, an exponent or surrounding whitespace,
+ * is handed to {@link Double#parseDouble(String)} itself, which keeps the accepted syntax the same as before, except
+ * that a number that is not finite, such as <code>NaN</code>, <code>Infinity</code> or <code>1e400</code>, is
+ * rejected: a coordinate is always a finite value, which the rest of the data model and {@link TSDWriter} rely on.
+ *
+ * @author Patrick Chan
+ */
+public final class CoordinateParser {
+
+    public static final int MIN_DIMENSION = 2;
+    public static final int MAX_DIMENSION = 64;
+
+    private static final char COMMA = ',';
+    private static final char DECIMAL_POINT = '.';
+    /* the largest mantissa that every double holds exactly */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    /* the powers of ten that are exactly representable as doubles */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final double[] coordinates = new double[MAX_DIMENSION];
+    private int dimension;
+
+    public int getDimension() { return dimension; }
+
+    public double getCoordinate(int axis) {
+        if (axis < 0 || axis >= dimension)
+            throw new IndexOutOfBoundsException("Axis " + axis + " is out of bounds for dimension " + dimension);
+        return coordinates[axis];
+    }
+
+    public double getX() { return coordinates[0]; }
+
+    public double getY() { return coordinates[1]; }
+
+    /**
+     * Returns the array the coordinates are parsed into, whose first {@link #getDimension()} values are those of the
+     * last location. The array is reused by the next parse, so it must not be kept.
+     */
+    public double[] getCoordinates() { return coordinates; }
+
+    /**
+     * Parses the location held in <code>text[start, end)</code>.
+     *
+     * @throws NumberFormatException if the range does not hold from {@link #MIN_DIMENSION} to
+     *                               {@link #MAX_DIMENSION} numbers separated by commas
+     */
+    public void parse(CharSequence text, int start, int end) {
+        int count = 0;
+        int numberStart = start;
+        while (true) {
+            int comma = TSDLineParser.indexOf(text, COMMA, numberStart, end);
+            int numberEnd = comma < 0 ? end : comma;
+            if (count == MAX_DIMENSION)
+                throw new NumberFormatException("too many coordinates");
+            coordinates[count++] = parseNumber(text, numberStart, numberEnd);
+            if (comma < 0)
+                break;
+            numberStart = comma + 1;
+        }
+        setDimension(count);
+    }
+
+    /**
+     * Parses the location held in <code>buffer[start, end)</code>.
+     *
+     * @throws NumberFormatException if the range does not hold from {@link #MIN_DIMENSION} to
+     *                               {@link #MAX_DIMENSION} numbers separated by commas
+     */
+    public void parse(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        int numberStart = start;
+        while (true) {
+            int comma = TSDLineParser.indexOf(buffer, (byte) COMMA, numberStart, end);
+            int numberEnd = comma < 0 ? end : comma;
+            if (count == MAX_DIMENSION)
+                throw new NumberFormatException("too many coordinates");
+            coordinates[count++] = parseNumber(buffer, numberStart, numberEnd);
+            if (comma < 0)
+                break;
+            numberStart = comma + 1;
+        }
+        setDimension(count);
+    }
+
+    private void setDimension(int count) {
+        if (count < MIN_DIMENSION) {
+            dimension = 0;
+            throw new NumberFormatException("missing comma");
+        }
+        dimension = count;
+    }
+
+    /**
+     * Parses the number held in <code>text[start, end)</code>.
+     *
+     * @throws NumberFormatException if the range does not hold a finite number
+     */
+    public static double parseNumber(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+            negative = text.charAt(i++) == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10)
+                    return parseFinite(text.subSequence(start, end).toString());
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (inFraction)
+                    fractionDigits++;
+            } else if (c == DECIMAL_POINT && !inFraction) {
+                inFraction = true;
+            } else {
+                return parseFinite(text.subSequence(start, end).toString());
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length)
+            return parseFinite(text.subSequence(start, end).toString());
+        return toDouble(negative, mantissa, fractionDigits);
+    }
+
+    /**
+     * Parses the number held in <code>buffer[start, end)</code>.
+     *
+     * @throws NumberFormatException if the range does not hold a finite number
+     */
+    public static double parseNumber(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+            negative = buffer.get(i++) == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10)
+                    return parseFinite(decode(buffer, start, end));
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (inFraction)
+                    fractionDigits++;
+            } else if (b == DECIMAL_POINT && !inFraction) {
+                inFraction = true;
+            } else {
+                return parseFinite(decode(buffer, start, end));
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length)
+            return parseFinite(decode(buffer, start, end));
+        return toDouble(negative, mantissa, fractionDigits);
+    }
+
+    private static double parseFinite(String number) {
+        double value = Double.parseDouble(number);
+        if (!Double.isFinite(value))
+            throw new NumberFormatException("not a finite number: " + number);
+        return value;
+    }
+
+    private static double toDouble(boolean negative, long mantissa, int fractionDigits) {
+        // both operands are exact, so the quotient is correctly rounded
+        double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
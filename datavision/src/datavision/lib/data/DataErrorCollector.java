@@ -0,0 +1,133 @@
+package datavision.lib.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the errors found in some <code>.tsd</code> data, up to a fixed number of them. Only the first errors are
+ * kept, each with the line and column it was found at and the reason for it; any further error is only counted. The
+ * memory taken by a collector, and the length of any report built from it, thus stay bounded however corrupt the data
+ * is.
+ *
+ * @author Patrick Chan
+ */
+public final class DataErrorCollector {
+
+    /**
+     * A single error, at a 1-based line and column.
+     */
+    public static final class DataError {
+
+        private final long line;
+        private final int column;
+        private final String reason;
+
+        public DataError(long line, int column, String reason) {
+            this.line = line;
+            this.column = column;
+            this.reason = reason;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the 1-based column of the first character in error, or 0 if it is not known.
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return column > 0 ? String.format("Line %d, column %d: %s", line, column, reason)
+                              : String.format("Line %d: %s", line, reason);
+        }
+
+    }
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final List<DataError> errors;
+    private long totalCount;
+
+    public DataErrorCollector() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of errors to keep
+     */
+    public DataErrorCollector(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive");
+        this.capacity = capacity;
+        this.errors = new ArrayList<>(Math.min(capacity, 64));
+    }
+
+    /**
+     * Counts an error, and keeps it unless as many errors are kept already.
+     *
+     * @param line   the 1-based line of the error
+     * @param column the 1-based column of the error, or 0 if it is not known
+     * @param reason the reason for the error
+     */
+    public void add(long line, int column, String reason) {
+        totalCount++;
+        if (errors.size() < capacity)
+            errors.add(new DataError(line, column, reason));
+    }
+
+    /**
+     * Counts errors that were left out before they reached the collector, and are hence not kept either.
+     *
+     * @param count the number of errors to count
+     */
+    public void addDropped(long count) {
+        totalCount += count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the errors that were kept, in the order in which they were added.
+     */
+    public List<DataError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the number of errors that were added, including those that were not kept.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns whether some of the errors that were added were not kept.
+     */
+    public boolean isTruncated() {
+        return totalCount > errors.size();
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    /**
+     * Returns the first error that was added, or <code>null</code> if there is none.
+     */
+    public DataError getFirst() {
+        return errors.isEmpty() ? null : errors.get(0);
+    }
+
+}
@@ -0,0 +1,267 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads a data file in stages that do not touch the user interface, so that all of them can run on a background
+ * thread:
+ * <ol>
+ *     <li>{@link Stage#SAMPLING}: if a preview was asked for through {@link #setPreview(ReservoirSampler, PreviewListener)},
+ *     a sample of a plain <code>.tsd</code> file is drawn and handed over before anything else is done;</li>
+ *     <li>{@link Stage#READING}: the file is read into the {@link TSDDocument} that ends up in the text area;</li>
+ *     <li>{@link Stage#PARSING}: the file is parsed into a dataset, which is skipped for a snapshot since it already
+ *     holds one, and which a compressed file goes through together with the reading, as it is decompressed. A plain
+ *     <code>.tsd</code> file is only opened by the reading: it is memory-mapped, and its lines are indexed as it is
+ *     parsed, to be read from the mapped file whenever the document needs them;</li>
+ *     <li>{@link Stage#VALIDATING}: the document is validated line by line;</li>
+ *     <li>{@link Stage#SUMMARIZING}: the statistics of the dataset are computed.</li>
+ * </ol>
+ * The outcome of every stage is gathered in a {@link Result}, which is meant to be handed over to the user interface
+ * thread in one go once the pipeline is done. A line that does not follow the <code>.tsd</code> format does not stop
+ * the pipeline; it leaves the result without a dataset and is reported by the validation instead.
+ * <p>
+ * A pipeline is meant to be run once. It can be cancelled from any thread through {@link #cancel()}, in which case
+ * {@link #run(ProgressListener)} throws a {@link CancellationException} at the next checkpoint.
+ *
+ * @author Patrick Chan
+ */
+public final class DataLoadPipeline {
+
+    public enum Stage {
+        SAMPLING, READING, PARSING, VALIDATING, SUMMARIZING
+    }
+
+    public enum Format {
+        /** a plain <code>.tsd</code> file */
+        TSD,
+        /** a gzip-compressed <code>.tsd</code> file */
+        COMPRESSED_TSD,
+        /** a {@link DataSetSnapshot} */
+        SNAPSHOT
+    }
+
+    /**
+     * Receives the stage the pipeline is in and the fraction of that stage done so far, between 0 and 1, or a negative
+     * value if the stage cannot tell how far along it is.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        void onProgress(Stage stage, double fraction);
+
+    }
+
+    /**
+     * Receives the preview of the file, on the thread running the pipeline, while the rest of the file is loaded.
+     */
+    @FunctionalInterface
+    public interface PreviewListener {
+
+        void onPreview(ReservoirSampler.Sample sample);
+
+    }
+
+    /**
+     * Everything the pipeline has worked out about the loaded file.
+     */
+    public static final class Result {
+
+        private final TSDDocument document;
+        private final ColumnarDataSet dataSet;
+        private final IncrementalTSDValidator validator;
+        private final DataSetStatistics statistics;
+        private final long loadedLength;
+
+        private Result(TSDDocument document, ColumnarDataSet dataSet, IncrementalTSDValidator validator,
+                       DataSetStatistics statistics, long loadedLength) {
+            this.document = document;
+            this.dataSet = dataSet;
+            this.validator = validator;
+            this.statistics = statistics;
+            this.loadedLength = loadedLength;
+        }
+
+        public TSDDocument getDocument() {
+            return document;
+        }
+
+        /**
+         * Returns the parsed dataset, or <code>null</code> if the file holds a line that could not be parsed.
+         */
+        public ColumnarDataSet getDataSet() {
+            return dataSet;
+        }
+
+        /**
+         * Returns a validator that is up to date with {@link #getDocument()}, ready to keep track of further edits.
+         */
+        public IncrementalTSDValidator getValidator() {
+            return validator;
+        }
+
+        /**
+         * Returns the statistics of the dataset, or <code>null</code> if there is no dataset.
+         */
+        public DataSetStatistics getStatistics() {
+            return statistics;
+        }
+
+        /**
+         * Returns the number of bytes of a plain <code>.tsd</code> file that the document holds, which is where a
+         * {@link TSDFileFollower} picks the file up, or -1 if the file is in another format.
+         */
+        public long getLoadedLength() {
+            return loadedLength;
+        }
+
+    }
+
+    private static final double UNKNOWN_PROGRESS = -1;
+
+    private final Path filePath;
+    private final Format format;
+    private final MappedTSDLoader loader;
+    private final GzipTSDLoader compressedLoader;
+    private final AtomicBoolean cancelled;
+    private ReservoirSampler sampler;
+    private PreviewListener previewListener;
+    private int errorCapacity;
+
+    /**
+     * @param filePath the file to load
+     * @param format   the format of the file
+     */
+    public DataLoadPipeline(Path filePath, Format format) {
+        this.filePath = filePath;
+        this.format = format;
+        this.loader = new MappedTSDLoader(true);
+        this.compressedLoader = new GzipTSDLoader();
+        this.cancelled = new AtomicBoolean(false);
+        this.errorCapacity = DataErrorCollector.DEFAULT_CAPACITY;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+        loader.cancel();
+        compressedLoader.cancel();
+        if (sampler != null)
+            sampler.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Asks for a sample of the file to be drawn before it is loaded, so that it can be looked at right away. Only a
+     * plain <code>.tsd</code> file is sampled, since the other formats are not worth streaming twice. This must be
+     * called before the pipeline is run.
+     *
+     * @param sampler  the sampler to draw the sample with
+     * @param listener the listener to hand the sample to
+     */
+    public void setPreview(ReservoirSampler sampler, PreviewListener listener) {
+        this.sampler = sampler;
+        this.previewListener = listener;
+    }
+
+    /**
+     * Sets where the columns of a dataset parsed from a plain <code>.tsd</code> file are held.
+     */
+    public void setStorage(ColumnStorage storage) {
+        loader.setStorage(storage);
+    }
+
+    /**
+     * Sets the number of invalid lines whose errors the validation keeps, which are the first ones.
+     */
+    public void setErrorCapacity(int errorCapacity) {
+        this.errorCapacity = errorCapacity;
+    }
+
+    /**
+     * Runs every stage of the pipeline on the calling thread.
+     *
+     * @param listener the listener to report the progress to, or <code>null</code>
+     * @return the outcome of the load
+     * @throws IOException           if the file cannot be read, or is not in the given format
+     * @throws CancellationException if the pipeline was cancelled
+     */
+    public Result run(ProgressListener listener) throws IOException {
+        TSDDocument document;
+        ColumnarDataSet dataSet;
+        long loadedLength = -1;
+        if (sampler != null && format == Format.TSD) {
+            checkpoint(listener, Stage.SAMPLING, 0);
+            previewListener.onPreview(sample(listener));
+        }
+        if (format == Format.SNAPSHOT) {
+            checkpoint(listener, Stage.READING, UNKNOWN_PROGRESS);
+            dataSet = DataSetSnapshot.load(filePath).getDataSet();
+            checkpoint(listener, Stage.READING, UNKNOWN_PROGRESS);
+            document = new TSDDocument(TSDWriter.lines(dataSet));
+        } else if (format == Format.COMPRESSED_TSD) {
+            checkpoint(listener, Stage.READING, 0);
+            DecompressedLines lines = new DecompressedLines();
+            dataSet = parseCompressed(lines, listener);
+            document = new TSDDocument(lines);
+        } else {
+            checkpoint(listener, Stage.READING, UNKNOWN_PROGRESS);
+            MappedLines lines = new MappedLines();
+            checkpoint(listener, Stage.PARSING, 0);
+            dataSet = parse(lines, listener);
+            document = new TSDDocument(lines);
+            loadedLength = lines.getLength();
+        }
+
+        checkpoint(listener, Stage.VALIDATING, UNKNOWN_PROGRESS);
+        IncrementalTSDValidator validator = new IncrementalTSDValidator(errorCapacity);
+        validator.update(document);
+        validator.getResult();
+
+        checkpoint(listener, Stage.SUMMARIZING, UNKNOWN_PROGRESS);
+        DataSetStatistics statistics = dataSet == null ? null : new DataSetStatistics(dataSet);
+        checkpoint(listener, Stage.SUMMARIZING, 1);
+        return new Result(document, dataSet, validator, statistics, loadedLength);
+    }
+
+    private ColumnarDataSet parse(MappedLines lines, ProgressListener listener) throws IOException {
+        MappedTSDLoader.ProgressListener parseListener = listener == null ? null
+                : (bytesRead, totalBytes) -> listener.onProgress(Stage.PARSING, totalBytes == 0 ? 1 : (double) bytesRead / totalBytes);
+        try {
+            return loader.load(filePath, lines, parseListener);
+        } catch (TSDLineParser.InvalidLineException e) {
+            // the offending lines are reported by the validation instead
+            return null;
+        }
+    }
+
+    private ReservoirSampler.Sample sample(ProgressListener listener) throws IOException {
+        MappedTSDLoader.ProgressListener sampleListener = listener == null ? null
+                : (bytesRead, totalBytes) -> listener.onProgress(Stage.SAMPLING, totalBytes == 0 ? 1 : (double) bytesRead / totalBytes);
+        return sampler.sample(filePath, sampleListener);
+    }
+
+    private ColumnarDataSet parseCompressed(DecompressedLines lines, ProgressListener listener) throws IOException {
+        MappedTSDLoader.ProgressListener parseListener = listener == null ? null
+                : (bytesRead, totalBytes) -> listener.onProgress(Stage.READING, totalBytes == 0 ? 1 : (double) bytesRead / totalBytes);
+        try {
+            return compressedLoader.load(filePath, lines, parseListener);
+        } catch (TSDLineParser.InvalidLineException e) {
+            return null;
+        }
+    }
+
+    private void checkpoint(ProgressListener listener, Stage stage, double fraction) {
+        if (cancelled.get())
+            throw new CancellationException();
+        if (listener != null)
+            listener.onProgress(stage, fraction);
+    }
+
+}
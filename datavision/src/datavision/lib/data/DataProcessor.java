@@ -1,5 +1,6 @@
 package datavision.lib.data;
 
+import datavision.algorithms.ColumnarDataSet;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.chart.XYChart;
@@ -8,14 +9,13 @@ import javafx.scene.layout.StackPane;
 import vision.utils.propertymanager.PropertyManager;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Stream;
 
-// Todo: update the comment
 /**
  * The data files used by this data visualization applications follow a tab-separated format, where each data point is
- * named, labeled, and has a specific location in the 2-dimensional X-Y plane. This class handles the parsing and
- * processing of such data. It also handles exporting the data to a 2-D plot.
+ * named, labeled, and has a specific location given by 2 or more comma-separated coordinates. This class handles the
+ * parsing and processing of such data into {@link Point2D} objects, projecting every location on its first two
+ * coordinates, for exporting the data to a 2-D plot. Anything working in more dimensions should use a
+ * {@link ColumnarDataSet} instead.
  * <p>
  * A sample file in this format has been provided in the application's <code>resources/data</code> folder.
  *
@@ -24,6 +24,8 @@ import java.util.stream.Stream;
  */
 public final class DataProcessor {
 
+    private static final String ERRORS_SUMMARY_FORMAT = "%d line(s) are not valid. %s";
+
     public static class InvalidDataNameException extends Exception {
 
         private static final String NAME_ERROR_MSG = "All data instance names must start with the @ character.";
@@ -55,10 +57,13 @@ public final class DataProcessor {
 
     private final Map<String, String>  dataLabels;
     private final Map<String, Point2D> dataPoints;
+    /* the errors of the last processed data */
+    private DataErrorCollector errors;
 
     public DataProcessor() {
         dataLabels = new HashMap<>();
         dataPoints = new HashMap<>();
+        errors = new DataErrorCollector();
     }
 
     /**
@@ -68,26 +73,33 @@ public final class DataProcessor {
      * @throws Exception if the input string does not follow the <code>.tsd</code> data format
      */
     public void processString(String tsdString) throws Exception {
-        AtomicBoolean hadAnError   = new AtomicBoolean(false);
-        StringBuilder errorMessage = new StringBuilder();
-        Stream.of(tsdString.split("\n"))
-                .map(line -> Arrays.asList(line.split("\t")))
-                .forEach(list -> {
-                    try {
-                        String   name  = checkedname(list.get(0));
-                        String   label = list.get(1);
-                        String[] pair  = list.get(2).split(",");
-                        Point2D  point = new Point2D(Double.parseDouble(pair[0]), Double.parseDouble(pair[1]));
-                        dataLabels.put(name, label);
-                        dataPoints.put(name, point);
-                    } catch (Exception e) {
-                        errorMessage.setLength(0);
-                        errorMessage.append(e.getClass().getSimpleName()).append(", ").append(e.getMessage());
-                        hadAnError.set(true);
-                    }
-                });
-        if (errorMessage.length() > 0)
-            throw new Exception(errorMessage.toString());
+        errors = new DataErrorCollector();
+        CoordinateParser coordinates = new CoordinateParser();
+        String[] lines = tsdString.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            List<String> list = Arrays.asList(lines[i].split("\t"));
+            try {
+                String   name  = checkedname(list.get(0));
+                String   label = list.get(1);
+                String   location = list.get(2);
+                coordinates.parse(location, 0, location.length());
+                Point2D  point = new Point2D(coordinates.getX(), coordinates.getY());
+                dataLabels.put(name, label);
+                dataPoints.put(name, point);
+            } catch (Exception e) {
+                errors.add(i + 1, 0, e.getClass().getSimpleName() + ", " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty())
+            throw new Exception(String.format(ERRORS_SUMMARY_FORMAT, errors.getTotalCount(), errors.getFirst()));
+    }
+
+    /**
+     * Returns the errors of the data last processed by {@link #processString(String)}, of which only the first ones
+     * are kept.
+     */
+    public DataErrorCollector getErrors() {
+        return errors;
     }
 
     /*
@@ -0,0 +1,253 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A dataset saved in a compact binary format, which loads without any text or number parsing. The file is laid out
+ * in little-endian order as follows:
+ * <ul>
+ *     <li>a header holding a magic number, the format version, the number of rows, labels and cluster columns, and
+ *     the dimension of the rows;</li>
+ *     <li>the label dictionary and the names of the cluster columns, each string as its length in bytes followed by
+ *     its UTF-8 bytes, padded to a multiple of 8 bytes;</li>
+ *     <li>the coordinates as float64, row after row, the label id column as int32 and every cluster column as
+ *     int32;</li>
+ *     <li>the offsets of the names into the name blob as int32, one more than there are rows;</li>
+ *     <li>the name blob, holding every name in UTF-8.</li>
+ * </ul>
+ * Loading maps the file and copies every column out of the mapping in bulk. The name blob is handed to the dataset as
+ * it is, and the names are only decoded once they are used. A snapshot file cannot be larger than 2 GB.
+ * <p>
+ * Snapshots of the first version, which only held 2-dimensional data as separate x and y columns and had no
+ * dimension in their header, are still loaded.
+ *
+ * @author Patrick Chan
+ */
+public final class DataSetSnapshot {
+
+    private static final int MAGIC = 0x44565344; // "DVSD"
+    private static final int VERSION = 2;
+    /* the version that predates the dimension, whose x and y coordinates are held in two columns */
+    private static final int PLANAR_VERSION = 1;
+    private static final int PLANAR_HEADER_LENGTH = 5 * Integer.BYTES;
+    private static final int HEADER_LENGTH = 6 * Integer.BYTES;
+    private static final int ALIGNMENT = Double.BYTES;
+
+    private final ColumnarDataSet dataSet;
+    private final Map<String, int[]> clusterColumns;
+
+    public DataSetSnapshot(ColumnarDataSet dataSet) {
+        this(dataSet, Collections.emptyMap());
+    }
+
+    /**
+     * @param dataSet        the dataset
+     * @param clusterColumns named columns holding the cluster of every row of the dataset
+     */
+    public DataSetSnapshot(ColumnarDataSet dataSet, Map<String, int[]> clusterColumns) {
+        for (Map.Entry<String, int[]> column : clusterColumns.entrySet()) {
+            if (column.getValue().length < dataSet.size())
+                throw new IllegalArgumentException("The cluster column " + column.getKey() + " does not cover every row");
+        }
+        this.dataSet = dataSet;
+        this.clusterColumns = Collections.unmodifiableMap(new LinkedHashMap<>(clusterColumns));
+    }
+
+    public ColumnarDataSet getDataSet() {
+        return dataSet;
+    }
+
+    public Map<String, int[]> getClusterColumns() {
+        return clusterColumns;
+    }
+
+    /**
+     * Saves the snapshot to the given file, replacing any previous content.
+     *
+     * @throws IOException if the file cannot be written, or if the snapshot would be larger than 2 GB
+     */
+    public void save(Path filePath) throws IOException {
+        int size = dataSet.size();
+        int dimension = dataSet.getDimension();
+        List<String> labels = dataSet.getLabelDictionary().getLabels();
+        byte[][] encodedNames = new byte[size][];
+        long nameBlobLength = 0;
+        for (int row = 0; row < size; row++) {
+            encodedNames[row] = dataSet.getName(row).getBytes(StandardCharsets.UTF_8);
+            nameBlobLength += encodedNames[row].length;
+        }
+
+        long length = align(HEADER_LENGTH + stringsLength(labels) + stringsLength(clusterColumns.keySet()));
+        length += (long) size * ((long) dimension * Double.BYTES + (1 + clusterColumns.size()) * Integer.BYTES);
+        length += (long) (size + 1) * Integer.BYTES + nameBlobLength;
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("The dataset is too large for a snapshot");
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(labels.size()).putInt(clusterColumns.size()).putInt(dimension);
+            for (String label : labels)
+                putString(buffer, label);
+            for (String columnName : clusterColumns.keySet())
+                putString(buffer, columnName);
+            buffer.position(align(buffer.position()));
+
+            for (int row = 0; row < size; row++) {
+                for (int axis = 0; axis < dimension; axis++)
+                    buffer.putDouble(dataSet.getCoordinate(row, axis));
+            }
+            for (int row = 0; row < size; row++)
+                buffer.putInt(dataSet.getLabelId(row));
+            for (int[] column : clusterColumns.values()) {
+                buffer.asIntBuffer().put(column, 0, size);
+                buffer.position(buffer.position() + size * Integer.BYTES);
+            }
+
+            int offset = 0;
+            buffer.putInt(offset);
+            for (byte[] name : encodedNames)
+                buffer.putInt(offset += name.length);
+            for (byte[] name : encodedNames)
+                buffer.put(name);
+        }
+    }
+
+    /**
+     * Loads a snapshot from the given file.
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static DataSetSnapshot load(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("The file is too large to be a snapshot");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                return read(buffer);
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                throw new IOException("The file is not a valid snapshot", e);
+            }
+        }
+    }
+
+    private static DataSetSnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < PLANAR_HEADER_LENGTH || buffer.getInt() != MAGIC)
+            throw new IOException("The file is not a snapshot");
+        int version = buffer.getInt();
+        if (version != VERSION && version != PLANAR_VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+        if (version == VERSION && buffer.remaining() < HEADER_LENGTH - 2 * Integer.BYTES)
+            throw new IOException("The file is not a valid snapshot");
+        int size = buffer.getInt();
+        int numberOfLabels = buffer.getInt();
+        int numberOfClusterColumns = buffer.getInt();
+        int dimension = version == VERSION ? buffer.getInt() : 2;
+        long minimumLength = (long) size * ((long) dimension * Double.BYTES + (2L + numberOfClusterColumns) * Integer.BYTES);
+        int maximumStrings = buffer.remaining() / Integer.BYTES;
+        if (size < 0 || numberOfLabels < 0 || numberOfClusterColumns < 0 || dimension < CoordinateParser.MIN_DIMENSION
+                || dimension > CoordinateParser.MAX_DIMENSION || minimumLength > buffer.remaining()
+                || numberOfLabels + (long) numberOfClusterColumns > maximumStrings)
+            throw new IOException("The file is not a valid snapshot");
+
+        List<String> labels = new ArrayList<>(numberOfLabels);
+        for (int i = 0; i < numberOfLabels; i++)
+            labels.add(getString(buffer));
+        List<String> columnNames = new ArrayList<>(numberOfClusterColumns);
+        for (int i = 0; i < numberOfClusterColumns; i++)
+            columnNames.add(getString(buffer));
+        buffer.position(align(buffer.position()));
+
+        double[] coordinates = new double[size * dimension];
+        if (version == PLANAR_VERSION) {
+            getPlanarCoordinates(buffer, coordinates, size);
+        } else {
+            getDoubles(buffer, coordinates);
+        }
+        for (double coordinate : coordinates) {
+            // as in a .tsd file, a coordinate is a finite value
+            if (!Double.isFinite(coordinate))
+                throw new IOException("The file is not a valid snapshot");
+        }
+        int[] labelIds = new int[size];
+        getInts(buffer, labelIds);
+        Map<String, int[]> clusterColumns = new LinkedHashMap<>();
+        for (String columnName : columnNames) {
+            int[] column = new int[size];
+            getInts(buffer, column);
+            clusterColumns.put(columnName, column);
+        }
+
+        int[] nameOffsets = new int[size + 1];
+        getInts(buffer, nameOffsets);
+        byte[] nameBlob = new byte[nameOffsets[size]];
+        buffer.get(nameBlob);
+
+        ColumnarDataSet dataSet = ColumnarDataSet.fromColumns(size, nameBlob, nameOffsets, labels, labelIds, dimension, coordinates);
+        return new DataSetSnapshot(dataSet, clusterColumns);
+    }
+
+    private static void getDoubles(ByteBuffer buffer, double[] destination) {
+        buffer.asDoubleBuffer().get(destination);
+        buffer.position(buffer.position() + destination.length * Double.BYTES);
+    }
+
+    /**
+     * Reads the separate x and y columns of a first-version snapshot into row-major coordinates.
+     */
+    private static void getPlanarCoordinates(ByteBuffer buffer, double[] coordinates, int size) {
+        // the y column follows the x column
+        DoubleBuffer columns = buffer.asDoubleBuffer();
+        for (int row = 0; row < size; row++) {
+            coordinates[2 * row] = columns.get(row);
+            coordinates[2 * row + 1] = columns.get(size + row);
+        }
+        buffer.position(buffer.position() + 2 * size * Double.BYTES);
+    }
+
+    private static void getInts(ByteBuffer buffer, int[] destination) {
+        buffer.asIntBuffer().get(destination);
+        buffer.position(buffer.position() + destination.length * Integer.BYTES);
+    }
+
+    private static void putString(ByteBuffer buffer, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long stringsLength(Collection<String> strings) {
+        long length = 0;
+        for (String string : strings)
+            length += Integer.BYTES + string.getBytes(StandardCharsets.UTF_8).length;
+        return length;
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int align(int position) {
+        return (int) align((long) position);
+    }
+
+}
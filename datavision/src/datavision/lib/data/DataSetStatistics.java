@@ -0,0 +1,119 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summary statistics of a {@link ColumnarDataSet}: the number of points, the bounds of the values along every axis
+ * and the number of points per label. They are computed in a single pass over the columns, and can be brought up to date
+ * with rows appended afterwards through {@link #update()} without going over the earlier rows again. Every getter then
+ * answers in constant time, apart from {@link #getLabelCounts()}, which is linear in the number of labels.
+ * <p>
+ * The statistics only follow rows being appended. If rows are modified in place, new statistics have to be computed.
+ *
+ * @author Patrick Chan
+ */
+public final class DataSetStatistics {
+
+    private final ColumnarDataSet dataSet;
+
+    private int numberOfPoints;
+    /* the bounds of the coordinates, per axis */
+    private double[] mins;
+    private double[] maxs;
+    /* the number of points per label id of the dataset's label dictionary */
+    private int[] labelCounts;
+    /* the number of labels in use, leaving out the null label */
+    private int numberOfLabels;
+
+    public DataSetStatistics(ColumnarDataSet dataSet) {
+        this.dataSet = dataSet;
+        this.mins = new double[0];
+        this.maxs = new double[0];
+        this.labelCounts = new int[0];
+        update();
+    }
+
+    /**
+     * Takes the rows appended to the dataset since the last update into account.
+     */
+    public void update() {
+        int size = dataSet.size();
+        LabelDictionary labelDictionary = dataSet.getLabelDictionary();
+        if (labelCounts.length < labelDictionary.size())
+            labelCounts = Arrays.copyOf(labelCounts, labelDictionary.size());
+        int dimension = dataSet.getDimension();
+        if (mins.length != dimension) {
+            // the dimension only changes while the dataset is empty
+            mins = new double[dimension];
+            maxs = new double[dimension];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        for (int row = numberOfPoints; row < size; row++) {
+            for (int axis = 0; axis < dimension; axis++) {
+                double value = dataSet.getCoordinate(row, axis);
+                if (value < mins[axis]) mins[axis] = value;
+                if (value > maxs[axis]) maxs[axis] = value;
+            }
+
+            int labelId = dataSet.getLabelId(row);
+            if (labelCounts[labelId]++ == 0 && !labelDictionary.labelOf(labelId).equals(ValidationResult.NULL_LABEL))
+                numberOfLabels++;
+        }
+        numberOfPoints = size;
+    }
+
+    public int getNumberOfPoints() { return numberOfPoints; }
+
+    /**
+     * Returns the number of distinct labels of the points, leaving out the <code>null</code> label of the unlabeled
+     * points.
+     */
+    public int getNumberOfLabels() { return numberOfLabels; }
+
+    public int getDimension() { return mins.length; }
+
+    /**
+     * Returns the smallest coordinate along the given 0-based axis, or positive infinity if there are no points.
+     */
+    public double getMin(int axis) { return mins[axis]; }
+
+    /**
+     * Returns the largest coordinate along the given 0-based axis, or negative infinity if there are no points.
+     */
+    public double getMax(int axis) { return maxs[axis]; }
+
+    public double getMinX() { return mins[0]; }
+
+    public double getMaxX() { return maxs[0]; }
+
+    public double getMinY() { return mins[1]; }
+
+    public double getMaxY() { return maxs[1]; }
+
+    public int getLabelCount(String label) {
+        int labelId = dataSet.getLabelDictionary().idOf(label);
+        return labelId < 0 || labelId >= labelCounts.length ? 0 : labelCounts[labelId];
+    }
+
+    /**
+     * Returns the number of points of every label in use, <code>null</code> included, in the order of the label
+     * dictionary.
+     */
+    public Map<String, Integer> getLabelCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        LabelDictionary labelDictionary = dataSet.getLabelDictionary();
+        for (int labelId = 0; labelId < labelCounts.length; labelId++) {
+            if (labelCounts[labelId] > 0)
+                counts.put(labelDictionary.labelOf(labelId), labelCounts[labelId]);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+}
@@ -0,0 +1,95 @@
+package datavision.lib.data;
+
+import java.util.Arrays;
+
+/**
+ * The lines of a file decompressed by a {@link GzipTSDLoader}, kept as they stream in. The text is held in blocks of
+ * chars of a fixed size rather than in a single array, so that it never has to be copied to grow and is not bound by
+ * the largest array or {@link String} there can be, and the start of every line is recorded as it is appended. A line
+ * is only turned into a {@link String} when it is read.
+ * <p>
+ * The lines follow the same convention as a {@link TSDDocument}: a text that ends with a newline ends with an empty
+ * line, and an empty text is a single empty line.
+ *
+ * @author Patrick Chan
+ */
+public final class DecompressedLines implements TSDDocument.Lines {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final char NEWLINE = '\n';
+
+    private final int blockSize;
+    private char[][] blocks;
+    private long length;
+    private long[] lineStarts;
+    private int lineCount;
+
+    public DecompressedLines() {
+        this(BLOCK_SIZE);
+    }
+
+    DecompressedLines(int blockSize) {
+        this.blockSize = blockSize;
+        this.blocks = new char[1][];
+        this.lineStarts = new long[16];
+        this.lineCount = 1;
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of chars of the text, newlines included.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String getLine(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " out of " + lineCount);
+        long start = lineStarts[line];
+        long end = line + 1 < lineCount ? lineStarts[line + 1] - 1 : length;
+        char[] chars = new char[(int) (end - start)];
+        for (int copied = 0; copied < chars.length; ) {
+            long offset = start + copied;
+            int inBlock = (int) (offset % blockSize);
+            int count = Math.min(chars.length - copied, blockSize - inBlock);
+            System.arraycopy(blocks[(int) (offset / blockSize)], inBlock, chars, copied, count);
+            copied += count;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Appends <code>chars[offset, offset + count)</code> to the text.
+     */
+    void append(char[] chars, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            if (chars[i] == NEWLINE)
+                addLineStart(length + i - offset + 1);
+        }
+        for (int copied = 0; copied < count; ) {
+            int block = (int) (length / blockSize);
+            int inBlock = (int) (length % blockSize);
+            if (block == blocks.length)
+                blocks = Arrays.copyOf(blocks, block << 1);
+            if (blocks[block] == null)
+                blocks[block] = new char[blockSize];
+            int copy = Math.min(count - copied, blockSize - inBlock);
+            System.arraycopy(chars, offset + copied, blocks[block], inBlock, copy);
+            copied += copy;
+            length += copy;
+        }
+    }
+
+    private void addLineStart(long start) {
+        if (lineCount == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, lineCount + (lineCount >> 1));
+        lineStarts[lineCount++] = start;
+    }
+
+}
@@ -0,0 +1,53 @@
+package datavision.lib.data;
+
+/**
+ * A column of <code>double</code> values, which the columns of a dataset are read and written through whether they
+ * are held on the heap or off it. Values are addressed by a <code>long</code> index, so that a column can hold more
+ * values than a Java array. A column only ever grows, through {@link #grow(long)}.
+ *
+ * @author Patrick Chan
+ * @see ColumnStorage
+ */
+public interface DoubleColumn {
+
+    /**
+     * Returns the number of values the column has room for, which are 0 until they are set.
+     */
+    long length();
+
+    double get(long index);
+
+    void set(long index, double value);
+
+    /**
+     * Copies <code>length</code> values starting at the given index into the destination array.
+     */
+    default void get(long index, double[] destination, int offset, int length) {
+        for (int i = 0; i < length; i++)
+            destination[offset + i] = get(index + i);
+    }
+
+    /**
+     * Copies <code>length</code> values of the source array into the column, starting at the given index.
+     */
+    default void set(long index, double[] source, int offset, int length) {
+        for (int i = 0; i < length; i++)
+            set(index + i, source[offset + i]);
+    }
+
+    /**
+     * Copies <code>length</code> values starting at <code>from</code> into another column, starting at
+     * <code>to</code>.
+     */
+    default void copyTo(long from, DoubleColumn destination, long to, long length) {
+        for (long i = 0; i < length; i++)
+            destination.set(to + i, get(from + i));
+    }
+
+    /**
+     * Returns a column of the same storage with room for at least the given number of values, holding the values of
+     * this one. This column must not be used any more afterwards, as it may or may not be the one returned.
+     */
+    DoubleColumn grow(long length);
+
+}
@@ -0,0 +1,695 @@
+package datavision.lib.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the validation of an edited text up to date, line by line. The validator holds an index of the lines of the
+ * text, together with the status, name and label of each line. It also keeps running counts of the invalid lines,
+ * the names and the labels. When an edit is recorded through {@link #recordEdit(int, int, String)} just before the
+ * text changes, {@link #update(CharSequence)} only checks the lines the edit touched again. The cost of the
+ * validation is then proportional to the size of the edit rather than to the size of the text. Any other change of
+ * the text is validated from scratch. The number of coordinates of every valid line is kept as well, along with how
+ * many lines have each number, so that lines not matching the first valid one only have to be looked for once the
+ * lines disagree.
+ * <p>
+ * The index is cut into blocks of consecutive lines, each holding the lengths of its own lines only. The number of
+ * lines and of characters of every block are summed up in Fenwick trees, which locate a line or an offset in
+ * logarithmic time. An edit therefore only rewrites the blocks it touches, however many lines follow it; only once a
+ * block has grown or shrunk past its bounds are the blocks cut anew and the trees rebuilt.
+ * <p>
+ * A {@link TSDDocument} is validated line by line instead, through {@link #update(TSDDocument)}, and its edits are
+ * followed through {@link #replaceLines(int, int, CharSequence)}, which leaves offsets out of it altogether.
+ * <p>
+ * {@link #getResult()} reports the same lines, names and labels as {@link TSDValidator#validate(CharSequence)}. The
+ * only difference is that, after edits, the labels are not necessarily listed in the order of their first line.
+ *
+ * @author Patrick Chan
+ */
+public final class IncrementalTSDValidator {
+
+    /* the status of an empty line, besides the statuses of TSDValidator */
+    private static final byte EMPTY = -1;
+    /* the number of lines blocks are cut to, and the most lines a block may hold before it is cut again */
+    private static final int BLOCK_SIZE = 1 << 9;
+    private static final int MAX_BLOCK_SIZE = BLOCK_SIZE << 1;
+    private static final char NEWLINE = '\n';
+
+    private final TSDValidator lineChecker;
+    private final int errorCapacity;
+
+    /* the text or the document the index was last brought up to date with, the other one being null */
+    private CharSequence text;
+    private TSDDocument document;
+    private int lineCount;
+    private Block[] blocks;
+    private int blockCount;
+    /* the Fenwick trees of the number of lines and of characters, newlines included, of the blocks */
+    private long[] lineTree;
+    private long[] lengthTree;
+
+    private int malformedCount;
+    private int invalidLocationCount;
+    private int emptyCount;
+    private int duplicateNameCount;
+    /* the number of valid lines per number of coordinates, and how many of those numbers are in use */
+    private final int[] dimensionCounts;
+    private int distinctDimensionCount;
+    /* the number of coordinates of the first valid line, or -1 if it has to be looked up again */
+    private int dataDimension;
+    private final Map<String, Integer> nameCounts;
+    private final Map<String, Integer> labelCounts;
+
+    /* the edit recorded for the next update, if any */
+    private boolean hasPendingEdit;
+    private int editStart;
+    private int editEnd;
+    private String editText;
+
+    private ValidationResult result;
+
+    public IncrementalTSDValidator() {
+        this(DataErrorCollector.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param errorCapacity the number of invalid lines whose errors are kept in the result
+     */
+    public IncrementalTSDValidator(int errorCapacity) {
+        this.errorCapacity = errorCapacity;
+        lineChecker = new TSDValidator();
+        blocks = new Block[1];
+        lineTree = new long[2];
+        lengthTree = new long[2];
+        dimensionCounts = new int[CoordinateParser.MAX_DIMENSION + 1];
+        nameCounts = new HashMap<>();
+        labelCounts = new LinkedHashMap<>();
+        reset("");
+    }
+
+    /**
+     * Records that the characters <code>[start, end)</code> of the text are about to be replaced by the given text.
+     * The edit is applied on the next call to {@link #update(CharSequence)}.
+     */
+    public void recordEdit(int start, int end, String replacement) {
+        hasPendingEdit = true;
+        editStart = start;
+        editEnd = end;
+        editText = replacement;
+    }
+
+    /**
+     * Drops the recorded edit, if any, so that the next update validates the whole text.
+     */
+    public void discardEdit() {
+        hasPendingEdit = false;
+        editText = null;
+    }
+
+    /**
+     * Brings the validation up to date with the new content of the text. If the recorded edit accounts for the new
+     * content, only the lines it touched are checked again; otherwise, the whole text is. Updating with the very same
+     * {@link String} as last time keeps the validation as it is, which lets a validator be brought up to date on
+     * another thread before it is put to use.
+     *
+     * @param text the new content of the text, where <code>null</code> stands for an empty text
+     */
+    public void update(CharSequence text) {
+        if (text == null)
+            text = "";
+        if (text == this.text && text instanceof String) {
+            // strings never change, so neither does the outcome
+            discardEdit();
+            return;
+        }
+        if (hasPendingEdit && document == null && isEditOf(text))
+            applyEdit(text);
+        else
+            reset(text);
+        this.text = text;
+        document = null;
+        changed();
+    }
+
+    /**
+     * Validates every line of the given document from scratch. The document is read again whenever the column and
+     * reason of an error are looked up, so its later edits must be followed through
+     * {@link #replaceLines(int, int, CharSequence)}.
+     */
+    public void update(TSDDocument document) {
+        clear();
+        for (int line = 0; line < document.getLineCount(); line++) {
+            String content = document.getLine(line);
+            appendLine(content, 0, content.length());
+        }
+        rebuildTrees();
+        text = null;
+        this.document = document;
+        changed();
+    }
+
+    /**
+     * Follows the replacement of the lines <code>[fromLine, toLine)</code> of the document with the lines of the given
+     * text, as made by {@link TSDDocument#replaceLines(int, int, CharSequence)}. Only the new lines are checked.
+     *
+     * @throws IndexOutOfBoundsException if the range is not within the document
+     */
+    public void replaceLines(int fromLine, int toLine, CharSequence lines) {
+        if (fromLine < 0 || fromLine > toLine || toLine > lineCount)
+            throw new IndexOutOfBoundsException("Lines " + fromLine + " to " + toLine + " out of " + lineCount);
+        replaceLines(lines, fromLine, toLine, 0, lines.length());
+        changed();
+    }
+
+    private void changed() {
+        discardEdit();
+        result = null;
+        dataDimension = -1;
+    }
+
+    /**
+     * Returns the outcome of the validation of the current text. Listing the invalid lines and the duplicate names
+     * takes a scan over the line index, but only if there are any.
+     */
+    public ValidationResult getResult() {
+        if (result == null)
+            result = buildResult();
+        return result;
+    }
+
+    /**
+     * Returns the number of lines of the text, counting an empty line after a final newline.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the offset of the first character of the given 0-based line.
+     */
+    public int getLineStart(int line) {
+        checkLineIndex(line);
+        int block = blockOf(line);
+        long start = prefix(lengthTree, block);
+        Block lines = blocks[block];
+        for (int i = 0, index = line - (int) prefix(lineTree, block); i < index; i++)
+            start += lines.lengths[i] + 1;
+        return (int) start;
+    }
+
+    /**
+     * Returns the offset just past the last character of the given 0-based line, not counting its newline.
+     */
+    public int getLineEnd(int line) {
+        int start = getLineStart(line);
+        int block = blockOf(line);
+        return start + blocks[block].lengths[line - (int) prefix(lineTree, block)];
+    }
+
+    /**
+     * Returns whether the given 0-based line is either empty or a valid instance, leaving duplicate names aside. A
+     * valid instance must also have as many coordinates as the first one.
+     */
+    public boolean isValidLine(int line) {
+        checkLineIndex(line);
+        int block = blockOf(line);
+        int index = line - (int) prefix(lineTree, block);
+        byte status = blocks[block].statuses[index];
+        if (status == TSDValidator.VALID)
+            return distinctDimensionCount <= 1 || blocks[block].dimensions[index] == getDimension();
+        return status == EMPTY;
+    }
+
+    /**
+     * Returns the number of coordinates of the first valid line, or 0 if there is none.
+     */
+    public int getDimension() {
+        if (dataDimension < 0) {
+            dataDimension = 0;
+            for (int block = 0; block < blockCount && distinctDimensionCount > 0 && dataDimension == 0; block++) {
+                Block lines = blocks[block];
+                for (int i = 0; i < lines.lineCount; i++) {
+                    if (lines.statuses[i] == TSDValidator.VALID) {
+                        dataDimension = lines.dimensions[i];
+                        break;
+                    }
+                }
+            }
+        }
+        return dataDimension;
+    }
+
+    private void checkLineIndex(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " out of " + lineCount);
+    }
+
+    /**
+     * Checks that the recorded edit is consistent with the new text, that is, that it yields a text of the new length
+     * which holds the replacement at the position of the edit.
+     */
+    private boolean isEditOf(CharSequence text) {
+        long textLength = getTextLength();
+        long newLength = textLength - (editEnd - editStart) + editText.length();
+        if (editStart < 0 || editStart > editEnd || editEnd > textLength || newLength != text.length())
+            return false;
+        for (int i = 0; i < editText.length(); i++) {
+            if (text.charAt(editStart + i) != editText.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of characters of the text, which every line but the last is counted in with its newline.
+     */
+    private long getTextLength() {
+        return prefix(lengthTree, blockCount) - 1;
+    }
+
+    /**
+     * Indexes and checks every line of the text, filling the blocks one after the other.
+     */
+    private void reset(CharSequence text) {
+        clear();
+        int textLength = text.length();
+        int lineStart = 0;
+        for (int i = 0; i <= textLength; i++) {
+            if (i == textLength || text.charAt(i) == NEWLINE) {
+                appendLine(text, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        rebuildTrees();
+    }
+
+    private void clear() {
+        for (int block = 0; block < blockCount; block++)
+            blocks[block] = null;
+        blockCount = 0;
+        lineCount = 0;
+        malformedCount = 0;
+        invalidLocationCount = 0;
+        emptyCount = 0;
+        duplicateNameCount = 0;
+        Arrays.fill(dimensionCounts, 0);
+        distinctDimensionCount = 0;
+        nameCounts.clear();
+        labelCounts.clear();
+    }
+
+    /**
+     * Checks the line held in <code>text[start, end)</code> and adds it after the last line, in a new block once the
+     * last one is full. The trees are left to be rebuilt once every line is added.
+     */
+    private void appendLine(CharSequence text, int start, int end) {
+        Block lines = blockCount > 0 ? blocks[blockCount - 1] : null;
+        if (lines == null || lines.lineCount == BLOCK_SIZE) {
+            lines = new Block(BLOCK_SIZE);
+            ensureBlockCapacity(blockCount + 1);
+            blocks[blockCount++] = lines;
+        }
+        checkLine(text, start, end, lines, lines.lineCount++);
+        lineCount++;
+    }
+
+    /**
+     * Replaces the lines touched by the recorded edit with the lines that now take their place. The following lines
+     * are not touched at all, since their offsets follow from the lengths of the blocks.
+     */
+    private void applyEdit(CharSequence text) {
+        int firstLine = lineAt(editStart);
+        int lastLine = lineAt(editEnd);
+        int delta = editText.length() - (editEnd - editStart);
+        int regionStart = getLineStart(firstLine);
+        int regionEnd = getLineEnd(lastLine) + delta;
+        replaceLines(text, firstLine, lastLine + 1, regionStart, regionEnd);
+    }
+
+    /**
+     * Replaces the lines <code>[fromLine, toLine)</code> of the index with the lines held in
+     * <code>text[regionStart, regionEnd]</code>, where <code>regionEnd</code> is the end of the last of them. The new
+     * lines are gathered, along with the lines they leave of the first and last blocks they touch, into a staging
+     * block, which is then cut into as many blocks as were touched whenever they can hold it.
+     */
+    private void replaceLines(CharSequence text, int fromLine, int toLine, int regionStart, int regionEnd) {
+        int newLines = 1;
+        for (int i = regionStart; i < regionEnd; i++) {
+            if (text.charAt(i) == NEWLINE)
+                newLines++;
+        }
+
+        int firstBlock = blockOf(Math.min(fromLine, lineCount - 1));
+        int lastBlock = toLine > fromLine ? blockOf(toLine - 1) : firstBlock;
+        int firstBlockStart = (int) prefix(lineTree, firstBlock);
+        int lastBlockStart = (int) prefix(lineTree, lastBlock);
+        int head = fromLine - firstBlockStart;
+        int tail = lastBlockStart + blocks[lastBlock].lineCount - Math.max(toLine, fromLine);
+
+        for (int block = firstBlock, line = firstBlockStart; line < toLine; line += blocks[block++].lineCount) {
+            for (int i = Math.max(0, fromLine - line); i < blocks[block].lineCount && line + i < toLine; i++)
+                untrack(blocks[block], i);
+        }
+
+        Block staging = new Block(head + newLines + tail);
+        blocks[firstBlock].copyTo(0, staging, 0, head);
+        staging.lineCount = head;
+        int lineStart = regionStart;
+        for (int i = regionStart; i <= regionEnd; i++) {
+            if (i == regionEnd || text.charAt(i) == NEWLINE) {
+                checkLine(text, lineStart, i, staging, staging.lineCount++);
+                lineStart = i + 1;
+            }
+        }
+        blocks[lastBlock].copyTo(blocks[lastBlock].lineCount - tail, staging, staging.lineCount, tail);
+        staging.lineCount += tail;
+        lineCount += staging.lineCount - head - tail - (toLine - fromLine);
+        splice(firstBlock, lastBlock + 1, staging);
+    }
+
+    /**
+     * Replaces the blocks <code>[fromBlock, toBlock)</code> with the lines of the staging block. If those blocks can
+     * hold the lines, each keeps its place and only its sums change in the trees; otherwise, the lines are cut into new
+     * blocks and the trees are rebuilt.
+     */
+    private void splice(int fromBlock, int toBlock, Block staging) {
+        int replaced = toBlock - fromBlock;
+        int total = staging.lineCount;
+        boolean fits = total >= replaced && total <= replaced * MAX_BLOCK_SIZE;
+        int count = fits ? replaced : Math.max(1, (total + BLOCK_SIZE - 1) / BLOCK_SIZE);
+
+        if (!fits) {
+            ensureBlockCapacity(blockCount - replaced + count);
+            System.arraycopy(blocks, toBlock, blocks, fromBlock + count, blockCount - toBlock);
+            for (int block = blockCount - replaced + count; block < blockCount; block++)
+                blocks[block] = null;
+            blockCount += count - replaced;
+        }
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int size = total / count + (i < total % count ? 1 : 0);
+            Block block = fits ? blocks[fromBlock + i] : new Block(Math.max(size, BLOCK_SIZE));
+            long oldLineCount = block.lineCount;
+            long oldLength = block.length();
+            block.ensureCapacity(size);
+            staging.copyTo(from, block, 0, size);
+            block.clear(size, block.lineCount);
+            block.lineCount = size;
+            from += size;
+            if (fits) {
+                add(lineTree, fromBlock + i, size - oldLineCount);
+                add(lengthTree, fromBlock + i, block.length() - oldLength);
+            } else {
+                blocks[fromBlock + i] = block;
+            }
+        }
+        if (!fits)
+            rebuildTrees();
+    }
+
+    private void checkLine(CharSequence text, int start, int end, Block lines, int line) {
+        lines.lengths[line] = end - start;
+        lines.names[line] = null;
+        lines.labels[line] = null;
+        if (start == end) {
+            lines.statuses[line] = EMPTY;
+        } else {
+            lines.statuses[line] = (byte) lineChecker.checkLine(text, start, end);
+            if (lines.statuses[line] != TSDValidator.MALFORMED)
+                lines.names[line] = text.subSequence(lineChecker.nameStart + 1, lineChecker.nameEnd).toString();
+            if (lines.statuses[line] == TSDValidator.VALID) {
+                lines.labels[line] = text.subSequence(lineChecker.labelStart, lineChecker.labelEnd).toString();
+                lines.dimensions[line] = (byte) lineChecker.dimension;
+            }
+        }
+        track(lines, line);
+    }
+
+    private void track(Block lines, int line) {
+        switch (lines.statuses[line]) {
+            case EMPTY: emptyCount++; break;
+            case TSDValidator.MALFORMED: malformedCount++; break;
+            case TSDValidator.INVALID_LOCATION: invalidLocationCount++; break;
+            default:
+                if (dimensionCounts[lines.dimensions[line]]++ == 0)
+                    distinctDimensionCount++;
+                break;
+        }
+        String name = lines.names[line];
+        if (name != null && nameCounts.merge(name, 1, Integer::sum) == 2)
+            duplicateNameCount++;
+        String label = lines.labels[line];
+        if (label != null && !label.equals(ValidationResult.NULL_LABEL))
+            labelCounts.merge(label, 1, Integer::sum);
+    }
+
+    private void untrack(Block lines, int line) {
+        switch (lines.statuses[line]) {
+            case EMPTY: emptyCount--; break;
+            case TSDValidator.MALFORMED: malformedCount--; break;
+            case TSDValidator.INVALID_LOCATION: invalidLocationCount--; break;
+            default:
+                if (--dimensionCounts[lines.dimensions[line]] == 0)
+                    distinctDimensionCount--;
+                break;
+        }
+        String name = lines.names[line];
+        if (name != null) {
+            Integer count = nameCounts.merge(name, -1, Integer::sum);
+            if (count == 1)
+                duplicateNameCount--;
+            else if (count == 0)
+                nameCounts.remove(name);
+        }
+        String label = lines.labels[line];
+        if (label != null && labelCounts.merge(label, -1, Integer::sum) == 0)
+            labelCounts.remove(label);
+    }
+
+    /**
+     * Returns the block holding the given 0-based line.
+     */
+    private int blockOf(int line) {
+        return Math.min(find(lineTree, blockCount, line), blockCount - 1);
+    }
+
+    /**
+     * Returns the line holding the given offset of the text, where the offset of a newline belongs to the line it ends.
+     */
+    private int lineAt(int offset) {
+        int block = Math.min(find(lengthTree, blockCount, offset), blockCount - 1);
+        long remaining = offset - prefix(lengthTree, block);
+        Block lines = blocks[block];
+        int line = 0;
+        while (line < lines.lineCount - 1 && remaining > lines.lengths[line]) {
+            remaining -= lines.lengths[line] + 1;
+            line++;
+        }
+        return (int) prefix(lineTree, block) + line;
+    }
+
+    private void rebuildTrees() {
+        if (lineTree.length < blockCount + 1) {
+            lineTree = new long[blocks.length + 1];
+            lengthTree = new long[blocks.length + 1];
+        }
+        Arrays.fill(lineTree, 0);
+        Arrays.fill(lengthTree, 0);
+        for (int block = 0; block < blockCount; block++) {
+            lineTree[block + 1] += blocks[block].lineCount;
+            lengthTree[block + 1] += blocks[block].length();
+            int parent = block + 1 + ((block + 1) & -(block + 1));
+            if (parent <= blockCount) {
+                lineTree[parent] += lineTree[block + 1];
+                lengthTree[parent] += lengthTree[block + 1];
+            }
+        }
+    }
+
+    /**
+     * Adds to the sum of the given block in a Fenwick tree.
+     */
+    private void add(long[] tree, int block, long delta) {
+        for (int i = block + 1; i <= blockCount; i += i & -i)
+            tree[i] += delta;
+    }
+
+    /**
+     * Returns the sum of the blocks before the given one in a Fenwick tree.
+     */
+    private static long prefix(long[] tree, int block) {
+        long sum = 0;
+        for (int i = block; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * Returns the last block whose preceding blocks sum up to at most the given value in a Fenwick tree, that is, the
+     * block holding the given line or offset, or the number of blocks if the value lies past the end.
+     */
+    private static int find(long[] tree, int count, long value) {
+        int block = 0;
+        for (int step = Integer.highestOneBit(Math.max(count, 1)); step > 0; step >>= 1) {
+            int next = block + step;
+            if (next <= count && tree[next] <= value) {
+                block = next;
+                value -= tree[next];
+            }
+        }
+        return block;
+    }
+
+    private ValidationResult buildResult() {
+        ValidationResult validationResult = new ValidationResult(errorCapacity);
+        if (lineCount == 1 && blocks[0].lengths[0] == 0) {
+            // an empty text still counts as a single, malformed line
+            validationResult.addMalformedLine(1, 1, TSDValidator.EMPTY_LINE_ERROR);
+            validationResult.setNumberOfLines(1);
+            return validationResult;
+        }
+
+        // empty lines at the very end of the text are not counted
+        int trailingEmptyCount = 0;
+        scan:
+        for (int block = blockCount - 1; block >= 0; block--) {
+            for (int i = blocks[block].lineCount - 1; i >= 0; i--) {
+                if (blocks[block].statuses[i] != EMPTY)
+                    break scan;
+                trailingEmptyCount++;
+            }
+        }
+        int lastLine = lineCount - 1 - trailingEmptyCount;
+        int innerEmptyCount = emptyCount - trailingEmptyCount;
+        validationResult.setNumberOfLines(lastLine + 1);
+        int dimension = getDimension();
+        validationResult.setDimension(dimension);
+
+        if (malformedCount + invalidLocationCount + innerEmptyCount > 0 || distinctDimensionCount > 1) {
+            for (int block = 0, line = 0; line <= lastLine; line += blocks[block++].lineCount) {
+                Block lines = blocks[block];
+                for (int i = 0; i < lines.lineCount && line + i <= lastLine; i++) {
+                    byte status = lines.statuses[i];
+                    if (status == EMPTY || status == TSDValidator.MALFORMED)
+                        addError(validationResult, line + i, status, dimension, true);
+                    else if (status == TSDValidator.INVALID_LOCATION || lines.dimensions[i] != dimension)
+                        addError(validationResult, line + i, status, dimension, false);
+                }
+            }
+        }
+        if (duplicateNameCount > 0) {
+            Map<String, Integer> firstLineOfName = new HashMap<>();
+            for (int block = 0, line = 0; line <= lastLine; line += blocks[block++].lineCount) {
+                Block lines = blocks[block];
+                for (int i = 0; i < lines.lineCount && line + i <= lastLine; i++) {
+                    String name = lines.names[i];
+                    if (name != null && nameCounts.get(name) > 1) {
+                        Integer firstLineNumber = firstLineOfName.putIfAbsent(name, line + i + 1);
+                        if (firstLineNumber != null)
+                            validationResult.addDuplicateName(name, firstLineNumber, line + i + 1);
+                    }
+                }
+            }
+        }
+        labelCounts.keySet().forEach(validationResult::addLabel);
+        return validationResult;
+    }
+
+    /**
+     * Adds the given 0-based line to the malformed or the invalid lines of the result. Its column and reason are only
+     * looked up again if the result keeps them.
+     */
+    private void addError(ValidationResult validationResult, int line, byte status, int dimension, boolean malformed) {
+        int column = 0;
+        String reason = null;
+        if (malformed ? validationResult.keepsMalformedLines() : validationResult.keepsInvalidLines()) {
+            if (status == EMPTY) {
+                column = 1;
+                reason = TSDValidator.EMPTY_LINE_ERROR;
+            } else {
+                CharSequence content = document != null ? document.getLine(line) : text;
+                int start = document != null ? 0 : getLineStart(line);
+                int end = document != null ? content.length() : getLineEnd(line);
+                if (lineChecker.checkLine(content, start, end) == TSDValidator.VALID) {
+                    column = lineChecker.locationStart - start + 1;
+                    reason = TSDValidator.dimensionError(dimension);
+                } else {
+                    column = lineChecker.errorColumn;
+                    reason = lineChecker.errorReason;
+                }
+            }
+        }
+        if (malformed)
+            validationResult.addMalformedLine(line + 1, column, reason);
+        else
+            validationResult.addInvalidLine(line + 1, column, reason);
+    }
+
+    private void ensureBlockCapacity(int capacity) {
+        if (capacity > blocks.length)
+            blocks = Arrays.copyOf(blocks, Math.max(capacity, blocks.length + (blocks.length >> 1)));
+    }
+
+    /**
+     * A run of consecutive lines, with the length, status, name, label and number of coordinates of each.
+     */
+    private static final class Block {
+
+        int lineCount;
+        int[] lengths;
+        byte[] statuses;
+        String[] names;
+        String[] labels;
+        byte[] dimensions;
+
+        Block(int capacity) {
+            lengths = new int[capacity];
+            statuses = new byte[capacity];
+            names = new String[capacity];
+            labels = new String[capacity];
+            dimensions = new byte[capacity];
+        }
+
+        /**
+         * Returns the number of characters of the lines, each counted with a newline.
+         */
+        long length() {
+            long length = lineCount;
+            for (int i = 0; i < lineCount; i++)
+                length += lengths[i];
+            return length;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= lengths.length)
+                return;
+            lengths = Arrays.copyOf(lengths, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            names = Arrays.copyOf(names, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            dimensions = Arrays.copyOf(dimensions, capacity);
+        }
+
+        void copyTo(int from, Block target, int to, int count) {
+            System.arraycopy(lengths, from, target.lengths, to, count);
+            System.arraycopy(statuses, from, target.statuses, to, count);
+            System.arraycopy(names, from, target.names, to, count);
+            System.arraycopy(labels, from, target.labels, to, count);
+            System.arraycopy(dimensions, from, target.dimensions, to, count);
+        }
+
+        /**
+         * Lets go of the names and labels of the lines <code>[from, to)</code>, which are no longer in use.
+         */
+        void clear(int from, int to) {
+            if (from < to) {
+                Arrays.fill(names, from, to, null);
+                Arrays.fill(labels, from, to, null);
+            }
+        }
+
+    }
+
+}
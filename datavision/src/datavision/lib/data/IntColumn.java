@@ -0,0 +1,36 @@
+package datavision.lib.data;
+
+/**
+ * A column of <code>int</code> values, held on the heap or off it.
+ *
+ * @author Patrick Chan
+ * @see DoubleColumn
+ * @see ColumnStorage
+ */
+public interface IntColumn {
+
+    /**
+     * Returns the number of values the column has room for, which are 0 until they are set.
+     */
+    long length();
+
+    int get(long index);
+
+    void set(long index, int value);
+
+    /**
+     * Copies <code>length</code> values starting at <code>from</code> into another column, starting at
+     * <code>to</code>.
+     */
+    default void copyTo(long from, IntColumn destination, long to, long length) {
+        for (long i = 0; i < length; i++)
+            destination.set(to + i, get(from + i));
+    }
+
+    /**
+     * Returns a column of the same storage with room for at least the given number of values, holding the values of
+     * this one. This column must not be used any more afterwards, as it may or may not be the one returned.
+     */
+    IntColumn grow(long length);
+
+}
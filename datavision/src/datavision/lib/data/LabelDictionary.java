@@ -0,0 +1,95 @@
+package datavision.lib.data;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Interns the distinct labels of a dataset so that every instance only has to remember a small integer id instead of
+ * its own copy of the label {@link String}. Ids are handed out densely in first-seen order, starting at 0.
+ * <p>
+ * The labels are looked up through a {@link NameTable}, in which the id of a label is its entry, so that the parsers
+ * can intern a label straight from the bytes or characters of a line.
+ *
+ * @author Patrick Chan
+ */
+public final class LabelDictionary {
+
+    private final NameTable table;
+    private final List<String> labels;
+
+    public LabelDictionary() {
+        table = new NameTable();
+        labels = new ArrayList<>();
+    }
+
+    /**
+     * Returns the id of the given label, assigning a new one if the label has not been seen before.
+     *
+     * @param label the label to intern
+     * @return the id of the label
+     */
+    public int intern(String label) {
+        int id = table.indexOf(label);
+        if (id < 0) {
+            id = table.add(label);
+            labels.add(label);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the label held in <code>text[start, end)</code>, assigning a new one if the label has not been
+     * seen before.
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int id = table.indexOf(text, start, end);
+        if (id < 0) {
+            id = table.add(text, start, end);
+            labels.add(table.get(id));
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the label whose UTF-8 bytes are held in <code>buffer[start, end)</code>, assigning a new one
+     * if the label has not been seen before.
+     */
+    public int intern(ByteBuffer buffer, int start, int end) {
+        int id = table.indexOf(buffer, start, end);
+        if (id < 0) {
+            id = table.add(buffer, start, end);
+            labels.add(table.get(id));
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the given label without interning it.
+     *
+     * @param label the label to look up
+     * @return the id of the label, or -1 if it has never been interned
+     */
+    public int idOf(String label) {
+        return table.indexOf(label);
+    }
+
+    public String labelOf(int id) {
+        return labels.get(id);
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    public void clear() {
+        table.clear();
+        labels.clear();
+    }
+
+}
@@ -0,0 +1,122 @@
+package datavision.lib.data;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The lines of a file memory-mapped by a {@link MappedTSDLoader}, read straight out of the mapped windows of the file
+ * as they are asked for. The loader records where every line starts as it scans a window, relative to that window, so
+ * the file is never copied into an array or a {@link String} as a whole, and it can be larger than either can hold. A
+ * line is only decoded, as UTF-8, when it is read.
+ * <p>
+ * Every window starts at the beginning of a line and holds its lines whole. The lines follow the same convention as a
+ * {@link TSDDocument}: a file that ends with a newline ends with an empty line.
+ *
+ * @author Patrick Chan
+ */
+public final class MappedLines implements TSDDocument.Lines {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private MappedByteBuffer[] windows;
+    /* the first line of every window, and the start of each of its lines and the end of its last line, relative to
+     * the window */
+    private int[] firstLines;
+    private int[][] lineStarts;
+    private int[] lineEnds;
+    private int windowCount;
+    private int lineCount;
+    private long length;
+
+    public MappedLines() {
+        windows = new MappedByteBuffer[1];
+        firstLines = new int[1];
+        lineStarts = new int[1][];
+        lineEnds = new int[1];
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of bytes of the file the lines were read from.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public String getLine(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " out of " + lineCount);
+        int window = windowOf(line);
+        int index = line - firstLines[window];
+        int[] starts = lineStarts[window];
+        int end = index + 1 < lineCount(window) ? starts[index + 1] - 1 : lineEnds[window];
+        // a view of its own keeps the window safe to read from several threads
+        ByteBuffer bytes = windows[window].duplicate();
+        bytes.limit(end).position(starts[index]);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    /**
+     * Starts a window at the given offset of the file, whose first line starts at the start of the window.
+     */
+    void startWindow(MappedByteBuffer window, long offset) {
+        if (windowCount == windows.length) {
+            int capacity = windowCount << 1;
+            windows = Arrays.copyOf(windows, capacity);
+            firstLines = Arrays.copyOf(firstLines, capacity);
+            lineStarts = Arrays.copyOf(lineStarts, capacity);
+            lineEnds = Arrays.copyOf(lineEnds, capacity);
+        }
+        windows[windowCount] = window;
+        firstLines[windowCount] = lineCount;
+        lineStarts[windowCount] = new int[DEFAULT_CAPACITY];
+        windowCount++;
+        lineCount++;
+        length = offset + window.capacity();
+    }
+
+    /**
+     * Records a line of the current window starting at the given offset of the window, just after a newline.
+     */
+    void addLine(int start) {
+        int window = windowCount - 1;
+        int index = lineCount - firstLines[window];
+        int[] starts = lineStarts[window];
+        if (index == starts.length)
+            starts = lineStarts[window] = Arrays.copyOf(starts, index + (index >> 1));
+        starts[index] = start;
+        lineCount++;
+    }
+
+    /**
+     * Ends the current window, whose last line ends at the given offset of the window.
+     */
+    void endWindow(int end) {
+        lineEnds[windowCount - 1] = end;
+    }
+
+    private int lineCount(int window) {
+        return (window + 1 < windowCount ? firstLines[window + 1] : lineCount) - firstLines[window];
+    }
+
+    private int windowOf(int line) {
+        int low = 0;
+        int high = windowCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstLines[middle] <= line)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+}
@@ -0,0 +1,211 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads a <code>.tsd</code> file into a {@link ColumnarDataSet} by memory-mapping it through
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)} and scanning the line boundaries on the raw bytes. The file
+ * is mapped in windows, so files larger than what a single {@link MappedByteBuffer} can address are supported; a
+ * line that straddles two windows is simply picked up again at the start of the next one.
+ * <p>
+ * In parallel mode, each window is handed to a {@link ParallelTSDParser} instead of being parsed line by line on the
+ * calling thread, and the progress is reported and the cancellation checked as each of its chunks is parsed. Both modes produce the same dataset and report the same first invalid line. The columns of the
+ * dataset are held in the {@link ColumnStorage} set through {@link #setStorage(ColumnStorage)}, on the heap by
+ * default. The lines of the file can be indexed into {@link MappedLines} in the same pass, to be shown without the
+ * file being read again.
+ * <p>
+ * A loader is meant to be used for a single load. It reports its progress to an optional {@link ProgressListener}
+ * and can be cancelled from any thread through {@link #cancel()}, in which case {@link #load(Path, ProgressListener)}
+ * throws a {@link CancellationException}.
+ *
+ * @author Patrick Chan
+ */
+public final class MappedTSDLoader {
+
+    /**
+     * Receives the number of bytes that have been consumed so far out of the total size of the file.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        void onProgress(long bytesRead, long totalBytes);
+
+    }
+
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+    /* how many lines are parsed between two progress reports and cancellation checks */
+    private static final int PROGRESS_LINE_MASK = (1 << 16) - 1;
+    private static final byte NEWLINE = '\n';
+
+    private final int windowSize;
+    private final ParallelTSDParser parallelParser;
+    private final AtomicBoolean cancelled;
+    private ColumnStorage storage;
+
+    public MappedTSDLoader() {
+        this(false);
+    }
+
+    public MappedTSDLoader(boolean parallel) {
+        this(DEFAULT_WINDOW_SIZE, parallel ? new ParallelTSDParser() : null);
+    }
+
+    MappedTSDLoader(int windowSize, ParallelTSDParser parallelParser) {
+        this.windowSize = windowSize;
+        this.parallelParser = parallelParser;
+        this.cancelled = new AtomicBoolean(false);
+        this.storage = ColumnStorage.HEAP;
+    }
+
+    /**
+     * Sets where the columns of the loaded dataset are held.
+     */
+    public void setStorage(ColumnStorage storage) {
+        this.storage = storage;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Loads the given file.
+     *
+     * @param filePath the <code>.tsd</code> file to load
+     * @param listener the listener to report the progress to, or <code>null</code>
+     * @return the dataset holding every line of the file
+     * @throws IOException                        if the file cannot be mapped
+     * @throws TSDLineParser.InvalidLineException if a line does not follow the <code>.tsd</code> format
+     * @throws CancellationException              if the load was cancelled
+     */
+    public ColumnarDataSet load(Path filePath, ProgressListener listener) throws IOException, TSDLineParser.InvalidLineException {
+        return load(filePath, null, listener);
+    }
+
+    /**
+     * Loads the given file, indexing its lines into the given {@link MappedLines} in the same pass. The lines are
+     * indexed to the end of the file even if one of them is invalid, as they are then meant to be shown with the error.
+     *
+     * @param filePath the <code>.tsd</code> file to load
+     * @param lines    the lines to index the file into, which must be new, or <code>null</code>
+     * @param listener the listener to report the progress to, or <code>null</code>
+     * @return the dataset holding every line of the file
+     * @throws IOException                        if the file cannot be mapped
+     * @throws TSDLineParser.InvalidLineException if a line does not follow the <code>.tsd</code> format
+     * @throws CancellationException              if the load was cancelled
+     */
+    public ColumnarDataSet load(Path filePath, MappedLines lines, ProgressListener listener)
+            throws IOException, TSDLineParser.InvalidLineException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long totalBytes = channel.size();
+            ColumnarDataSet dataSet = new ColumnarDataSet(storage);
+            TSDLineParser parser = new TSDLineParser();
+            TSDLineParser.InvalidLineException invalidLine = null;
+            long lineNumber = 1;
+            long windowStart = 0;
+
+            while (windowStart < totalBytes) {
+                int windowLength = (int) Math.min(windowSize, totalBytes - windowStart);
+                boolean isLastWindow = windowStart + windowLength == totalBytes;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                int end = isLastWindow ? windowLength : lastLineEnd(window, windowLength);
+                if (end == 0)
+                    throw new TSDLineParser.InvalidLineException(lineNumber, "the line is too long");
+                if (lines != null)
+                    lines.startWindow(window, windowStart);
+
+                if (invalidLine == null && parallelParser != null) {
+                    long offset = windowStart;
+                    try {
+                        lineNumber += parallelParser.parse(window, 0, end, lineNumber, dataSet, cancelled,
+                                chunkEnd -> checkpoint(listener, offset + chunkEnd, totalBytes));
+                    } catch (TSDLineParser.InvalidLineException e) {
+                        invalidLine = e;
+                    }
+                    if (lines != null)
+                        index(window, end, isLastWindow, lines);
+                } else {
+                    int lineStart = 0;
+                    for (int i = 0; i < end; i++) {
+                        if (window.get(i) == NEWLINE) {
+                            if (invalidLine == null)
+                                invalidLine = parseLine(parser, window, lineStart, i, lineNumber, dataSet);
+                            lineStart = i + 1;
+                            if (lines != null && (lineStart < end || isLastWindow))
+                                lines.addLine(lineStart);
+                            if ((lineNumber++ & PROGRESS_LINE_MASK) == 0)
+                                checkpoint(listener, windowStart + lineStart, totalBytes);
+                        }
+                    }
+                    if (isLastWindow && lineStart < windowLength && invalidLine == null)
+                        invalidLine = parseLine(parser, window, lineStart, windowLength, lineNumber, dataSet);
+                }
+                if (invalidLine != null && lines == null)
+                    throw invalidLine;
+
+                if (lines != null)
+                    lines.endWindow(isLastWindow ? windowLength : end - 1);
+                windowStart = isLastWindow ? totalBytes : windowStart + end;
+                checkpoint(listener, windowStart, totalBytes);
+            }
+            if (invalidLine != null)
+                throw invalidLine;
+            return dataSet;
+        }
+    }
+
+    /**
+     * Parses a line, returning the exception it throws rather than throwing it.
+     */
+    private static TSDLineParser.InvalidLineException parseLine(TSDLineParser parser, MappedByteBuffer window,
+                                                                int start, int end, long lineNumber,
+                                                                ColumnarDataSet dataSet) {
+        try {
+            parser.parseLine(window, start, end, lineNumber, dataSet);
+            return null;
+        } catch (TSDLineParser.InvalidLineException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Records the start of every line of the window after the first one, up to the given end of the window.
+     */
+    private static void index(MappedByteBuffer window, int end, boolean isLastWindow, MappedLines lines) {
+        for (int i = 0; i < end; i++) {
+            if (window.get(i) == NEWLINE && (i + 1 < end || isLastWindow))
+                lines.addLine(i + 1);
+        }
+    }
+
+    /**
+     * Returns the index just after the last newline of the window, or 0 if there is none.
+     */
+    private static int lastLineEnd(MappedByteBuffer window, int windowLength) {
+        for (int i = windowLength - 1; i >= 0; i--) {
+            if (window.get(i) == NEWLINE)
+                return i + 1;
+        }
+        return 0;
+    }
+
+    private void checkpoint(ProgressListener listener, long bytesRead, long totalBytes) {
+        if (cancelled.get())
+            throw new CancellationException();
+        if (listener != null)
+            listener.onProgress(bytesRead, totalBytes);
+    }
+
+}
@@ -0,0 +1,387 @@
+package datavision.lib.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A compact table of strings, such as the names of the instances of a dataset. Every entry is kept in UTF-8 in a single
+ * byte arena, delimited by an <code>int</code> offset, instead of as a {@link String} object of its own. Entries are
+ * numbered densely in the order in which they are added, and an entry number never changes.
+ * <p>
+ * Entries are looked up through an open-addressing hash index of <code>int</code> slots with linear probing, which
+ * maps every distinct string to the first entry holding it. The index is only built on the first lookup, so that a
+ * table that is never searched does not pay for it, and is kept up to date by every later addition. Strings can be
+ * added and looked up straight from the bytes of a {@link ByteBuffer} or the characters of a {@link CharSequence},
+ * without creating a {@link String} for them.
+ * <p>
+ * The same string can be added more than once; {@link #firstIndexOf(int)} tells whether an entry repeats an earlier
+ * one, which is how duplicate names are detected. A table is not thread-safe, but it can be read from any number of
+ * threads once its index is built, as long as nothing is added to it.
+ *
+ * @author Patrick Chan
+ */
+public final class NameTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int AVERAGE_ENTRY_LENGTH = 8;
+    /* the index has a power of two slots, and is grown before more than half of them are taken */
+    private static final int MIN_INDEX_CAPACITY = 16;
+
+    private int size;
+    private byte[] bytes;
+    /* the start of every entry in the arena, followed by the end of the last one */
+    private int[] offsets;
+
+    /* the hash of every entry, and the slots of the index holding each distinct entry plus 1, or 0 if free */
+    private int[] hashes;
+    private int[] slots;
+    private int indexedCount;
+
+    public NameTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the number of entries to make room for
+     */
+    public NameTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        bytes = new byte[capacity * AVERAGE_ENTRY_LENGTH];
+        offsets = new int[capacity + 1];
+    }
+
+    private NameTable(int size, byte[] bytes, int[] offsets) {
+        this.size = size;
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Creates a table directly over the given arena, which is taken over rather than copied, so that creating the
+     * table does not cost anything per entry. The offsets are trusted to be in order and within the arena.
+     *
+     * @param size    the number of entries
+     * @param bytes   the entries, encoded in UTF-8 one after the other
+     * @param offsets the offsets of the entries into <code>bytes</code>, followed by the end offset
+     * @return the table over the arena
+     */
+    public static NameTable wrap(int size, byte[] bytes, int[] offsets) {
+        return new NameTable(size, bytes, offsets);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the string held by the given entry.
+     */
+    public String get(int entry) {
+        checkEntry(entry);
+        return new String(bytes, offsets[entry], offsets[entry + 1] - offsets[entry], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the given string as a new entry.
+     *
+     * @return the number of the new entry
+     */
+    public int add(CharSequence string) {
+        return add(string, 0, string.length());
+    }
+
+    /**
+     * Appends <code>text[start, end)</code> as a new entry, encoding it straight into the arena.
+     *
+     * @return the number of the new entry
+     */
+    public int add(CharSequence text, int start, int end) {
+        ensureBytes(offsets[size] + (end - start) * 3);
+        return append(encode(text, start, end, bytes, offsets[size]));
+    }
+
+    /**
+     * Appends the UTF-8 bytes held in <code>buffer[start, end)</code> as a new entry.
+     *
+     * @return the number of the new entry
+     */
+    public int add(ByteBuffer buffer, int start, int end) {
+        int length = offsets[size];
+        ensureBytes(length + end - start);
+        for (int i = start; i < end; i++)
+            bytes[length++] = buffer.get(i);
+        return append(length);
+    }
+
+    /**
+     * Appends the string held by an entry of another table as a new entry, without decoding it.
+     *
+     * @return the number of the new entry
+     */
+    public int add(NameTable other, int entry) {
+        other.checkEntry(entry);
+        int from = other.offsets[entry];
+        int entryLength = other.offsets[entry + 1] - from;
+        int length = offsets[size];
+        ensureBytes(length + entryLength);
+        System.arraycopy(other.bytes, from, bytes, length, entryLength);
+        return append(length + entryLength);
+    }
+
+    /**
+     * Returns the first entry holding the given string.
+     *
+     * @return the number of the entry, or -1 if no entry holds the string
+     */
+    public int indexOf(CharSequence string) {
+        return indexOf(string, 0, string.length());
+    }
+
+    /**
+     * Returns the first entry holding <code>text[start, end)</code>.
+     *
+     * @return the number of the entry, or -1 if no entry holds the string
+     */
+    public int indexOf(CharSequence text, int start, int end) {
+        byte[] key = new byte[(end - start) * 3];
+        int length = encode(text, start, end, key, 0);
+        return find(hash(key, 0, length), key, 0, length);
+    }
+
+    /**
+     * Returns the first entry holding the UTF-8 bytes in <code>buffer[start, end)</code>.
+     *
+     * @return the number of the entry, or -1 if no entry holds the bytes
+     */
+    public int indexOf(ByteBuffer buffer, int start, int end) {
+        ensureIndex();
+        int hash = hash(buffer, start, end);
+        for (int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && equals(entry, buffer, start, end))
+                return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first entry of this table holding the same string as the given entry of another table.
+     *
+     * @return the number of the entry, or -1 if no entry holds the string
+     */
+    public int indexOf(NameTable other, int entry) {
+        other.checkEntry(entry);
+        int from = other.offsets[entry];
+        int to = other.offsets[entry + 1];
+        return find(hash(other.bytes, from, to), other.bytes, from, to);
+    }
+
+    /**
+     * Returns the first entry holding the same string as the given entry, which is the entry itself unless it repeats
+     * an earlier one.
+     */
+    public int firstIndexOf(int entry) {
+        checkEntry(entry);
+        ensureIndex();
+        return find(hashes[entry], bytes, offsets[entry], offsets[entry + 1]);
+    }
+
+    /**
+     * Returns an independent copy of this table, index included if it was built.
+     */
+    public NameTable copy() {
+        NameTable copy = new NameTable(size, Arrays.copyOf(bytes, offsets[size]), Arrays.copyOf(offsets, size + 1));
+        if (slots != null) {
+            copy.hashes = Arrays.copyOf(hashes, size + 1);
+            copy.slots = slots.clone();
+            copy.indexedCount = indexedCount;
+        }
+        return copy;
+    }
+
+    public void clear() {
+        size = 0;
+        offsets[0] = 0;
+        if (slots != null) {
+            Arrays.fill(slots, 0);
+            indexedCount = 0;
+        }
+    }
+
+    /**
+     * Ends the entry that was just written to the arena up to the given length.
+     */
+    private int append(int length) {
+        int entry = size;
+        if (entry + 2 > offsets.length)
+            offsets = Arrays.copyOf(offsets, Math.max(entry + 2, offsets.length + (offsets.length >> 1)));
+        offsets[entry + 1] = length;
+        size++;
+        if (slots != null) {
+            if (hashes.length < offsets.length)
+                hashes = Arrays.copyOf(hashes, offsets.length);
+            hashes[entry] = hash(bytes, offsets[entry], length);
+            index(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Encodes <code>text[start, end)</code> in UTF-8 into the destination, which must have room for 3 bytes per
+     * character, replacing an unpaired surrogate like {@link String#getBytes} does.
+     *
+     * @return the position in the destination past the last byte written
+     */
+    private static int encode(CharSequence text, int start, int end, byte[] destination, int position) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                destination[position++] = (byte) c;
+            } else if (c < 0x800) {
+                destination[position++] = (byte) (0xc0 | c >> 6);
+                destination[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    destination[position++] = (byte) (0xf0 | codePoint >> 18);
+                    destination[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    destination[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    destination[position++] = (byte) (0x80 | codePoint & 0x3f);
+                } else {
+                    destination[position++] = '?';
+                }
+            } else {
+                destination[position++] = (byte) (0xe0 | c >> 12);
+                destination[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                destination[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        return position;
+    }
+
+    private int find(int hash, byte[] key, int from, int to) {
+        ensureIndex();
+        for (int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && equals(entry, key, from, to))
+                return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the index unless it was built already, so that the table can then be read from other threads.
+     */
+    public void buildIndex() {
+        ensureIndex();
+    }
+
+    private void ensureIndex() {
+        if (slots != null)
+            return;
+        hashes = new int[offsets.length];
+        slots = new int[indexCapacityFor(size)];
+        for (int entry = 0; entry < size; entry++) {
+            hashes[entry] = hash(bytes, offsets[entry], offsets[entry + 1]);
+            index(entry);
+        }
+    }
+
+    /**
+     * Adds the given entry to the index, unless an earlier entry holds the same string.
+     */
+    private void index(int entry) {
+        int hash = hashes[entry];
+        int from = offsets[entry];
+        int to = offsets[entry + 1];
+        int slot = hash & (slots.length - 1);
+        for (; slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            int other = slots[slot] - 1;
+            if (hashes[other] == hash && equals(other, bytes, from, to))
+                return;
+        }
+        slots[slot] = entry + 1;
+        if (++indexedCount * 2 > slots.length)
+            rehash(slots.length * 2);
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        for (int entryPlusOne : slots) {
+            if (entryPlusOne == 0)
+                continue;
+            int slot = hashes[entryPlusOne - 1] & (capacity - 1);
+            while (newSlots[slot] != 0)
+                slot = (slot + 1) & (capacity - 1);
+            newSlots[slot] = entryPlusOne;
+        }
+        slots = newSlots;
+    }
+
+    private static int indexCapacityFor(int count) {
+        int capacity = MIN_INDEX_CAPACITY;
+        while (capacity < count * 2 + 2)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    private boolean equals(int entry, byte[] key, int from, int to) {
+        int start = offsets[entry];
+        if (offsets[entry + 1] - start != to - from)
+            return false;
+        for (int i = from; i < to; i++) {
+            if (bytes[start++] != key[i])
+                return false;
+        }
+        return true;
+    }
+
+    private boolean equals(int entry, ByteBuffer key, int from, int to) {
+        int start = offsets[entry];
+        if (offsets[entry + 1] - start != to - from)
+            return false;
+        for (int i = from; i < to; i++) {
+            if (bytes[start++] != key.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static int hash(byte[] key, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++)
+            hash = 31 * hash + key[i];
+        return mix(hash);
+    }
+
+    private static int hash(ByteBuffer key, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++)
+            hash = 31 * hash + key.get(i);
+        return mix(hash);
+    }
+
+    /**
+     * Spreads the bits of a polynomial hash, so that names differing only in their last characters do not probe
+     * neighbouring slots.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ hash >>> 16;
+    }
+
+    private void ensureBytes(int capacity) {
+        if (capacity > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length + (bytes.length >> 1)));
+    }
+
+    private void checkEntry(int entry) {
+        if (entry < 0 || entry >= size)
+            throw new IndexOutOfBoundsException("Entry " + entry + " is out of bounds for a table of size " + size);
+    }
+
+}
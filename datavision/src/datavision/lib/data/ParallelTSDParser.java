@@ -0,0 +1,248 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses <code>.tsd</code> data on the common {@link ForkJoinPool}. The input is cut into chunks whose boundaries are
+ * moved forward to the next newline, so that every chunk holds whole lines only. Each chunk is parsed into its own
+ * {@link ColumnarDataSet}, and the chunk datasets are then merged in input order.
+ * <p>
+ * The outcome is the same as that of parsing the input line by line with a {@link TSDLineParser}: a chunk stops at its
+ * first invalid line, and the duplicate names are only checked while merging, row by row in input order. A chunk takes
+ * the dimension of its own first line, which is checked against the dimension of the merged rows before the chunk is
+ * appended. The first error is therefore reported with the same line number as the serial parse would report it.
+ * <p>
+ * The chunks are merged one by one as soon as they are parsed, in input order, and a parse of a buffer can be told
+ * about each of them through a {@link ChunkListener}. It can also be cancelled through a flag that every chunk checks
+ * as it goes, so that it stops soon after the flag is set even if it is a single chunk.
+ *
+ * @author Patrick Chan
+ */
+public final class ParallelTSDParser {
+
+    /* the smallest amount of bytes or chars worth handing to a separate task */
+    private static final int MIN_CHUNK_LENGTH = 1 << 20;
+    /* how many chunks each worker of the pool gets, to even out the load */
+    private static final int CHUNKS_PER_WORKER = 4;
+    /* how many lines a chunk parses between two checks of the cancellation flag */
+    private static final int CANCEL_LINE_MASK = (1 << 12) - 1;
+    private static final char NEWLINE = '\n';
+
+    /**
+     * Receives the end of every chunk of a buffer, in input order, once its lines have been merged.
+     */
+    @FunctionalInterface
+    interface ChunkListener {
+
+        void onChunkParsed(int chunkEnd);
+
+    }
+
+    private final int minChunkLength;
+
+    public ParallelTSDParser() {
+        this(MIN_CHUNK_LENGTH);
+    }
+
+    ParallelTSDParser(int minChunkLength) {
+        this.minChunkLength = minChunkLength;
+    }
+
+    /**
+     * Parses the lines held in <code>buffer[start, end)</code> and appends them to the given dataset. The range must
+     * start at the beginning of a line and end either right after a newline or at the end of the data.
+     *
+     * @param buffer          the buffer holding the lines
+     * @param start           the absolute index of the first byte of the first line
+     * @param end             the absolute index one past the last byte of the last line
+     * @param firstLineNumber the 1-based line number of the first line, used for error reporting
+     * @param target          the dataset to append the instances to
+     * @return the number of lines that were parsed
+     * @throws TSDLineParser.InvalidLineException if a line does not follow the <code>.tsd</code> format
+     */
+    public long parse(ByteBuffer buffer, int start, int end, long firstLineNumber, ColumnarDataSet target) throws TSDLineParser.InvalidLineException {
+        return parse(buffer, start, end, firstLineNumber, target, null, null);
+    }
+
+    /**
+     * Parses the lines held in <code>buffer[start, end)</code> like {@link #parse(ByteBuffer, int, int, long,
+     * ColumnarDataSet)}, reporting every chunk to the given listener and stopping once the given flag is set.
+     *
+     * @param cancelled the flag to stop at, or <code>null</code>
+     * @param listener  the listener to report the chunks to, or <code>null</code>
+     * @throws CancellationException if the flag was set before every chunk was merged
+     */
+    long parse(ByteBuffer buffer, int start, int end, long firstLineNumber, ColumnarDataSet target,
+               AtomicBoolean cancelled, ChunkListener listener) throws TSDLineParser.InvalidLineException {
+        int[] boundaries = chunkBoundaries(start, end, i -> buffer.get(i) == NEWLINE);
+        List<Chunk> chunks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            int chunkStart = boundaries[i];
+            int chunkEnd = boundaries[i + 1];
+            chunks.add(new Chunk(chunkEnd, cancelled) {
+                @Override
+                protected void compute() {
+                    TSDLineParser parser = new TSDLineParser(false);
+                    int lineStart = chunkStart;
+                    try {
+                        for (int j = chunkStart; j < chunkEnd; j++) {
+                            if (buffer.get(j) == NEWLINE) {
+                                parser.parseLine(buffer, lineStart, j, lineCount + 1, rows);
+                                lineCount++;
+                                lineStart = j + 1;
+                                if ((lineCount & CANCEL_LINE_MASK) == 0 && isStopped())
+                                    return;
+                            }
+                        }
+                        if (lineStart < chunkEnd) {
+                            parser.parseLine(buffer, lineStart, chunkEnd, lineCount + 1, rows);
+                            lineCount++;
+                        }
+                    } catch (TSDLineParser.InvalidLineException e) {
+                        error = e;
+                    }
+                }
+            });
+        }
+        return merge(chunks, firstLineNumber, target, cancelled, listener);
+    }
+
+    /**
+     * Parses every line of the given text into a new dataset.
+     *
+     * @param text the <code>.tsd</code> data
+     * @return the dataset holding every line of the text
+     * @throws TSDLineParser.InvalidLineException if a line does not follow the <code>.tsd</code> format
+     */
+    public ColumnarDataSet parse(CharSequence text) throws TSDLineParser.InvalidLineException {
+        int[] boundaries = chunkBoundaries(0, text.length(), i -> text.charAt(i) == NEWLINE);
+        List<Chunk> chunks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            int chunkStart = boundaries[i];
+            int chunkEnd = boundaries[i + 1];
+            chunks.add(new Chunk(chunkEnd, null) {
+                @Override
+                protected void compute() {
+                    TSDLineParser parser = new TSDLineParser(false);
+                    int lineStart = chunkStart;
+                    try {
+                        for (int j = chunkStart; j < chunkEnd; j++) {
+                            if (text.charAt(j) == NEWLINE) {
+                                parser.parseLine(text, lineStart, j, lineCount + 1, rows);
+                                lineCount++;
+                                lineStart = j + 1;
+                            }
+                        }
+                        if (lineStart < chunkEnd) {
+                            parser.parseLine(text, lineStart, chunkEnd, lineCount + 1, rows);
+                            lineCount++;
+                        }
+                    } catch (TSDLineParser.InvalidLineException e) {
+                        error = e;
+                    }
+                }
+            });
+        }
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        merge(chunks, 1, dataSet, null, null);
+        return dataSet;
+    }
+
+    @FunctionalInterface
+    private interface NewlineTest {
+
+        boolean isNewline(int index);
+
+    }
+
+    /**
+     * Cuts <code>[start, end)</code> into chunks of roughly equal length, each boundary being moved forward to just
+     * after the next newline.
+     */
+    private int[] chunkBoundaries(int start, int end, NewlineTest newlineTest) {
+        int length = end - start;
+        int maxChunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_WORKER;
+        int numberOfChunks = Math.max(1, Math.min(maxChunks, length / minChunkLength));
+        int chunkLength = length / numberOfChunks;
+
+        int[] boundaries = new int[numberOfChunks + 1];
+        boundaries[0] = start;
+        int count = 1;
+        for (int i = 1; i < numberOfChunks; i++) {
+            int boundary = Math.max(start + i * chunkLength, boundaries[count - 1]);
+            while (boundary < end && !newlineTest.isNewline(boundary))
+                boundary++;
+            if (boundary + 1 >= end)
+                break;
+            if (boundary + 1 > boundaries[count - 1])
+                boundaries[count++] = boundary + 1;
+        }
+        boundaries[count++] = end;
+        if (count == boundaries.length)
+            return boundaries;
+        int[] trimmed = new int[count];
+        System.arraycopy(boundaries, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Runs every chunk, appending the rows of each one to the target in input order as soon as it is parsed, checking
+     * the names for duplicates and translating chunk-local line numbers into global ones.
+     */
+    private static long merge(List<Chunk> chunks, long firstLineNumber, ColumnarDataSet target, AtomicBoolean cancelled,
+                              ChunkListener listener) throws TSDLineParser.InvalidLineException {
+        for (Chunk chunk : chunks)
+            chunk.fork();
+        long lineNumber = firstLineNumber;
+        for (Chunk chunk : chunks) {
+            chunk.join();
+            if (chunk.isStopped())
+                throw new CancellationException();
+            if (chunk.rows.size() > 0)
+                TSDLineParser.checkDimension(target, chunk.rows.getDimension(), lineNumber);
+            int firstRow = target.addRows(chunk.rows);
+            for (int row = 0; row < chunk.rows.size(); row++)
+                TSDLineParser.checkUniqueName(target, firstRow + row, lineNumber + row);
+            if (chunk.error != null)
+                throw new TSDLineParser.InvalidLineException(lineNumber + chunk.error.getLineNumber() - 1, chunk.error.getReason());
+            lineNumber += chunk.lineCount;
+            if (listener != null)
+                listener.onChunkParsed(chunk.end);
+        }
+        return lineNumber - firstLineNumber;
+    }
+
+    /**
+     * A chunk of lines, parsed into its own dataset with line numbers relative to the start of the chunk.
+     */
+    private static abstract class Chunk extends RecursiveAction {
+
+        final ColumnarDataSet rows = new ColumnarDataSet();
+        final int end;
+        private final AtomicBoolean cancelled;
+        long lineCount;
+        TSDLineParser.InvalidLineException error;
+
+        Chunk(int end, AtomicBoolean cancelled) {
+            this.end = end;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * Returns whether the parse was cancelled, in which case the chunk may have been left unfinished.
+         */
+        boolean isStopped() {
+            return cancelled != null && cancelled.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Draws a uniform random sample of the instances of a <code>.tsd</code> file in a single streaming pass, through
+ * reservoir sampling: the first <i>k</i> lines fill the reservoir, and the <i>n</i>-th line after them replaces a
+ * random line of it with probability <i>k</i>/<i>n</i>. Every line of the file thus ends up in the sample with the
+ * same probability, without the number of lines being known beforehand. Only the lines that are drawn are parsed.
+ * <p>
+ * In per-label mode, each label gets a reservoir of its own, so that every label is represented by up to <i>k</i>
+ * instances however rare it is. Finding the label of a line then takes a look at every line.
+ * <p>
+ * The sample is meant for a quick look at the data, not for validating it: a drawn line that does not parse is left
+ * out of the sample, and names are not checked for uniqueness.
+ * <p>
+ * A sampler is meant to be used for a single file. It reports its progress to an optional
+ * {@link MappedTSDLoader.ProgressListener} and can be cancelled from any thread through {@link #cancel()}, in which
+ * case {@link #sample(Path, MappedTSDLoader.ProgressListener)} throws a {@link CancellationException}.
+ *
+ * @author Patrick Chan
+ */
+public final class ReservoirSampler {
+
+    /**
+     * The sampled instances, along with the number of instances they were drawn from.
+     */
+    public static final class Sample {
+
+        private final ColumnarDataSet dataSet;
+        private final long populationSize;
+
+        private Sample(ColumnarDataSet dataSet, long populationSize) {
+            this.dataSet = dataSet;
+            this.populationSize = populationSize;
+        }
+
+        public ColumnarDataSet getDataSet() {
+            return dataSet;
+        }
+
+        public int getSampleSize() {
+            return dataSet.size();
+        }
+
+        /**
+         * Returns the number of non-empty lines of the file.
+         */
+        public long getPopulationSize() {
+            return populationSize;
+        }
+
+    }
+
+    /**
+     * The slots of one reservoir, which hold rows of the dataset the drawn lines are parsed into.
+     */
+    private static final class Reservoir {
+
+        private final int[] rows;
+        private long seen;
+        private int size;
+
+        private Reservoir(int capacity) {
+            this.rows = new int[capacity];
+        }
+
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    /* how many lines are read between two progress reports and cancellation checks */
+    private static final int PROGRESS_LINE_MASK = (1 << 16) - 1;
+    private static final byte NEWLINE = '\n';
+    private static final byte TAB = '\t';
+
+    private final int capacity;
+    private final boolean perLabel;
+    private final SplittableRandom random;
+    private final AtomicBoolean cancelled;
+
+    /**
+     * @param capacity the size of the sample, or of the sample of each label in per-label mode
+     * @param perLabel whether to sample each label on its own
+     * @param seed     the seed of the random draws, which makes the sample of a file reproducible
+     */
+    public ReservoirSampler(int capacity, boolean perLabel, long seed) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive");
+        this.capacity = capacity;
+        this.perLabel = perLabel;
+        this.random = new SplittableRandom(seed);
+        this.cancelled = new AtomicBoolean(false);
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Samples the given file.
+     *
+     * @param filePath the <code>.tsd</code> file to sample
+     * @param listener the listener to report the progress to, or <code>null</code>
+     * @return the sample, in the order of the reservoirs
+     * @throws IOException           if the file cannot be read
+     * @throws CancellationException if the sampling was cancelled
+     */
+    public Sample sample(Path filePath, MappedTSDLoader.ProgressListener listener) throws IOException {
+        // every drawn line is parsed into this dataset, including those that are replaced later on
+        ColumnarDataSet drawn = new ColumnarDataSet(capacity);
+        TSDLineParser parser = new TSDLineParser(false);
+        Map<String, Reservoir> reservoirs = new LinkedHashMap<>();
+        Reservoir single = new Reservoir(capacity);
+        long lineCount = 0;
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long totalBytes = channel.size();
+            long position = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (true) {
+                int read = channel.read(buffer, position + buffer.position());
+                boolean isLastBuffer = read < 0 || position + buffer.position() >= totalBytes;
+                int length = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i <= length; i++) {
+                    if (i == length ? isLastBuffer && lineStart < length : buffer.get(i) == NEWLINE) {
+                        if (i > lineStart) {
+                            Reservoir reservoir = perLabel ? reservoirs.computeIfAbsent(labelOf(buffer, lineStart, i),
+                                    label -> new Reservoir(capacity)) : single;
+                            offer(reservoir, parser, buffer, lineStart, i, drawn);
+                            if ((++lineCount & PROGRESS_LINE_MASK) == 0)
+                                checkpoint(listener, position + i, totalBytes);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (isLastBuffer)
+                    break;
+                if (lineStart == 0) {
+                    // a single line longer than the buffer
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                    continue;
+                }
+                position += lineStart;
+                buffer.clear();
+            }
+            checkpoint(listener, totalBytes, totalBytes);
+        }
+
+        ColumnarDataSet sample = new ColumnarDataSet(capacity);
+        if (perLabel) {
+            for (Reservoir reservoir : reservoirs.values())
+                copyRows(reservoir, drawn, sample);
+        } else {
+            copyRows(single, drawn, sample);
+        }
+        return new Sample(sample, lineCount);
+    }
+
+    private void offer(Reservoir reservoir, TSDLineParser parser, ByteBuffer buffer, int start, int end, ColumnarDataSet drawn) {
+        long seen = ++reservoir.seen;
+        int slot;
+        if (reservoir.size < capacity) {
+            slot = reservoir.size;
+        } else {
+            long draw = random.nextLong(seen);
+            if (draw >= capacity)
+                return;
+            slot = (int) draw;
+        }
+        try {
+            int row = parser.parseLine(buffer, start, end, seen, drawn);
+            reservoir.rows[slot] = row;
+            if (slot == reservoir.size)
+                reservoir.size++;
+        } catch (TSDLineParser.InvalidLineException e) {
+            // left out of the sample; the full load reports it
+        }
+    }
+
+    private static String labelOf(ByteBuffer buffer, int start, int end) {
+        int firstTab = TSDLineParser.indexOf(buffer, TAB, start, end);
+        if (firstTab < 0)
+            return "";
+        int labelEnd = TSDLineParser.indexOf(buffer, TAB, firstTab + 1, end);
+        if (labelEnd < 0)
+            labelEnd = end;
+        byte[] label = new byte[labelEnd - firstTab - 1];
+        for (int i = 0; i < label.length; i++)
+            label[i] = buffer.get(firstTab + 1 + i);
+        return new String(label, StandardCharsets.UTF_8);
+    }
+
+    private static void copyRows(Reservoir reservoir, ColumnarDataSet drawn, ColumnarDataSet sample) {
+        if (reservoir.size > 0)
+            sample.setDimension(drawn.getDimension());
+        double[] point = new double[drawn.getDimension()];
+        for (int slot = 0; slot < reservoir.size; slot++) {
+            int row = reservoir.rows[slot];
+            drawn.getPoint(row, point);
+            sample.addRow(drawn.getName(row), drawn.getLabel(row), point);
+        }
+    }
+
+    private void checkpoint(MappedTSDLoader.ProgressListener listener, long bytesRead, long totalBytes) {
+        if (cancelled.get())
+            throw new CancellationException();
+        if (listener != null)
+            listener.onProgress(bytesRead, totalBytes);
+    }
+
+}
@@ -0,0 +1,287 @@
+package datavision.lib.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A text held line by line rather than as a single {@link String}, such as the content of the text area. The lines
+ * are read on demand from the {@link Lines} the document was made of, and every edit is kept as a piece of new lines
+ * laid over them, in the manner of a piece table. Replacing lines therefore costs in proportion to the new lines and
+ * to the number of pieces, never to the size of the text, and the text as a whole is only ever built by
+ * {@link #toString()}. New lines that follow on from the last lines added extend the piece of those lines rather than
+ * adding one of their own, so that lines appended over and over, such as those of a followed file, make up a single
+ * piece.
+ * <p>
+ * A document of <i>n</i> lines stands for the text in which they are separated by newlines. A text that ends with a
+ * newline thus ends with an empty line, and an empty text is a single empty line, as in
+ * {@link IncrementalTSDValidator}.
+ *
+ * @author Patrick Chan
+ */
+public final class TSDDocument {
+
+    /**
+     * A source of lines, which are read one at a time as they are needed.
+     */
+    public interface Lines {
+
+        int getLineCount();
+
+        /**
+         * Returns the given 0-based line, without its newline.
+         */
+        String getLine(int line);
+
+    }
+
+    private static final char NEWLINE = '\n';
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /* the lines added by edits, which the pieces laid over the sources point into */
+    private final AddedLines addedLines;
+    /* the pieces, each a run of consecutive lines of a source, and the line of the document each starts at */
+    private Lines[] sources;
+    private int[] firstLines;
+    private int[] lineCounts;
+    private int[] pieceStarts;
+    private int pieceCount;
+    private int lineCount;
+
+    /**
+     * Creates an empty document.
+     */
+    public TSDDocument() {
+        this(null);
+    }
+
+    /**
+     * Creates a document made of the given lines, which must not change afterwards.
+     */
+    public TSDDocument(Lines lines) {
+        addedLines = new AddedLines();
+        sources = new Lines[DEFAULT_CAPACITY];
+        firstLines = new int[DEFAULT_CAPACITY];
+        lineCounts = new int[DEFAULT_CAPACITY];
+        pieceStarts = new int[DEFAULT_CAPACITY];
+        if (lines != null && lines.getLineCount() > 0) {
+            setPiece(0, lines, 0, lines.getLineCount());
+            pieceCount = 1;
+            lineCount = lines.getLineCount();
+        } else {
+            replaceLines(0, 0, "");
+        }
+    }
+
+    /**
+     * Returns a document holding the lines of the given text.
+     */
+    public static TSDDocument of(CharSequence text) {
+        TSDDocument document = new TSDDocument();
+        document.replaceLines(0, 1, text);
+        return document;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the given 0-based line, without its newline.
+     */
+    public String getLine(int line) {
+        if (line < 0 || line >= lineCount)
+            throw new IndexOutOfBoundsException("Line " + line + " out of " + lineCount);
+        int piece = pieceAt(line);
+        return sources[piece].getLine(firstLines[piece] + line - pieceStarts[piece]);
+    }
+
+    /**
+     * Returns whether the document holds nothing but a single empty line.
+     */
+    public boolean isEmpty() {
+        return lineCount == 1 && getLine(0).isEmpty();
+    }
+
+    /**
+     * Replaces the lines <code>[fromLine, toLine)</code> with the lines of the given text, which holds one more line
+     * than it has newlines. Replacing no line inserts the new lines before <code>fromLine</code>, or after the last
+     * line if <code>fromLine</code> is the number of lines.
+     *
+     * @throws IndexOutOfBoundsException if the range is not within the document
+     */
+    public void replaceLines(int fromLine, int toLine, CharSequence text) {
+        if (fromLine < 0 || fromLine > toLine || toLine > lineCount)
+            throw new IndexOutOfBoundsException("Lines " + fromLine + " to " + toLine + " out of " + lineCount);
+        if (toLine > fromLine) {
+            // replaced lines that were the last ones added are dropped, for the new lines to take their place
+            int piece = pieceAt(toLine - 1);
+            int end = firstLines[piece] + toLine - pieceStarts[piece];
+            if (sources[piece] == addedLines && pieceStarts[piece] <= fromLine && end == addedLines.getLineCount())
+                addedLines.truncate(end - (toLine - fromLine));
+        }
+        int firstAdded = addedLines.getLineCount();
+        int lineStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == NEWLINE) {
+                addedLines.add(text.subSequence(lineStart, i).toString());
+                lineStart = i + 1;
+            }
+        }
+        splice(fromLine, toLine, firstAdded, addedLines.getLineCount() - firstAdded);
+    }
+
+    /**
+     * Writes the text to the given destination, one line at a time.
+     *
+     * @throws IOException if the destination cannot be written to
+     */
+    public void write(Appendable destination) throws IOException {
+        for (int piece = 0; piece < pieceCount; piece++) {
+            for (int i = 0; i < lineCounts[piece]; i++) {
+                if (piece > 0 || i > 0)
+                    destination.append(NEWLINE);
+                destination.append(sources[piece].getLine(firstLines[piece] + i));
+            }
+        }
+    }
+
+    /**
+     * Returns the whole text, which is only meant for documents small enough to be held in a single {@link String}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            write(builder);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Replaces the pieces covering the lines <code>[fromLine, toLine)</code> with the lines those pieces keep before
+     * and after the range, and the given run of added lines in between. The run joins the piece before it if it
+     * follows on from it.
+     */
+    private void splice(int fromLine, int toLine, int firstAdded, int addedCount) {
+        int fromPiece = pieceAt(fromLine);
+        int toPiece = toLine < lineCount ? pieceAt(toLine) : pieceCount;
+        int replacedEnd = Math.min(toPiece + 1, pieceCount);
+
+        Lines[] newSources = new Lines[3];
+        int[] newFirstLines = new int[3];
+        int[] newLineCounts = new int[3];
+        int count = 0;
+        if (fromPiece > 0 && (fromPiece == pieceCount || fromLine == pieceStarts[fromPiece])
+                && sources[fromPiece - 1] == addedLines && firstLines[fromPiece - 1] + lineCounts[fromPiece - 1] == firstAdded) {
+            // the piece before the range is taken in again, to be extended
+            fromPiece--;
+            newSources[count] = addedLines;
+            newFirstLines[count] = firstLines[fromPiece];
+            newLineCounts[count++] = lineCounts[fromPiece];
+        } else if (fromPiece < pieceCount && fromLine > pieceStarts[fromPiece]) {
+            newSources[count] = sources[fromPiece];
+            newFirstLines[count] = firstLines[fromPiece];
+            newLineCounts[count++] = fromLine - pieceStarts[fromPiece];
+        }
+        if (count > 0 && newSources[0] == addedLines && newFirstLines[0] + newLineCounts[0] == firstAdded) {
+            newLineCounts[0] += addedCount;
+        } else {
+            newSources[count] = addedLines;
+            newFirstLines[count] = firstAdded;
+            newLineCounts[count++] = addedCount;
+        }
+        if (toPiece < pieceCount) {
+            newSources[count] = sources[toPiece];
+            newFirstLines[count] = firstLines[toPiece] + toLine - pieceStarts[toPiece];
+            newLineCounts[count++] = pieceStarts[toPiece] + lineCounts[toPiece] - toLine;
+        }
+
+        int newPieceCount = pieceCount - (replacedEnd - fromPiece) + count;
+        ensureCapacity(newPieceCount);
+        System.arraycopy(sources, replacedEnd, sources, fromPiece + count, pieceCount - replacedEnd);
+        System.arraycopy(firstLines, replacedEnd, firstLines, fromPiece + count, pieceCount - replacedEnd);
+        System.arraycopy(lineCounts, replacedEnd, lineCounts, fromPiece + count, pieceCount - replacedEnd);
+        for (int piece = newPieceCount; piece < pieceCount; piece++)
+            sources[piece] = null;
+        for (int i = 0; i < count; i++)
+            setPiece(fromPiece + i, newSources[i], newFirstLines[i], newLineCounts[i]);
+        pieceCount = newPieceCount;
+        lineCount += addedCount - (toLine - fromLine);
+        for (int piece = Math.max(fromPiece, 1); piece < pieceCount; piece++)
+            pieceStarts[piece] = pieceStarts[piece - 1] + lineCounts[piece - 1];
+    }
+
+    int getPieceCount() {
+        return pieceCount;
+    }
+
+    private void setPiece(int piece, Lines source, int firstLine, int count) {
+        sources[piece] = source;
+        firstLines[piece] = firstLine;
+        lineCounts[piece] = count;
+    }
+
+    /**
+     * Returns the piece holding the given line, or the number of pieces if the line is past the end.
+     */
+    private int pieceAt(int line) {
+        if (line >= lineCount)
+            return pieceCount;
+        int low = 0;
+        int high = pieceCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (pieceStarts[middle] <= line)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= sources.length)
+            return;
+        int newCapacity = Math.max(capacity, sources.length + (sources.length >> 1));
+        sources = Arrays.copyOf(sources, newCapacity);
+        firstLines = Arrays.copyOf(firstLines, newCapacity);
+        lineCounts = Arrays.copyOf(lineCounts, newCapacity);
+        pieceStarts = Arrays.copyOf(pieceStarts, newCapacity);
+    }
+
+    /**
+     * The lines added by edits, in the order they were added.
+     */
+    private static final class AddedLines implements Lines {
+
+        private final List<String> lines = new ArrayList<>();
+
+        void add(String line) {
+            lines.add(line);
+        }
+
+        /**
+         * Drops every line from the given one on.
+         */
+        void truncate(int lineCount) {
+            lines.subList(lineCount, lines.size()).clear();
+        }
+
+        @Override
+        public int getLineCount() {
+            return lines.size();
+        }
+
+        @Override
+        public String getLine(int line) {
+            return lines.get(line);
+        }
+
+    }
+
+}
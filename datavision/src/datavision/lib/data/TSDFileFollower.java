@@ -0,0 +1,198 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Follows a <code>.tsd</code> file that is being appended to, like <code>tail -f</code>. The follower remembers the
+ * offset up to which the file has been read, and whenever the file grows, it reads and parses only the bytes past
+ * that offset. Only complete lines are taken; a line that is still being written is picked up once its newline is.
+ * <p>
+ * Changes are noticed through a {@link WatchService} on the directory of the file, on a daemon thread started by
+ * {@link #start(AppendListener)}, which is also the thread the listener is called on. {@link #poll(AppendListener)}
+ * reads whatever was appended on the calling thread instead.
+ *
+ * @author Patrick Chan
+ */
+public final class TSDFileFollower implements Closeable {
+
+    /**
+     * Receives what was appended to the file, in the order it was appended.
+     */
+    public interface AppendListener {
+
+        /**
+         * Receives newly appended lines.
+         *
+         * @param text the appended lines, each followed by a newline
+         * @param rows the appended lines parsed into a dataset, or <code>null</code> if one of them does not follow
+         *             the <code>.tsd</code> format or repeats the name of another one
+         */
+        void onAppend(String text, ColumnarDataSet rows);
+
+        /**
+         * Called if the file became shorter than the offset it was read up to, which means it was not appended to but
+         * replaced or truncated. Nothing is read from the file any longer.
+         */
+        void onTruncated();
+
+    }
+
+    private static final String THREAD_NAME = "data-follower";
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final byte NEWLINE = '\n';
+
+    private final Path filePath;
+    private ByteBuffer buffer;
+    private volatile long offset;
+    private volatile boolean truncated;
+    private WatchService watchService;
+
+    /**
+     * @param filePath the file to follow
+     * @param offset   the offset in bytes up to which the file has already been read, which should be at the start of
+     *                 a line
+     */
+    public TSDFileFollower(Path filePath, long offset) {
+        this.filePath = filePath.toAbsolutePath();
+        this.offset = offset;
+        this.buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+    }
+
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Starts watching the file. Whatever was already appended past the offset is read right away.
+     *
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public synchronized void start(AppendListener listener) throws IOException {
+        if (watchService != null)
+            throw new IllegalStateException("The follower is already started");
+        watchService = FileSystems.getDefault().newWatchService();
+        filePath.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> watch(service, listener), THREAD_NAME);
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the file. The listener is not called any longer once the watching thread notices, which may
+     * take until it is done with the lines it is reading.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null)
+            watchService.close();
+    }
+
+    private void watch(WatchService service, AppendListener listener) {
+        try {
+            poll(listener);
+            while (!truncated) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || filePath.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed)
+                    poll(listener);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the follower was closed
+        } catch (IOException e) {
+            // the file cannot be read any longer, which leaves nothing to follow
+            truncated = true;
+            listener.onTruncated();
+        }
+    }
+
+    /**
+     * Reads the lines appended to the file since the last read and hands them to the listener.
+     *
+     * @return whether any line was appended
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized boolean poll(AppendListener listener) throws IOException {
+        if (truncated)
+            return false;
+        boolean appended = false;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                truncated = true;
+                listener.onTruncated();
+                return false;
+            }
+            while (offset < size) {
+                buffer.clear();
+                int read = channel.read(buffer, offset);
+                if (read <= 0)
+                    break;
+                int end = lastLineEnd(buffer, read);
+                if (end == 0) {
+                    if (read < buffer.capacity())
+                        break;
+                    // a single line longer than the buffer
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    continue;
+                }
+                listener.onAppend(new String(buffer.array(), 0, end, StandardCharsets.UTF_8), parse(buffer, end));
+                offset += end;
+                appended = true;
+            }
+        }
+        return appended;
+    }
+
+    private static ColumnarDataSet parse(ByteBuffer lines, int end) {
+        ColumnarDataSet rows = new ColumnarDataSet();
+        TSDLineParser parser = new TSDLineParser();
+        long lineNumber = 1;
+        int lineStart = 0;
+        try {
+            for (int i = 0; i < end; i++) {
+                if (lines.get(i) == NEWLINE) {
+                    parser.parseLine(lines, lineStart, i, lineNumber++, rows);
+                    lineStart = i + 1;
+                }
+            }
+        } catch (TSDLineParser.InvalidLineException e) {
+            return null;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the index just after the last newline of the first bytes of the buffer, or 0 if there is none.
+     */
+    private static int lastLineEnd(ByteBuffer buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer.get(i) == NEWLINE)
+                return i + 1;
+        }
+        return 0;
+    }
+
+}
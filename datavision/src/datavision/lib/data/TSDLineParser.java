@@ -0,0 +1,194 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses single <code>.tsd</code> lines straight out of a {@link ByteBuffer} or a {@link CharSequence} into a
+ * {@link ColumnarDataSet}. A line is given as an absolute range, so the caller only has to find the line boundaries and
+ * no intermediate line {@link String} is ever built. Since a tab or a newline byte can never be part of a multi-byte
+ * UTF-8 sequence, the fields can be located on the raw bytes.
+ * <p>
+ * A name that is already used by an earlier instance of the target dataset is rejected, so that the first reported
+ * error is always that of the earliest offending line. So is a location whose number of coordinates differs from the
+ * dimension of the target dataset; an empty target takes the dimension of the first line parsed into it.
+ * <p>
+ * The location is read by a {@link CoordinateParser}, and the name and label are copied into the name table and label
+ * dictionary of the target dataset, none of them going through a {@link String}. Instances of this class keep the
+ * coordinates they parse and are therefore not thread-safe.
+ *
+ * @author Patrick Chan
+ */
+public final class TSDLineParser {
+
+    public static class InvalidLineException extends Exception {
+
+        private final long lineNumber;
+        private final String reason;
+
+        public InvalidLineException(long lineNumber, String reason) {
+            super(String.format("Line %d: %s", lineNumber, reason));
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+    }
+
+    static final String FIELDS_ERROR = "expected a name, a label and a location separated by tabs";
+    static final String NAME_ERROR = "names must start with the @ character";
+    private static final String LABEL_ERROR = "the label is empty";
+    static final String LOCATION_ERROR = "the location must be of the form x,y or hold up to "
+            + CoordinateParser.MAX_DIMENSION + " coordinates separated by commas";
+    static final String DIMENSION_ERROR_FORMAT = "the location must have %d coordinates, like the lines before it";
+    private static final String DUPLICATE_NAME_ERROR_FORMAT = "the name %s is already used";
+
+    private static final byte TAB = '\t';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte NAME_PREFIX = '@';
+
+    private final boolean checkNames;
+    private final CoordinateParser coordinates;
+
+    public TSDLineParser() {
+        this(true);
+    }
+
+    /**
+     * @param checkNames whether to reject names that are already used in the target dataset; a caller that checks
+     *                   the names on its own afterwards can turn this off
+     */
+    TSDLineParser(boolean checkNames) {
+        this.checkNames = checkNames;
+        this.coordinates = new CoordinateParser();
+    }
+
+    /**
+     * Parses the line held in <code>buffer[start, end)</code>, without its line terminator, and appends it to the
+     * given dataset.
+     *
+     * @param buffer     the buffer holding the line
+     * @param start      the absolute index of the first byte of the line
+     * @param end        the absolute index one past the last byte of the line
+     * @param lineNumber the 1-based line number, used for error reporting
+     * @param target     the dataset to append the instance to
+     * @return the row of the new instance in the target dataset
+     * @throws InvalidLineException if the line does not follow the <code>.tsd</code> format
+     */
+    public int parseLine(ByteBuffer buffer, int start, int end, long lineNumber, ColumnarDataSet target) throws InvalidLineException {
+        if (end > start && buffer.get(end - 1) == CARRIAGE_RETURN)
+            end--;
+        int firstTab = indexOf(buffer, TAB, start, end);
+        int lastTab = lastIndexOf(buffer, TAB, start, end);
+        if (firstTab < 0 || firstTab == lastTab)
+            throw new InvalidLineException(lineNumber, FIELDS_ERROR);
+        if (buffer.get(start) != NAME_PREFIX || firstTab - start < 2)
+            throw new InvalidLineException(lineNumber, NAME_ERROR);
+        if (lastTab - firstTab < 2)
+            throw new InvalidLineException(lineNumber, LABEL_ERROR);
+        try {
+            coordinates.parse(buffer, lastTab + 1, end);
+        } catch (NumberFormatException e) {
+            throw new InvalidLineException(lineNumber, LOCATION_ERROR);
+        }
+        checkDimension(target, coordinates.getDimension(), lineNumber);
+
+        int labelId = target.getLabelDictionary().intern(buffer, firstTab + 1, lastTab);
+        int row = target.addRow(buffer, start, firstTab, labelId, coordinates.getCoordinates());
+        if (checkNames)
+            checkUniqueName(target, row, lineNumber);
+        return row;
+    }
+
+    /**
+     * Parses the line held in <code>text[start, end)</code>, without its line terminator, and appends it to the given
+     * dataset.
+     *
+     * @see #parseLine(ByteBuffer, int, int, long, ColumnarDataSet)
+     */
+    public int parseLine(CharSequence text, int start, int end, long lineNumber, ColumnarDataSet target) throws InvalidLineException {
+        if (end > start && text.charAt(end - 1) == CARRIAGE_RETURN)
+            end--;
+        int firstTab = indexOf(text, TAB, start, end);
+        int lastTab = lastIndexOf(text, TAB, start, end);
+        if (firstTab < 0 || firstTab == lastTab)
+            throw new InvalidLineException(lineNumber, FIELDS_ERROR);
+        if (text.charAt(start) != NAME_PREFIX || firstTab - start < 2)
+            throw new InvalidLineException(lineNumber, NAME_ERROR);
+        if (lastTab - firstTab < 2)
+            throw new InvalidLineException(lineNumber, LABEL_ERROR);
+        try {
+            coordinates.parse(text, lastTab + 1, end);
+        } catch (NumberFormatException e) {
+            throw new InvalidLineException(lineNumber, LOCATION_ERROR);
+        }
+        checkDimension(target, coordinates.getDimension(), lineNumber);
+
+        int labelId = target.getLabelDictionary().intern(text, firstTab + 1, lastTab);
+        int row = target.addRow(text, start, firstTab, labelId, coordinates.getCoordinates());
+        if (checkNames)
+            checkUniqueName(target, row, lineNumber);
+        return row;
+    }
+
+    /**
+     * Rejects the instance at the given row if an earlier row of the dataset already uses its name, which the name
+     * table of the dataset tells without decoding the name.
+     */
+    static void checkUniqueName(ColumnarDataSet dataSet, int row, long lineNumber) throws InvalidLineException {
+        if (!dataSet.hasFirstUseOfName(row))
+            throw new InvalidLineException(lineNumber, String.format(DUPLICATE_NAME_ERROR_FORMAT, dataSet.getName(row)));
+    }
+
+    /**
+     * Rejects a location of the given dimension unless it matches the dimension of the dataset, which an empty
+     * dataset takes on.
+     */
+    static void checkDimension(ColumnarDataSet dataSet, int dimension, long lineNumber) throws InvalidLineException {
+        if (dataSet.size() == 0)
+            dataSet.setDimension(dimension);
+        else if (dataSet.getDimension() != dimension)
+            throw new InvalidLineException(lineNumber, String.format(DIMENSION_ERROR_FORMAT, dataSet.getDimension()));
+    }
+
+    static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer.get(i) == value)
+                return i;
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence text, int value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == value)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(CharSequence text, int value, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (text.charAt(i) == value)
+                return i;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,243 @@
+package datavision.lib.data;
+
+import java.util.Arrays;
+
+/**
+ * Validates <code>.tsd</code> data in a single hand-written pass over its characters. In that one pass, every line is
+ * checked for its format, the names are checked for duplicates and the labels are collected, and all of it ends up in
+ * a {@link ValidationResult}.
+ * <p>
+ * A valid line is an <code>@</code>-prefixed name, a label and a location separated by tabs, where the location is a
+ * pair of non-negative decimal numbers separated by a comma, e.g. <code>@instance&#9;label&#9;1.5,2</code>, or up to
+ * {@link CoordinateParser#MAX_DIMENSION} such numbers. Every location must have as many coordinates as the first valid
+ * one; a line whose location has some other number of them counts as an invalid line. Trailing carriage returns are
+ * ignored, as are empty lines at the very end of the data.
+ * <p>
+ * Only the first errors are kept with their column and reason, up to the capacity the validator is created with; the
+ * others are only counted.
+ * <p>
+ * Instances of this class keep the fields of the last checked line and are therefore not thread-safe.
+ *
+ * @author Patrick Chan
+ */
+public final class TSDValidator {
+
+    /** The line has a name, a label and a valid location. */
+    static final int VALID = 0;
+    /** The line has a name, a label and a location, but the location is not a valid pair of coordinates. */
+    static final int INVALID_LOCATION = 1;
+    /** The line does not have the name, label and location fields. */
+    static final int MALFORMED = 2;
+
+    private static final char NEWLINE = '\n';
+    private static final char CARRIAGE_RETURN = '\r';
+    private static final char TAB = '\t';
+    private static final char COMMA = ',';
+    private static final char DECIMAL_POINT = '.';
+    private static final char NAME_PREFIX = '@';
+
+    static final String EMPTY_LINE_ERROR = "the line is empty";
+    static final String LINE_TERMINATOR_ERROR = "the line holds a line terminator other than a newline";
+
+    private final int errorCapacity;
+
+    /* the fields of the last checked line, as absolute [start, end) ranges */
+    int nameStart;
+    int nameEnd;
+    int labelStart;
+    int labelEnd;
+    int locationStart;
+    /* the number of coordinates of the last checked line, if its location is valid */
+    int dimension;
+    /* the 1-based column and the reason of the error of the last checked line, unless it is valid */
+    int errorColumn;
+    String errorReason;
+
+    public TSDValidator() {
+        this(DataErrorCollector.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param errorCapacity the number of invalid lines whose errors are kept
+     */
+    public TSDValidator(int errorCapacity) {
+        this.errorCapacity = errorCapacity;
+    }
+
+    /**
+     * Validates the given data.
+     *
+     * @param text the <code>.tsd</code> data
+     * @return the outcome of the validation
+     */
+    public ValidationResult validate(CharSequence text) {
+        ValidationResult result = new ValidationResult(errorCapacity);
+        // the names are copied into a name table, whose index finds the earlier line of a duplicate
+        NameTable names = new NameTable();
+        int[] lineOfName = new int[16];
+        int dataDimension = 0;
+        int length = text.length();
+        int lineNumber = 0;
+        int pendingEmptyLines = 0;
+        int lineStart = 0;
+
+        while (lineStart < length || (length == 0 && lineNumber == 0)) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != NEWLINE)
+                lineEnd++;
+
+            if (lineEnd == lineStart && length > 0) {
+                // empty lines only count if some non-empty line follows them
+                pendingEmptyLines++;
+            } else {
+                for (; pendingEmptyLines > 0; pendingEmptyLines--)
+                    result.addMalformedLine(++lineNumber, 1, EMPTY_LINE_ERROR);
+                lineNumber++;
+
+                int status = checkLine(text, lineStart, lineEnd);
+                if (status == MALFORMED) {
+                    result.addMalformedLine(lineNumber, errorColumn, errorReason);
+                } else {
+                    int name = names.add(text, nameStart + 1, nameEnd);
+                    if (name == lineOfName.length)
+                        lineOfName = Arrays.copyOf(lineOfName, name * 2);
+                    lineOfName[name] = lineNumber;
+                    int firstName = names.firstIndexOf(name);
+                    if (firstName != name)
+                        result.addDuplicateName(names.get(name), lineOfName[firstName], lineNumber);
+                    if (status == INVALID_LOCATION) {
+                        result.addInvalidLine(lineNumber, errorColumn, errorReason);
+                    } else {
+                        if (dataDimension == 0)
+                            dataDimension = dimension;
+                        else if (dimension != dataDimension)
+                            result.addInvalidLine(lineNumber, locationStart - lineStart + 1, dimensionError(dataDimension));
+                        result.addLabel(text.subSequence(labelStart, labelEnd).toString());
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        result.setNumberOfLines(lineNumber);
+        result.setDimension(dataDimension);
+        return result;
+    }
+
+    /**
+     * Checks the line held in <code>text[start, end)</code>, without its newline. Unless the line is
+     * {@link #MALFORMED}, the ranges of its name and label are kept in {@link #nameStart} and its siblings, and if it
+     * is {@link #VALID}, the number of coordinates of its location in {@link #dimension}. Otherwise, the column and
+     * reason of its error are kept in {@link #errorColumn} and {@link #errorReason}.
+     *
+     * @return {@link #VALID}, {@link #INVALID_LOCATION} or {@link #MALFORMED}
+     */
+    int checkLine(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) == CARRIAGE_RETURN)
+            end--;
+        if (end - start < 1)
+            return error(start, start, EMPTY_LINE_ERROR, MALFORMED);
+        if (text.charAt(start) != NAME_PREFIX)
+            return error(start, start, TSDLineParser.NAME_ERROR, MALFORMED);
+
+        // the name runs up to the first tab that leaves it non-empty, and the location starts after the last tab
+        int firstTab = -1;
+        int lastTab = -1;
+        int previousTab = -1;
+        for (int i = start + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == TAB) {
+                if (firstTab < 0 && i >= start + 2)
+                    firstTab = i;
+                previousTab = lastTab;
+                lastTab = i;
+            } else if (isLineTerminator(c)) {
+                return error(start, i, LINE_TERMINATOR_ERROR, MALFORMED);
+            }
+        }
+        if (firstTab < 0)
+            return error(start, end, TSDLineParser.FIELDS_ERROR, MALFORMED);
+
+        // for the structure alone, the third field only has to be non-empty, and may hold tabs itself
+        int locationTab = lastTab <= end - 2 ? lastTab : previousTab;
+        if (locationTab < firstTab + 2)
+            return error(start, firstTab + 1, TSDLineParser.FIELDS_ERROR, MALFORMED);
+
+        nameStart = start;
+        nameEnd = firstTab;
+        labelStart = firstTab + 1;
+        labelEnd = lastTab;
+        locationStart = lastTab + 1;
+        dimension = locationDimension(text, locationStart, end);
+        if (dimension == 0)
+            return error(start, locationStart, TSDLineParser.LOCATION_ERROR, INVALID_LOCATION);
+        return VALID;
+    }
+
+    private int error(int lineStart, int errorStart, String reason, int status) {
+        errorColumn = errorStart - lineStart + 1;
+        errorReason = reason;
+        return status;
+    }
+
+    /**
+     * Returns the reason why a valid location does not have the given number of coordinates of the data.
+     */
+    static String dimensionError(int dataDimension) {
+        return String.format(TSDLineParser.DIMENSION_ERROR_FORMAT, dataDimension);
+    }
+
+    /**
+     * Checks that <code>text[start, end)</code> is of the form <code>x,y</code>, or holds more numbers separated by
+     * commas, up to {@link CoordinateParser#MAX_DIMENSION}.
+     *
+     * @return the number of coordinates of the location, or 0 if it is not valid
+     */
+    static int locationDimension(CharSequence text, int start, int end) {
+        int count = 0;
+        int numberStart = start;
+        while (count < CoordinateParser.MAX_DIMENSION) {
+            int numberEnd = endOfNumber(text, numberStart, end);
+            if (numberEnd < 0)
+                return 0;
+            count++;
+            if (numberEnd == end)
+                return count >= CoordinateParser.MIN_DIMENSION ? count : 0;
+            if (text.charAt(numberEnd) != COMMA)
+                return 0;
+            numberStart = numberEnd + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Scans a non-negative decimal number, i.e. <code>0</code>, an integer without leading zeros, or either of those
+     * (or nothing) followed by a decimal point and at least one digit.
+     *
+     * @return the index just after the number, or -1 if there is no number at <code>start</code>
+     */
+    static int endOfNumber(CharSequence text, int start, int end) {
+        int i = start;
+        if (i < end && text.charAt(i) == '0') {
+            i++;
+        } else if (i < end && text.charAt(i) >= '1' && text.charAt(i) <= '9') {
+            while (i < end && isDigit(text.charAt(i)))
+                i++;
+        }
+        if (i < end && text.charAt(i) == DECIMAL_POINT) {
+            int fractionStart = ++i;
+            while (i < end && isDigit(text.charAt(i)))
+                i++;
+            return i > fractionStart ? i : -1;
+        }
+        return i > start ? i : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == NEWLINE || c == CARRIAGE_RETURN || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+}
@@ -0,0 +1,120 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes datasets out in the <code>.tsd</code> format, one instance per line, with as many coordinates as the dataset
+ * has dimensions. Coordinates are written in plain
+ * decimal notation, without an exponent, so that the output passes the {@link TSDValidator} and parses back to the
+ * very same <code>double</code> values, down to the sign of a negative zero. Only finite coordinates can be written,
+ * as they are the only ones the {@link CoordinateParser} accepts.
+ * <p>
+ * Rather than written out, a dataset can also be viewed through {@link #lines(ColumnarDataSet)} as the lines it would
+ * be written as, each of which is only formatted when it is read.
+ *
+ * @author Patrick Chan
+ */
+public final class TSDWriter {
+
+    private static final char TAB = '\t';
+    private static final char COMMA = ',';
+    private static final char NEWLINE = '\n';
+
+    private TSDWriter() {
+    }
+
+    /**
+     * Writes every row of the dataset to the given destination, each followed by a newline.
+     *
+     * @throws IOException if the destination cannot be written to
+     */
+    public static void write(ColumnarDataSet dataSet, Appendable destination) throws IOException {
+        for (int row = 0; row < dataSet.size(); row++) {
+            writeRow(dataSet, row, destination);
+            destination.append(NEWLINE);
+        }
+    }
+
+    /**
+     * Returns the lines that {@link #write(ColumnarDataSet, Appendable)} would write for the dataset, which end with
+     * the empty line after the last newline. A line is formatted from the columns of the dataset each time it is read,
+     * so the dataset must not change while the lines are in use.
+     */
+    public static TSDDocument.Lines lines(ColumnarDataSet dataSet) {
+        return new TSDDocument.Lines() {
+            @Override
+            public int getLineCount() {
+                return dataSet.size() + 1;
+            }
+
+            @Override
+            public String getLine(int line) {
+                if (line < 0 || line > dataSet.size())
+                    throw new IndexOutOfBoundsException("Line " + line + " out of " + getLineCount());
+                if (line == dataSet.size())
+                    return "";
+                StringBuilder builder = new StringBuilder(32);
+                try {
+                    writeRow(dataSet, line, builder);
+                } catch (IOException e) {
+                    // a StringBuilder never throws
+                    throw new IllegalStateException(e);
+                }
+                return builder.toString();
+            }
+        };
+    }
+
+    /**
+     * Returns every row of the dataset as <code>.tsd</code> data.
+     */
+    public static String toTSDString(ColumnarDataSet dataSet) {
+        StringBuilder builder = new StringBuilder(dataSet.size() * 32);
+        try {
+            write(dataSet, builder);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes a single instance, followed by a newline.
+     *
+     * @throws IOException if the destination cannot be written to
+     */
+    public static void writeLine(Appendable destination, String name, String label, double x, double y) throws IOException {
+        destination.append(name).append(TAB).append(label).append(TAB);
+        destination.append(formatCoordinate(x)).append(COMMA).append(formatCoordinate(y)).append(NEWLINE);
+    }
+
+    /**
+     * Formats a coordinate as the shortest plain decimal that parses back to the same value, leaving out the fraction
+     * of whole numbers. A negative zero is written as <code>-0</code>.
+     *
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    public static String formatCoordinate(double value) {
+        if (!Double.isFinite(value))
+            throw new IllegalArgumentException("The coordinate " + value + " is not finite");
+        if (value == 0)
+            return Double.doubleToRawLongBits(value) < 0 ? "-0" : "0";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    private static void writeRow(ColumnarDataSet dataSet, int row, Appendable destination) throws IOException {
+        destination.append(dataSet.getName(row)).append(TAB).append(dataSet.getLabel(row)).append(TAB);
+        for (int axis = 0; axis < dataSet.getDimension(); axis++) {
+            if (axis > 0)
+                destination.append(COMMA);
+            destination.append(formatCoordinate(dataSet.getCoordinate(row, axis)));
+        }
+    }
+
+}
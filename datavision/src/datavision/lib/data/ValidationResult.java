@@ -0,0 +1,178 @@
+package datavision.lib.data;
+
+import java.util.*;
+
+/**
+ * The outcome of a single {@link TSDValidator} pass over some <code>.tsd</code> data. Besides the lines that failed to
+ * validate, it holds everything else that was learned along the way, namely the number of lines, the duplicated names
+ * and the set of labels, so that none of them has to be recomputed from the text.
+ * <p>
+ * Two sets of invalid lines are kept. The <em>malformed</em> lines do not even have the name, label and location
+ * fields of a line, which is what a freshly loaded file is checked for. The <em>invalid</em> lines additionally
+ * include the lines whose location is not valid, or does not have as many coordinates as the first valid one. Each set
+ * is held by a {@link DataErrorCollector}, which keeps the first of these lines along with the column and reason of
+ * their error, and only counts the others. The lines of the duplicated names are bounded in the same way: only as many
+ * of the lines that repeat a name as a collector keeps errors are recorded, and the others are only counted. All line
+ * numbers are 1-based.
+ *
+ * @author Patrick Chan
+ */
+public final class ValidationResult {
+
+    /* the label that marks an instance as unlabeled, and is hence not counted as a label */
+    static final String NULL_LABEL = "null";
+
+    private int numberOfLines;
+    private int dimension;
+    private final DataErrorCollector malformedErrors;
+    private final DataErrorCollector invalidErrors;
+    private final Map<String, List<Integer>> duplicateNames;
+    private final int duplicateCapacity;
+    private int keptDuplicateCount;
+    private long duplicateCount;
+    private final Set<String> labels;
+
+    ValidationResult(int errorCapacity) {
+        malformedErrors = new DataErrorCollector(errorCapacity);
+        invalidErrors = new DataErrorCollector(errorCapacity);
+        duplicateNames = new LinkedHashMap<>();
+        duplicateCapacity = errorCapacity;
+        labels = new LinkedHashSet<>();
+    }
+
+    public int getNumberOfLines() {
+        return numberOfLines;
+    }
+
+    /**
+     * Returns the number of coordinates of the first valid location, which every other location must match, or 0 if
+     * there is no valid location.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the malformed lines whose errors were kept, which are the first ones.
+     */
+    public List<Integer> getMalformedLines() {
+        return linesOf(malformedErrors);
+    }
+
+    /**
+     * Returns the invalid lines whose errors were kept, which are the first ones.
+     */
+    public List<Integer> getInvalidLines() {
+        return linesOf(invalidErrors);
+    }
+
+    /**
+     * Returns the errors of the malformed lines, or of the invalid ones.
+     *
+     * @param strict whether only the malformed lines are asked for, as is done for a freshly loaded file
+     */
+    public DataErrorCollector getErrors(boolean strict) {
+        return strict ? malformedErrors : invalidErrors;
+    }
+
+    /**
+     * Returns the names that are used more than once, in the order in which the duplicates were found, each mapped to
+     * the line that first uses it followed by the lines that repeat it and were kept. Once as many of these lines are
+     * kept as there are errors in a collector, any further duplicate is only counted by
+     * {@link #getDroppedDuplicateCount()}.
+     */
+    public Map<String, List<Integer>> getDuplicateNames() {
+        return Collections.unmodifiableMap(duplicateNames);
+    }
+
+    /**
+     * Returns the number of lines that repeat a name used by an earlier line, including those that were not kept.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Returns the number of lines that repeat a name but were left out of {@link #getDuplicateNames()}.
+     */
+    public long getDroppedDuplicateCount() {
+        return duplicateCount - keptDuplicateCount;
+    }
+
+    /**
+     * Returns the distinct labels of the valid lines in first-seen order, leaving out the <code>null</code> label.
+     */
+    public Set<String> getLabels() {
+        return Collections.unmodifiableSet(labels);
+    }
+
+    public boolean hasDuplicateNames() {
+        return duplicateCount > 0;
+    }
+
+    /**
+     * @param strict whether only the presence of the three fields is checked, as is done for a freshly loaded file
+     * @return whether the data passed the check
+     */
+    public boolean isValid(boolean strict) {
+        return getErrors(strict).isEmpty() && duplicateCount == 0;
+    }
+
+    void setNumberOfLines(int numberOfLines) {
+        this.numberOfLines = numberOfLines;
+    }
+
+    void setDimension(int dimension) {
+        this.dimension = dimension;
+    }
+
+    void addMalformedLine(int lineNumber, int column, String reason) {
+        malformedErrors.add(lineNumber, column, reason);
+        invalidErrors.add(lineNumber, column, reason);
+    }
+
+    void addInvalidLine(int lineNumber, int column, String reason) {
+        invalidErrors.add(lineNumber, column, reason);
+    }
+
+    /**
+     * Returns whether the error of another malformed line would still be kept, rather than only counted.
+     */
+    boolean keepsMalformedLines() {
+        return malformedErrors.getErrors().size() < malformedErrors.getCapacity();
+    }
+
+    /**
+     * Returns whether the error of another invalid line would still be kept, rather than only counted.
+     */
+    boolean keepsInvalidLines() {
+        return invalidErrors.getErrors().size() < invalidErrors.getCapacity();
+    }
+
+    void addDuplicateName(String name, int firstLineNumber, int lineNumber) {
+        duplicateCount++;
+        if (keptDuplicateCount == duplicateCapacity)
+            return;
+        keptDuplicateCount++;
+        List<Integer> lines = duplicateNames.get(name);
+        if (lines == null) {
+            lines = new ArrayList<>();
+            lines.add(firstLineNumber);
+            duplicateNames.put(name, lines);
+        }
+        lines.add(lineNumber);
+    }
+
+    void addLabel(String label) {
+        if (!label.equals(NULL_LABEL))
+            labels.add(label);
+    }
+
+    private static List<Integer> linesOf(DataErrorCollector errors) {
+        List<Integer> lines = new ArrayList<>(errors.getErrors().size());
+        for (DataErrorCollector.DataError error : errors.getErrors())
+            lines.add((int) error.getLine());
+        return Collections.unmodifiableList(lines);
+    }
+
+}
@@ -0,0 +1,32 @@
+package datavision.lib.kmeans;
+
+/**
+ * How a {@link KMeansEngine} finds the nearest centroid of every row. Whichever is used, every row ends up assigned to
+ * the same centroid, ties going to the centroid that comes first, so the centroids come out the same, down to the
+ * last bit; the bounded variants merely skip the distances that cannot change the outcome.
+ * <p>
+ * The bounds follow from the triangle inequality. They are kept a hair looser than computed, so that rounding can
+ * never make a bound skip a centroid that is in fact as near as the one a row is assigned to.
+ *
+ * @author Patrick Chan
+ */
+public enum KMeansAlgorithm {
+
+    /** Lloyd's algorithm, which measures the distance from every row to every centroid. */
+    LLOYD,
+
+    /**
+     * Hamerly's algorithm, which keeps an upper bound on the distance of every row to its own centroid and a lower
+     * bound on the distance to any other one. A row whose bounds still hold after the centroids move is skipped
+     * altogether. This takes two values per row, and suits a small number of clusters best.
+     */
+    HAMERLY,
+
+    /**
+     * Elkan's algorithm, which keeps a lower bound on the distance of every row to every centroid, along with the
+     * distances between the centroids. It skips more distances than Hamerly's as the number of clusters grows, at the
+     * cost of one value per row and cluster.
+     */
+    ELKAN
+
+}
@@ -0,0 +1,493 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the iterations of Lloyd's k-means algorithm over the columns of a {@link ColumnarDataSet}. The cluster of every
+ * row is kept in an <code>int[]</code> assignment array rather than as a label of the dataset, and each iteration
+ * makes a single fused pass over the rows: a row is assigned to its nearest centroid, by squared distance, and added
+ * to the running sums of that cluster right away. The new centroids are the means of those sums.
+ * <p>
+ * The rows are cut into blocks, each of which has partial sums, sizes and inertia of its own. The blocks may be run
+ * on a {@link ForkJoinPool}, in which case every worker only ever writes to the partials of the blocks it runs, and
+ * the partials are then added up in block order on the calling thread. The blocks only depend on the number of rows,
+ * so the centroids come out the same, down to the last bit, whatever the number of threads.
+ * <p>
+ * The nearest centroid of a row is found by the given {@link KMeansAlgorithm}. The bounded algorithms keep the
+ * bounds of a row along with its assignment, and bring them up to date with how far the centroids last moved in the
+ * same pass that assigns the row. Whichever algorithm is used, the rows are added to the sums in the same order, so
+ * the centroids are the same as those of Lloyd's algorithm.
+ * <p>
+ * Every array an iteration works on is allocated once, when the engine is created, so that iterating on the calling
+ * thread allocates nothing; running the blocks on a pool only allocates the tasks. The assignments are only turned
+ * into labels by whoever needs them, such as a clusterer publishing a snapshot for the chart.
+ *
+ * @author Patrick Chan
+ */
+public final class KMeansEngine {
+
+    /* the fewest rows in a block, and the most blocks a dataset is cut into before they get longer */
+    private static final int MIN_BLOCK_LENGTH = 1 << 12;
+    private static final int MAX_BLOCKS = 1 << 12;
+    /* keeps the partials of two blocks off a shared cache line */
+    private static final int PADDING = 16;
+    /* how much looser than computed the bounds are kept, to make up for rounding */
+    private static final double LOOSER = 1 + 1e-9;
+    private static final double TIGHTER = 1 - 1e-9;
+
+    private final ColumnarDataSet points;
+    private final int size;
+    private final int dimension;
+    private final int numberOfClusters;
+    private final KMeansAlgorithm algorithm;
+    /* the pool the blocks run on, or null to run them on the calling thread */
+    private final ForkJoinPool pool;
+    /* the coordinates of every centroid, centroid after centroid */
+    private final double[] centroids;
+    private final int[] assignments;
+    private final int blockLength;
+    private final int blockCount;
+    /*
+     * the partials of every block, one slab after another: the sums of every cluster, then the scratch point, then
+     * the inertia of the block, then the number of distances it measured
+     */
+    private final double[] blockPartials;
+    private final int partialStride;
+    private final int[] blockSizes;
+    private final int sizeStride;
+    /* the sums and sizes of every cluster, once the blocks are added up */
+    private final double[] sums;
+    private final int[] clusterSizes;
+    private double inertia;
+    private long iterationCount;
+    private long distanceCount;
+
+    /* the bounds of every row, for the bounded algorithms: one lower bound per row for Hamerly, per cluster for Elkan */
+    private final double[] upperBounds;
+    private final double[] lowerBounds;
+    /* the centroids before they last moved, and how far each one moved */
+    private final double[] previousCentroids;
+    private final double[] drifts;
+    private double largestDrift;
+    private int largestDriftCluster;
+    private double secondLargestDrift;
+    /* half the distance between every two centroids, and from every centroid to the nearest other one */
+    private final double[] halfDistances;
+    private final double[] halfSeparations;
+    private boolean hasBounds;
+    private boolean hasInertia;
+
+    /**
+     * Creates an engine that runs Lloyd's algorithm on the calling thread.
+     *
+     * @param points           the instances to cluster, which must not change while the engine is used
+     * @param initialCentroids the coordinates of the first centroids, centroid after centroid, which are copied
+     * @throws IllegalArgumentException if there are no centroids, or their coordinates do not match the dimension
+     */
+    public KMeansEngine(ColumnarDataSet points, double[] initialCentroids) {
+        this(points, initialCentroids, null);
+    }
+
+    /**
+     * Creates an engine that runs Lloyd's algorithm.
+     *
+     * @param points           the instances to cluster, which must not change while the engine is used
+     * @param initialCentroids the coordinates of the first centroids, centroid after centroid, which are copied
+     * @param pool             the pool to run the blocks of rows on, or <code>null</code> to run them on the calling
+     *                         thread
+     * @throws IllegalArgumentException if there are no centroids, or their coordinates do not match the dimension
+     */
+    public KMeansEngine(ColumnarDataSet points, double[] initialCentroids, ForkJoinPool pool) {
+        this(points, initialCentroids, KMeansAlgorithm.LLOYD, pool);
+    }
+
+    /**
+     * @param points           the instances to cluster, which must not change while the engine is used
+     * @param initialCentroids the coordinates of the first centroids, centroid after centroid, which are copied
+     * @param algorithm        how the nearest centroid of every row is found
+     * @param pool             the pool to run the blocks of rows on, or <code>null</code> to run them on the calling
+     *                         thread
+     * @throws IllegalArgumentException if there are no centroids, their coordinates do not match the dimension, or
+     *                                  there are too many rows and clusters to keep a bound for each with Elkan's
+     *                                  algorithm
+     */
+    public KMeansEngine(ColumnarDataSet points, double[] initialCentroids, KMeansAlgorithm algorithm, ForkJoinPool pool) {
+        this.points = points;
+        this.size = points.size();
+        this.dimension = points.getDimension();
+        if (initialCentroids.length == 0 || initialCentroids.length % dimension != 0)
+            throw new IllegalArgumentException("The centroids must have " + dimension + " coordinates each");
+        this.numberOfClusters = initialCentroids.length / dimension;
+        this.algorithm = algorithm;
+        this.pool = pool;
+        this.centroids = initialCentroids.clone();
+        this.assignments = new int[size];
+        this.blockLength = Math.max(MIN_BLOCK_LENGTH, (int) ((size + (long) MAX_BLOCKS - 1) / MAX_BLOCKS));
+        this.blockCount = Math.max(1, (size + blockLength - 1) / blockLength);
+        this.partialStride = centroids.length + dimension + 2 + PADDING;
+        this.blockPartials = new double[blockCount * partialStride];
+        this.sizeStride = numberOfClusters + PADDING;
+        this.blockSizes = new int[blockCount * sizeStride];
+        this.sums = new double[centroids.length];
+        this.clusterSizes = new int[numberOfClusters];
+
+        boolean bounded = algorithm != KMeansAlgorithm.LLOYD;
+        long lowerBoundCount = algorithm == KMeansAlgorithm.ELKAN ? (long) size * numberOfClusters : size;
+        if (bounded && lowerBoundCount > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Cannot keep a bound for each of " + size + " rows and " + numberOfClusters + " clusters");
+        this.upperBounds = bounded ? new double[size] : null;
+        this.lowerBounds = bounded ? new double[(int) lowerBoundCount] : null;
+        this.previousCentroids = bounded ? new double[centroids.length] : null;
+        this.drifts = bounded ? new double[numberOfClusters] : null;
+        this.halfDistances = bounded ? new double[numberOfClusters * numberOfClusters] : null;
+        this.halfSeparations = bounded ? new double[numberOfClusters] : null;
+    }
+
+    /**
+     * Runs one iteration: assigns every row to its nearest centroid, then moves every centroid to the mean of its
+     * rows. A cluster that ends up without any row keeps its centroid.
+     *
+     * @return whether any centroid moved, which is no longer the case once the clustering has converged
+     */
+    public boolean iterate() {
+        if (algorithm != KMeansAlgorithm.LLOYD)
+            measureSeparations();
+        if (pool == null || blockCount == 1) {
+            for (int block = 0; block < blockCount; block++)
+                runBlock(block);
+        } else {
+            pool.invoke(new Blocks(0, blockCount));
+        }
+
+        // the partials are added up in block order, for the sums not to depend on which block finished first
+        Arrays.fill(sums, 0);
+        Arrays.fill(clusterSizes, 0);
+        double totalDistance = 0;
+        for (int block = 0; block < blockCount; block++) {
+            int partials = block * partialStride;
+            for (int i = 0; i < sums.length; i++)
+                sums[i] += blockPartials[partials + i];
+            int sizes = block * sizeStride;
+            for (int cluster = 0; cluster < numberOfClusters; cluster++)
+                clusterSizes[cluster] += blockSizes[sizes + cluster];
+            totalDistance += blockPartials[partials + sums.length + dimension];
+            distanceCount += (long) blockPartials[partials + sums.length + dimension + 1];
+        }
+        inertia = totalDistance;
+        iterationCount++;
+
+        if (algorithm != KMeansAlgorithm.LLOYD) {
+            // the bounded algorithms skip rows, so their inertia is only measured when asked for
+            System.arraycopy(centroids, 0, previousCentroids, 0, centroids.length);
+            hasInertia = false;
+        }
+        boolean moved = false;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            if (clusterSizes[cluster] == 0)
+                continue;
+            int offset = cluster * dimension;
+            for (int axis = 0; axis < dimension; axis++) {
+                double mean = sums[offset + axis] / clusterSizes[cluster];
+                if (mean != centroids[offset + axis]) {
+                    centroids[offset + axis] = mean;
+                    moved = true;
+                }
+            }
+        }
+        if (algorithm != KMeansAlgorithm.LLOYD)
+            measureDrifts();
+        return moved;
+    }
+
+    /**
+     * Measures half the distance between every two centroids, and from every centroid to the nearest other one.
+     */
+    private void measureSeparations() {
+        Arrays.fill(halfSeparations, Double.POSITIVE_INFINITY);
+        for (int first = 0; first < numberOfClusters; first++) {
+            for (int second = first + 1; second < numberOfClusters; second++) {
+                double halfDistance = Math.sqrt(squaredDistance(centroids, first * dimension, centroids, second * dimension)) / 2 * TIGHTER;
+                halfDistances[first * numberOfClusters + second] = halfDistance;
+                halfDistances[second * numberOfClusters + first] = halfDistance;
+                halfSeparations[first] = Math.min(halfSeparations[first], halfDistance);
+                halfSeparations[second] = Math.min(halfSeparations[second], halfDistance);
+            }
+        }
+    }
+
+    /**
+     * Measures how far every centroid moved, for the next pass to loosen the bounds of every row accordingly.
+     */
+    private void measureDrifts() {
+        largestDrift = 0;
+        largestDriftCluster = -1;
+        secondLargestDrift = 0;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            int offset = cluster * dimension;
+            double drift = Math.sqrt(squaredDistance(previousCentroids, offset, centroids, offset)) * LOOSER;
+            drifts[cluster] = drift;
+            if (drift > largestDrift) {
+                secondLargestDrift = largestDrift;
+                largestDrift = drift;
+                largestDriftCluster = cluster;
+            } else if (drift > secondLargestDrift) {
+                secondLargestDrift = drift;
+            }
+        }
+        hasBounds = true;
+    }
+
+    /**
+     * Assigns every row of the given block to its nearest centroid, and adds it to the partials of the block.
+     */
+    private void runBlock(int block) {
+        int partials = block * partialStride;
+        int point = partials + centroids.length;
+        int counter = point + dimension + 1;
+        int sizes = block * sizeStride;
+        Arrays.fill(blockPartials, partials, partials + centroids.length, 0);
+        Arrays.fill(blockSizes, sizes, sizes + numberOfClusters, 0);
+        blockPartials[counter] = 0;
+        double totalDistance = 0;
+        int end = (int) Math.min(size, (long) (block + 1) * blockLength);
+        for (int row = block * blockLength; row < end; row++) {
+            points.getPoint(row, blockPartials, point);
+            int nearest;
+            if (algorithm == KMeansAlgorithm.LLOYD) {
+                nearest = 0;
+                double nearestDistance = Double.POSITIVE_INFINITY;
+                for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+                    double distance = squaredDistance(cluster, point, nearestDistance);
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = cluster;
+                    }
+                }
+                blockPartials[counter] += numberOfClusters;
+                totalDistance += nearestDistance;
+            } else if (!hasBounds) {
+                nearest = assignAndBound(row, point, counter);
+            } else if (algorithm == KMeansAlgorithm.HAMERLY) {
+                nearest = assignHamerly(row, point, counter);
+            } else {
+                nearest = assignElkan(row, point, counter);
+            }
+            assignments[row] = nearest;
+            blockSizes[sizes + nearest]++;
+            int offset = partials + nearest * dimension;
+            for (int axis = 0; axis < dimension; axis++)
+                blockPartials[offset + axis] += blockPartials[point + axis];
+        }
+        blockPartials[point + dimension] = totalDistance;
+    }
+
+    /**
+     * Measures the distance from a row to every centroid, and sets the bounds of the row from scratch.
+     *
+     * @return the nearest centroid, the first one among equally near centroids
+     */
+    private int assignAndBound(int row, int point, int counter) {
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        double secondDistance = Double.POSITIVE_INFINITY;
+        int lowerBounds = row * numberOfClusters;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            double distance = squaredDistance(centroids, cluster * dimension, blockPartials, point);
+            if (algorithm == KMeansAlgorithm.ELKAN)
+                this.lowerBounds[lowerBounds + cluster] = Math.sqrt(distance) * TIGHTER;
+            if (distance < nearestDistance) {
+                secondDistance = nearestDistance;
+                nearestDistance = distance;
+                nearest = cluster;
+            } else if (distance < secondDistance) {
+                secondDistance = distance;
+            }
+        }
+        blockPartials[counter] += numberOfClusters;
+        upperBounds[row] = Math.sqrt(nearestDistance) * LOOSER;
+        if (algorithm == KMeansAlgorithm.HAMERLY)
+            this.lowerBounds[row] = Math.sqrt(secondDistance) * TIGHTER;
+        return nearest;
+    }
+
+    /**
+     * Loosens the bounds of a row by how far the centroids moved, and only measures its distances to the centroids
+     * when its upper bound no longer lies below both its lower bound and half the distance from its centroid to the
+     * nearest other one.
+     */
+    private int assignHamerly(int row, int point, int counter) {
+        int assigned = assignments[row];
+        double upper = upperBounds[row] + drifts[assigned];
+        double lower = lowerBounds[row] - (assigned == largestDriftCluster ? secondLargestDrift : largestDrift);
+        upperBounds[row] = upper;
+        lowerBounds[row] = lower;
+        double bound = Math.max(halfSeparations[assigned], lower);
+        if (upper < bound)
+            return assigned;
+        upper = Math.sqrt(squaredDistance(centroids, assigned * dimension, blockPartials, point)) * LOOSER;
+        blockPartials[counter]++;
+        upperBounds[row] = upper;
+        if (upper < bound)
+            return assigned;
+        return assignAndBound(row, point, counter);
+    }
+
+    /**
+     * Loosens the bounds of a row by how far every centroid moved, and only measures its distance to a centroid when
+     * neither its lower bound for that centroid nor half the distance between that centroid and the one the row is
+     * assigned to lies above its upper bound. The first distance measured is the one to its own centroid, which
+     * tightens the upper bound.
+     */
+    private int assignElkan(int row, int point, int counter) {
+        int assigned = assignments[row];
+        int lowerBounds = row * numberOfClusters;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++)
+            this.lowerBounds[lowerBounds + cluster] -= drifts[cluster];
+        double upper = upperBounds[row] + drifts[assigned];
+        upperBounds[row] = upper;
+        if (upper < halfSeparations[assigned])
+            return assigned;
+
+        double assignedDistance = Double.NaN;
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            if (cluster == assigned || upper < this.lowerBounds[lowerBounds + cluster]
+                    || upper < halfDistances[assigned * numberOfClusters + cluster])
+                continue;
+            if (Double.isNaN(assignedDistance)) {
+                assignedDistance = squaredDistance(centroids, assigned * dimension, blockPartials, point);
+                blockPartials[counter]++;
+                upper = Math.sqrt(assignedDistance) * LOOSER;
+                this.lowerBounds[lowerBounds + assigned] = Math.sqrt(assignedDistance) * TIGHTER;
+                if (upper < this.lowerBounds[lowerBounds + cluster] || upper < halfDistances[assigned * numberOfClusters + cluster])
+                    continue;
+            }
+            double distance = squaredDistance(centroids, cluster * dimension, blockPartials, point);
+            blockPartials[counter]++;
+            this.lowerBounds[lowerBounds + cluster] = Math.sqrt(distance) * TIGHTER;
+            // ties go to the centroid that comes first, as they do with Lloyd's algorithm
+            if (distance < assignedDistance || (distance == assignedDistance && cluster < assigned)) {
+                assigned = cluster;
+                assignedDistance = distance;
+                upper = Math.sqrt(distance) * LOOSER;
+            }
+        }
+        upperBounds[row] = upper;
+        return assigned;
+    }
+
+    /**
+     * Returns the squared distance from the point at the given offset of the partials to the centroid of the given
+     * cluster, or any value no smaller than the bound once the distance is known to exceed it.
+     */
+    private double squaredDistance(int cluster, int point, double bound) {
+        int offset = cluster * dimension;
+        double sum = 0;
+        for (int axis = 0; axis < dimension && sum < bound; axis++) {
+            double difference = centroids[offset + axis] - blockPartials[point + axis];
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the squared distance between two points held in arrays, adding the axes up in the same order as
+     * {@link #squaredDistance(int, int, double)} for the sums to be the same.
+     */
+    private double squaredDistance(double[] first, int firstOffset, double[] second, int secondOffset) {
+        double sum = 0;
+        for (int axis = 0; axis < dimension; axis++) {
+            double difference = first[firstOffset + axis] - second[secondOffset + axis];
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    public long getIterationCount() {
+        return iterationCount;
+    }
+
+    public int getNumberOfClusters() {
+        return numberOfClusters;
+    }
+
+    public KMeansAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the number of distances between a row and a centroid measured so far, which the bounded algorithms keep
+     * well below the number of rows times the number of clusters per iteration.
+     */
+    public long getDistanceCount() {
+        return distanceCount;
+    }
+
+    /**
+     * Returns the cluster the given row was assigned to by the last iteration, which is 0 before the first one.
+     */
+    public int getAssignment(int row) {
+        return assignments[row];
+    }
+
+    /**
+     * Returns the centroids the engine works on, centroid after centroid, which the next iteration changes.
+     */
+    public double[] getCentroids() {
+        return centroids;
+    }
+
+    /**
+     * Returns the sum of the squared distances of every row to the centroid it was assigned to by the last iteration,
+     * measured before the centroids were moved. The bounded algorithms measure it on the calling thread when it is
+     * first asked for after an iteration.
+     */
+    public double getInertia() {
+        if (algorithm != KMeansAlgorithm.LLOYD && iterationCount > 0 && !hasInertia) {
+            // the same sums in the same order as Lloyd's algorithm adds up while it assigns the rows
+            int point = centroids.length;
+            double totalDistance = 0;
+            for (int block = 0; block < blockCount; block++) {
+                double blockDistance = 0;
+                int end = (int) Math.min(size, (long) (block + 1) * blockLength);
+                for (int row = block * blockLength; row < end; row++) {
+                    points.getPoint(row, blockPartials, point);
+                    blockDistance += squaredDistance(previousCentroids, assignments[row] * dimension, blockPartials, point);
+                }
+                totalDistance += blockDistance;
+            }
+            inertia = totalDistance;
+            hasInertia = true;
+        }
+        return inertia;
+    }
+
+    /**
+     * Runs a range of blocks, splitting it in halves until a single block is left.
+     */
+    private final class Blocks extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        Blocks(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runBlock(from);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Blocks(from, middle), new Blocks(middle, to));
+            }
+        }
+
+    }
+
+}
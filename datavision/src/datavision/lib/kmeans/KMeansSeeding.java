@@ -0,0 +1,357 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * How the first centroids of k-means are chosen among the instances of a dataset. Every strategy draws from a random
+ * generator built from the given seed, so that a seed always leads to the same centroids, whatever the number of
+ * threads they are computed on.
+ *
+ * @author Patrick Chan
+ */
+public enum KMeansSeeding {
+
+    /** Distinct instances drawn uniformly at random. */
+    RANDOM {
+        @Override
+        public double[] chooseCentroids(ColumnarDataSet points, int numberOfClusters, long seed, ForkJoinPool pool) {
+            checkClusters(points, numberOfClusters);
+            return copyRows(points, chooseDistinctRows(points.size(), numberOfClusters, new BitSet(), new Random(seed)));
+        }
+    },
+
+    /**
+     * k-means++: the first centroid is drawn uniformly, and every next one with a probability proportional to the
+     * squared distance of an instance to its nearest centroid so far. This takes one pass over the instances per
+     * cluster.
+     */
+    KMEANS_PLUS_PLUS {
+        @Override
+        public double[] chooseCentroids(ColumnarDataSet points, int numberOfClusters, long seed, ForkJoinPool pool) {
+            checkClusters(points, numberOfClusters);
+            return plusPlus(points::getPoint, points.size(), points.getDimension(), null, numberOfClusters, new Random(seed));
+        }
+    },
+
+    /**
+     * k-means||, the scalable variant of k-means++: a few passes over the instances each draw about
+     * {@value #OVERSAMPLING} times the number of clusters of candidates at once, every instance independently, and the
+     * centroids are then chosen among the candidates by k-means++, each candidate weighted by the number of instances
+     * nearest to it. The passes run on the given pool, if any.
+     */
+    KMEANS_PARALLEL {
+        @Override
+        public double[] chooseCentroids(ColumnarDataSet points, int numberOfClusters, long seed, ForkJoinPool pool) {
+            checkClusters(points, numberOfClusters);
+            Random random = new Random(seed);
+            int dimension = points.getDimension();
+            double[] candidates = new double[OVERSAMPLING * numberOfClusters * (ROUNDS + 1) * dimension];
+            points.getPoint(random.nextInt(points.size()), candidates, 0);
+            int candidateCount = 1;
+
+            double[] distances = new double[points.size()];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            long samplingSeed = random.nextLong();
+            Pass pass = new Pass(points, distances, candidates, 0, candidateCount);
+            run(pass, pool);
+            for (int round = 0; round < ROUNDS && pass.cost > 0; round++) {
+                Pass sampling = new Pass(points, distances, samplingSeed + round, OVERSAMPLING * numberOfClusters / pass.cost);
+                run(sampling, pool);
+                int firstCandidate = candidateCount;
+                for (int row : sampling.sampled) {
+                    if ((candidateCount + 1) * dimension > candidates.length)
+                        candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                    points.getPoint(row, candidates, candidateCount++ * dimension);
+                }
+                pass = new Pass(points, distances, candidates, firstCandidate, candidateCount);
+                run(pass, pool);
+            }
+
+            if (candidateCount <= numberOfClusters) {
+                // the instances lie too close together for the passes to find a candidate per cluster
+                double[] centroids = Arrays.copyOf(candidates, numberOfClusters * dimension);
+                int[] rows = chooseDistinctRows(points.size(), numberOfClusters - candidateCount, new BitSet(), random);
+                for (int i = 0; i < rows.length; i++)
+                    points.getPoint(rows[i], centroids, (candidateCount + i) * dimension);
+                return centroids;
+            }
+            // every candidate weighs as many instances as are nearer to it than to any other candidate
+            Pass weighing = new Pass(points, distances, candidates, candidateCount);
+            run(weighing, pool);
+            double[] chosen = candidates;
+            return plusPlus((row, destination, offset) -> System.arraycopy(chosen, row * dimension, destination, offset, dimension),
+                    candidateCount, dimension, weighing.weights, numberOfClusters, random);
+        }
+    };
+
+    /* the passes k-means|| makes to draw candidates, and how many candidates per cluster each one draws */
+    private static final int ROUNDS = 5;
+    private static final int OVERSAMPLING = 2;
+    /* the fewest instances worth handing to a separate task */
+    private static final int MIN_PASS_LENGTH = 1 << 12;
+
+    /**
+     * Chooses the first centroids.
+     *
+     * @param points           the instances to choose among, of which there must be at least as many as clusters
+     * @param numberOfClusters the number of centroids to choose
+     * @param seed             the seed of the random generator
+     * @param pool             the pool to run the passes over the instances on, or <code>null</code> to run them on
+     *                         the calling thread; only used by {@link #KMEANS_PARALLEL}
+     * @return the coordinates of the centroids, centroid after centroid
+     * @throws IllegalArgumentException if there are no clusters, or fewer instances than clusters
+     */
+    public abstract double[] chooseCentroids(ColumnarDataSet points, int numberOfClusters, long seed, ForkJoinPool pool);
+
+    private static void checkClusters(ColumnarDataSet points, int numberOfClusters) {
+        if (numberOfClusters < 1 || numberOfClusters > points.size())
+            throw new IllegalArgumentException("Cannot choose " + numberOfClusters + " centroids among " + points.size() + " instances");
+    }
+
+    /**
+     * Draws the given number of distinct rows that are not taken yet, moving on to the next free row whenever a row
+     * that is taken is drawn, and marks them as taken.
+     */
+    private static int[] chooseDistinctRows(int size, int count, BitSet taken, Random random) {
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            int row = taken.nextClearBit(random.nextInt(size));
+            if (row >= size)
+                row = taken.nextClearBit(0);
+            taken.set(row);
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    private static double[] copyRows(ColumnarDataSet points, int[] rows) {
+        int dimension = points.getDimension();
+        double[] coordinates = new double[rows.length * dimension];
+        for (int i = 0; i < rows.length; i++)
+            points.getPoint(rows[i], coordinates, i * dimension);
+        return coordinates;
+    }
+
+    @FunctionalInterface
+    private interface PointReader {
+
+        void read(int row, double[] destination, int offset);
+
+    }
+
+    /**
+     * Runs k-means++ over the given instances, each of which weighs as much as its weight, or 1 if there are none.
+     */
+    private static double[] plusPlus(PointReader points, int size, int dimension, double[] weights, int numberOfClusters, Random random) {
+        double[] centroids = new double[numberOfClusters * dimension];
+        double[] distances = new double[size];
+        double[] point = new double[dimension];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+
+        for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+            int chosen = drawWeighted(weights, cluster == 0 ? null : distances, size, random);
+            int centroid = cluster * dimension;
+            points.read(chosen, centroids, centroid);
+            for (int row = 0; row < size; row++) {
+                points.read(row, point, 0);
+                distances[row] = Math.min(distances[row], squaredDistance(point, centroids, centroid, dimension));
+            }
+        }
+        return centroids;
+    }
+
+    /**
+     * Draws a row with a probability proportional to its weight times its distance, either of which may be missing.
+     * When every product is 0, as once every instance coincides with a centroid, the draw only goes by the weights.
+     */
+    private static int drawWeighted(double[] weights, double[] distances, int size, Random random) {
+        double total = 0;
+        for (int row = 0; row < size; row++)
+            total += weight(weights, distances, row);
+        if (total <= 0)
+            return distances != null ? drawWeighted(weights, null, size, random) : random.nextInt(size);
+        double target = random.nextDouble() * total;
+        int last = 0;
+        for (int row = 0; row < size; row++) {
+            double weight = weight(weights, distances, row);
+            if (weight > 0) {
+                last = row;
+                target -= weight;
+                if (target < 0)
+                    return row;
+            }
+        }
+        // rounding may leave a sliver of the total
+        return last;
+    }
+
+    private static double weight(double[] weights, double[] distances, int row) {
+        return (weights != null ? weights[row] : 1) * (distances != null ? distances[row] : 1);
+    }
+
+    private static double squaredDistance(double[] point, double[] centroids, int centroid, int dimension) {
+        double sum = 0;
+        for (int axis = 0; axis < dimension; axis++) {
+            double difference = centroids[centroid + axis] - point[axis];
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns a number in <code>[0, 1)</code> that only depends on the seed and the row, so that the instances can be
+     * sampled in any order, on any thread.
+     */
+    private static double uniform(long seed, int row) {
+        long z = seed + (row + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    private static void run(Pass pass, ForkJoinPool pool) {
+        if (pool == null) {
+            pass.compute();
+        } else {
+            pass.forked = true;
+            pool.invoke(pass);
+        }
+    }
+
+    /**
+     * A pass over a range of instances, split in halves down to {@value #MIN_PASS_LENGTH} instances. A pass does one
+     * of three things:
+     * <ul>
+     *     <li>brings the distance of every instance to its nearest candidate up to date with the new candidates, and
+     *     adds the distances up into the cost;</li>
+     *     <li>samples every instance with a probability of its distance times the given rate;</li>
+     *     <li>counts the instances nearest to every candidate into the weights.</li>
+     * </ul>
+     * The halves are merged in row order, so that the outcome does not depend on how the range was split. They are
+     * forked only if the pass was handed to a pool; otherwise they are run one after the other on the calling thread,
+     * which still splits the range the same way, for the outcome to be the same too.
+     */
+    private static final class Pass extends RecursiveAction {
+
+        private final ColumnarDataSet points;
+        private final double[] distances;
+        private final double[] candidates;
+        private final int firstCandidate;
+        private final int candidateCount;
+        private final boolean sampling;
+        private final long seed;
+        private final double rate;
+        private final int from;
+        private final int to;
+        /* whether the halves run on the pool the pass was invoked on */
+        boolean forked;
+        double cost;
+        final List<Integer> sampled = new ArrayList<>();
+        /* the weight of every candidate, or null not to weigh them */
+        final double[] weights;
+
+        /**
+         * Creates a pass that brings the distances up to date with the candidates from the given one on.
+         */
+        Pass(ColumnarDataSet points, double[] distances, double[] candidates, int firstCandidate, int candidateCount) {
+            this(points, distances, candidates, firstCandidate, candidateCount, false, 0, 0, null, 0, points.size());
+        }
+
+        /**
+         * Creates a pass that samples the instances.
+         */
+        Pass(ColumnarDataSet points, double[] distances, long seed, double rate) {
+            this(points, distances, null, 0, 0, true, seed, rate, null, 0, points.size());
+        }
+
+        /**
+         * Creates a pass that weighs the candidates.
+         */
+        Pass(ColumnarDataSet points, double[] distances, double[] candidates, int candidateCount) {
+            this(points, distances, candidates, 0, candidateCount, false, 0, 0, new double[candidateCount], 0, points.size());
+        }
+
+        private Pass(ColumnarDataSet points, double[] distances, double[] candidates, int firstCandidate, int candidateCount,
+                     boolean sampling, long seed, double rate, double[] weights, int from, int to) {
+            this.points = points;
+            this.distances = distances;
+            this.candidates = candidates;
+            this.firstCandidate = firstCandidate;
+            this.candidateCount = candidateCount;
+            this.sampling = sampling;
+            this.seed = seed;
+            this.rate = rate;
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_PASS_LENGTH) {
+                int middle = (from + to) >>> 1;
+                Pass first = half(from, middle);
+                Pass second = half(middle, to);
+                if (forked) {
+                    invokeAll(first, second);
+                } else {
+                    first.compute();
+                    second.compute();
+                }
+                cost = first.cost + second.cost;
+                sampled.addAll(first.sampled);
+                sampled.addAll(second.sampled);
+                if (weights != null) {
+                    for (int i = 0; i < weights.length; i++)
+                        weights[i] = first.weights[i] + second.weights[i];
+                }
+                return;
+            }
+
+            if (sampling) {
+                for (int row = from; row < to; row++) {
+                    if (uniform(seed, row) < rate * distances[row])
+                        sampled.add(row);
+                }
+                return;
+            }
+            int dimension = points.getDimension();
+            double[] point = new double[dimension];
+            for (int row = from; row < to; row++) {
+                points.getPoint(row, point);
+                int nearest = -1;
+                double nearestDistance = weights != null ? Double.POSITIVE_INFINITY : distances[row];
+                for (int candidate = firstCandidate; candidate < candidateCount; candidate++) {
+                    double distance = squaredDistance(point, candidates, candidate * dimension, dimension);
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = candidate;
+                    }
+                }
+                // a distance that is not a number, or overflows, is never the nearest; the first candidate takes it
+                if (weights != null)
+                    weights[nearest >= 0 ? nearest : firstCandidate]++;
+                distances[row] = nearestDistance;
+                cost += nearestDistance;
+            }
+        }
+
+        private Pass half(int from, int to) {
+            Pass half = new Pass(points, distances, candidates, firstCandidate, candidateCount, sampling, seed, rate,
+                    weights != null ? new double[weights.length] : null, from, to);
+            half.forked = forked;
+            return half;
+        }
+
+    }
+
+}
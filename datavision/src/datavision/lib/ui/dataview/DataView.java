@@ -0,0 +1,235 @@
+package datavision.lib.ui.dataview;
+
+import javafx.collections.ObservableListBase;
+import javafx.css.PseudoClass;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextArea;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+
+import java.util.Collections;
+
+/**
+ * A virtualized, line by line view and editor of a data text. The lines are not copied into the view: the items of
+ * the list are read from a {@link LineSource} on demand, so only the lines that are scrolled into view are ever turned
+ * into strings and laid out, however large the text is.
+ * <p>
+ * A line is edited by clicking it once it is selected, or by pressing Enter. While editing, Enter commits the line,
+ * Shift+Enter breaks it into several lines and Escape cancels the edit. A committed line is handed to the
+ * {@link LineEditHandler}, which is expected to apply it to the text; the view then only refreshes the lines that
+ * changed. Any other change of the text has to be announced through {@link #textChanged()}.
+ *
+ * @author Patrick Chan
+ */
+public class DataView extends ListView<String> {
+
+    /**
+     * Supplies the lines of the text, indexed from 0.
+     */
+    public interface LineSource {
+
+        int getLineCount();
+
+        String getLine(int line);
+
+        /**
+         * Returns whether the line is either empty or a valid instance.
+         */
+        boolean isValidLine(int line);
+
+    }
+
+    /**
+     * Applies the replacement of a line of the text, which may itself span several lines or be empty.
+     */
+    @FunctionalInterface
+    public interface LineEditHandler {
+
+        void onLineEdit(int line, String replacement);
+
+    }
+
+    private static final String STYLE_CLASS = "data-view";
+    private static final String INVALID_LINE_STYLE_CLASS = "invalid-data-line";
+    private static final PseudoClass READ_ONLY = PseudoClass.getPseudoClass("read-only");
+    private static final String NEWLINE = "\n";
+
+    private final Lines lines;
+    private LineEditHandler lineEditHandler;
+    /* set while the text is changed by an edit made in this view, whose lines are refreshed afterwards */
+    private boolean applyingEdit;
+
+    public DataView() {
+        lines = new Lines();
+        setItems(lines);
+        setEditable(true);
+        getStyleClass().add(STYLE_CLASS);
+        setCellFactory(listView -> new LineCell());
+        setOnEditCommit(event -> commitLine(event.getIndex(), event.getNewValue()));
+        setOnKeyPressed(event -> {
+            int selectedLine = getSelectionModel().getSelectedIndex();
+            if (event.getCode() == KeyCode.ENTER && isEditable() && selectedLine >= 0) {
+                edit(selectedLine);
+                event.consume();
+            }
+        });
+        editableProperty().addListener((observable, wasEditable, isEditable) -> pseudoClassStateChanged(READ_ONLY, !isEditable));
+    }
+
+    public void setLineSource(LineSource source) {
+        lines.source = source;
+        textChanged();
+    }
+
+    public void setOnLineEdit(LineEditHandler handler) {
+        this.lineEditHandler = handler;
+    }
+
+    /**
+     * Refreshes every line after the text was changed other than through this view.
+     */
+    public void textChanged() {
+        if (!applyingEdit) {
+            lines.fireReplaced(0, lines.knownSize, lines.size());
+        }
+    }
+
+    /**
+     * Scrolls to the given 1-based line and selects it.
+     */
+    public void jumpToLine(int lineNumber) {
+        if (lines.size() == 0) {
+            return;
+        }
+        int line = Math.max(0, Math.min(lineNumber - 1, lines.size() - 1));
+        scrollTo(line);
+        getSelectionModel().select(line);
+        getFocusModel().focus(line);
+        requestFocus();
+    }
+
+    private void commitLine(int line, String replacement) {
+        if (lineEditHandler == null || line < 0 || line >= lines.size()) {
+            return;
+        }
+        // keeps an empty line at the end, to add further instances to
+        if (line == lines.size() - 1 && !replacement.isEmpty() && !replacement.endsWith(NEWLINE)) {
+            replacement += NEWLINE;
+        }
+        int sizeBefore = lines.knownSize;
+        applyingEdit = true;
+        try {
+            lineEditHandler.onLineEdit(line, replacement);
+        } finally {
+            applyingEdit = false;
+        }
+        lines.fireReplaced(line, 1, lines.size() - sizeBefore + 1);
+    }
+
+    /**
+     * The items of the view, which are read from the source rather than stored.
+     */
+    private static final class Lines extends ObservableListBase<String> {
+
+        private LineSource source;
+        /* the size last announced to the listeners, which the source may already have moved away from */
+        private int knownSize;
+
+        @Override
+        public String get(int index) {
+            return source.getLine(index);
+        }
+
+        @Override
+        public int size() {
+            return source == null ? 0 : source.getLineCount();
+        }
+
+        private void fireReplaced(int from, int removedCount, int addedCount) {
+            beginChange();
+            if (removedCount > 0) {
+                nextRemove(from, Collections.nCopies(removedCount, ""));
+            }
+            if (addedCount > 0) {
+                nextAdd(from, from + addedCount);
+            }
+            knownSize = size();
+            endChange();
+        }
+
+    }
+
+    /**
+     * Shows a single line, and edits it in a one-row text area, which unlike a text field keeps the tabs of the line.
+     */
+    private final class LineCell extends ListCell<String> {
+
+        private TextArea editor;
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            getStyleClass().remove(INVALID_LINE_STYLE_CLASS);
+            if (empty || item == null) {
+                setText(null);
+                setGraphic(null);
+            } else if (isEditing()) {
+                editor.setText(item);
+                setText(null);
+                setGraphic(editor);
+            } else {
+                if (!lines.source.isValidLine(getIndex())) {
+                    getStyleClass().add(INVALID_LINE_STYLE_CLASS);
+                }
+                setText(item);
+                setGraphic(null);
+            }
+        }
+
+        @Override
+        public void startEdit() {
+            super.startEdit();
+            if (!isEditing()) {
+                return;
+            }
+            if (editor == null) {
+                editor = createEditor();
+            }
+            editor.setText(getItem());
+            setText(null);
+            setGraphic(editor);
+            editor.requestFocus();
+            editor.selectAll();
+        }
+
+        @Override
+        public void cancelEdit() {
+            super.cancelEdit();
+            setText(getItem());
+            setGraphic(null);
+        }
+
+        private TextArea createEditor() {
+            TextArea textArea = new TextArea();
+            textArea.setPrefRowCount(1);
+            textArea.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+                if (event.getCode() == KeyCode.ENTER && !event.isShiftDown()) {
+                    commitEdit(textArea.getText());
+                    event.consume();
+                } else if (event.getCode() == KeyCode.ESCAPE) {
+                    cancelEdit();
+                    event.consume();
+                }
+            });
+            textArea.focusedProperty().addListener((observable, wasFocused, isFocused) -> {
+                if (!isFocused && isEditing()) {
+                    commitEdit(textArea.getText());
+                }
+            });
+            return textArea;
+        }
+
+    }
+
+}
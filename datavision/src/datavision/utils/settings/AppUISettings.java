@@ -6,6 +6,21 @@ public enum AppUISettings {
     SAVE_ERROR_MSG_FORMAT,
 
     ALGORITHM_INTERRUPTED_TITLE,
-    ALGORITHM_INTERRUPTED_MESSAGE
+    ALGORITHM_INTERRUPTED_MESSAGE,
+
+    LOAD_SAMPLING_TEXT,
+    LOAD_READING_TEXT,
+    LOAD_PARSING_TEXT,
+    LOAD_VALIDATING_TEXT,
+    LOAD_SUMMARIZING_TEXT,
+    LOAD_CANCEL_TEXT,
+
+    FOLLOW_FILE_TEXT,
+
+    PROJECTION_X_AXIS_TEXT,
+    PROJECTION_Y_AXIS_TEXT,
+
+    EXPORT_RESULTS_TEXT,
+    EXPORTING_RESULTS_TEXT
 
 }
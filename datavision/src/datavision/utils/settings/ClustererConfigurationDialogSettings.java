@@ -2,6 +2,11 @@ package datavision.utils.settings;
 
 public enum ClustererConfigurationDialogSettings {
 
-    NUMBER_OF_CLUSTERS
+    NUMBER_OF_CLUSTERS,
+    INITIALIZATION,
+    RANDOM_INITIALIZATION,
+    KMEANS_PLUS_PLUS_INITIALIZATION,
+    KMEANS_PARALLEL_INITIALIZATION,
+    RANDOM_SEED
 
 }
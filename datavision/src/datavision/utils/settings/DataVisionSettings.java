@@ -24,6 +24,12 @@ public enum DataVisionSettings {
     /* application-specific parameters */
     DATA_FILE_EXT,
     DATA_FILE_EXT_DESC,
+    COMPRESSED_DATA_FILE_EXT,
+    COMPRESSED_DATA_FILE_EXT_DESC,
+    SNAPSHOT_FILE_EXT,
+    SNAPSHOT_FILE_EXT_DESC,
+    CSV_FILE_EXT,
+    CSV_FILE_EXT_DESC,
     TEXT_AREA,
     LEFT_PANE_TITLE,
     LEFT_PANE_TITLEFONT,
@@ -44,8 +50,10 @@ public enum DataVisionSettings {
     CHART_LEGEND,
 
     INVALID_DATA_TITLE,
-    INVALID_DATA_FORMAT_MSG,
-    DUPLICATE_NAMES_FORMAT_MSG,
+    INVALID_DATA_SUMMARY_FORMAT,
+    DUPLICATE_NAMES_SUMMARY_FORMAT,
+    DUPLICATE_NAME_ERROR_FORMAT,
+    MORE_DATA_ERRORS_FORMAT,
 
     EDIT_DONE_TOGGLE_BUTTON,
     EDIT_BUTTON_TEXT,
@@ -53,6 +61,15 @@ public enum DataVisionSettings {
 
     META_DATA_NO_FILE_FORMAT_STRING,
     META_DATA_WITH_FILE_FORMAT_STRING,
+    PREVIEW_META_DATA_FORMAT_STRING,
+    SAMPLE_META_DATA_FORMAT_STRING,
+    PREVIEW_FILE_SIZE_THRESHOLD_MB,
+    PREVIEW_SAMPLE_SIZE,
+    PREVIEW_PER_LABEL,
+    MAX_REPORTED_DATA_ERRORS,
+    OFF_HEAP_FILE_SIZE_THRESHOLD_MB,
+    PARALLEL_CLUSTERING,
+    MINI_BATCH_SIZE,
 
     BACK_TEXT,
     NEXT_TEXT,
@@ -0,0 +1,131 @@
+package datavision.algorithms;
+
+import javafx.geometry.Point2D;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ColumnarDataSetTest {
+
+    /**
+     * Test that instances added by row can be read back both by row and through the map views that the existing
+     * algorithms use.
+     */
+    @Test
+    public void testRowsAreVisibleThroughViews() {
+        ColumnarDataSet dataSet = new ColumnarDataSet(1);
+        dataSet.addRow("@a", "x", 1, 2);
+        dataSet.addRow("@b", "y", 3.5, 4);
+        dataSet.addRow("@c", "x", 5, 6);
+
+        assertEquals(3, dataSet.size());
+        assertEquals(2, dataSet.getLabelDictionary().size());
+        assertEquals(dataSet.getLabelId(0), dataSet.getLabelId(2));
+        assertEquals("y", dataSet.getLabels().get("@b"));
+        assertEquals(new Point2D(3.5, 4), dataSet.getPoints().get("@b"));
+        assertEquals(3, dataSet.getLabels().size());
+        assertNull(dataSet.getLabels().get("@d"));
+    }
+
+    /**
+     * Test that writing a label through the labels view updates the label column, which is how the clusterers report
+     * their assignments.
+     */
+    @Test
+    public void testWritingThroughLabelsView() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "x", 1, 2);
+        dataSet.addRow("@b", "x", 3, 4);
+
+        Map<String, String> labels = dataSet.getLabels();
+        labels.put("@b", "0");
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            if (entry.getKey().equals("@a"))
+                entry.setValue("1");
+        }
+
+        assertEquals("1", dataSet.getLabel(0));
+        assertEquals("0", dataSet.getLabel(1));
+    }
+
+    /**
+     * Test that instances of a higher dimension keep every coordinate, while the points view projects them on the
+     * first two.
+     */
+    @Test
+    public void testHigherDimension() throws DataSet.InvalidDataNameException {
+        ColumnarDataSet dataSet = new ColumnarDataSet(1);
+        dataSet.setDimension(3);
+        dataSet.addRow("@a", "x", new double[]{1, 2, 3});
+        dataSet.addInstance("@b\ty\t4,5,6");
+        dataSet.addInstance("@a\tz\t7,8,9");
+
+        assertEquals(2, dataSet.size());
+        assertEquals(3, dataSet.getDimension());
+        assertEquals(9, dataSet.getCoordinate(0, 2), 0);
+        assertEquals(6, dataSet.getCoordinate(1, 2), 0);
+        assertEquals(new Point2D(4, 5), dataSet.getPoints().get("@b"));
+
+        double[] point = new double[3];
+        dataSet.copy().getPoint(1, point);
+        assertArrayEquals(new double[]{4, 5, 6}, point, 0);
+    }
+
+    /**
+     * Test that the dimension is fixed once a dataset holds instances, and that an empty dataset takes the dimension of
+     * the rows added to it.
+     */
+    @Test
+    public void testDimensionMismatch() throws DataSet.InvalidDataNameException {
+        ColumnarDataSet planar = new ColumnarDataSet();
+        planar.addRow("@a", "x", 1, 2);
+        ColumnarDataSet spatial = new ColumnarDataSet();
+        spatial.addInstance("@b\tx\t1,2,3");
+
+        ColumnarDataSet empty = new ColumnarDataSet();
+        empty.addRows(spatial);
+        assertEquals(3, empty.getDimension());
+        try {
+            planar.addRows(spatial);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            planar.setDimension(3);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            spatial.addRow("@c", "x", 1, 2);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            planar.addInstance("@c\tx\t1,2,3");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that {@link ColumnarDataSet#addInstance(String)} keeps the map semantics of {@link DataSet}, where a line
+     * with an existing name replaces the earlier instance.
+     */
+    @Test
+    public void testAddInstanceReplacesExistingName() throws DataSet.InvalidDataNameException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addInstance("@a\tx\t1,2");
+        dataSet.addInstance("@a\ty\t3,4");
+
+        assertEquals(1, dataSet.size());
+        assertEquals("y", dataSet.getLabels().get("@a"));
+        assertEquals(new Point2D(3, 4), dataSet.getPoints().get("@a"));
+    }
+
+}
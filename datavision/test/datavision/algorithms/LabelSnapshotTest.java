@@ -0,0 +1,97 @@
+package datavision.algorithms;
+
+import datavision.algorithms.clusterer.KMeansClusterer;
+import datavision.lib.data.ColumnStorage;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LabelSnapshotTest {
+
+    /**
+     * Test that a snapshot keeps the labels it was taken with while the dataset goes on being relabeled, including
+     * with labels that did not exist yet.
+     */
+    @Test
+    public void testLaterLabelChangesAreNotSeen() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        dataSet.addRow("@a", "x", new double[]{1, 2, 3});
+        dataSet.addRow("@b", "y", new double[]{4, 5, 6});
+
+        LabelSnapshot snapshot = LabelSnapshot.of(dataSet, 7);
+        dataSet.setLabel(0, "y");
+        dataSet.setLabel(1, "z");
+
+        assertEquals(7, snapshot.getGeneration());
+        assertEquals(2, snapshot.size());
+        assertEquals(3, snapshot.getDimension());
+        assertEquals("x", snapshot.getLabel(0));
+        assertEquals("y", snapshot.getLabel(1));
+        assertEquals("@b", snapshot.getName(1));
+        assertEquals(6, snapshot.getCoordinate(1, 2), 0);
+    }
+
+    /**
+     * Test that rows added to the dataset after the snapshot was taken are not part of it.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLaterRowsAreNotSeen() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "x", 1, 2);
+        LabelSnapshot snapshot = LabelSnapshot.of(dataSet, 0);
+        dataSet.addRow("@b", "x", 3, 4);
+
+        assertEquals(1, snapshot.size());
+        snapshot.getName(1);
+    }
+
+    /**
+     * Test that the labels of rows added to the dataset after the snapshot was taken are not read either, even from
+     * direct storage, whose columns hold more ids than they were asked for.
+     */
+    @Test
+    public void testLabelsOfLaterRowsAreNotSeen() {
+        ColumnarDataSet dataSet = new ColumnarDataSet(ColumnStorage.DIRECT);
+        dataSet.addRow("@a", "x", 1, 2);
+        LabelSnapshot snapshot = LabelSnapshot.of(dataSet, 0);
+        dataSet.addRow("@b", "y", 3, 4);
+
+        try {
+            snapshot.getLabel(1);
+            fail("The label of a later row should not be read");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            snapshot.getLabelId(1);
+            fail("The label id of a later row should not be read");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a clusterer publishes a newer generation each time, and that a published snapshot is left as it was
+     * by the iterations that follow.
+     */
+    @Test
+    public void testClustererPublishesGenerations() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        for (int i = 0; i < 10; i++)
+            dataSet.addRow("@instance" + i, "null", i < 5 ? i : 100 + i, 0);
+        KMeansClusterer clusterer = new KMeansClusterer(dataSet, 10, 1, 2);
+        assertNull(clusterer.getSnapshot());
+
+        LabelSnapshot first = clusterer.publishSnapshot();
+        clusterer.runUpdateInterval();
+        LabelSnapshot second = clusterer.publishSnapshot();
+
+        assertSame(second, clusterer.getSnapshot());
+        assertTrue(second.getGeneration() > first.getGeneration());
+        for (int row = 0; row < first.size(); row++)
+            assertEquals("null", first.getLabel(row));
+        assertFalse("null".equals(second.getLabel(0)));
+    }
+
+}
@@ -0,0 +1,36 @@
+package datavision.algorithms.clusterer;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KMeansClustererTest {
+
+    /**
+     * Test that two groups that only lie apart along the third axis end up in two different clusters, whatever
+     * instances the centroids start at.
+     */
+    @Test
+    public void testClustersInThreeDimensions() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        for (int i = 0; i < 20; i++) {
+            double depth = i < 10 ? 0 : 100;
+            dataSet.addRow("@instance" + i, "null", new double[]{i % 3, i % 2, depth + i % 5});
+        }
+
+        for (int run = 0; run < 10; run++) {
+            KMeansClusterer clusterer = new KMeansClusterer(dataSet.copy(), 50, 1, 2);
+            clusterer.run();
+            ColumnarDataSet output = (ColumnarDataSet) clusterer.getOutput();
+
+            for (int row = 1; row < output.size(); row++)
+                assertEquals(row < 10, output.getLabel(row).equals(output.getLabel(0)));
+            double[] centroid = clusterer.getCentroid(Integer.parseInt(output.getLabel(19)));
+            assertEquals(3, centroid.length);
+            assertEquals(102, centroid[2], 1e-9);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package datavision.algorithms.clusterer;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.lib.kmeans.KMeansSeeding;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MiniBatchKMeansClustererTest {
+
+    /**
+     * Test that two groups that only lie apart along the third axis end up in two different clusters.
+     */
+    @Test
+    public void testClustersInThreeDimensions() {
+        ColumnarDataSet dataSet = groups();
+        for (long seed = 0; seed < 10; seed++) {
+            MiniBatchKMeansClusterer clusterer = new MiniBatchKMeansClusterer(dataSet.copy(), 50, 1, 2);
+            clusterer.setBatchSize(8);
+            clusterer.setSeeding(KMeansSeeding.KMEANS_PLUS_PLUS, seed);
+            clusterer.run();
+            ColumnarDataSet output = (ColumnarDataSet) clusterer.getOutput();
+
+            for (int row = 1; row < output.size(); row++)
+                assertEquals(row < 10, output.getLabel(row).equals(output.getLabel(0)));
+            double[] centroid = clusterer.getCentroid(Integer.parseInt(output.getLabel(19)));
+            assertEquals(100, centroid[2], 5);
+        }
+    }
+
+    /**
+     * Test that the instances are only labelled when the labels are read, and that the same seed leads to the same
+     * centroids.
+     */
+    @Test
+    public void testLabelsOnlyWhenRead() {
+        ColumnarDataSet dataSet = groups();
+        MiniBatchKMeansClusterer clusterer = new MiniBatchKMeansClusterer(dataSet, 20, 1, 2);
+        MiniBatchKMeansClusterer twin = new MiniBatchKMeansClusterer(dataSet.copy(), 20, 1, 2);
+        clusterer.setSeeding(KMeansSeeding.RANDOM, 5);
+        twin.setSeeding(KMeansSeeding.RANDOM, 5);
+        clusterer.run();
+        twin.run();
+
+        assertEquals("null", dataSet.getLabel(0));
+        assertNotNull(clusterer.publishSnapshot());
+        assertFalse("null".equals(dataSet.getLabel(0)));
+        assertArrayEquals(clusterer.getCentroid(0), twin.getCentroid(0), 0);
+        assertArrayEquals(clusterer.getCentroid(1), twin.getCentroid(1), 0);
+    }
+
+    private static ColumnarDataSet groups() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        for (int i = 0; i < 20; i++) {
+            double depth = i < 10 ? 0 : 100;
+            dataSet.addRow("@instance" + i, "null", new double[]{i % 3, i % 2, depth + i % 5});
+        }
+        return dataSet;
+    }
+
+}
@@ -0,0 +1,114 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.algorithms.LabelSnapshot;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class ClusterResultExporterTest {
+
+    /**
+     * Test that a <code>.tsd</code> export through a buffer smaller than a line loads back into the same instances,
+     * followed by the centroids.
+     */
+    @Test
+    public void testTSDExportLoadsBack() throws IOException, TSDLineParser.InvalidLineException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        for (int i = 0; i < 100; i++)
+            dataSet.addRow("@instance" + i, Integer.toString(i % 2), new double[]{i, i * 0.5, -i});
+        LabelSnapshot snapshot = LabelSnapshot.of(dataSet, new double[]{1, 2, 3, 4.5, 5, 6}, 1);
+        Path file = Files.createTempFile("export", ".tsd");
+        try {
+            long rows = new ClusterResultExporter(ClusterResultExporter.Format.TSD, 8).export(snapshot, file, null);
+
+            ColumnarDataSet exported = ColumnarDataSet.fromTSDFile(file, false);
+            assertEquals(102, rows);
+            assertEquals(102, exported.size());
+            assertEquals(3, exported.getDimension());
+            assertEquals("@instance7", exported.getName(7));
+            assertEquals("1", exported.getLabel(7));
+            assertEquals(3.5, exported.getCoordinate(7, 1), 0);
+            assertEquals("@centroid1", exported.getName(101));
+            assertEquals("1", exported.getLabel(101));
+            assertEquals(4.5, exported.getCoordinate(101, 0), 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that centroids are named apart from instances that already go by the names centroids are given, so that the
+     * export loads back without duplicate names.
+     */
+    @Test
+    public void testCentroidNamesDoNotCollide() throws IOException, TSDLineParser.InvalidLineException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@centroid1", "0", 1, 2);
+        dataSet.addRow("@centroid_0", "1", 3, 4);
+        LabelSnapshot snapshot = LabelSnapshot.of(dataSet, new double[]{1, 2, 3, 4}, 1);
+        Path file = Files.createTempFile("export", ".tsd");
+        try {
+            new ClusterResultExporter(ClusterResultExporter.Format.TSD).export(snapshot, file, null);
+
+            ColumnarDataSet exported = ColumnarDataSet.fromTSDFile(file, false);
+            assertEquals(4, exported.size());
+            assertEquals("@centroid__0", exported.getName(2));
+            assertEquals("@centroid__1", exported.getName(3));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that a <code>.csv</code> export has a header naming every coordinate, and quotes the labels that need it.
+     */
+    @Test
+    public void testCSVExport() throws IOException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "plain", 1, 2.25);
+        dataSet.addRow("@b", "with,comma \"quoted\"", 3, 4);
+        Path file = Files.createTempFile("export", ".csv");
+        try {
+            assertEquals(ClusterResultExporter.Format.CSV, ClusterResultExporter.formatOf(file));
+            new ClusterResultExporter(ClusterResultExporter.Format.CSV).export(LabelSnapshot.of(dataSet, 0), file, null);
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(3, lines.size());
+            assertEquals("name,label,x1,x2", lines.get(0));
+            assertEquals("@a,plain,1,2.25", lines.get(1));
+            assertEquals("@b,\"with,comma \"\"quoted\"\"\",3,4", lines.get(2));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that a cancelled export throws and leaves no partial file behind.
+     */
+    @Test
+    public void testCancelledExportIsDeleted() throws IOException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "x", 1, 2);
+        Path file = Files.createTempFile("export", ".tsd");
+        ClusterResultExporter exporter = new ClusterResultExporter(ClusterResultExporter.Format.TSD);
+        exporter.cancel();
+        try {
+            exporter.export(LabelSnapshot.of(dataSet, 0), file, null);
+            fail("The export should have been cancelled");
+        } catch (CancellationException e) {
+            assertFalse(Files.exists(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
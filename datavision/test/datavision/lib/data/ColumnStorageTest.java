@@ -0,0 +1,136 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.algorithms.clusterer.KMeansClusterer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ColumnStorageTest {
+
+    /* well past the first chunk of an off-heap column */
+    private static final long FAR_INDEX = (1L << 21) + 3;
+
+    /**
+     * Test that the columns of every storage hold the same values, across chunks and after growing.
+     */
+    @Test
+    public void testStoragesAgree() {
+        for (ColumnStorage storage : ColumnStorage.values()) {
+            DoubleColumn doubles = storage.newDoubleColumn(10);
+            IntColumn ints = storage.newIntColumn(10);
+            doubles.set(9, 0.5);
+            ints.set(9, -7);
+            doubles = doubles.grow(FAR_INDEX + 1);
+            ints = ints.grow(FAR_INDEX + 1);
+            doubles.set(FAR_INDEX, 1e300);
+            ints.set(FAR_INDEX, Integer.MAX_VALUE);
+
+            assertTrue(storage.name(), doubles.length() > FAR_INDEX);
+            assertEquals(storage.name(), 0.5, doubles.get(9), 0);
+            assertEquals(storage.name(), 0, doubles.get(10), 0);
+            assertEquals(storage.name(), 1e300, doubles.get(FAR_INDEX), 0);
+            assertEquals(storage.name(), -7, ints.get(9));
+            assertEquals(storage.name(), Integer.MAX_VALUE, ints.get(FAR_INDEX));
+        }
+    }
+
+    /**
+     * Test that a dataset held off the heap reads, copies and appends like one held on the heap.
+     */
+    @Test
+    public void testOffHeapDataSet() {
+        ColumnarDataSet heap = new ColumnarDataSet();
+        ColumnarDataSet mapped = new ColumnarDataSet(ColumnStorage.MAPPED);
+        for (ColumnarDataSet dataSet : new ColumnarDataSet[]{heap, mapped}) {
+            dataSet.setDimension(3);
+            for (int row = 0; row < 100; row++)
+                dataSet.addRow("@instance" + row, "label" + row % 3, new double[]{row, -row, row * 0.5});
+            dataSet.addRows(dataSet.copy());
+        }
+
+        assertEquals(ColumnStorage.MAPPED, mapped.copy().getStorage());
+        assertEquals(heap.size(), mapped.size());
+        double[] expected = new double[3];
+        double[] actual = new double[3];
+        for (int row = 0; row < heap.size(); row++) {
+            heap.getPoint(row, expected);
+            mapped.getPoint(row, actual);
+            assertArrayEquals(expected, actual, 0);
+            assertEquals(heap.getLabel(row), mapped.getLabel(row));
+        }
+        assertEquals(mapped.getLabelId(150), mapped.copyLabelIds().get(150));
+    }
+
+    /**
+     * Test that k-means clusters a dataset held in mapped columns that are larger than the whole heap of the JVM it
+     * runs in.
+     */
+    @Test
+    public void testClusteringLargerThanHeap() throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Xmx" + LargeClustering.MAX_HEAP_MB + "m",
+                "-cp", System.getProperty("java.class.path"), LargeClustering.class.getName())
+                .redirectErrorStream(true).start();
+        String output = readAll(process.getInputStream());
+        assertTrue("the clustering did not complete in time", process.waitFor(5, TimeUnit.MINUTES));
+
+        assertEquals(output, 0, process.exitValue());
+        String[] counts = output.trim().split(" ");
+        assertTrue(output, Long.parseLong(counts[0]) > (long) LargeClustering.MAX_HEAP_MB << 20);
+        assertEquals(output, LargeClustering.ROWS, Integer.parseInt(counts[1]));
+    }
+
+    /**
+     * Fills a mapped dataset with more coordinates than the heap can hold, clusters it, and prints the size of its
+     * coordinates along with the number of rows that ended up in a cluster.
+     */
+    public static final class LargeClustering {
+
+        static final int MAX_HEAP_MB = 64;
+        static final int ROWS = 1 << 20;
+        private static final int DIMENSION = 16;
+        private static final int CLUSTERS = 4;
+
+        public static void main(String[] args) {
+            ColumnarDataSet dataSet = new ColumnarDataSet(ROWS, ColumnStorage.MAPPED);
+            dataSet.setDimension(DIMENSION);
+            double[] point = new double[DIMENSION];
+            for (int row = 0; row < ROWS; row++) {
+                for (int axis = 0; axis < DIMENSION; axis++)
+                    point[axis] = (row % CLUSTERS) * 100 + (row * 31 + axis) % 7;
+                dataSet.addRow("@" + row, "none", point);
+            }
+            long coordinateBytes = (long) ROWS * DIMENSION * Double.BYTES;
+            if (coordinateBytes <= Runtime.getRuntime().maxMemory())
+                System.exit(2);
+
+            KMeansClusterer clusterer = new KMeansClusterer(dataSet, 3, 1, CLUSTERS);
+            clusterer.run();
+            ColumnarDataSet output = (ColumnarDataSet) clusterer.getOutput();
+            int clustered = 0;
+            for (int row = 0; row < output.size(); row++) {
+                if (!"none".equals(output.getLabel(row)))
+                    clustered++;
+            }
+            System.out.println(coordinateBytes + " " + clustered);
+        }
+
+    }
+
+    private static String readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = input.read(buffer)) >= 0; )
+            bytes.write(buffer, 0, read);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,96 @@
+package datavision.lib.data;
+
+import javafx.geometry.Point2D;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Compares reading the locations of a generated <code>.tsd</code> file through <code>split(",")</code>,
+ * {@link Double#parseDouble(String)} and a {@link Point2D} per line, as the loaders used to, with reading them through
+ * a {@link CoordinateParser} straight out of the mapped file. Both sides find the lines and the location field on the
+ * raw bytes, so only the coordinate parsing differs.
+ * <p>
+ * Run it with the number of lines as its only argument, 10 million by default.
+ *
+ * @author Patrick Chan
+ */
+public final class CoordinateParserBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path file = Files.createTempFile("coordinates", ".tsd");
+        try {
+            generate(file, numberOfLines);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int round = 1; round <= ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    double splitSum = sumWithSplit(buffer);
+                    long splitTime = System.nanoTime() - start;
+                    start = System.nanoTime();
+                    double parserSum = sumWithParser(buffer);
+                    long parserTime = System.nanoTime() - start;
+                    System.out.printf("round %d: split %d ms, parser %d ms, same sums: %b%n", round,
+                            splitTime / 1_000_000, parserTime / 1_000_000, splitSum == parserSum);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void generate(Path file, int numberOfLines) throws IOException {
+        Random random = new Random(1);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int line = 0; line < numberOfLines; line++) {
+                String x = String.format("%.3f", random.nextDouble() * 2000 - 1000);
+                String y = String.valueOf(random.nextInt(100000));
+                TSDWriter.writeLine(writer, "@instance" + line, "label" + line % 5, Double.parseDouble(x), Double.parseDouble(y));
+            }
+        }
+    }
+
+    private static double sumWithSplit(MappedByteBuffer buffer) {
+        double sum = 0;
+        byte[] bytes = new byte[64];
+        for (int start = 0, end; start < buffer.limit(); start = end + 1) {
+            end = TSDLineParser.indexOf(buffer, (byte) '\n', start, buffer.limit());
+            int location = locationStart(buffer, start, end);
+            for (int i = location; i < end; i++)
+                bytes[i - location] = buffer.get(i);
+            String[] pair = new String(bytes, 0, end - location, StandardCharsets.UTF_8).split(",");
+            Point2D point = new Point2D(Double.parseDouble(pair[0]), Double.parseDouble(pair[1]));
+            sum += point.getX() + point.getY();
+        }
+        return sum;
+    }
+
+    private static double sumWithParser(MappedByteBuffer buffer) {
+        double sum = 0;
+        CoordinateParser parser = new CoordinateParser();
+        for (int start = 0, end; start < buffer.limit(); start = end + 1) {
+            end = TSDLineParser.indexOf(buffer, (byte) '\n', start, buffer.limit());
+            parser.parse(buffer, locationStart(buffer, start, end), end);
+            sum += parser.getX() + parser.getY();
+        }
+        return sum;
+    }
+
+    private static int locationStart(MappedByteBuffer buffer, int start, int end) {
+        int i = end - 1;
+        while (buffer.get(i) != '\t')
+            i--;
+        return i + 1;
+    }
+
+}
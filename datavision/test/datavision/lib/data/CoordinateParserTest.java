@@ -0,0 +1,135 @@
+package datavision.lib.data;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CoordinateParserTest {
+
+    /**
+     * Test that random decimal numbers, short and long, parse to exactly the same values as with
+     * {@link Double#parseDouble(String)}, from both chars and bytes.
+     */
+    @Test
+    public void testSameValuesAsParseDouble() {
+        Random random = new Random(9);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder number = new StringBuilder();
+            if (random.nextBoolean())
+                number.append(random.nextBoolean() ? '-' : '+');
+            int integerDigits = random.nextInt(20);
+            for (int digit = 0; digit < integerDigits; digit++)
+                number.append((char) ('0' + random.nextInt(10)));
+            if (integerDigits == 0 || random.nextBoolean()) {
+                number.append('.');
+                int fractionDigits = 1 + random.nextInt(25);
+                for (int digit = 0; digit < fractionDigits; digit++)
+                    number.append((char) ('0' + random.nextInt(10)));
+            }
+            assertSameValue(number.toString());
+        }
+    }
+
+    /**
+     * Test the edge cases of the decimal forms, along with the forms that are handed over to
+     * {@link Double#parseDouble(String)}.
+     */
+    @Test
+    public void testEdgeCases() {
+        String[] numbers = {"0", "-0", "+0", ".5", "5.", "-.25", "0.1", "0.3", "9007199254740991", "9007199254740993",
+                "0.0000000000000000000001", "0.00000000000000000000001", "1e3", "-2.5E-3", " 4", "7d"};
+        for (String number : numbers)
+            assertSameValue(number);
+    }
+
+    /**
+     * Test that anything other than a finite number is rejected, including what {@link Double#parseDouble(String)}
+     * reads as an infinity or not a number.
+     */
+    @Test
+    public void testInvalidNumbers() {
+        String[] numbers = {"", "-", ".", "1.2.3", "1,5", "abc", "--1", "NaN", "Infinity", "-Infinity", "1e400"};
+        for (String number : numbers) {
+            try {
+                CoordinateParser.parseNumber(number, 0, number.length());
+                fail(number);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+            try {
+                CoordinateParser.parseNumber(toBuffer(number), 0, number.length());
+                fail(number);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test that a location is read from within a larger range, and that a location without a comma is rejected.
+     */
+    @Test
+    public void testParseLocation() {
+        String line = "@a\tlabel\t-1.5,20.125";
+        CoordinateParser parser = new CoordinateParser();
+        parser.parse(line, 9, line.length());
+        assertEquals(-1.5, parser.getX(), 0);
+        assertEquals(20.125, parser.getY(), 0);
+
+        parser.parse(toBuffer(line), 9, line.length() - 2);
+        assertEquals(-1.5, parser.getX(), 0);
+        assertEquals(20.1, parser.getY(), 0);
+
+        try {
+            parser.parse("12", 0, 2);
+            fail();
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a location may hold more than two coordinates, and that it is rejected with too few or too many of
+     * them, or with an empty one.
+     */
+    @Test
+    public void testParseHigherDimension() {
+        CoordinateParser parser = new CoordinateParser();
+        parser.parse("1,-2.5,3,0.125", 0, 14);
+        assertEquals(4, parser.getDimension());
+        assertEquals(-2.5, parser.getY(), 0);
+        assertEquals(0.125, parser.getCoordinate(3), 0);
+
+        parser.parse(toBuffer("@a\tl\t4,5,6"), 5, 10);
+        assertEquals(3, parser.getDimension());
+        assertEquals(6, parser.getCoordinate(2), 0);
+
+        StringBuilder tooMany = new StringBuilder("0");
+        for (int i = 0; i < CoordinateParser.MAX_DIMENSION; i++)
+            tooMany.append(",0");
+        for (String location : new String[]{"1", "1,2,", "1,,2", tooMany.toString()}) {
+            try {
+                parser.parse(location, 0, location.length());
+                fail(location);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void assertSameValue(String number) {
+        long expected = Double.doubleToRawLongBits(Double.parseDouble(number));
+        assertEquals(number, expected, Double.doubleToRawLongBits(CoordinateParser.parseNumber(number, 0, number.length())));
+        ByteBuffer buffer = toBuffer("," + number + ",");
+        assertEquals(number, expected, Double.doubleToRawLongBits(CoordinateParser.parseNumber(buffer, 1, number.length() + 1)));
+    }
+
+    private static ByteBuffer toBuffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
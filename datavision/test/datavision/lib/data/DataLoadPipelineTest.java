@@ -0,0 +1,155 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class DataLoadPipelineTest {
+
+    private static final String DATA = "@a\tlabel1\t1,2\n@b\tlabel2\t3.5,4\n@c\tlabel1\t0,0.25\n";
+
+    /**
+     * Test that every stage but the sampling is run in order, and that the result holds the document, the dataset, its
+     * validation and its statistics.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            List<DataLoadPipeline.Stage> stages = new ArrayList<>();
+            DataLoadPipeline.Result result = new DataLoadPipeline(file, DataLoadPipeline.Format.TSD).run((stage, fraction) -> {
+                if (stages.isEmpty() || stages.get(stages.size() - 1) != stage)
+                    stages.add(stage);
+            });
+
+            assertEquals(Arrays.asList(DataLoadPipeline.Stage.READING, DataLoadPipeline.Stage.PARSING,
+                    DataLoadPipeline.Stage.VALIDATING, DataLoadPipeline.Stage.SUMMARIZING), stages);
+            assertEquals(DATA, result.getDocument().toString());
+            assertEquals(3, result.getDataSet().size());
+            assertTrue(result.getValidator().getResult().isValid(true));
+            assertEquals(3, result.getStatistics().getNumberOfPoints());
+            assertEquals(4, result.getStatistics().getMaxY(), 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a preview is handed over during the sampling stage, before the file is read, and that the file is
+     * still loaded whole afterwards.
+     */
+    @Test
+    public void testPreview() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            List<DataLoadPipeline.Stage> stages = new ArrayList<>();
+            List<ReservoirSampler.Sample> previews = new ArrayList<>();
+            DataLoadPipeline pipeline = new DataLoadPipeline(file, DataLoadPipeline.Format.TSD);
+            pipeline.setPreview(new ReservoirSampler(2, false, 1), sample -> {
+                assertEquals(Collections.singletonList(DataLoadPipeline.Stage.SAMPLING), stages);
+                previews.add(sample);
+            });
+            DataLoadPipeline.Result result = pipeline.run((stage, fraction) -> {
+                if (stages.isEmpty() || stages.get(stages.size() - 1) != stage)
+                    stages.add(stage);
+            });
+
+            assertEquals(1, previews.size());
+            assertEquals(2, previews.get(0).getSampleSize());
+            assertEquals(3, previews.get(0).getPopulationSize());
+            assertEquals(3, result.getDataSet().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that the validator of a result indexes every line of its document and follows the edits made to it.
+     */
+    @Test
+    public void testValidatorIsUpToDate() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            DataLoadPipeline.Result result = new DataLoadPipeline(file, DataLoadPipeline.Format.TSD).run(null);
+            IncrementalTSDValidator validator = result.getValidator();
+            assertEquals(result.getDocument().getLineCount(), validator.getLineCount());
+
+            result.getDocument().replaceLines(1, 2, "@b\tlabel2\t3;4");
+            validator.replaceLines(1, 2, "@b\tlabel2\t3;4");
+            assertEquals("[2]", validator.getResult().getInvalidLines().toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that an invalid line leaves the result without a dataset, to be reported by the validation.
+     */
+    @Test
+    public void testInvalidLine() throws IOException {
+        Path file = createFile(DATA + "@d\tlabel1\t1;2\n");
+        try {
+            DataLoadPipeline.Result result = new DataLoadPipeline(file, DataLoadPipeline.Format.TSD).run(null);
+
+            assertNull(result.getDataSet());
+            assertNull(result.getStatistics());
+            assertEquals("[4]", result.getValidator().getResult().getInvalidLines().toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a snapshot is loaded into the same text and dataset as the data it was saved from.
+     */
+    @Test
+    public void testLoadSnapshot() throws IOException, TSDLineParser.InvalidLineException {
+        Path file = Files.createTempFile("pipeline", ".tsdb");
+        try {
+            ColumnarDataSet dataSet = new ParallelTSDParser().parse(DATA);
+            new DataSetSnapshot(dataSet).save(file);
+            DataLoadPipeline.Result result = new DataLoadPipeline(file, DataLoadPipeline.Format.SNAPSHOT).run(null);
+
+            assertEquals(TSDWriter.toTSDString(dataSet), result.getDocument().toString());
+            assertEquals(dataSet.size(), result.getDataSet().size());
+            assertTrue(result.getValidator().getResult().isValid(true));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a pipeline cancelled during a stage stops at the next checkpoint.
+     */
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            DataLoadPipeline pipeline = new DataLoadPipeline(file, DataLoadPipeline.Format.TSD);
+            pipeline.run((stage, fraction) -> {
+                if (stage == DataLoadPipeline.Stage.PARSING)
+                    pipeline.cancel();
+            });
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path createFile(String data) throws IOException {
+        Path file = Files.createTempFile("pipeline", ".tsd");
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,178 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DataSetSnapshotTest {
+
+    private static final String DATA = "@a\tlabel1\t1,2\n@\u00e9t\u00e9\tlabel2\t0.1,3.25\n@c\tnull\t1234567.125,0\n"
+            + "@d\tlabel1\t0.000001,98765432109\n";
+
+    /**
+     * Test that a dataset loaded from a <code>.tsd</code> file survives a round trip through a snapshot unchanged.
+     */
+    @Test
+    public void testRoundTripAgainstTSD() throws IOException, TSDLineParser.InvalidLineException {
+        Path tsdFile = Files.createTempFile("snapshot", ".tsd");
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            Files.write(tsdFile, DATA.getBytes(StandardCharsets.UTF_8));
+            ColumnarDataSet expected = new MappedTSDLoader().load(tsdFile, null);
+            new DataSetSnapshot(expected).save(snapshotFile);
+            DataSetSnapshot snapshot = DataSetSnapshot.load(snapshotFile);
+
+            assertSameRows(expected, snapshot.getDataSet());
+            assertTrue(snapshot.getClusterColumns().isEmpty());
+            assertEquals(expected.getLabelDictionary().getLabels(), snapshot.getDataSet().getLabelDictionary().getLabels());
+        } finally {
+            Files.delete(tsdFile);
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that writing a loaded snapshot back out as <code>.tsd</code> data parses to the same rows again.
+     */
+    @Test
+    public void testSnapshotToTSD() throws IOException, TSDLineParser.InvalidLineException {
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            ColumnarDataSet expected = new ParallelTSDParser().parse(DATA);
+            new DataSetSnapshot(expected).save(snapshotFile);
+            String tsd = TSDWriter.toTSDString(DataSetSnapshot.load(snapshotFile).getDataSet());
+
+            assertTrue(new TSDValidator().validate(tsd).isValid(false));
+            assertSameRows(expected, new ParallelTSDParser().parse(tsd));
+        } finally {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that cluster columns are saved and loaded along with the dataset, in order.
+     */
+    @Test
+    public void testClusterColumns() throws IOException, TSDLineParser.InvalidLineException {
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            ColumnarDataSet dataSet = new ParallelTSDParser().parse(DATA);
+            Map<String, int[]> clusterColumns = new LinkedHashMap<>();
+            clusterColumns.put("k2", new int[]{0, 1, 1, 0});
+            clusterColumns.put("k3", new int[]{2, 0, 1, 2});
+            new DataSetSnapshot(dataSet, clusterColumns).save(snapshotFile);
+            DataSetSnapshot snapshot = DataSetSnapshot.load(snapshotFile);
+
+            assertArrayEquals(new Object[]{"k2", "k3"}, snapshot.getClusterColumns().keySet().toArray());
+            assertArrayEquals(clusterColumns.get("k2"), snapshot.getClusterColumns().get("k2"));
+            assertArrayEquals(clusterColumns.get("k3"), snapshot.getClusterColumns().get("k3"));
+        } finally {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that every coordinate of data of a higher dimension survives a round trip through a snapshot.
+     */
+    @Test
+    public void testHigherDimension() throws IOException, TSDLineParser.InvalidLineException {
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            ColumnarDataSet expected = new ParallelTSDParser().parse("@a\tlabel1\t1,2,3,4\n@b\tlabel2\t0.5,6,7.25,8\n");
+            new DataSetSnapshot(expected).save(snapshotFile);
+            ColumnarDataSet actual = DataSetSnapshot.load(snapshotFile).getDataSet();
+
+            assertEquals(4, actual.getDimension());
+            assertSameRows(expected, actual);
+            assertEquals("@a\tlabel1\t1,2,3,4\n@b\tlabel2\t0.5,6,7.25,8\n", TSDWriter.toTSDString(actual));
+        } finally {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that a snapshot of the first version, with separate x and y columns and no dimension, is still loaded.
+     */
+    @Test
+    public void testPlanarVersion() throws IOException {
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(96).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x44565344).putInt(1).putInt(2).putInt(1).putInt(0);
+            buffer.putInt(1).put((byte) 'l');
+            buffer.position(32);
+            buffer.putDouble(1).putDouble(3).putDouble(2).putDouble(4);
+            buffer.putInt(0).putInt(0);
+            buffer.putInt(0).putInt(2).putInt(4);
+            buffer.put("@a@b".getBytes(StandardCharsets.UTF_8));
+            Files.write(snapshotFile, Arrays.copyOf(buffer.array(), buffer.position()));
+            ColumnarDataSet dataSet = DataSetSnapshot.load(snapshotFile).getDataSet();
+
+            assertEquals(2, dataSet.getDimension());
+            assertEquals("@b", dataSet.getName(1));
+            assertEquals(3, dataSet.getX(1), 0);
+            assertEquals(4, dataSet.getY(1), 0);
+            assertEquals(2, dataSet.getY(0), 0);
+        } finally {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that a snapshot holding a coordinate that is not finite is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testNonFiniteCoordinate() throws IOException {
+        Path snapshotFile = Files.createTempFile("snapshot", ".tsdb");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(96).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0x44565344).putInt(1).putInt(2).putInt(1).putInt(0);
+            buffer.putInt(1).put((byte) 'l');
+            buffer.position(32);
+            buffer.putDouble(1).putDouble(Double.NaN).putDouble(2).putDouble(4);
+            buffer.putInt(0).putInt(0);
+            buffer.putInt(0).putInt(2).putInt(4);
+            buffer.put("@a@b".getBytes(StandardCharsets.UTF_8));
+            Files.write(snapshotFile, Arrays.copyOf(buffer.array(), buffer.position()));
+            DataSetSnapshot.load(snapshotFile);
+        } finally {
+            Files.delete(snapshotFile);
+        }
+    }
+
+    /**
+     * Test that a file which is not a snapshot is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        Path tsdFile = Files.createTempFile("snapshot", ".tsd");
+        try {
+            Files.write(tsdFile, DATA.getBytes(StandardCharsets.UTF_8));
+            DataSetSnapshot.load(tsdFile);
+        } finally {
+            Files.delete(tsdFile);
+        }
+    }
+
+    private static void assertSameRows(ColumnarDataSet expected, ColumnarDataSet actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.getName(row), actual.getName(row));
+            assertEquals(expected.getLabel(row), actual.getLabel(row));
+            for (int axis = 0; axis < expected.getDimension(); axis++)
+                assertEquals(expected.getCoordinate(row, axis), actual.getCoordinate(row, axis), 0);
+        }
+    }
+
+}
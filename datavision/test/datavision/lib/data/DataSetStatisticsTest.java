@@ -0,0 +1,56 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataSetStatisticsTest {
+
+    /**
+     * Test that the bounds and counts are those of every row, and that the null label is not counted as a label.
+     */
+    @Test
+    public void testStatistics() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "label1", 1, -2);
+        dataSet.addRow("@b", "null", -3, 4);
+        dataSet.addRow("@c", "label1", 5, 0.5);
+        dataSet.addRow("@d", "label2", 2, 8);
+        DataSetStatistics statistics = new DataSetStatistics(dataSet);
+
+        assertEquals(4, statistics.getNumberOfPoints());
+        assertEquals(2, statistics.getNumberOfLabels());
+        assertEquals(-3, statistics.getMinX(), 0);
+        assertEquals(5, statistics.getMaxX(), 0);
+        assertEquals(-2, statistics.getMinY(), 0);
+        assertEquals(8, statistics.getMaxY(), 0);
+        assertEquals(2, statistics.getLabelCount("label1"));
+        assertEquals(1, statistics.getLabelCount("null"));
+        assertEquals(0, statistics.getLabelCount("label3"));
+        assertEquals("{label1=2, null=1, label2=1}", statistics.getLabelCounts().toString());
+    }
+
+    /**
+     * Test that updating after appending rows yields the same statistics as computing them from scratch.
+     */
+    @Test
+    public void testUpdateAfterAppendingRows() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "label1", 1, 1);
+        DataSetStatistics statistics = new DataSetStatistics(dataSet);
+        dataSet.addRow("@b", "label2", 10, -1);
+        dataSet.addRow("@c", "label2", -10, 3);
+        statistics.update();
+        DataSetStatistics expected = new DataSetStatistics(dataSet);
+
+        assertEquals(expected.getNumberOfPoints(), statistics.getNumberOfPoints());
+        assertEquals(expected.getNumberOfLabels(), statistics.getNumberOfLabels());
+        assertEquals(expected.getMinX(), statistics.getMinX(), 0);
+        assertEquals(expected.getMaxX(), statistics.getMaxX(), 0);
+        assertEquals(expected.getMinY(), statistics.getMinY(), 0);
+        assertEquals(expected.getMaxY(), statistics.getMaxY(), 0);
+        assertEquals(expected.getLabelCounts(), statistics.getLabelCounts());
+    }
+
+}
@@ -0,0 +1,79 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares the throughput of saving and loading a generated dataset as a plain <code>.tsd</code> file with that of
+ * streaming it through gzip. Both are loaded as the load pipeline does, into a dataset and the lines of the file in a
+ * single pass: a plain file through {@link MappedTSDLoader}, a compressed file through {@link GzipTSDLoader}. The
+ * throughput is given in megabytes of uncompressed data per second.
+ * <p>
+ * Run it with the number of lines as its only argument, 2 million by default.
+ *
+ * @author Patrick Chan
+ */
+public final class GzipTSDBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final double MEGABYTE = 1 << 20;
+
+    public static void main(String[] args) throws IOException, TSDLineParser.InvalidLineException {
+        int numberOfLines = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String data = GzipTSDLoaderTest.generate(numberOfLines);
+        double megabytes = data.length() / MEGABYTE;
+        Path plainFile = Files.createTempFile("benchmark", ".tsd");
+        Path compressedFile = Files.createTempFile("benchmark", ".tsd.gz");
+        try {
+            for (int round = 1; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                Files.write(plainFile, data.getBytes(StandardCharsets.UTF_8));
+                long plainSaveTime = System.nanoTime() - start;
+                start = System.nanoTime();
+                try (Writer writer = GzipTSDLoader.newWriter(compressedFile)) {
+                    writer.write(data);
+                }
+                long compressedSaveTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                MappedLines plainLines = new MappedLines();
+                ColumnarDataSet plain = new MappedTSDLoader(true).load(plainFile, plainLines, null);
+                long plainLoadTime = System.nanoTime() - start;
+                start = System.nanoTime();
+                DecompressedLines compressedLines = new DecompressedLines();
+                ColumnarDataSet compressed = new GzipTSDLoader().load(compressedFile, compressedLines, null);
+                long compressedLoadTime = System.nanoTime() - start;
+
+                System.out.printf("round %d: save plain %.0f MB/s, gzip %.0f MB/s (%.1f%% of the size); "
+                                + "load plain %.0f MB/s, gzip %.0f MB/s; same data: %b%n", round,
+                        megabytes / seconds(plainSaveTime), megabytes / seconds(compressedSaveTime),
+                        100.0 * Files.size(compressedFile) / Files.size(plainFile),
+                        megabytes / seconds(plainLoadTime), megabytes / seconds(compressedLoadTime),
+                        plain.size() == compressed.size() && sameLines(plainLines, compressedLines));
+            }
+        } finally {
+            Files.delete(plainFile);
+            Files.delete(compressedFile);
+        }
+    }
+
+    private static boolean sameLines(TSDDocument.Lines first, TSDDocument.Lines second) {
+        if (first.getLineCount() != second.getLineCount())
+            return false;
+        for (int line = 0; line < first.getLineCount(); line++) {
+            if (!first.getLine(line).equals(second.getLine(line)))
+                return false;
+        }
+        return true;
+    }
+
+    private static double seconds(long nanoseconds) {
+        return nanoseconds / 1e9;
+    }
+
+}
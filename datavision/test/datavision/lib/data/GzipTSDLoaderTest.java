@@ -0,0 +1,148 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GzipTSDLoaderTest {
+
+    private static final String DATA = "@a\tlabel1\t1,2\n@b\tlabel2\t3.5,4\n@c\tlabel1\t0,0.25\n";
+
+    /**
+     * Test that a file written through the compressing writer loads back into the same lines and dataset.
+     */
+    @Test
+    public void testRoundTrip() throws IOException, TSDLineParser.InvalidLineException {
+        Path file = createCompressedFile(DATA);
+        try {
+            DecompressedLines lines = new DecompressedLines();
+            ColumnarDataSet dataSet = new GzipTSDLoader().load(file, lines, null);
+
+            assertEquals(4, lines.getLineCount());
+            assertEquals("@b\tlabel2\t3.5,4", lines.getLine(1));
+            assertEquals(DATA, new TSDDocument(lines).toString());
+            assertEquals(DATA, TSDWriter.toTSDString(dataSet));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that lines straddling the decompression buffers and the blocks of the lines are kept whole, that they are
+     * parsed whole with or without lines to keep, and whether or not the file ends with a newline.
+     */
+    @Test
+    public void testLinesAcrossBuffers() throws IOException, TSDLineParser.InvalidLineException {
+        String data = DATA + "@d\tlabel3\t-1,100";
+        Path file = createCompressedFile(data);
+        try {
+            DecompressedLines lines = new DecompressedLines(7);
+            ColumnarDataSet withText = new GzipTSDLoader(5).load(file, lines, null);
+            ColumnarDataSet withoutText = new GzipTSDLoader(5).load(file, null, null);
+
+            assertEquals(data, new TSDDocument(lines).toString());
+            assertEquals(data.length(), lines.getLength());
+            assertEquals(data + "\n", TSDWriter.toTSDString(withText));
+            assertEquals(data + "\n", TSDWriter.toTSDString(withoutText));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that an invalid line is reported with its number, once the whole file has been read into the lines.
+     */
+    @Test
+    public void testInvalidLine() throws IOException {
+        String data = "@a\tlabel1\t1,2\n@b\tlabel2\n@c\tlabel1\t0,0.25\n";
+        Path file = createCompressedFile(data);
+        try {
+            DecompressedLines lines = new DecompressedLines();
+            try {
+                new GzipTSDLoader(8).load(file, lines, null);
+                fail();
+            } catch (TSDLineParser.InvalidLineException e) {
+                assertEquals(2, e.getLineNumber());
+            }
+            assertEquals(data, new TSDDocument(lines).toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that the pipeline loads a compressed file into the same result as the plain file it was compressed from.
+     */
+    @Test
+    public void testPipeline() throws IOException {
+        Path plainFile = Files.createTempFile("gzip", ".tsd");
+        Path compressedFile = createCompressedFile(DATA);
+        try {
+            Files.write(plainFile, DATA.getBytes(StandardCharsets.UTF_8));
+            DataLoadPipeline.Result plain = new DataLoadPipeline(plainFile, DataLoadPipeline.Format.TSD).run(null);
+            DataLoadPipeline.Result compressed = new DataLoadPipeline(compressedFile, DataLoadPipeline.Format.COMPRESSED_TSD).run(null);
+
+            assertEquals(plain.getDocument().toString(), compressed.getDocument().toString());
+            assertEquals(TSDWriter.toTSDString(plain.getDataSet()), TSDWriter.toTSDString(compressed.getDataSet()));
+            assertEquals(plain.getStatistics().getMaxX(), compressed.getStatistics().getMaxX(), 0);
+        } finally {
+            Files.delete(plainFile);
+            Files.delete(compressedFile);
+        }
+    }
+
+    /**
+     * Test that a large compressed file loads into the same dataset and lines as the plain file it was compressed from.
+     * How fast each of them loads is measured by {@link GzipTSDBenchmark}.
+     */
+    @Test
+    public void testLargeFileMatchesPlainTSD() throws IOException, TSDLineParser.InvalidLineException {
+        String data = generate(200_000);
+        Path plainFile = Files.createTempFile("gzip", ".tsd");
+        Path compressedFile = createCompressedFile(data);
+        try {
+            Files.write(plainFile, data.getBytes(StandardCharsets.UTF_8));
+            MappedLines plainLines = new MappedLines();
+            ColumnarDataSet plain = new MappedTSDLoader().load(plainFile, plainLines, null);
+            DecompressedLines compressedLines = new DecompressedLines();
+            ColumnarDataSet compressed = new GzipTSDLoader().load(compressedFile, compressedLines, null);
+
+            assertEquals(plain.size(), compressed.size());
+            assertEquals(plainLines.getLineCount(), compressedLines.getLineCount());
+            for (int line = 0; line < plainLines.getLineCount(); line++)
+                assertEquals(plainLines.getLine(line), compressedLines.getLine(line));
+        } finally {
+            Files.delete(plainFile);
+            Files.delete(compressedFile);
+        }
+    }
+
+    static String generate(int numberOfLines) {
+        Random random = new Random(1);
+        StringBuilder data = new StringBuilder();
+        try {
+            for (int line = 0; line < numberOfLines; line++)
+                TSDWriter.writeLine(data, "@instance" + line, "label" + line % 5, random.nextInt(100000) / 8.0, random.nextInt(1000));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return data.toString();
+    }
+
+    private static Path createCompressedFile(String data) throws IOException {
+        Path file = Files.createTempFile("gzip", ".tsd.gz");
+        try (Writer writer = GzipTSDLoader.newWriter(file)) {
+            writer.write(data);
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,236 @@
+package datavision.lib.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IncrementalTSDValidatorTest {
+
+    private static final String[] FRAGMENTS = {
+            "\n", "\n\n", "@", "@a", "@b", "\t", "label", "null", "1", "0.5", ",", "x", "\r", "@c\tlabel\t1,2\n", "3,4,5"
+    };
+
+    /**
+     * Test that a long series of random edits leaves the validator with the same outcome as validating the edited
+     * text from scratch.
+     */
+    @Test
+    public void testRandomEditsMatchFullValidation() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++)
+            text.append("@instance").append(i).append('\t').append("label").append(i % 3).append('\t').append(i).append(",1\n");
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update(text.toString());
+
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(text.length() + 1);
+            int end = Math.min(text.length(), start + random.nextInt(12));
+            String replacement = random.nextInt(3) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+            validator.recordEdit(start, end, replacement);
+            text.replace(start, end, replacement);
+            validator.update(text.toString());
+
+            assertSameOutcome(new TSDValidator().validate(text), validator.getResult());
+        }
+    }
+
+    /**
+     * Test that edits of a text spanning many blocks of lines, including edits that add or remove whole runs of lines
+     * across blocks, keep both the outcome and the line index the same as those of a validation from scratch.
+     */
+    @Test
+    public void testEditsAcrossBlocksMatchFullValidation() {
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            text.append("@instance").append(i).append('\t').append("label").append(i % 5).append('\t').append(i).append(",2\n");
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update(text.toString());
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(text.length() + 1);
+            int end = Math.min(text.length(), start + (random.nextInt(4) == 0 ? random.nextInt(40000) : random.nextInt(30)));
+            StringBuilder replacement = new StringBuilder();
+            for (int line = random.nextInt(3) == 0 ? random.nextInt(1500) : 0; line > 0; line--)
+                replacement.append("@added").append(i).append('_').append(line).append("\tlabel\t1,").append(line).append('\n');
+            if (random.nextBoolean())
+                replacement.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            validator.recordEdit(start, end, replacement.toString());
+            text.replace(start, end, replacement.toString());
+            validator.update(text.toString());
+
+            assertSameOutcome(new TSDValidator().validate(text), validator.getResult());
+            int lineStart = 0;
+            for (int line = 0; line < validator.getLineCount(); line++) {
+                int lineEnd = text.indexOf("\n", lineStart);
+                lineEnd = lineEnd < 0 ? text.length() : lineEnd;
+                assertEquals(lineStart, validator.getLineStart(line));
+                assertEquals(lineEnd, validator.getLineEnd(line));
+                lineStart = lineEnd + 1;
+            }
+            assertEquals(text.length() + 1, lineStart);
+        }
+    }
+
+    /**
+     * Test that following random replacements of the lines of a document gives the same outcome as validating the
+     * text of the document from scratch.
+     */
+    @Test
+    public void testLineReplacementsMatchFullValidation() {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+            text.append("@instance").append(i).append('\t').append("label").append(i % 3).append('\t').append(i).append(",1\n");
+        TSDDocument document = TSDDocument.of(text);
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update(document);
+
+        for (int i = 0; i < 500; i++) {
+            int fromLine = random.nextInt(document.getLineCount() + 1);
+            int toLine = Math.min(document.getLineCount(), fromLine + random.nextInt(3));
+            String replacement = FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+            document.replaceLines(fromLine, toLine, replacement);
+            validator.replaceLines(fromLine, toLine, replacement);
+
+            assertEquals(document.getLineCount(), validator.getLineCount());
+            assertSameOutcome(new TSDValidator().validate(document.toString()), validator.getResult());
+        }
+    }
+
+    /**
+     * Test that editing a single line only changes the outcome for that line, including a fix of a duplicate name.
+     */
+    @Test
+    public void testSingleLineEdit() {
+        String text = "@a\tlabel1\t1,2\n@b\tlabel2\t3,4\n@a\tlabel3\tx,4\n";
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update(text);
+        assertEquals(Arrays.asList(3), validator.getResult().getInvalidLines());
+        assertTrue(validator.getResult().hasDuplicateNames());
+
+        int start = text.indexOf("@a\tlabel3") + 1;
+        validator.recordEdit(start, start + 1, "c");
+        String edited = text.substring(0, start) + "c" + text.substring(start + 1);
+        validator.update(edited);
+        assertFalse(validator.getResult().hasDuplicateNames());
+        assertEquals(Arrays.asList(3), validator.getResult().getInvalidLines());
+        assertEquals(new HashSet<>(Arrays.asList("label1", "label2")), validator.getResult().getLabels());
+    }
+
+    /**
+     * Test that a recorded edit that does not account for the new text is ignored in favour of a full validation.
+     */
+    @Test
+    public void testInconsistentEditFallsBackToFullValidation() {
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update("@a\tlabel\t1,2\n");
+        validator.recordEdit(0, 1, "x");
+        validator.update("@b\tlabel\t1,2\n@c\tlabel\t3,y\n");
+
+        assertSameOutcome(new TSDValidator().validate("@b\tlabel\t1,2\n@c\tlabel\t3,y\n"), validator.getResult());
+    }
+
+    /**
+     * Test that the line index locates every line of the text, without its newline, and follows edits that add lines.
+     */
+    @Test
+    public void testLineIndex() {
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        String text = "@a\tlabel\t1,2\n@b\tlabel\t1;2\n";
+        validator.update(text);
+
+        assertEquals(3, validator.getLineCount());
+        assertEquals("@b\tlabel\t1;2", text.substring(validator.getLineStart(1), validator.getLineEnd(1)));
+        assertEquals(text.length(), validator.getLineStart(2));
+        assertEquals(text.length(), validator.getLineEnd(2));
+        assertTrue(validator.isValidLine(0));
+        assertFalse(validator.isValidLine(1));
+        assertTrue(validator.isValidLine(2));
+
+        int start = validator.getLineStart(1);
+        validator.recordEdit(start, validator.getLineEnd(1), "@b\tlabel\t1,2\n@c\tlabel\t3,4");
+        String edited = text.substring(0, start) + "@b\tlabel\t1,2\n@c\tlabel\t3,4" + text.substring(validator.getLineEnd(1));
+        validator.update(edited);
+
+        assertEquals(4, validator.getLineCount());
+        assertTrue(validator.isValidLine(1));
+        assertEquals("@c\tlabel\t3,4", edited.substring(validator.getLineStart(2), validator.getLineEnd(2)));
+        assertEquals(edited.length(), validator.getLineStart(3));
+    }
+
+    /**
+     * Test that lines are held to the number of coordinates of the first valid line, which an edit of that line
+     * changes for every other line.
+     */
+    @Test
+    public void testDimensionFollowsFirstValidLine() {
+        String text = "@a\tlabel\t1,2,3\n@b\tlabel\t4,5\n@c\tlabel\t6,7,8\n";
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update(text);
+
+        assertEquals(3, validator.getResult().getDimension());
+        assertEquals(Collections.singletonList(2), validator.getResult().getInvalidLines());
+        assertFalse(validator.isValidLine(1));
+
+        int start = text.indexOf("1,2,3");
+        validator.recordEdit(start, start + 5, "1,2");
+        String edited = text.replace("1,2,3", "1,2");
+        validator.update(edited);
+
+        assertEquals(2, validator.getResult().getDimension());
+        assertEquals(Collections.singletonList(3), validator.getResult().getInvalidLines());
+        assertTrue(validator.isValidLine(1));
+        assertFalse(validator.isValidLine(2));
+        assertSameOutcome(new TSDValidator().validate(edited), validator.getResult());
+    }
+
+    /**
+     * Test that asking for a line past the end of the text fails.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLineOutOfRange() {
+        IncrementalTSDValidator validator = new IncrementalTSDValidator();
+        validator.update("@a\tlabel\t1,2");
+        validator.getLineStart(1);
+    }
+
+    /**
+     * Test that only the first errors are kept once there are more than the capacity, while all of them are counted.
+     */
+    @Test
+    public void testErrorCapacity() {
+        StringBuilder data = new StringBuilder("@a\tlabel\t1,2\n");
+        for (int line = 0; line < 10; line++)
+            data.append("@b").append(line).append("\tlabel\t1,2,3\n");
+        IncrementalTSDValidator validator = new IncrementalTSDValidator(3);
+        validator.update(data.toString());
+
+        DataErrorCollector errors = validator.getResult().getErrors(false);
+        assertEquals(10, errors.getTotalCount());
+        assertTrue(errors.isTruncated());
+        assertEquals(Arrays.asList(2, 3, 4), validator.getResult().getInvalidLines());
+        assertEquals(11, errors.getFirst().getColumn());
+        assertSameOutcome(new TSDValidator(3).validate(data), validator.getResult());
+    }
+
+    private static void assertSameOutcome(ValidationResult expected, ValidationResult actual) {
+        assertEquals(expected.getNumberOfLines(), actual.getNumberOfLines());
+        assertEquals(expected.getMalformedLines(), actual.getMalformedLines());
+        assertEquals(expected.getInvalidLines(), actual.getInvalidLines());
+        assertEquals(expected.getDuplicateNames(), actual.getDuplicateNames());
+        assertEquals(expected.getLabels(), actual.getLabels());
+        assertEquals(expected.getDimension(), actual.getDimension());
+        for (boolean strict : new boolean[]{true, false}) {
+            assertEquals(expected.getErrors(strict).getTotalCount(), actual.getErrors(strict).getTotalCount());
+            assertEquals(expected.getErrors(strict).getErrors().toString(), actual.getErrors(strict).getErrors().toString());
+        }
+    }
+
+}
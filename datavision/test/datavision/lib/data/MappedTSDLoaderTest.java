@@ -0,0 +1,142 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MappedTSDLoaderTest {
+
+    /**
+     * Test that lines straddling two mapping windows are parsed correctly, using a window that is much smaller than
+     * the file, and that the last reported progress covers the whole file.
+     */
+    @Test
+    public void testLinesAcrossWindows() throws IOException, TSDLineParser.InvalidLineException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            data.append("@instance").append(i).append("\tlabel").append(i % 3).append('\t').append(i).append(".5,").append(-i).append('\n');
+        }
+        Path file = writeTemporaryFile(data.toString());
+
+        AtomicLong lastProgress = new AtomicLong();
+        ColumnarDataSet dataSet = new MappedTSDLoader(64, null).load(file, (bytesRead, totalBytes) -> lastProgress.set(bytesRead));
+
+        assertEquals(100, dataSet.size());
+        assertEquals(3, dataSet.getLabelDictionary().size());
+        assertEquals("@instance57", dataSet.getName(57));
+        assertEquals("label0", dataSet.getLabel(57));
+        assertEquals(57.5, dataSet.getX(57), 0);
+        assertEquals(-57, dataSet.getY(57), 0);
+        assertEquals(Files.size(file), lastProgress.get());
+    }
+
+    /**
+     * Test that a missing trailing newline and Windows line endings are both accepted.
+     */
+    @Test
+    public void testLineEndings() throws IOException, TSDLineParser.InvalidLineException {
+        Path file = writeTemporaryFile("@a\tx\t1,2\r\n@b\ty\t3,4");
+        ColumnarDataSet dataSet = new MappedTSDLoader().load(file, null);
+
+        assertEquals(2, dataSet.size());
+        assertEquals(2, dataSet.getY(0), 0);
+        assertEquals("@b", dataSet.getName(1));
+    }
+
+    /**
+     * Test that an invalid line is reported with its line number.
+     */
+    @Test
+    public void testInvalidLineNumber() throws IOException {
+        Path file = writeTemporaryFile("@a\tx\t1,2\nb\ty\t3,4\n");
+        try {
+            new MappedTSDLoader().load(file, null);
+            fail("The second line should have been rejected");
+        } catch (TSDLineParser.InvalidLineException e) {
+            assertEquals(2, e.getLineNumber());
+        }
+    }
+
+    /**
+     * Test that the lines indexed while loading through small windows, both serially and in parallel, are the lines of
+     * the file decoded as UTF-8, with an empty line after the final newline, even past an invalid line.
+     */
+    @Test
+    public void testIndexedLines() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 60; i++)
+            data.append("@instance").append(i).append("\tlabel\u00e9\u4e2d").append(i % 3).append('\t').append(i)
+                    .append(",1\n");
+        data.append("@invalid\tlabel\t1;2\n");
+        Path file = writeTemporaryFile(data.toString());
+        String[] expected = data.toString().split("\n", -1);
+
+        for (ParallelTSDParser parallelParser : new ParallelTSDParser[]{null, new ParallelTSDParser(64)}) {
+            MappedLines lines = new MappedLines();
+            try {
+                new MappedTSDLoader(100, parallelParser).load(file, lines, null);
+                fail("The last line should have been rejected");
+            } catch (TSDLineParser.InvalidLineException e) {
+                assertEquals(61, e.getLineNumber());
+            }
+            assertEquals(expected.length, lines.getLineCount());
+            for (int line = 0; line < expected.length; line++)
+                assertEquals(expected[line], lines.getLine(line));
+            assertEquals(Files.size(file), lines.getLength());
+        }
+    }
+
+    /**
+     * Test that a cancelled loader stops at its next checkpoint.
+     */
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws IOException, TSDLineParser.InvalidLineException {
+        Path file = writeTemporaryFile("@a\tx\t1,2\n@b\ty\t3,4\n");
+        MappedTSDLoader loader = new MappedTSDLoader(16, null);
+        loader.cancel();
+        loader.load(file, null);
+    }
+
+    /**
+     * Test that a parallel load of a file held in a single window reports its progress chunk by chunk, and that a
+     * cancellation from the first report stops it.
+     */
+    @Test
+    public void testParallelProgressPerChunk() throws IOException, TSDLineParser.InvalidLineException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+            data.append("@instance").append(i).append("\tlabel\t").append(i).append(",1\n");
+        Path file = writeTemporaryFile(data.toString());
+
+        AtomicLong reports = new AtomicLong();
+        new MappedTSDLoader(1 << 20, new ParallelTSDParser(256)).load(file, (bytesRead, totalBytes) -> {
+            if (bytesRead < totalBytes)
+                reports.incrementAndGet();
+        });
+        assertTrue(reports.get() > 1);
+
+        MappedTSDLoader loader = new MappedTSDLoader(1 << 20, new ParallelTSDParser(256));
+        try {
+            loader.load(file, (bytesRead, totalBytes) -> loader.cancel());
+            fail("The load should have been cancelled");
+        } catch (CancellationException e) {
+            assertTrue(loader.isCancelled());
+        }
+    }
+
+    private static Path writeTemporaryFile(String content) throws IOException {
+        Path file = Files.createTempFile("datavision", ".tsd");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
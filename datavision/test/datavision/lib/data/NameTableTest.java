@@ -0,0 +1,79 @@
+package datavision.lib.data;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class NameTableTest {
+
+    /**
+     * Test that an entry repeating an earlier one is found to do so, whether it was added as text, as a range of a
+     * line or as UTF-8 bytes, including names outside of ASCII.
+     */
+    @Test
+    public void testDuplicatesAcrossSources() {
+        String name = "@caf\u00e9\u20ac\ud83d\ude00";
+        NameTable table = new NameTable(2);
+        int first = table.add(name);
+        int fromText = table.add("\t" + name + "\t", 1, name.length() + 1);
+        byte[] encoded = ("x" + name).getBytes(StandardCharsets.UTF_8);
+        int fromBytes = table.add(ByteBuffer.wrap(encoded), 1, encoded.length);
+        int other = table.add("@cafe");
+
+        assertEquals(first, table.firstIndexOf(first));
+        assertEquals(first, table.firstIndexOf(fromText));
+        assertEquals(first, table.firstIndexOf(fromBytes));
+        assertEquals(other, table.firstIndexOf(other));
+        assertEquals(name, table.get(fromText));
+        assertEquals(name, table.get(fromBytes));
+        assertEquals(first, table.indexOf(ByteBuffer.wrap(encoded), 1, encoded.length));
+        assertEquals(-1, table.indexOf("@caf"));
+    }
+
+    /**
+     * Test that every entry can still be found once the index has grown many times over, entries added after the
+     * index was built included.
+     */
+    @Test
+    public void testIndexGrows() {
+        NameTable table = new NameTable();
+        table.add("@instance0");
+        assertEquals(0, table.indexOf("@instance0"));
+        for (int i = 1; i < 20000; i++)
+            table.add("@instance" + i);
+        table.add("@instance123");
+
+        assertEquals(20001, table.size());
+        for (int i = 0; i < 20000; i++)
+            assertEquals(i, table.indexOf("@instance" + i));
+        assertEquals(123, table.firstIndexOf(20000));
+        assertEquals(-1, table.indexOf("@instance20000"));
+    }
+
+    /**
+     * Test that a table over an existing arena can be searched and appended to, and that a copy of it is independent
+     * of it.
+     */
+    @Test
+    public void testWrapAndCopy() {
+        byte[] arena = "@a@bb@ccc".getBytes(StandardCharsets.UTF_8);
+        NameTable table = NameTable.wrap(3, arena, new int[]{0, 2, 5, 9});
+        NameTable copy = table.copy();
+        table.add("@dddd");
+        copy.add("@a");
+
+        assertEquals("@bb", table.get(1));
+        assertEquals(2, table.indexOf("@ccc"));
+        assertEquals(3, table.indexOf("@dddd"));
+        assertEquals(-1, copy.indexOf("@dddd"));
+        assertEquals(0, copy.firstIndexOf(3));
+        assertEquals(1, copy.indexOf(table, 1));
+        table.clear();
+        assertEquals(-1, table.indexOf("@a"));
+        assertEquals(0, table.add("@a"));
+    }
+
+}
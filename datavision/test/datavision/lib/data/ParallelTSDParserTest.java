@@ -0,0 +1,145 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ParallelTSDParserTest {
+
+    /* small enough for the test data to be cut into many chunks */
+    private static final int CHUNK_LENGTH = 97;
+
+    /**
+     * Test that parsing in many chunks yields the same rows, in the same order, as parsing line by line.
+     */
+    @Test
+    public void testSameRowsAsSerialParse() throws TSDLineParser.InvalidLineException {
+        String data = generateData(500);
+        ColumnarDataSet serial = parseSerially(data);
+        ColumnarDataSet parallel = new ParallelTSDParser(CHUNK_LENGTH).parse(data);
+
+        assertEquals(serial.size(), parallel.size());
+        for (int row = 0; row < serial.size(); row++) {
+            assertEquals(serial.getName(row), parallel.getName(row));
+            assertEquals(serial.getLabel(row), parallel.getLabel(row));
+            assertEquals(serial.getX(row), parallel.getX(row), 0);
+            assertEquals(serial.getY(row), parallel.getY(row), 0);
+        }
+    }
+
+    /**
+     * Test that an invalid line in a later chunk is reported with the same line number as in the serial parse.
+     */
+    @Test
+    public void testInvalidLineNumber() {
+        String data = generateData(300).replace("@instance211\t", "instance211\t");
+        assertEquals(serialErrorLine(data), parallelErrorLine(data));
+        assertEquals(212, parallelErrorLine(data));
+    }
+
+    /**
+     * Test that a name duplicated across two chunks is detected at the line of its second use, even when a later line
+     * of the same chunk is invalid as well.
+     */
+    @Test
+    public void testDuplicateNameAcrossChunks() {
+        String data = generateData(300)
+                .replace("@instance250\t", "@instance3\t")
+                .replace("@instance280\t", "instance280\t");
+        assertEquals(serialErrorLine(data), parallelErrorLine(data));
+        assertEquals(251, parallelErrorLine(data));
+    }
+
+    /**
+     * Test that a line whose number of coordinates differs from the lines before it is reported with the same line
+     * number as in the serial parse, whether it starts a chunk or sits in the middle of one, and that data of a higher
+     * dimension parses to the same rows.
+     */
+    @Test
+    public void testDimensionMismatch() throws TSDLineParser.InvalidLineException {
+        String data = generateData(300).replace("\n", ",1\n");
+        ColumnarDataSet parallel = new ParallelTSDParser(CHUNK_LENGTH).parse(data);
+        assertEquals(3, parallel.getDimension());
+        assertEquals(300, parallel.size());
+        assertEquals(1, parallel.getCoordinate(123, 2), 0);
+
+        assertEquals(212, parallelErrorLine(withTwoCoordinates(data, 211)));
+        for (int line = 0; line < 299; line += 7) {
+            String mismatch = withTwoCoordinates(data, line);
+            assertEquals(serialErrorLine(mismatch), parallelErrorLine(mismatch));
+        }
+    }
+
+    /**
+     * Test that the parallel mode of {@link MappedTSDLoader} agrees with its serial mode across window boundaries.
+     */
+    @Test
+    public void testParallelMappedLoad() throws IOException, TSDLineParser.InvalidLineException {
+        Path file = Files.createTempFile("datavision", ".tsd");
+        file.toFile().deleteOnExit();
+        Files.write(file, generateData(400).getBytes(StandardCharsets.UTF_8));
+
+        ColumnarDataSet serial = new MappedTSDLoader(1000, null).load(file, null);
+        ColumnarDataSet parallel = new MappedTSDLoader(1000, new ParallelTSDParser(CHUNK_LENGTH)).load(file, null);
+
+        assertEquals(400, parallel.size());
+        assertEquals(serial.getName(399), parallel.getName(399));
+        assertEquals(serial.getX(123), parallel.getX(123), 0);
+    }
+
+    private static String generateData(int numberOfLines) {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < numberOfLines; i++) {
+            data.append("@instance").append(i).append("\tlabel").append(i % 4).append('\t')
+                .append(i * 0.25).append(',').append(i % 7).append('\n');
+        }
+        return data.toString();
+    }
+
+    /**
+     * Drops the third coordinate of the given 0-based line of 3-dimensional data.
+     */
+    private static String withTwoCoordinates(String data, int line) {
+        String nextLine = "\n@instance" + (line + 1) + "\t";
+        return data.replace(",1" + nextLine, nextLine);
+    }
+
+    private static ColumnarDataSet parseSerially(String data) throws TSDLineParser.InvalidLineException {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        TSDLineParser parser = new TSDLineParser();
+        int lineStart = 0;
+        long lineNumber = 1;
+        for (int i = 0; i < data.length(); i++) {
+            if (data.charAt(i) == '\n') {
+                parser.parseLine(data, lineStart, i, lineNumber++, dataSet);
+                lineStart = i + 1;
+            }
+        }
+        return dataSet;
+    }
+
+    private static long serialErrorLine(String data) {
+        try {
+            parseSerially(data);
+            return -1;
+        } catch (TSDLineParser.InvalidLineException e) {
+            return e.getLineNumber();
+        }
+    }
+
+    private static long parallelErrorLine(String data) {
+        try {
+            new ParallelTSDParser(CHUNK_LENGTH).parse(data);
+            return -1;
+        } catch (TSDLineParser.InvalidLineException e) {
+            return e.getLineNumber();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReservoirSamplerTest {
+
+    /**
+     * Test that a file with fewer lines than the capacity is sampled whole, skipping empty lines, including a last
+     * line without a newline.
+     */
+    @Test
+    public void testSmallFileIsSampledWhole() throws IOException {
+        Path file = createFile("@a\tlabel1\t1,2\n\n@b\tlabel2\t3.5,4\r\n@c\tlabel1\t0,0.25");
+        try {
+            ReservoirSampler.Sample sample = new ReservoirSampler(10, false, 1).sample(file, null);
+
+            assertEquals(3, sample.getPopulationSize());
+            assertEquals(3, sample.getSampleSize());
+            assertEquals("@b", sample.getDataSet().getName(1));
+            assertEquals(0.25, sample.getDataSet().getY(2), 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that every line ends up in the sample about as often as any other, wherever it is in the file.
+     */
+    @Test
+    public void testSampleIsUniform() throws IOException {
+        int numberOfLines = 200;
+        int capacity = 20;
+        int runs = 2000;
+        Path file = createFile(generate(numberOfLines, 1));
+        try {
+            Map<String, Integer> timesDrawn = new HashMap<>();
+            for (int run = 0; run < runs; run++) {
+                ColumnarDataSet sample = new ReservoirSampler(capacity, false, run).sample(file, null).getDataSet();
+                assertEquals(capacity, sample.size());
+                for (int row = 0; row < sample.size(); row++)
+                    timesDrawn.merge(sample.getName(row), 1, Integer::sum);
+            }
+
+            double expected = (double) runs * capacity / numberOfLines;
+            assertEquals(numberOfLines, timesDrawn.size());
+            for (int count : timesDrawn.values())
+                assertEquals(expected, count, expected * 0.4);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that in per-label mode, a rare label keeps all of its instances while a frequent one is cut down to the
+     * capacity.
+     */
+    @Test
+    public void testPerLabel() throws IOException {
+        Path file = createFile(generate(1000, 1) + "@rare1\trare\t1,1\n@rare2\trare\t2,2\n");
+        try {
+            ReservoirSampler.Sample sample = new ReservoirSampler(50, true, 7).sample(file, null);
+
+            Map<String, Integer> labelCounts = new HashMap<>();
+            for (int row = 0; row < sample.getSampleSize(); row++)
+                labelCounts.merge(sample.getDataSet().getLabel(row), 1, Integer::sum);
+            assertEquals(1002, sample.getPopulationSize());
+            assertEquals(Integer.valueOf(50), labelCounts.get("label0"));
+            assertEquals(Integer.valueOf(2), labelCounts.get("rare"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static String generate(int numberOfLines, int numberOfLabels) {
+        StringBuilder data = new StringBuilder();
+        for (int line = 0; line < numberOfLines; line++)
+            data.append("@instance").append(line).append("\tlabel").append(line % numberOfLabels).append('\t')
+                    .append(line).append(',').append(line % 7).append('\n');
+        return data.toString();
+    }
+
+    private static Path createFile(String data) throws IOException {
+        Path file = Files.createTempFile("sampler", ".tsd");
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,108 @@
+package datavision.lib.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TSDDocumentTest {
+
+    /**
+     * Test that a document made of a text holds its lines, with an empty line after a final newline, and writes the
+     * very same text back.
+     */
+    @Test
+    public void testLinesOfText() {
+        TSDDocument document = TSDDocument.of("@a\tlabel\t1,2\n@b\tlabel\t3,4\n");
+
+        assertEquals(3, document.getLineCount());
+        assertEquals("@b\tlabel\t3,4", document.getLine(1));
+        assertEquals("", document.getLine(2));
+        assertEquals("@a\tlabel\t1,2\n@b\tlabel\t3,4\n", document.toString());
+        assertFalse(document.isEmpty());
+        assertTrue(new TSDDocument().isEmpty());
+        assertTrue(TSDDocument.of("").isEmpty());
+    }
+
+    /**
+     * Test that a long series of random replacements of lines, including insertions, leaves the document with the
+     * same lines as the same replacements applied to a plain list of lines.
+     */
+    @Test
+    public void testRandomReplacementsMatchList() {
+        Random random = new Random(11);
+        List<String> source = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            source.add("@instance" + i + "\tlabel\t" + i + ",1");
+        TSDDocument document = new TSDDocument(new TSDDocument.Lines() {
+            @Override
+            public int getLineCount() {
+                return source.size();
+            }
+
+            @Override
+            public String getLine(int line) {
+                return source.get(line);
+            }
+        });
+        List<String> expected = new ArrayList<>(source);
+
+        for (int i = 0; i < 2000; i++) {
+            int fromLine = random.nextInt(expected.size() + 1);
+            int toLine = Math.min(expected.size(), fromLine + random.nextInt(4));
+            StringBuilder replacement = new StringBuilder("@edit" + i);
+            for (int line = random.nextInt(3); line > 0; line--)
+                replacement.append("\n@edit").append(i).append('_').append(line);
+            document.replaceLines(fromLine, toLine, replacement);
+            expected.subList(fromLine, toLine).clear();
+            expected.addAll(fromLine, Arrays.asList(replacement.toString().split("\n", -1)));
+
+            assertEquals(expected.size(), document.getLineCount());
+            assertEquals(String.join("\n", expected), document.toString());
+        }
+    }
+
+    /**
+     * Test that lines appended over and over to a loaded text, each batch taking the place of the empty last line,
+     * extend a single piece of added lines rather than adding a piece per batch.
+     */
+    @Test
+    public void testAppendsExtendOnePiece() {
+        TSDDocument document = new TSDDocument(new TSDDocument.Lines() {
+            private final String[] lines = {"@a\tlabel\t1,2", ""};
+
+            @Override
+            public int getLineCount() {
+                return lines.length;
+            }
+
+            @Override
+            public String getLine(int line) {
+                return lines[line];
+            }
+        });
+        StringBuilder expected = new StringBuilder("@a\tlabel\t1,2\n");
+        for (int i = 0; i < 100; i++) {
+            String lines = "@b" + i + "\tlabel\t" + i + ",1\n@c" + i + "\tlabel\t" + i + ",2\n";
+            int lastLine = document.getLineCount() - 1;
+            document.replaceLines(lastLine, lastLine + 1, lines);
+            expected.append(lines);
+        }
+
+        assertEquals(expected.toString(), document.toString());
+        assertEquals(2, document.getPieceCount());
+    }
+
+    /**
+     * Test that a range of lines outside of the document is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReplacementOutOfRange() {
+        TSDDocument.of("@a\tlabel\t1,2").replaceLines(1, 2, "@b\tlabel\t3,4");
+    }
+
+}
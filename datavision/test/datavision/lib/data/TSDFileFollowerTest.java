@@ -0,0 +1,148 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TSDFileFollowerTest {
+
+    private static final String DATA = "@a\tlabel1\t1,2\n@b\tlabel2\t3.5,4\n";
+
+    /**
+     * Test that only the lines appended past the offset are read, and that a line is only taken once it is complete.
+     */
+    @Test
+    public void testReadsOnlyAppendedLines() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            TSDFileFollower follower = new TSDFileFollower(file, DATA.length());
+            RecordingListener listener = new RecordingListener();
+
+            assertFalse(follower.poll(listener));
+            append(file, "@c\tlabel1\t0,0.25\n@d\tlab");
+            assertTrue(follower.poll(listener));
+            append(file, "el3\t5,6\n");
+            assertTrue(follower.poll(listener));
+
+            assertEquals(2, listener.texts.size());
+            assertEquals("@c\tlabel1\t0,0.25\n", listener.texts.get(0));
+            assertEquals("@d\tlabel3\t5,6\n", listener.texts.get(1));
+            assertEquals("@d", listener.rows.get(1).getName(0));
+            assertEquals(6, listener.rows.get(1).getY(0), 0);
+            assertEquals(Files.size(file), follower.getOffset());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that appended lines that cannot be parsed are still handed over as text, without rows.
+     */
+    @Test
+    public void testInvalidAppendedLine() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            TSDFileFollower follower = new TSDFileFollower(file, DATA.length());
+            RecordingListener listener = new RecordingListener();
+            append(file, "@c\tlabel1\n");
+
+            assertTrue(follower.poll(listener));
+            assertEquals("@c\tlabel1\n", listener.texts.get(0));
+            assertNull(listener.rows.get(0));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a file that became shorter than what was read is reported, and not read from any longer.
+     */
+    @Test
+    public void testTruncation() throws IOException {
+        Path file = createFile(DATA);
+        try {
+            TSDFileFollower follower = new TSDFileFollower(file, DATA.length());
+            RecordingListener listener = new RecordingListener();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(4);
+            }
+
+            assertFalse(follower.poll(listener));
+            assertTrue(listener.truncated);
+            append(file, DATA);
+            assertFalse(follower.poll(listener));
+            assertTrue(listener.texts.isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that the watching thread picks up lines appended after it was started.
+     */
+    @Test
+    public void testWatch() throws IOException, InterruptedException {
+        Path file = createFile(DATA);
+        BlockingQueue<String> appended = new ArrayBlockingQueue<>(16);
+        try (TSDFileFollower follower = new TSDFileFollower(file, DATA.length())) {
+            follower.start(new TSDFileFollower.AppendListener() {
+                @Override
+                public void onAppend(String text, ColumnarDataSet rows) {
+                    appended.add(text);
+                }
+
+                @Override
+                public void onTruncated() {
+                }
+            });
+            append(file, "@c\tlabel1\t0,0.25\n");
+
+            assertEquals("@c\tlabel1\t0,0.25\n", appended.poll(30, TimeUnit.SECONDS));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static final class RecordingListener implements TSDFileFollower.AppendListener {
+
+        private final List<String> texts = new ArrayList<>();
+        private final List<ColumnarDataSet> rows = new ArrayList<>();
+        private boolean truncated;
+
+        @Override
+        public void onAppend(String text, ColumnarDataSet rows) {
+            this.texts.add(text);
+            this.rows.add(rows);
+        }
+
+        @Override
+        public void onTruncated() {
+            truncated = true;
+        }
+
+    }
+
+    private static Path createFile(String data) throws IOException {
+        Path file = Files.createTempFile("follower", ".tsd");
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void append(Path file, String data) throws IOException {
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+}
@@ -0,0 +1,177 @@
+package datavision.lib.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TSDValidatorTest {
+
+    /**
+     * Test that well-formed data passes both checks and that its lines and labels are counted.
+     */
+    @Test
+    public void testValidData() {
+        ValidationResult result = new TSDValidator().validate("@a\tlabel1\t1,2\n@b\tlabel2\t0.5,.25\n@c\tlabel1\t10,0\n");
+
+        assertTrue(result.isValid(true));
+        assertTrue(result.isValid(false));
+        assertEquals(3, result.getNumberOfLines());
+        assertEquals(Arrays.asList("label1", "label2"), Arrays.asList(result.getLabels().toArray()));
+    }
+
+    /**
+     * Test that every invalid line is reported with the column at which its error starts and the reason for it.
+     */
+    @Test
+    public void testErrorDetails() {
+        String data = "@a\tlabel\t1,2\n"
+                + "a\tlabel\t1,2\n"
+                + "@b\tlabel\n"
+                + "\n"
+                + "@c\tlabel\t1x5,2\n"
+                + "@d\tlabel\t1,2,3\n";
+        List<DataErrorCollector.DataError> errors = new TSDValidator().validate(data).getErrors(false).getErrors();
+
+        assertEquals(5, errors.size());
+        assertEquals(2, errors.get(0).getLine());
+        assertEquals(1, errors.get(0).getColumn());
+        assertEquals(TSDLineParser.NAME_ERROR, errors.get(0).getReason());
+        assertEquals(4, errors.get(1).getColumn());
+        assertEquals(TSDLineParser.FIELDS_ERROR, errors.get(1).getReason());
+        assertEquals(TSDValidator.EMPTY_LINE_ERROR, errors.get(2).getReason());
+        assertEquals(10, errors.get(3).getColumn());
+        assertEquals(TSDLineParser.LOCATION_ERROR, errors.get(3).getReason());
+        assertEquals(6, errors.get(4).getLine());
+        assertEquals(String.format(TSDLineParser.DIMENSION_ERROR_FORMAT, 2), errors.get(4).getReason());
+    }
+
+    /**
+     * Test that a corrupt input keeps no more errors than the capacity, while counting all of them.
+     */
+    @Test
+    public void testErrorCapacity() {
+        StringBuilder data = new StringBuilder();
+        for (int line = 0; line < 10000; line++)
+            data.append("corrupt line ").append(line).append('\n');
+        ValidationResult result = new TSDValidator(5).validate(data);
+
+        assertEquals(10000, result.getErrors(true).getTotalCount());
+        assertEquals(5, result.getErrors(true).getErrors().size());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), result.getMalformedLines());
+        assertFalse(result.isValid(false));
+    }
+
+    /**
+     * Test that lines lacking a field are malformed, and that lines with a bad location are only caught by the
+     * non-strict check.
+     */
+    @Test
+    public void testStrictAndNonStrictLines() {
+        String data = "@a\tlabel\t1,2\n"
+                + "a\tlabel\t1,2\n"
+                + "@b\tlabel\n"
+                + "@c\tlabel\t01,2\n"
+                + "@d\tlabel\t1x5,2\n"
+                + "@e\tlabel\t1.,2\n"
+                + "@\tlabel\t1,2\n";
+        ValidationResult result = new TSDValidator().validate(data);
+
+        assertEquals(Arrays.asList(2, 3, 7), result.getMalformedLines());
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7), result.getInvalidLines());
+        assertFalse(result.isValid(true));
+        assertFalse(result.isValid(false));
+    }
+
+    /**
+     * Test that locations may hold more than two coordinates, as long as every line has as many as the first valid
+     * one, and that locations with too few or too many of them are invalid.
+     */
+    @Test
+    public void testDimensions() {
+        StringBuilder tooMany = new StringBuilder("0");
+        for (int i = 0; i < CoordinateParser.MAX_DIMENSION; i++)
+            tooMany.append(",0");
+        String data = "@a\tlabel\tx\n"
+                + "@b\tlabel\t1,2,3\n"
+                + "@c\tlabel\t4,5\n"
+                + "@d\tlabel\t6,7,8.5\n"
+                + "@e\tlabel\t9\n"
+                + "@f\tlabel\t" + tooMany + "\n";
+        ValidationResult result = new TSDValidator().validate(data);
+
+        assertEquals(3, result.getDimension());
+        assertEquals(Arrays.asList(1, 3, 5, 6), result.getInvalidLines());
+        assertTrue(result.getMalformedLines().isEmpty());
+    }
+
+    /**
+     * Test that every line of a duplicated name is reported, and that invalid locations still count as uses of a name.
+     */
+    @Test
+    public void testDuplicateNames() {
+        String data = "@a\tlabel\t1,2\n@b\tlabel\t1,2\n@a\tlabel\t3,4\n@b\tlabel\tx,y\n@a\tlabel\t5,6\n";
+        ValidationResult result = new TSDValidator().validate(data);
+
+        assertTrue(result.hasDuplicateNames());
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(result.getDuplicateNames().keySet().toArray()));
+        assertEquals(Arrays.asList(1, 3, 5), result.getDuplicateNames().get("a"));
+        assertEquals(Arrays.asList(2, 4), result.getDuplicateNames().get("b"));
+        assertTrue(result.getMalformedLines().isEmpty());
+        assertFalse(result.isValid(true));
+    }
+
+    /**
+     * Test that only as many lines repeating a name are kept as there are errors kept, and that the others are counted.
+     */
+    @Test
+    public void testDuplicateNameCapacity() {
+        StringBuilder data = new StringBuilder("@b\tlabel\t0,0\n");
+        for (int i = 0; i < 10; i++)
+            data.append("@a\tlabel\t").append(i).append(",1\n");
+        data.append("@b\tlabel\t0,0\n");
+        ValidationResult result = new TSDValidator(3).validate(data);
+
+        assertEquals(Arrays.asList(2, 3, 4, 5), result.getDuplicateNames().get("a"));
+        assertFalse(result.getDuplicateNames().containsKey("b"));
+        assertEquals(10, result.getDuplicateCount());
+        assertEquals(7, result.getDroppedDuplicateCount());
+        assertTrue(result.hasDuplicateNames());
+        assertFalse(result.isValid(false));
+    }
+
+    /**
+     * Test that the <code>null</code> label is not counted, and that the labels of invalid lines are left out.
+     */
+    @Test
+    public void testLabels() {
+        String data = "@a\tnull\t1,2\n@b\tlabel1\t1,2\n@c\tlabel2\t1,y\n";
+        ValidationResult result = new TSDValidator().validate(data);
+
+        assertEquals(Collections.singleton("label1"), result.getLabels());
+    }
+
+    /**
+     * Test that carriage returns and trailing empty lines are ignored, while empty lines in between are malformed, as
+     * is empty data.
+     */
+    @Test
+    public void testLineEndings() {
+        TSDValidator validator = new TSDValidator();
+        ValidationResult windows = validator.validate("@a\tlabel\t1,2\r\n@b\tlabel\t3,4\r\n\r\n");
+        ValidationResult gaps = validator.validate("@a\tlabel\t1,2\n\n\n@b\tlabel\t3,4\n\n\n");
+        ValidationResult empty = validator.validate("");
+
+        assertEquals(Collections.singletonList(3), windows.getMalformedLines());
+        assertEquals(3, windows.getNumberOfLines());
+        List<Integer> emptyLines = Arrays.asList(2, 3);
+        assertEquals(emptyLines, gaps.getMalformedLines());
+        assertEquals(4, gaps.getNumberOfLines());
+        assertEquals(Collections.singletonList(1), empty.getMalformedLines());
+        assertEquals(1, empty.getNumberOfLines());
+    }
+
+}
@@ -0,0 +1,55 @@
+package datavision.lib.data;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TSDWriterTest {
+
+    /**
+     * Test that extreme coordinates and a negative zero are written in plain decimal notation and parse back to the
+     * very same bits.
+     */
+    @Test
+    public void testCoordinatesParseBackExactly() {
+        double[] values = {0, -0.0, 1, -1, 0.1, -2.5e-7, 1e15, 123456789012345678.0, Double.MIN_VALUE,
+                Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_NORMAL};
+        for (double value : values) {
+            String formatted = TSDWriter.formatCoordinate(value);
+            assertFalse(formatted, formatted.contains("E"));
+            double parsed = CoordinateParser.parseNumber(formatted, 0, formatted.length());
+            assertEquals(formatted, Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(parsed));
+        }
+        assertEquals("-0", TSDWriter.formatCoordinate(-0.0));
+    }
+
+    /**
+     * Test that a coordinate that is not finite is rejected rather than written.
+     */
+    @Test
+    public void testNonFiniteCoordinates() {
+        for (double value : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            try {
+                TSDWriter.formatCoordinate(value);
+                fail(Double.toString(value));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test that the lines of a dataset make up the same text as the one it is written as.
+     */
+    @Test
+    public void testLinesMatchWrittenText() throws TSDLineParser.InvalidLineException {
+        ColumnarDataSet dataSet = new ParallelTSDParser().parse("@a\tlabel1\t1,-0\n@b\tlabel2\t3.5,4\n");
+        TSDDocument.Lines lines = TSDWriter.lines(dataSet);
+
+        assertEquals(3, lines.getLineCount());
+        assertEquals("@a\tlabel1\t1,-0", lines.getLine(0));
+        assertEquals(TSDWriter.toTSDString(dataSet), new TSDDocument(lines).toString());
+    }
+
+}
@@ -0,0 +1,56 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class KMeansAlgorithmTest {
+
+    /**
+     * Test that the bounded algorithms assign every row to the same centroid as Lloyd's algorithm at every iteration,
+     * ties included, and therefore end with the same centroids and inertia, on a single thread or on a pool.
+     */
+    @Test
+    public void testSameOutcomeAsLloyd() {
+        // rows on a coarse grid, many of them repeated, so that a lot of rows lie as near to two centroids
+        Random random = new Random(3);
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        for (int i = 0; i < 20000; i++)
+            dataSet.addRow("@instance" + i, "null", new double[]{random.nextInt(12), random.nextInt(6), random.nextInt(3) * 0.5});
+        double[] initialCentroids = KMeansSeeding.RANDOM.chooseCentroids(dataSet, 6, 11, null);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            KMeansEngine lloyd = new KMeansEngine(dataSet, initialCentroids);
+            KMeansEngine[] bounded = {
+                    new KMeansEngine(dataSet, initialCentroids, KMeansAlgorithm.HAMERLY, null),
+                    new KMeansEngine(dataSet, initialCentroids, KMeansAlgorithm.ELKAN, null),
+                    new KMeansEngine(dataSet, initialCentroids, KMeansAlgorithm.HAMERLY, pool),
+                    new KMeansEngine(dataSet, initialCentroids, KMeansAlgorithm.ELKAN, pool)
+            };
+            boolean moved = true;
+            for (int iteration = 0; iteration < 100 && moved; iteration++) {
+                moved = lloyd.iterate();
+                for (KMeansEngine engine : bounded) {
+                    assertEquals(moved, engine.iterate());
+                    assertArrayEquals(lloyd.getCentroids(), engine.getCentroids(), 0);
+                    assertEquals(lloyd.getInertia(), engine.getInertia(), 0);
+                    for (int row = 0; row < dataSet.size(); row++)
+                        assertEquals(lloyd.getAssignment(row), engine.getAssignment(row));
+                }
+            }
+            assertFalse("k-means did not converge", moved);
+            for (KMeansEngine engine : bounded)
+                assertTrue(engine.getAlgorithm() + " measured as many distances as Lloyd's algorithm",
+                        engine.getDistanceCount() < lloyd.getDistanceCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
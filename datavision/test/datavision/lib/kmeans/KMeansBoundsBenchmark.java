@@ -0,0 +1,73 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the bounded k-means algorithms with Lloyd's: the wall time each takes to converge from the same first
+ * centroids, and the number of distances between a row and a centroid each measures on the way. Every algorithm is
+ * checked to end with the same centroids as Lloyd's.
+ * <p>
+ * Run it with the number of rows as its first argument, 1 million by default, and the number of clusters as its
+ * second one, 16 by default.
+ *
+ * @author Patrick Chan
+ */
+public final class KMeansBoundsBenchmark {
+
+    private static final int DIMENSION = 8;
+    private static final int MAX_ITERATIONS = 200;
+    private static final long SEED = 1;
+
+    public static void main(String[] args) {
+        int numberOfRows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int numberOfClusters = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        ColumnarDataSet dataSet = generate(numberOfRows, numberOfClusters);
+        double[] initialCentroids = KMeansSeeding.KMEANS_PLUS_PLUS.chooseCentroids(dataSet, numberOfClusters, SEED, null);
+
+        double[] expected = null;
+        double lloydTime = 0;
+        for (KMeansAlgorithm algorithm : KMeansAlgorithm.values()) {
+            KMeansEngine engine = new KMeansEngine(dataSet, initialCentroids, algorithm, null);
+            long start = System.nanoTime();
+            while (engine.iterate() && engine.getIterationCount() < MAX_ITERATIONS) ;
+            double time = seconds(System.nanoTime() - start);
+            if (expected == null) {
+                expected = engine.getCentroids();
+                lloydTime = time;
+            }
+            System.out.printf("%s: %d iterations in %.2f s, %.1f million distances (%.1f%% of the rows times the "
+                            + "clusters), speedup %.2f; same centroids: %b%n", algorithm, engine.getIterationCount(),
+                    time, engine.getDistanceCount() / 1e6,
+                    100.0 * engine.getDistanceCount() / engine.getIterationCount() / numberOfRows / numberOfClusters,
+                    lloydTime / time, Arrays.equals(expected, engine.getCentroids()));
+        }
+    }
+
+    /**
+     * Returns instances drawn around random centres, some of which lie close together.
+     */
+    private static ColumnarDataSet generate(int numberOfRows, int numberOfClusters) {
+        Random random = new Random(42);
+        double[] centres = new double[numberOfClusters * DIMENSION];
+        for (int i = 0; i < centres.length; i++)
+            centres[i] = random.nextDouble() * 100;
+        ColumnarDataSet dataSet = new ColumnarDataSet(numberOfRows);
+        dataSet.setDimension(DIMENSION);
+        double[] point = new double[DIMENSION];
+        for (int row = 0; row < numberOfRows; row++) {
+            int centre = random.nextInt(numberOfClusters) * DIMENSION;
+            for (int axis = 0; axis < DIMENSION; axis++)
+                point[axis] = centres[centre + axis] + random.nextGaussian() * 8;
+            dataSet.addRow("@" + row, "none", point);
+        }
+        return dataSet;
+    }
+
+    private static double seconds(long nanoseconds) {
+        return nanoseconds / 1e9;
+    }
+
+}
@@ -0,0 +1,102 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.lib.data.ColumnStorage;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class KMeansEngineTest {
+
+    /**
+     * Test that the engine moves the centroids to the means of two groups, assigns every row to the group it belongs
+     * to, and reports that the centroids no longer move once it has converged.
+     */
+    @Test
+    public void testConvergesToMeans() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.addRow("@a", "null", 0, 0);
+        dataSet.addRow("@b", "null", 2, 0);
+        dataSet.addRow("@c", "null", 10, 10);
+        dataSet.addRow("@d", "null", 10, 14);
+        KMeansEngine engine = new KMeansEngine(dataSet, new double[]{0, 0, 2, 0});
+
+        int iterations = 0;
+        while (engine.iterate())
+            iterations++;
+
+        assertTrue(iterations > 0);
+        assertArrayEquals(new double[]{1, 0, 10, 12}, engine.getCentroids(), 0);
+        assertEquals(0, engine.getAssignment(1));
+        assertEquals(1, engine.getAssignment(2));
+        assertEquals(1 + 1 + 4 + 4, engine.getInertia(), 1e-9);
+    }
+
+    /**
+     * Test that running the blocks of rows on pools of any size gives the same centroids, down to the last bit, and
+     * the same assignments as running them on the calling thread.
+     */
+    @Test
+    public void testParallelIterationsAreDeterministic() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        dataSet.setDimension(3);
+        for (int i = 0; i < 30000; i++)
+            dataSet.addRow("@instance" + i, "null", new double[]{Math.sin(i) * 10, Math.cos(i * 0.7) * 3, i % 11 * 0.1});
+        double[] initialCentroids = {0, 0, 0, 5, 1, 0.5, -5, -1, 1};
+
+        KMeansEngine serial = new KMeansEngine(dataSet, initialCentroids);
+        for (int i = 0; i < 10; i++)
+            serial.iterate();
+        for (int threads = 1; threads <= 4; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                KMeansEngine parallel = new KMeansEngine(dataSet, initialCentroids, pool);
+                for (int i = 0; i < 10; i++)
+                    parallel.iterate();
+                assertArrayEquals(serial.getCentroids(), parallel.getCentroids(), 0);
+                assertEquals(serial.getInertia(), parallel.getInertia(), 0);
+                for (int row = 0; row < dataSet.size(); row++)
+                    assertEquals(serial.getAssignment(row), parallel.getAssignment(row));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Test that once the engine is created, iterating does not allocate anything, whether the dataset is held on the
+     * heap or off it.
+     */
+    @Test
+    public void testIterationsAllocateNothing() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return;
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported())
+            return;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        for (ColumnStorage storage : new ColumnStorage[]{ColumnStorage.HEAP, ColumnStorage.MAPPED}) {
+            ColumnarDataSet dataSet = new ColumnarDataSet(storage);
+            dataSet.setDimension(3);
+            for (int i = 0; i < 1000; i++)
+                dataSet.addRow("@instance" + i, "null", new double[]{i % 10, i % 7, i % 3});
+            KMeansEngine engine = new KMeansEngine(dataSet, new double[]{0, 0, 0, 5, 5, 1, 9, 6, 2});
+            for (int i = 0; i < 20; i++)
+                engine.iterate();
+
+            long before = allocations.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 100; i++)
+                engine.iterate();
+            long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+            assertTrue(storage + " iterations allocated " + allocated + " bytes", allocated < 1024);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+import datavision.lib.data.ColumnStorage;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how the k-means iterations of a {@link KMeansEngine} scale with the number of threads, from a single one
+ * up to every available core. Every run starts from the same centroids, and is checked to end with the same
+ * centroids as the run on the calling thread.
+ * <p>
+ * Run it with the number of rows as its first argument, 2 million by default, and the dimension as its second one, 8
+ * by default.
+ *
+ * @author Patrick Chan
+ */
+public final class KMeansScalingBenchmark {
+
+    private static final int CLUSTERS = 8;
+    private static final int ITERATIONS = 20;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int numberOfRows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ColumnarDataSet dataSet = generate(numberOfRows, dimension);
+        double[] initialCentroids = new double[CLUSTERS * dimension];
+        for (int cluster = 0; cluster < CLUSTERS; cluster++)
+            dataSet.getPoint(cluster, initialCentroids, cluster * dimension);
+
+        double[] expected = null;
+        double serialTime = 0;
+        // the calling thread first, then pools of 1, 2, 4... threads up to every core
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 0; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(maxThreads, Math.max(1, threads * 2))) {
+            ForkJoinPool pool = threads == 0 ? null : new ForkJoinPool(threads);
+            try {
+                double best = Double.POSITIVE_INFINITY;
+                double[] centroids = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                    KMeansEngine engine = new KMeansEngine(dataSet, initialCentroids, pool);
+                    long start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++)
+                        engine.iterate();
+                    best = Math.min(best, seconds(System.nanoTime() - start) / ITERATIONS);
+                    centroids = engine.getCentroids();
+                }
+                if (expected == null) {
+                    expected = centroids;
+                    serialTime = best;
+                }
+                System.out.printf("%s: %.1f ms per iteration, %.0f million rows/s, speedup %.2f; same centroids: %b%n",
+                        threads == 0 ? "calling thread" : threads + " threads", best * 1e3,
+                        numberOfRows / best / 1e6, serialTime / best, Arrays.equals(expected, centroids));
+            } finally {
+                if (pool != null)
+                    pool.shutdown();
+            }
+        }
+    }
+
+    private static ColumnarDataSet generate(int numberOfRows, int dimension) {
+        Random random = new Random(42);
+        ColumnarDataSet dataSet = new ColumnarDataSet(numberOfRows, ColumnStorage.HEAP);
+        dataSet.setDimension(dimension);
+        double[] point = new double[dimension];
+        for (int row = 0; row < numberOfRows; row++) {
+            int group = random.nextInt(CLUSTERS);
+            for (int axis = 0; axis < dimension; axis++)
+                point[axis] = group * 10 + random.nextGaussian() * 4;
+            dataSet.addRow("@" + row, "none", point);
+        }
+        return dataSet;
+    }
+
+    private static double seconds(long nanoseconds) {
+        return nanoseconds / 1e9;
+    }
+
+}
@@ -0,0 +1,66 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+
+import java.util.Random;
+
+/**
+ * Compares how the first centroids chosen by every {@link KMeansSeeding} affect k-means: the time it takes to choose
+ * them, the number of iterations it then takes to converge, and the inertia it converges to. Every strategy is run
+ * from the same seeds, so that the figures can be compared from one run of the benchmark to the next.
+ * <p>
+ * Run it with the number of rows as its first argument, 200 thousand by default, and the number of clusters as its
+ * second one, 8 by default.
+ *
+ * @author Patrick Chan
+ */
+public final class KMeansSeedingBenchmark {
+
+    private static final int DIMENSION = 4;
+    private static final int SEEDS = 10;
+    private static final int MAX_ITERATIONS = 500;
+
+    public static void main(String[] args) {
+        int numberOfRows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int numberOfClusters = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ColumnarDataSet dataSet = generate(numberOfRows, numberOfClusters);
+
+        for (KMeansSeeding seeding : KMeansSeeding.values()) {
+            long seedingTime = 0;
+            long iterations = 0;
+            double inertia = 0;
+            for (long seed = 1; seed <= SEEDS; seed++) {
+                long start = System.nanoTime();
+                double[] centroids = seeding.chooseCentroids(dataSet, numberOfClusters, seed, null);
+                seedingTime += System.nanoTime() - start;
+                KMeansEngine engine = new KMeansEngine(dataSet, centroids);
+                while (engine.iterate() && engine.getIterationCount() < MAX_ITERATIONS) ;
+                iterations += engine.getIterationCount();
+                inertia += engine.getInertia();
+            }
+            System.out.printf("%s: seeding %.1f ms, %.1f iterations to converge, inertia %.4g (averages over %d seeds)%n",
+                    seeding, seedingTime / 1e6 / SEEDS, (double) iterations / SEEDS, inertia / SEEDS, SEEDS);
+        }
+    }
+
+    /**
+     * Returns instances drawn around random centres, some of which lie close together.
+     */
+    private static ColumnarDataSet generate(int numberOfRows, int numberOfClusters) {
+        Random random = new Random(42);
+        double[] centres = new double[numberOfClusters * DIMENSION];
+        for (int i = 0; i < centres.length; i++)
+            centres[i] = random.nextDouble() * 100;
+        ColumnarDataSet dataSet = new ColumnarDataSet(numberOfRows);
+        dataSet.setDimension(DIMENSION);
+        double[] point = new double[DIMENSION];
+        for (int row = 0; row < numberOfRows; row++) {
+            int centre = random.nextInt(numberOfClusters) * DIMENSION;
+            for (int axis = 0; axis < DIMENSION; axis++)
+                point[axis] = centres[centre + axis] + random.nextGaussian() * 4;
+            dataSet.addRow("@" + row, "none", point);
+        }
+        return dataSet;
+    }
+
+}
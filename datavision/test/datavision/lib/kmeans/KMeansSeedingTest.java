@@ -0,0 +1,98 @@
+package datavision.lib.kmeans;
+
+import datavision.algorithms.ColumnarDataSet;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class KMeansSeedingTest {
+
+    private static final int GROUPS = 4;
+
+    /**
+     * Test that every strategy chooses the same centroids from the same seed, and that k-means|| does so whether its
+     * passes run on a pool or on the calling thread.
+     */
+    @Test
+    public void testSeedIsReproducible() {
+        ColumnarDataSet dataSet = groups(20000);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (KMeansSeeding seeding : KMeansSeeding.values()) {
+                double[] centroids = seeding.chooseCentroids(dataSet, GROUPS, 7, null);
+                assertEquals(GROUPS * 2, centroids.length);
+                assertArrayEquals(centroids, seeding.chooseCentroids(dataSet, GROUPS, 7, null), 0);
+                assertArrayEquals(centroids, seeding.chooseCentroids(dataSet, GROUPS, 7, pool), 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that k-means++ and k-means|| put a centroid in each of a few groups that lie far apart, whatever the seed.
+     */
+    @Test
+    public void testSpreadsCentroidsOverGroups() {
+        ColumnarDataSet dataSet = groups(2000);
+        for (KMeansSeeding seeding : new KMeansSeeding[]{KMeansSeeding.KMEANS_PLUS_PLUS, KMeansSeeding.KMEANS_PARALLEL}) {
+            for (long seed = 0; seed < 20; seed++) {
+                double[] centroids = seeding.chooseCentroids(dataSet, GROUPS, seed, null);
+                boolean[] covered = new boolean[GROUPS];
+                for (int cluster = 0; cluster < GROUPS; cluster++)
+                    covered[(int) Math.round(centroids[cluster * 2] / 1000)] = true;
+                for (int group = 0; group < GROUPS; group++)
+                    assertTrue(seeding + " with seed " + seed + " missed group " + group, covered[group]);
+            }
+        }
+    }
+
+    /**
+     * Test that k-means|| still chooses as many centroids as asked for when every instance lies at the same place.
+     */
+    @Test
+    public void testIdenticalInstances() {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        for (int i = 0; i < 10; i++)
+            dataSet.addRow("@instance" + i, "null", 1, 2);
+        double[] centroids = KMeansSeeding.KMEANS_PARALLEL.chooseCentroids(dataSet, 3, 1, null);
+        assertArrayEquals(new double[]{1, 2, 1, 2, 1, 2}, centroids, 0);
+    }
+
+    /**
+     * Test that without a pool, every pass of k-means|| reads the instances on the calling thread only, rather than
+     * forking onto the common pool.
+     */
+    @Test
+    public void testNoPoolStaysOnCallingThread() {
+        Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        ColumnarDataSet dataSet = new ColumnarDataSet() {
+            @Override
+            public void getPoint(int row, double[] destination) {
+                threads.add(Thread.currentThread());
+                super.getPoint(row, destination);
+            }
+        };
+        for (int i = 0; i < 20000; i++)
+            dataSet.addRow("@instance" + i, "null", i % GROUPS * 1000 + Math.sin(i) * 5, Math.cos(i) * 5);
+        KMeansSeeding.KMEANS_PARALLEL.chooseCentroids(dataSet, GROUPS, 3, null);
+
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    /**
+     * Returns instances spread evenly over groups lying 1000 apart along the first axis.
+     */
+    private static ColumnarDataSet groups(int size) {
+        ColumnarDataSet dataSet = new ColumnarDataSet();
+        for (int i = 0; i < size; i++)
+            dataSet.addRow("@instance" + i, "null", i % GROUPS * 1000 + Math.sin(i) * 5, Math.cos(i) * 5);
+        return dataSet;
+    }
+
+}
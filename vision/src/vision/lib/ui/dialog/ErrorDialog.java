@@ -1,8 +1,15 @@
 package vision.lib.ui.dialog;
 
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
-    
+import vision.utils.propertymanager.PropertyManager;
+import vision.utils.settings.AppSettings;
+
+import java.util.Collections;
+import java.util.List;
+
 /**
  * This class allows users of the Vision framework to displays a dialog informing the user of an
  * error. Portions of this class were inspired by Professor Banerjee.
@@ -11,6 +18,8 @@ import javafx.stage.Stage;
  */
 public class ErrorDialog extends InformativeDialog {
 
+    private List<String> details;
+
     /**
      * Creates an instance of the ErrorDialog class that takes a {@link Stage} parameter which specifies the parent of
      * this dialog, a {@link String} parameter which specifies the title of this dialog, and a {@link String}
@@ -21,11 +30,44 @@ public class ErrorDialog extends InformativeDialog {
      * @param message The message for this dialog as a {@link String}
      */
     public ErrorDialog(Stage owner, String title, String message) {
+        this(owner, title, message, Collections.emptyList());
+    }
+
+    /**
+     * Creates an instance of the ErrorDialog class whose message only summarizes the error, along with a button that
+     * opens an {@link ErrorListDialog} paging through the given details.
+     *
+     * @param owner The {@link Stage} for this dialog
+     * @param title The title of this dialog as a {@link String}
+     * @param message The summary of the error as a {@link String}
+     * @param details The details of the error, one {@link String} per line of the list
+     */
+    public ErrorDialog(Stage owner, String title, String message, List<String> details) {
+        this.details = details;
         setTitle(title);
         setErrorMessage(message);
         init(owner);
     }
 
+    /**
+     * Completely initialize the dialog, adding the button that opens the details, if there are any.
+     *
+     * @param owner The {@link Stage} for this dialog
+     */
+    @Override
+    protected void init(Stage owner) {
+        super.init(owner);
+        if (details.isEmpty())
+            return;
+
+        String detailsButtonText = PropertyManager.getManager().getPropertyValue(AppSettings.DETAILS_LABEL.name());
+        Button detailsButton = new Button(detailsButtonText);
+        detailsButton.setOnAction(e -> new ErrorListDialog(this, getTitle(), details).showAndWait());
+        Pane messagePane = (Pane) getScene().getRoot();
+        // right after the message, ahead of the button that closes the dialog
+        messagePane.getChildren().add(1, detailsButton);
+    }
+
     /**
      * Set the error message
      *
@@ -0,0 +1,71 @@
+package vision.lib.ui.dialog;
+
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Pagination;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import vision.utils.propertymanager.PropertyManager;
+import vision.utils.settings.AppSettings;
+
+import java.util.List;
+
+/**
+ * This class allows users of the Vision framework to display a long list of errors, a page at a time, so that only the
+ * errors of the page being looked at are ever laid out.
+ *
+ * @author Patrick Chan
+ */
+public class ErrorListDialog extends Dialog {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final List<String> errors;
+
+    /**
+     * Creates an instance of the ErrorListDialog class.
+     *
+     * @param owner The {@link Stage} for this dialog
+     * @param title The title of this dialog as a {@link String}
+     * @param errors The errors to list, one {@link String} each
+     */
+    public ErrorListDialog(Stage owner, String title, List<String> errors) {
+        this.errors = errors;
+        setTitle(title);
+        init(owner);
+    }
+
+    /**
+     * Completely initialize the dialog.
+     *
+     * @param owner The {@link Stage} for this dialog
+     */
+    @Override
+    protected void init(Stage owner) {
+        initModality(Modality.WINDOW_MODAL);
+        initOwner(owner);
+
+        int pageCount = Math.max(1, (errors.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        Pagination pagination = new Pagination(pageCount, 0);
+        pagination.setPageFactory(page -> {
+            int from = page * PAGE_SIZE;
+            int to = Math.min(errors.size(), from + PAGE_SIZE);
+            return new ListView<>(FXCollections.observableArrayList(errors.subList(from, to)));
+        });
+
+        PropertyManager manager = PropertyManager.getManager();
+        Button closeButton = new Button(manager.getPropertyValue(AppSettings.OK_LABEL.name()));
+        closeButton.setOnAction(e -> this.close());
+
+        VBox listPane = new VBox(20, pagination, closeButton);
+        listPane.setAlignment(Pos.CENTER);
+        listPane.setPadding(new Insets(20));
+        this.setScene(new Scene(listPane, 640, 480));
+    }
+
+}
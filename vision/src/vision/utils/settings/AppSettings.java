@@ -44,6 +44,7 @@ public enum AppSettings {
 
     SAVE_WORK_TITLE,
     LOAD_WORK_TITLE,
-    OK_LABEL;
+    OK_LABEL,
+    DETAILS_LABEL;
     
 }